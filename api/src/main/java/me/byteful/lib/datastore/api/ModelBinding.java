@@ -0,0 +1,63 @@
+package me.byteful.lib.datastore.api;
+
+import me.byteful.lib.datastore.api.data.StoredGroup;
+import me.byteful.lib.datastore.api.model.Model;
+import me.byteful.lib.datastore.api.model.ModelStructure;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+// Everything the stores look up per model class, resolved once by ModelManager so hot paths
+// read a field instead of reflecting on the annotation or hashing into the registry.
+public final class ModelBinding {
+  @NotNull
+  private final Class<?> type;
+  @NotNull
+  private final String group;
+  // Replaced when a structure is registered after the binding was first resolved.
+  @Nullable
+  private volatile ModelStructure<?> structure;
+
+  ModelBinding(@NotNull Class<?> type, @Nullable ModelStructure<?> structure) {
+    this.type = type;
+    this.group = resolveGroup(type);
+    this.structure = structure;
+  }
+
+  @NotNull
+  public Class<?> getType() {
+    return type;
+  }
+
+  @NotNull
+  public String getGroup() {
+    return group;
+  }
+
+  @Nullable
+  public <T extends Model> ModelStructure<T> getStructure() {
+    return (ModelStructure<T>) structure;
+  }
+
+  void setStructure(@NotNull ModelStructure<?> structure) {
+    this.structure = structure;
+  }
+
+  @NotNull
+  private static String resolveGroup(@NotNull Class<?> type) {
+    final StoredGroup group = type.getAnnotation(StoredGroup.class);
+
+    if (group != null) {
+      return group.value();
+    }
+
+    // Printed once per class now that the group is resolved once.
+    System.out.println(
+      "[WARNING] DataStore detected a class ("
+        + type.getName()
+        + ") that has no "
+        + StoredGroup.class.getSimpleName()
+        + " annotation! Using group 'default' instead...");
+
+    return "default";
+  }
+}
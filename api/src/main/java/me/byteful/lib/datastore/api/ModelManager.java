@@ -5,20 +5,36 @@ import me.byteful.lib.datastore.api.model.ModelStructure;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public final class ModelManager {
   @NotNull
   private static final Map<Class<? extends Model>, ModelStructure<?>> mappedModels =
-    new HashMap<>();
+    new ConcurrentHashMap<>();
+  @NotNull
+  private static final ClassValue<ModelBinding> bindings =
+    new ClassValue<ModelBinding>() {
+      @Override
+      protected ModelBinding computeValue(Class<?> type) {
+        return new ModelBinding(type, mappedModels.get(type));
+      }
+    };
 
-  public static void registerModelStructure(@NotNull ModelStructure<?> structure) {
+  // Synchronized so concurrent registrations of one type leave the map and binding agreeing.
+  public static synchronized void registerModelStructure(@NotNull ModelStructure<?> structure) {
+    // Put first, so a binding resolved concurrently either sees it or is updated here.
     mappedModels.put(structure.getModelType(), structure);
+    bindings.get(structure.getModelType()).setStructure(structure);
   }
 
   @Nullable
   public static <T extends Model> ModelStructure<T> getStructureFromClass(@NotNull Class<T> type) {
-    return (ModelStructure<T>) mappedModels.get(type);
+    return bindings.get(type).getStructure();
+  }
+
+  @NotNull
+  public static ModelBinding getBinding(@NotNull Class<?> type) {
+    return bindings.get(type);
   }
 }
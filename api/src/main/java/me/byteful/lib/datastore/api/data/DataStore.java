@@ -1,24 +1,149 @@
 package me.byteful.lib.datastore.api.data;
 
 import me.byteful.lib.datastore.api.ModelManager;
+import me.byteful.lib.datastore.api.data.async.AsyncDataStore;
+import me.byteful.lib.datastore.api.data.async.DataStoreExecutors;
+import me.byteful.lib.datastore.api.data.async.ExecutorAsyncDataStore;
+import me.byteful.lib.datastore.api.data.internal.Values;
 import me.byteful.lib.datastore.api.model.Model;
 import me.byteful.lib.datastore.api.model.ModelId;
 import me.byteful.lib.datastore.api.model.ModelStructure;
+import me.byteful.lib.datastore.api.model.ModelSink;
 import me.byteful.lib.datastore.api.model.ProcessedModel;
+import me.byteful.lib.datastore.api.model.ProcessedModelField;
+import me.byteful.lib.datastore.api.model.StorageType;
+import me.byteful.lib.datastore.api.model.impl.JSONProcessedModel;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 public interface DataStore extends AutoCloseable {
   @NotNull <T extends Model> Optional<T> get(
     @NotNull Class<T> type, @NotNull ModelId id, @NotNull ModelId... ids);
 
+  // Partial read of the first model matching the ids: only the named fields are fetched and
+  // nothing is deserialized into a model instance.
+  @NotNull
+  default Optional<ProcessedModel> getFields(
+    @NotNull Class<? extends Model> type,
+    @NotNull Set<String> fields,
+    @NotNull ModelId id,
+    @NotNull ModelId... ids) {
+    return get(type, id, ids)
+      .map(
+        model -> {
+          final ProcessedModel full = serializeModel(model);
+          final ProcessedModel partial = new JSONProcessedModel();
+          for (String field : fields) {
+            full.getField(field).ifPresent(partial::append);
+          }
+
+          return partial;
+        });
+  }
+
   @NotNull <T extends Model> List<T> getAll(@NotNull Class<T> type, @NotNull ModelId... ids);
 
+  // The returned stream may hold a connection or cursor open; close it when done.
+  @NotNull
+  default <T extends Model> Stream<T> stream(@NotNull Class<T> type, @NotNull ModelId... ids) {
+    return getAll(type, ids).stream();
+  }
+
+  // Fallback that loads and sorts the whole group in the order the in-memory stores use;
+  // backends override this with real keyset queries.
+  @NotNull
+  default <T extends Model> Page<T> getPage(
+    @NotNull Class<T> type, @NotNull PageRequest request, @NotNull ModelId... ids) {
+    final String sortKey = request.getSortKey();
+    final List<Map.Entry<Object, T>> sorted = new ArrayList<>();
+    StorageType afterStorage = null;
+    Object after = null;
+    for (T model : getAll(type, ids)) {
+      final ProcessedModelField field = serializeModel(model).getFieldNullable(sortKey);
+      if (field == null) {
+        continue;
+      }
+
+      final StorageType storage =
+        field.storageType() == null ? StorageType.JSON : field.storageType();
+      final Object value = Values.canonical(storage, field.value());
+      if (value == null) {
+        continue;
+      }
+
+      if (request.getAfter() != null && storage != afterStorage) {
+        afterStorage = storage;
+        after = Values.canonical(storage, request.getAfter());
+      }
+
+      if (after == null || Values.compare(value, after) > 0) {
+        sorted.add(new AbstractMap.SimpleImmutableEntry<>(value, model));
+      }
+    }
+
+    sorted.sort((a, b) -> Values.compare(a.getKey(), b.getKey()));
+
+    final List<T> items = new ArrayList<>();
+    for (int i = 0; i < Math.min(request.getLimit(), sorted.size()); i++) {
+      items.add(sorted.get(i).getValue());
+    }
+
+    // The token carries the stored text, which the sorted value may no longer match exactly.
+    return new Page<>(
+      items,
+      sorted.size() > request.getLimit()
+        ? PageRequest.token(
+          sortKey,
+          Objects.requireNonNull(
+            serializeModel(items.get(items.size() - 1)).getFieldNullable(sortKey)).value())
+        : null);
+  }
+
+  @NotNull
+  default <T extends Model> Map<ModelId, T> getMany(
+    @NotNull Class<T> type, @NotNull Collection<? extends ModelId> ids) {
+    final Map<ModelId, T> map = new LinkedHashMap<>();
+    for (ModelId id : ids) {
+      get(type, id).ifPresent(model -> map.put(id, model));
+    }
+
+    return map;
+  }
+
   void set(@NotNull ModelId id, @NotNull Model model);
 
+  // Reports whether the models were stored, like commit(). This fallback can't tell, since
+  // set() only logs failures; backends override it to report errors they catch.
+  default boolean setAll(@NotNull Map<? extends ModelId, ? extends Model> models) {
+    models.forEach(this::set);
+
+    return true;
+  }
+
+  default boolean setAll(
+    @NotNull Collection<? extends Map.Entry<? extends ModelId, ? extends Model>> models) {
+    final Map<ModelId, Model> map = new LinkedHashMap<>();
+    for (Map.Entry<? extends ModelId, ? extends Model> entry : models) {
+      map.put(entry.getKey(), entry.getValue());
+    }
+
+    return setAll(map);
+  }
+
   boolean exists(
     @NotNull Class<? extends Model> type, @NotNull ModelId id, @NotNull ModelId... ids);
 
@@ -26,6 +151,44 @@ public interface DataStore extends AutoCloseable {
 
   void clear(@NotNull Class<? extends Model> type);
 
+  // Writes every operation of the transaction in order and reports whether they were stored.
+  // This fallback applies them one at a time with no atomicity; backends override it to use a
+  // single database transaction.
+  default boolean commit(@NotNull DataStoreTransaction transaction) {
+    for (DataStoreTransaction.Operation operation : transaction.getOperations()) {
+      if (operation.isDelete()) {
+        final ModelId[] ids = operation.getIds();
+        delete(operation.getType(), ids[0], Arrays.copyOfRange(ids, 1, ids.length));
+      } else {
+        set(operation.getId(), operation.getModel());
+      }
+    }
+
+    return true;
+  }
+
+  // The consumer records writes on the calling thread; they are committed once it returns.
+  // Nothing is written if it throws.
+  default boolean inTransaction(@NotNull Consumer<DataStoreTransaction> work) {
+    final DataStoreTransaction transaction = new DataStoreTransaction();
+    work.accept(transaction);
+
+    return commit(transaction);
+  }
+
+  @NotNull
+  default AsyncDataStore async(@NotNull Executor executor) {
+    return new ExecutorAsyncDataStore(this, executor);
+  }
+
+  @NotNull
+  default AsyncDataStore async() {
+    return new ExecutorAsyncDataStore(
+      this,
+      DataStoreExecutors.virtualThreadsOrBounded(Runtime.getRuntime().availableProcessors() * 2),
+      true);
+  }
+
   @NotNull
   default ProcessedModel serializeModel(@NotNull Model model) {
     final ModelStructure<Model> structure =
@@ -41,6 +204,20 @@ public interface DataStore extends AutoCloseable {
     return structure.serialize(model);
   }
 
+  default void writeModel(@NotNull Model model, @NotNull ModelSink sink) {
+    final ModelStructure<Model> structure =
+      ModelManager.getStructureFromClass((Class<Model>) model.getClass());
+
+    if (structure == null) {
+      throw new RuntimeException(
+        "Model structure for model type ("
+          + model.getClass().getName()
+          + ") was not registered! Please use ModelManager to register structures for models.");
+    }
+
+    structure.write(model, sink);
+  }
+
   @NotNull
   default <T extends Model> T deserializeModel(
     @NotNull Class<T> type, @NotNull ProcessedModel processed) {
@@ -70,19 +247,6 @@ public interface DataStore extends AutoCloseable {
 
   @NotNull
   default String getStoredGroup(@NotNull Class<?> type) {
-    final StoredGroup group = type.getAnnotation(StoredGroup.class);
-
-    if (group != null) {
-      return group.value();
-    } else {
-      System.out.println(
-        "[WARNING] DataStore detected a class ("
-          + type.getName()
-          + ") that has no "
-          + StoredGroup.class.getSimpleName()
-          + " annotation! Using group 'default' instead...");
-
-      return "default";
-    }
+    return ModelManager.getBinding(type).getGroup();
   }
 }
@@ -0,0 +1,85 @@
+package me.byteful.lib.datastore.api.data;
+
+import me.byteful.lib.datastore.api.data.metrics.DataStoreMetrics;
+import org.jetbrains.annotations.NotNull;
+
+public class DataStoreOptions {
+  public static final int DEFAULT_BATCH_SIZE = 500;
+  public static final int DEFAULT_LOOKUP_CHUNK_SIZE = 500;
+  public static final int DEFAULT_FETCH_SIZE = 1_000;
+
+  private volatile int batchSize = DEFAULT_BATCH_SIZE;
+  private volatile int lookupChunkSize = DEFAULT_LOOKUP_CHUNK_SIZE;
+  private volatile int fetchSize = DEFAULT_FETCH_SIZE;
+  private volatile boolean schemaManagedExternally = false;
+  @NotNull
+  private volatile DataStoreMetrics metrics = DataStoreMetrics.NOOP;
+
+  public int getBatchSize() {
+    return batchSize;
+  }
+
+  @NotNull
+  public DataStoreOptions setBatchSize(int batchSize) {
+    this.batchSize = requirePositive("Batch size", batchSize);
+
+    return this;
+  }
+
+  public int getLookupChunkSize() {
+    return lookupChunkSize;
+  }
+
+  @NotNull
+  public DataStoreOptions setLookupChunkSize(int lookupChunkSize) {
+    this.lookupChunkSize = requirePositive("Lookup chunk size", lookupChunkSize);
+
+    return this;
+  }
+
+  public int getFetchSize() {
+    return fetchSize;
+  }
+
+  // Rows (or documents) pulled per round trip while iterating DataStore#stream.
+  @NotNull
+  public DataStoreOptions setFetchSize(int fetchSize) {
+    this.fetchSize = requirePositive("Fetch size", fetchSize);
+
+    return this;
+  }
+
+  public boolean isSchemaManagedExternally() {
+    return schemaManagedExternally;
+  }
+
+  // When enabled, stores assume every table, column and index already exists and never
+  // probe for or create them.
+  @NotNull
+  public DataStoreOptions setSchemaManagedExternally(boolean schemaManagedExternally) {
+    this.schemaManagedExternally = schemaManagedExternally;
+
+    return this;
+  }
+
+  @NotNull
+  public DataStoreMetrics getMetrics() {
+    return metrics;
+  }
+
+  // Where the backend reports what only it can see; see DataStoreMetrics.
+  @NotNull
+  public DataStoreOptions setMetrics(@NotNull DataStoreMetrics metrics) {
+    this.metrics = metrics;
+
+    return this;
+  }
+
+  private static int requirePositive(@NotNull String name, int value) {
+    if (value < 1) {
+      throw new IllegalArgumentException(name + " must be at least 1, got " + value);
+    }
+
+    return value;
+  }
+}
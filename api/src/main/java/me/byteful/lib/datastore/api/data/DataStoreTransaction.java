@@ -0,0 +1,128 @@
+package me.byteful.lib.datastore.api.data;
+
+import me.byteful.lib.datastore.api.model.Model;
+import me.byteful.lib.datastore.api.model.ModelId;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+// Unit of work handed to DataStore#commit: writes are recorded in order and only reach the
+// store once it is committed, all in one transaction where the backend supports it. Models are
+// held by reference, so in-place changes made before the commit are included in the write.
+public final class DataStoreTransaction {
+  private final List<Operation> operations = new ArrayList<>();
+
+  @NotNull
+  public DataStoreTransaction set(@NotNull ModelId id, @NotNull Model model) {
+    operations.add(new Operation(id, model, null, null));
+
+    return this;
+  }
+
+  @NotNull
+  public DataStoreTransaction setAll(@NotNull Map<? extends ModelId, ? extends Model> models) {
+    models.forEach(this::set);
+
+    return this;
+  }
+
+  @NotNull
+  public DataStoreTransaction delete(
+    @NotNull Class<? extends Model> type, @NotNull ModelId id, @NotNull ModelId... ids) {
+    final ModelId[] compiled = new ModelId[1 + ids.length];
+    compiled[0] = id;
+    System.arraycopy(ids, 0, compiled, 1, ids.length);
+    operations.add(new Operation(null, null, type, compiled));
+
+    return this;
+  }
+
+  @NotNull
+  public List<Operation> getOperations() {
+    return Collections.unmodifiableList(operations);
+  }
+
+  public boolean isEmpty() {
+    return operations.isEmpty();
+  }
+
+  public int size() {
+    return operations.size();
+  }
+
+  public static final class Operation {
+    @Nullable
+    private final ModelId id;
+    @Nullable
+    private final Model model;
+    @Nullable
+    private final Class<? extends Model> type;
+    @Nullable
+    private final ModelId[] ids;
+
+    private Operation(
+      @Nullable ModelId id,
+      @Nullable Model model,
+      @Nullable Class<? extends Model> type,
+      @Nullable ModelId[] ids) {
+      this.id = id;
+      this.model = model;
+      this.type = type;
+      this.ids = ids;
+    }
+
+    public boolean isDelete() {
+      return model == null;
+    }
+
+    // Set only: the id the model is stored under.
+    @NotNull
+    public ModelId getId() {
+      if (id == null) {
+        throw new IllegalStateException("A delete has no single model id, use getIds()");
+      }
+
+      return id;
+    }
+
+    @NotNull
+    public Model getModel() {
+      if (model == null) {
+        throw new IllegalStateException("A delete has no model");
+      }
+
+      return model;
+    }
+
+    // Delete only: the model type and every id the deleted model has to match.
+    @NotNull
+    public Class<? extends Model> getType() {
+      if (type == null) {
+        throw new IllegalStateException("A set has no delete type, use getModel()");
+      }
+
+      return type;
+    }
+
+    @NotNull
+    public ModelId[] getIds() {
+      if (ids == null) {
+        throw new IllegalStateException("A set has no delete ids, use getId()");
+      }
+
+      return ids.clone();
+    }
+
+    @Override
+    public String toString() {
+      return isDelete()
+        ? "Operation{delete " + type.getName() + " " + Arrays.toString(ids) + '}'
+        : "Operation{set " + id + " " + model + '}';
+    }
+  }
+}
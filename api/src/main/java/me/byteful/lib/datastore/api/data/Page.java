@@ -0,0 +1,47 @@
+package me.byteful.lib.datastore.api.data;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+public final class Page<T> {
+  @NotNull
+  private final List<T> items;
+  @Nullable
+  private final String nextToken;
+
+  public Page(@NotNull List<T> items, @Nullable String nextToken) {
+    this.items = Collections.unmodifiableList(items);
+    this.nextToken = nextToken;
+  }
+
+  @NotNull
+  public List<T> getItems() {
+    return items;
+  }
+
+  // Opaque continuation token, present only when more models follow this page.
+  @NotNull
+  public Optional<String> getNextToken() {
+    return Optional.ofNullable(nextToken);
+  }
+
+  public boolean hasNext() {
+    return nextToken != null;
+  }
+
+  @NotNull
+  public Optional<PageRequest> next(int limit) {
+    return nextToken == null
+      ? Optional.empty()
+      : Optional.of(PageRequest.after(nextToken, limit));
+  }
+
+  @Override
+  public String toString() {
+    return "Page{" + "items=" + items + ", nextToken='" + nextToken + '\'' + '}';
+  }
+}
@@ -0,0 +1,134 @@
+package me.byteful.lib.datastore.api.data;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Objects;
+
+// Keyset page request: up to `limit` models ordered by `sortKey`, starting strictly after the
+// position encoded in the continuation token returned with the previous Page. Backends that
+// break ties in the sort key by a unique column put that column and its last value in the
+// token too, so models sharing a sort key aren't skipped between pages.
+public final class PageRequest {
+  @NotNull
+  private final String sortKey;
+  @Nullable
+  private final String after;
+  @Nullable
+  private final String tiebreaker;
+  @Nullable
+  private final String afterTiebreaker;
+  private final int limit;
+
+  private PageRequest(
+    @NotNull String sortKey,
+    @Nullable String after,
+    @Nullable String tiebreaker,
+    @Nullable String afterTiebreaker,
+    int limit) {
+    if (limit < 1) {
+      throw new IllegalArgumentException("Page limit must be at least 1, got " + limit);
+    }
+
+    this.sortKey = sortKey;
+    this.after = after;
+    this.tiebreaker = tiebreaker;
+    this.afterTiebreaker = afterTiebreaker;
+    this.limit = limit;
+  }
+
+  @NotNull
+  public static PageRequest first(@NotNull String sortKey, int limit) {
+    return new PageRequest(sortKey, null, null, null, limit);
+  }
+
+  @NotNull
+  public static PageRequest after(@NotNull String token, int limit) {
+    final String decoded = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+    // Stored values are JSON text, which escapes NUL, so it can separate the parts.
+    final String[] parts = decoded.split("\0", -1);
+
+    if (parts.length == 2) {
+      return new PageRequest(parts[0], parts[1], null, null, limit);
+    } else if (parts.length == 4) {
+      return new PageRequest(parts[0], parts[1], parts[2], parts[3], limit);
+    }
+
+    throw new IllegalArgumentException("Malformed page token: " + token);
+  }
+
+  @NotNull
+  public static String token(@NotNull String sortKey, @NotNull String lastValue) {
+    return encode(sortKey + '\0' + lastValue);
+  }
+
+  @NotNull
+  public static String token(
+    @NotNull String sortKey,
+    @NotNull String lastValue,
+    @NotNull String tiebreaker,
+    @NotNull String lastTiebreaker) {
+    return encode(sortKey + '\0' + lastValue + '\0' + tiebreaker + '\0' + lastTiebreaker);
+  }
+
+  @NotNull
+  private static String encode(@NotNull String token) {
+    return Base64.getUrlEncoder()
+      .withoutPadding()
+      .encodeToString(token.getBytes(StandardCharsets.UTF_8));
+  }
+
+  @NotNull
+  public String getSortKey() {
+    return sortKey;
+  }
+
+  // Stored value of the sort key on the last model of the previous page, or null for the
+  // first page.
+  @Nullable
+  public String getAfter() {
+    return after;
+  }
+
+  // Unique column that ordered ties on the previous page, or null if ties weren't broken.
+  @Nullable
+  public String getTiebreaker() {
+    return tiebreaker;
+  }
+
+  // Stored value of the tiebreaker on the last model of the previous page.
+  @Nullable
+  public String getAfterTiebreaker() {
+    return afterTiebreaker;
+  }
+
+  public int getLimit() {
+    return limit;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (o == null || getClass() != o.getClass()) return false;
+    PageRequest that = (PageRequest) o;
+    return limit == that.limit
+      && sortKey.equals(that.sortKey)
+      && Objects.equals(after, that.after)
+      && Objects.equals(tiebreaker, that.tiebreaker)
+      && Objects.equals(afterTiebreaker, that.afterTiebreaker);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(sortKey, after, tiebreaker, afterTiebreaker, limit);
+  }
+
+  @Override
+  public String toString() {
+    return "PageRequest{" + "sortKey='" + sortKey + '\'' + ", after='" + after + '\''
+      + ", tiebreaker='" + tiebreaker + '\'' + ", afterTiebreaker='" + afterTiebreaker + '\''
+      + ", limit=" + limit + '}';
+  }
+}
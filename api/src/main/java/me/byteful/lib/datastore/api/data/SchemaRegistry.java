@@ -0,0 +1,90 @@
+package me.byteful.lib.datastore.api.data;
+
+import me.byteful.lib.datastore.api.model.StorageType;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Remembers which groups, columns and indexes a store has already verified or created, so
+// hot paths can skip metadata round trips and DDL. Entries are only ever added after a
+// successful check; call invalidate if the schema is changed behind the store's back.
+public class SchemaRegistry {
+  private final Map<String, Set<String>> columns = new ConcurrentHashMap<>();
+  private final Map<String, Set<String>> indexes = new ConcurrentHashMap<>();
+  private final Map<String, Map<String, StorageType>> types = new ConcurrentHashMap<>();
+  private final Map<String, String> tiebreakers = new ConcurrentHashMap<>();
+
+  public boolean isKnown(@NotNull String group) {
+    return columns.containsKey(group);
+  }
+
+  public void markKnown(@NotNull String group) {
+    columns.computeIfAbsent(group, k -> ConcurrentHashMap.newKeySet());
+  }
+
+  public boolean hasColumns(@NotNull String group, @NotNull Collection<String> names) {
+    final Set<String> known = columns.get(group);
+
+    return known != null && known.containsAll(names);
+  }
+
+  public void addColumns(@NotNull String group, @NotNull Collection<String> names) {
+    columns.computeIfAbsent(group, k -> ConcurrentHashMap.newKeySet()).addAll(names);
+  }
+
+  public boolean hasIndex(@NotNull String group, @NotNull String name) {
+    final Set<String> known = indexes.get(group);
+
+    return known != null && known.contains(name);
+  }
+
+  public void addIndex(@NotNull String group, @NotNull String name) {
+    indexes.computeIfAbsent(group, k -> ConcurrentHashMap.newKeySet()).add(name);
+  }
+
+  // Storage types of the group's typed columns as they exist in the database. Columns
+  // missing from the map are legacy JSON text. Null means the types have not been loaded.
+  @Nullable
+  public Map<String, StorageType> getColumnTypes(@NotNull String group) {
+    return types.get(group);
+  }
+
+  public void setColumnTypes(@NotNull String group, @NotNull Map<String, StorageType> columnTypes) {
+    types.put(group, columnTypes);
+  }
+
+  // Unique column getPage orders ties in the sort key by. An empty string means the group has
+  // none; null means it has not been looked up.
+  @Nullable
+  public String getTiebreaker(@NotNull String group) {
+    return tiebreakers.get(group);
+  }
+
+  public void setTiebreaker(@NotNull String group, @NotNull String column) {
+    tiebreakers.put(group, column);
+  }
+
+  // The tiebreaker is read from the same table metadata, so it goes with the column types.
+  public void invalidateColumnTypes(@NotNull String group) {
+    types.remove(group);
+    tiebreakers.remove(group);
+  }
+
+  public void invalidate(@NotNull String group) {
+    columns.remove(group);
+    indexes.remove(group);
+    types.remove(group);
+    tiebreakers.remove(group);
+  }
+
+  public void invalidateAll() {
+    columns.clear();
+    indexes.clear();
+    types.clear();
+    tiebreakers.clear();
+  }
+}
@@ -0,0 +1,76 @@
+package me.byteful.lib.datastore.api.data.async;
+
+import me.byteful.lib.datastore.api.data.DataStore;
+import me.byteful.lib.datastore.api.data.DataStoreTransaction;
+import me.byteful.lib.datastore.api.data.Page;
+import me.byteful.lib.datastore.api.data.PageRequest;
+import me.byteful.lib.datastore.api.model.Model;
+import me.byteful.lib.datastore.api.model.ModelId;
+import me.byteful.lib.datastore.api.model.ProcessedModel;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+public interface AsyncDataStore extends AutoCloseable {
+  @NotNull
+  DataStore sync();
+
+  @NotNull <T extends Model> CompletableFuture<Optional<T>> get(
+    @NotNull Class<T> type, @NotNull ModelId id, @NotNull ModelId... ids);
+
+  @NotNull
+  CompletableFuture<Optional<ProcessedModel>> getFields(
+    @NotNull Class<? extends Model> type,
+    @NotNull Set<String> fields,
+    @NotNull ModelId id,
+    @NotNull ModelId... ids);
+
+  @NotNull <T extends Model> CompletableFuture<List<T>> getAll(
+    @NotNull Class<T> type, @NotNull ModelId... ids);
+
+  @NotNull <T extends Model> CompletableFuture<Page<T>> getPage(
+    @NotNull Class<T> type, @NotNull PageRequest request, @NotNull ModelId... ids);
+
+  @NotNull <T extends Model> CompletableFuture<Map<ModelId, T>> getMany(
+    @NotNull Class<T> type, @NotNull Collection<? extends ModelId> ids);
+
+  @NotNull
+  CompletableFuture<Void> set(@NotNull ModelId id, @NotNull Model model);
+
+  @NotNull
+  CompletableFuture<Void> setAll(@NotNull Map<? extends ModelId, ? extends Model> models);
+
+  @NotNull
+  CompletableFuture<Void> setAll(
+    @NotNull Collection<? extends Map.Entry<? extends ModelId, ? extends Model>> models);
+
+  @NotNull
+  CompletableFuture<Boolean> exists(
+    @NotNull Class<? extends Model> type, @NotNull ModelId id, @NotNull ModelId... ids);
+
+  @NotNull
+  CompletableFuture<Void> delete(
+    @NotNull Class<? extends Model> type, @NotNull ModelId id, @NotNull ModelId... ids);
+
+  @NotNull
+  CompletableFuture<Void> clear(@NotNull Class<? extends Model> type);
+
+  @NotNull
+  CompletableFuture<Boolean> commit(@NotNull DataStoreTransaction transaction);
+
+  // The consumer still runs on the calling thread; only the commit is asynchronous.
+  @NotNull
+  default CompletableFuture<Boolean> inTransaction(
+    @NotNull Consumer<DataStoreTransaction> work) {
+    final DataStoreTransaction transaction = new DataStoreTransaction();
+    work.accept(transaction);
+
+    return commit(transaction);
+  }
+}
@@ -0,0 +1,122 @@
+package me.byteful.lib.datastore.api.data.async;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public final class DataStoreExecutors {
+  public static final int DEFAULT_QUEUE_CAPACITY = 10_000;
+
+  // Resolved reflectively so the library keeps targeting Java 8 while still picking up
+  // Executors#newVirtualThreadPerTaskExecutor on Java 21+.
+  @Nullable
+  private static final MethodHandle VIRTUAL_THREAD_EXECUTOR = findVirtualThreadExecutor();
+
+  private DataStoreExecutors() {
+  }
+
+  @NotNull
+  public static ExecutorService bounded(int threads) {
+    return bounded(threads, DEFAULT_QUEUE_CAPACITY);
+  }
+
+  // Tasks submitted while the queue is full are rejected, which ExecutorAsyncDataStore turns
+  // into a failed future, so a burst never blocks or runs a query on the caller's thread.
+  @NotNull
+  public static ExecutorService bounded(int threads, int queueCapacity) {
+    return bounded(threads, queueCapacity, new ThreadPoolExecutor.AbortPolicy());
+  }
+
+  // Pass ThreadPoolExecutor.CallerRunsPolicy to throttle producers on a full queue instead.
+  @NotNull
+  public static ExecutorService bounded(
+    int threads, int queueCapacity, @NotNull RejectedExecutionHandler rejectionHandler) {
+    if (threads < 1) {
+      throw new IllegalArgumentException("Thread count must be at least 1, got " + threads);
+    }
+
+    if (queueCapacity < 1) {
+      throw new IllegalArgumentException("Queue capacity must be at least 1, got " + queueCapacity);
+    }
+
+    final ThreadPoolExecutor executor =
+      new ThreadPoolExecutor(
+        threads,
+        threads,
+        60L,
+        TimeUnit.SECONDS,
+        new ArrayBlockingQueue<>(queueCapacity),
+        new DaemonThreadFactory("datastore-async"),
+        rejectionHandler);
+    executor.allowCoreThreadTimeOut(true);
+
+    return executor;
+  }
+
+  public static boolean isVirtualThreadsSupported() {
+    return VIRTUAL_THREAD_EXECUTOR != null;
+  }
+
+  @NotNull
+  public static ExecutorService virtualThreads() {
+    if (VIRTUAL_THREAD_EXECUTOR == null) {
+      throw new UnsupportedOperationException(
+        "Virtual threads require Java 21 or newer (running on "
+          + System.getProperty("java.version")
+          + ")");
+    }
+
+    try {
+      return (ExecutorService) VIRTUAL_THREAD_EXECUTOR.invoke();
+    } catch (Throwable t) {
+      throw new IllegalStateException("Failed to create virtual thread executor", t);
+    }
+  }
+
+  @NotNull
+  public static ExecutorService virtualThreadsOrBounded(int threads) {
+    return isVirtualThreadsSupported() ? virtualThreads() : bounded(threads);
+  }
+
+  @Nullable
+  private static MethodHandle findVirtualThreadExecutor() {
+    try {
+      return MethodHandles.publicLookup()
+        .findStatic(
+          Executors.class,
+          "newVirtualThreadPerTaskExecutor",
+          MethodType.methodType(ExecutorService.class));
+    } catch (NoSuchMethodException | IllegalAccessException e) {
+      return null;
+    }
+  }
+
+  private static final class DaemonThreadFactory implements ThreadFactory {
+    private final AtomicInteger counter = new AtomicInteger();
+    @NotNull
+    private final String prefix;
+
+    private DaemonThreadFactory(@NotNull String prefix) {
+      this.prefix = prefix;
+    }
+
+    @Override
+    public Thread newThread(@NotNull Runnable runnable) {
+      final Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+      thread.setDaemon(true);
+
+      return thread;
+    }
+  }
+}
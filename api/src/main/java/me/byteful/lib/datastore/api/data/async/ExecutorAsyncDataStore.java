@@ -0,0 +1,160 @@
+package me.byteful.lib.datastore.api.data.async;
+
+import me.byteful.lib.datastore.api.data.DataStore;
+import me.byteful.lib.datastore.api.data.DataStoreTransaction;
+import me.byteful.lib.datastore.api.data.Page;
+import me.byteful.lib.datastore.api.data.PageRequest;
+import me.byteful.lib.datastore.api.model.Model;
+import me.byteful.lib.datastore.api.model.ModelId;
+import me.byteful.lib.datastore.api.model.ProcessedModel;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+public class ExecutorAsyncDataStore implements AsyncDataStore {
+  @NotNull
+  private final DataStore store;
+  @NotNull
+  private final Executor executor;
+  private final boolean ownsExecutor;
+
+  public ExecutorAsyncDataStore(@NotNull DataStore store, @NotNull Executor executor) {
+    this(store, executor, false);
+  }
+
+  // When ownsExecutor is true, close() shuts the executor down. The store is never closed here;
+  // it stays usable through sync() and is closed by whoever opened it.
+  public ExecutorAsyncDataStore(
+    @NotNull DataStore store, @NotNull Executor executor, boolean ownsExecutor) {
+    this.store = store;
+    this.executor = executor;
+    this.ownsExecutor = ownsExecutor;
+  }
+
+  @Override
+  public @NotNull DataStore sync() {
+    return store;
+  }
+
+  @NotNull
+  public Executor getExecutor() {
+    return executor;
+  }
+
+  @Override
+  public @NotNull <T extends Model> CompletableFuture<Optional<T>> get(
+    @NotNull Class<T> type, @NotNull ModelId id, @NotNull ModelId... ids) {
+    return supply(() -> store.get(type, id, ids));
+  }
+
+  @Override
+  public @NotNull CompletableFuture<Optional<ProcessedModel>> getFields(
+    @NotNull Class<? extends Model> type,
+    @NotNull Set<String> fields,
+    @NotNull ModelId id,
+    @NotNull ModelId... ids) {
+    return supply(() -> store.getFields(type, fields, id, ids));
+  }
+
+  @Override
+  public @NotNull <T extends Model> CompletableFuture<List<T>> getAll(
+    @NotNull Class<T> type, @NotNull ModelId... ids) {
+    return supply(() -> store.getAll(type, ids));
+  }
+
+  @Override
+  public @NotNull <T extends Model> CompletableFuture<Page<T>> getPage(
+    @NotNull Class<T> type, @NotNull PageRequest request, @NotNull ModelId... ids) {
+    return supply(() -> store.getPage(type, request, ids));
+  }
+
+  @Override
+  public @NotNull <T extends Model> CompletableFuture<Map<ModelId, T>> getMany(
+    @NotNull Class<T> type, @NotNull Collection<? extends ModelId> ids) {
+    return supply(() -> store.getMany(type, ids));
+  }
+
+  @Override
+  public @NotNull CompletableFuture<Void> set(@NotNull ModelId id, @NotNull Model model) {
+    return run(() -> store.set(id, model));
+  }
+
+  @Override
+  public @NotNull CompletableFuture<Void> setAll(
+    @NotNull Map<? extends ModelId, ? extends Model> models) {
+    return run(() -> store.setAll(models));
+  }
+
+  @Override
+  public @NotNull CompletableFuture<Void> setAll(
+    @NotNull Collection<? extends Map.Entry<? extends ModelId, ? extends Model>> models) {
+    return run(() -> store.setAll(models));
+  }
+
+  @Override
+  public @NotNull CompletableFuture<Boolean> exists(
+    @NotNull Class<? extends Model> type, @NotNull ModelId id, @NotNull ModelId... ids) {
+    return supply(() -> store.exists(type, id, ids));
+  }
+
+  @Override
+  public @NotNull CompletableFuture<Void> delete(
+    @NotNull Class<? extends Model> type, @NotNull ModelId id, @NotNull ModelId... ids) {
+    return run(() -> store.delete(type, id, ids));
+  }
+
+  @Override
+  public @NotNull CompletableFuture<Void> clear(@NotNull Class<? extends Model> type) {
+    return run(() -> store.clear(type));
+  }
+
+  @Override
+  public @NotNull CompletableFuture<Boolean> commit(@NotNull DataStoreTransaction transaction) {
+    return supply(() -> store.commit(transaction));
+  }
+
+  @Override
+  public void close() throws Exception {
+    if (ownsExecutor && executor instanceof ExecutorService) {
+      final ExecutorService service = (ExecutorService) executor;
+      service.shutdown();
+
+      if (!service.awaitTermination(30, TimeUnit.SECONDS)) {
+        service.shutdownNow();
+      }
+    }
+  }
+
+  // A full or shut down executor fails the call's future instead of throwing at the caller.
+  @NotNull
+  private <R> CompletableFuture<R> supply(@NotNull Supplier<R> task) {
+    try {
+      return CompletableFuture.supplyAsync(task, executor);
+    } catch (RejectedExecutionException e) {
+      final CompletableFuture<R> future = new CompletableFuture<>();
+      future.completeExceptionally(e);
+
+      return future;
+    }
+  }
+
+  @NotNull
+  private CompletableFuture<Void> run(@NotNull Runnable task) {
+    return supply(
+      () -> {
+        task.run();
+
+        return null;
+      });
+  }
+}
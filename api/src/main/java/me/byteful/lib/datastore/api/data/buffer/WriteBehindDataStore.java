@@ -0,0 +1,581 @@
+package me.byteful.lib.datastore.api.data.buffer;
+
+import me.byteful.lib.datastore.api.data.DataStore;
+import me.byteful.lib.datastore.api.data.DataStoreTransaction;
+import me.byteful.lib.datastore.api.data.Page;
+import me.byteful.lib.datastore.api.data.PageRequest;
+import me.byteful.lib.datastore.api.data.metrics.DataStoreMetrics;
+import me.byteful.lib.datastore.api.model.Model;
+import me.byteful.lib.datastore.api.model.ModelId;
+import me.byteful.lib.datastore.api.model.ProcessedModel;
+import me.byteful.lib.datastore.api.model.ProcessedModelField;
+import me.byteful.lib.datastore.api.model.impl.BinaryProcessedModel;
+import me.byteful.lib.datastore.api.model.impl.JSONProcessedModel;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.stream.Stream;
+
+// Buffers set() calls and writes only the latest model per (group, ModelId) in batches, either
+// every flush interval or once half of maxPending models are waiting. Models are serialized in
+// set(), so changes made to the instance afterwards are not written and the flush thread never
+// reads objects the caller is still using.
+//
+// A model whose write fails stays buffered and is retried by later flushes, up to maxAttempts
+// writes; the last one is made on its own and, if that fails too, the model goes to the dead
+// letter handler. Once maxPending models are waiting, set() flushes on the caller's thread and
+// throws if that frees no room, so a store that is down can't grow the buffer without bound.
+public class WriteBehindDataStore implements DataStore {
+  @NotNull
+  private final DataStore store;
+  private final int maxPending;
+  private final int flushBatchSize;
+  private final int maxAttempts;
+  @NotNull
+  private final DataStoreMetrics metrics;
+  @NotNull
+  private final BiConsumer<ModelId, Model> deadLetters;
+  private final Map<PendingKey, PendingModel> pending = new ConcurrentHashMap<>();
+  // Models taken out of pending by a running flush; still served to readers until written.
+  private final Map<PendingKey, PendingModel> inFlight = new ConcurrentHashMap<>();
+  private final ReentrantLock flushLock = new ReentrantLock();
+  private final AtomicBoolean flushQueued = new AtomicBoolean();
+  @NotNull
+  private final ScheduledExecutorService scheduler;
+
+  private WriteBehindDataStore(@NotNull Builder builder) {
+    this.store = builder.store;
+    this.maxPending = builder.maxPending;
+    this.flushBatchSize = builder.flushBatchSize;
+    this.maxAttempts = builder.maxAttempts;
+    this.metrics = builder.metrics;
+    this.deadLetters = builder.deadLetters;
+    this.scheduler =
+      Executors.newSingleThreadScheduledExecutor(
+        runnable -> {
+          final Thread thread = new Thread(runnable, "datastore-write-behind");
+          thread.setDaemon(true);
+
+          return thread;
+        });
+
+    final long interval = builder.flushInterval.toMillis();
+    scheduler.scheduleWithFixedDelay(this::flushQuietly, interval, interval, TimeUnit.MILLISECONDS);
+  }
+
+  @NotNull
+  public static Builder builder(@NotNull DataStore store) {
+    return new Builder(store);
+  }
+
+  @NotNull
+  public DataStore getDelegate() {
+    return store;
+  }
+
+  public int getPendingCount() {
+    return pending.size();
+  }
+
+  @Override
+  public @NotNull <T extends Model> Optional<T> get(
+    @NotNull Class<T> type, @NotNull ModelId id, @NotNull ModelId... ids) {
+    final String group = getStoredGroup(type);
+
+    if (ids.length == 0) {
+      final PendingModel buffered = findPending(new PendingKey(group, id));
+
+      if (buffered != null && type.isAssignableFrom(buffered.type)) {
+        return Optional.of(type.cast(buffered.deserialize(this)));
+      }
+    }
+
+    // A buffered model may match through another of its fields, so it is written first. Reads
+    // go through even if that fails; the failure is logged and the models stay buffered.
+    flush(group);
+
+    return store.get(type, id, ids);
+  }
+
+  @Override
+  public @NotNull Optional<ProcessedModel> getFields(
+    @NotNull Class<? extends Model> type,
+    @NotNull Set<String> fields,
+    @NotNull ModelId id,
+    @NotNull ModelId... ids) {
+    final String group = getStoredGroup(type);
+
+    if (ids.length == 0) {
+      final PendingModel buffered = findPending(new PendingKey(group, id));
+
+      if (buffered != null && type.isAssignableFrom(buffered.type)) {
+        final Map<String, ProcessedModelField> partial = new HashMap<>();
+        for (String field : fields) {
+          buffered.model.getField(field).ifPresent(value -> partial.put(field, value));
+        }
+
+        // Same kind as the buffered model, since only binary models take binary fields.
+        return Optional.of(
+          buffered.model instanceof BinaryProcessedModel
+            ? new BinaryProcessedModel(partial)
+            : new JSONProcessedModel(partial));
+      }
+    }
+
+    flush(group);
+
+    return store.getFields(type, fields, id, ids);
+  }
+
+  @Override
+  public @NotNull <T extends Model> List<T> getAll(
+    @NotNull Class<T> type, @NotNull ModelId... ids) {
+    flush(getStoredGroup(type));
+
+    return store.getAll(type, ids);
+  }
+
+  @Override
+  public @NotNull <T extends Model> Stream<T> stream(
+    @NotNull Class<T> type, @NotNull ModelId... ids) {
+    flush(getStoredGroup(type));
+
+    return store.stream(type, ids);
+  }
+
+  @Override
+  public @NotNull <T extends Model> Page<T> getPage(
+    @NotNull Class<T> type, @NotNull PageRequest request, @NotNull ModelId... ids) {
+    flush(getStoredGroup(type));
+
+    return store.getPage(type, request, ids);
+  }
+
+  @Override
+  public @NotNull <T extends Model> Map<ModelId, T> getMany(
+    @NotNull Class<T> type, @NotNull Collection<? extends ModelId> ids) {
+    final String group = getStoredGroup(type);
+    final Map<ModelId, T> found = new LinkedHashMap<>();
+    final List<ModelId> missing = new ArrayList<>();
+
+    for (ModelId id : ids) {
+      final PendingModel buffered = findPending(new PendingKey(group, id));
+
+      if (buffered != null && type.isAssignableFrom(buffered.type)) {
+        found.put(id, type.cast(buffered.deserialize(this)));
+      } else {
+        missing.add(id);
+      }
+    }
+
+    if (!missing.isEmpty()) {
+      flush(group);
+      found.putAll(store.getMany(type, missing));
+    }
+
+    return found;
+  }
+
+  @Override
+  public void set(@NotNull ModelId id, @NotNull Model model) {
+    final PendingKey key = new PendingKey(getStoredGroup(model.getClass()), id);
+    final PendingModel buffered = new PendingModel(model.getClass(), serializeModel(model), 0);
+
+    // Models taken by a running flush count too, or set() could refill the buffer while a slow
+    // flush is failing.
+    if (pending.size() + inFlight.size() >= maxPending && !pending.containsKey(key)) {
+      flush(null);
+
+      if (pending.size() >= maxPending) {
+        throw new IllegalStateException(
+          "Write-behind buffer is full with " + pending.size() + " models that failed to flush");
+      }
+    }
+
+    pending.put(key, buffered);
+
+    if (pending.size() >= Math.max(1, maxPending / 2) && flushQueued.compareAndSet(false, true)) {
+      scheduler.execute(
+        () -> {
+          flushQueued.set(false);
+          flushQuietly();
+        });
+    }
+  }
+
+  @Override
+  public boolean setAll(@NotNull Map<? extends ModelId, ? extends Model> models) {
+    models.forEach(this::set);
+
+    return true;
+  }
+
+  @Override
+  public boolean exists(
+    @NotNull Class<? extends Model> type, @NotNull ModelId id, @NotNull ModelId... ids) {
+    return get(type, id, ids).isPresent();
+  }
+
+  @Override
+  public void delete(
+    @NotNull Class<? extends Model> type, @NotNull ModelId id, @NotNull ModelId... ids) {
+    final String group = getStoredGroup(type);
+
+    flushLock.lock();
+    try {
+      if (ids.length == 0) {
+        pending.remove(new PendingKey(group, id));
+      }
+
+      // A model buffered under another of its ids would survive the delete and be written back
+      // by the next flush, so the group is written out first.
+      requireFlushed(group);
+      store.delete(type, id, ids);
+    } finally {
+      flushLock.unlock();
+    }
+  }
+
+  @Override
+  public void clear(@NotNull Class<? extends Model> type) {
+    final String group = getStoredGroup(type);
+
+    flushLock.lock();
+    try {
+      pending.keySet().removeIf(key -> key.group.equals(group));
+      store.clear(type);
+    } finally {
+      flushLock.unlock();
+    }
+  }
+
+  @Override
+  public boolean commit(@NotNull DataStoreTransaction transaction) {
+    final Set<String> groups = new LinkedHashSet<>();
+    for (DataStoreTransaction.Operation operation : transaction.getOperations()) {
+      groups.add(
+        getStoredGroup(
+          operation.isDelete() ? operation.getType() : operation.getModel().getClass()));
+    }
+
+    // Buffered writes to the same groups go first, so none of them can land on top of the
+    // transaction later.
+    flushLock.lock();
+    try {
+      for (String group : groups) {
+        requireFlushed(group);
+      }
+
+      return store.commit(transaction);
+    } finally {
+      flushLock.unlock();
+    }
+  }
+
+  public void flush() {
+    requireFlushed(null);
+  }
+
+  @Override
+  public void close() throws Exception {
+    scheduler.shutdown();
+    scheduler.awaitTermination(30, TimeUnit.SECONDS);
+
+    try {
+      flush();
+    } finally {
+      store.close();
+    }
+  }
+
+  @Nullable
+  private PendingModel findPending(@NotNull PendingKey key) {
+    final PendingModel model = pending.get(key);
+
+    return model != null ? model : inFlight.get(key);
+  }
+
+  private void flushQuietly() {
+    try {
+      flush(null);
+    } catch (Exception e) {
+      e.printStackTrace();
+    }
+  }
+
+  // For writes that must not be reordered with what is still buffered.
+  private void requireFlushed(@Nullable String group) {
+    if (!flush(group)) {
+      throw new IllegalStateException("Write-behind flush failed; the models stay buffered");
+    }
+  }
+
+  // Returns whether every buffered model was written or given up on. Failures are logged and
+  // recorded as they happen.
+  private boolean flush(@Nullable String onlyGroup) {
+    flushLock.lock();
+    try {
+      final Map<String, Map<ModelId, PendingModel>> groups = new LinkedHashMap<>();
+      for (Map.Entry<PendingKey, PendingModel> entry : pending.entrySet()) {
+        final PendingKey key = entry.getKey();
+
+        if (onlyGroup != null && !onlyGroup.equals(key.group)) {
+          continue;
+        }
+
+        inFlight.put(key, entry.getValue());
+
+        // Only drop the pending entry if no newer model replaced it meanwhile.
+        pending.remove(key, entry.getValue());
+        groups.computeIfAbsent(key.group, k -> new LinkedHashMap<>()).put(key.id, entry.getValue());
+      }
+
+      int retrying = 0;
+      try {
+        for (Map.Entry<String, Map<ModelId, PendingModel>> group : groups.entrySet()) {
+          retrying += writeGroup(group.getKey(), group.getValue());
+        }
+      } catch (RuntimeException e) {
+        // Put back whatever has not been superseded so the next flush retries it.
+        inFlight.forEach(pending::putIfAbsent);
+        throw e;
+      } finally {
+        inFlight.clear();
+      }
+
+      return retrying == 0;
+    } finally {
+      flushLock.unlock();
+    }
+  }
+
+  // Returns how many models stay buffered for another attempt.
+  private int writeGroup(@NotNull String group, @NotNull Map<ModelId, PendingModel> models) {
+    final Map<ModelId, PendingModel> batch = new LinkedHashMap<>();
+    int retrying = 0;
+    for (Map.Entry<ModelId, PendingModel> entry : models.entrySet()) {
+      batch.put(entry.getKey(), entry.getValue());
+
+      if (batch.size() == flushBatchSize) {
+        retrying += writeBatch(group, batch);
+        batch.clear();
+      }
+    }
+
+    if (!batch.isEmpty()) {
+      retrying += writeBatch(group, batch);
+    }
+
+    return retrying;
+  }
+
+  private int writeBatch(@NotNull String group, @NotNull Map<ModelId, PendingModel> batch) {
+    if (write(group, batch)) {
+      return 0;
+    }
+
+    int retrying = 0;
+    for (Map.Entry<ModelId, PendingModel> entry : batch.entrySet()) {
+      final PendingModel model = entry.getValue();
+
+      if (model.attempts + 1 < maxAttempts) {
+        pending.putIfAbsent(new PendingKey(group, entry.getKey()), model.retried());
+        retrying++;
+      } else if (!write(group, Collections.singletonMap(entry.getKey(), model))) {
+        // Tried alone on its last attempt, so one bad model can't take its batch down with it.
+        deadLetter(group, entry.getKey(), model);
+      }
+    }
+
+    return retrying;
+  }
+
+  // The delegate takes models, so each one is rebuilt from its snapshot; those instances are
+  // only ever seen by the flush. The SQL backends log errors instead of throwing them, so both
+  // count as a failed write.
+  private boolean write(@NotNull String group, @NotNull Map<ModelId, PendingModel> models) {
+    try {
+      final Map<ModelId, Model> batch = new LinkedHashMap<>();
+      for (Map.Entry<ModelId, PendingModel> entry : models.entrySet()) {
+        batch.put(entry.getKey(), entry.getValue().deserialize(this));
+      }
+
+      if (store.setAll(batch)) {
+        return true;
+      }
+
+      failed(
+        group,
+        new IllegalStateException("Write-behind flush of " + batch.size() + " models failed"));
+    } catch (RuntimeException e) {
+      failed(group, e);
+    }
+
+    return false;
+  }
+
+  private void deadLetter(@NotNull String group, @NotNull ModelId id, @NotNull PendingModel model) {
+    failed(
+      group,
+      new IllegalStateException(
+        "Write-behind gave up on " + id + " after " + maxAttempts + " failed writes"));
+
+    try {
+      deadLetters.accept(id, model.deserialize(this));
+    } catch (RuntimeException e) {
+      e.printStackTrace();
+    }
+  }
+
+  private void failed(@NotNull String group, @NotNull Exception e) {
+    e.printStackTrace();
+    metrics.recordError(group, e);
+  }
+
+  private static final class PendingKey {
+    @NotNull
+    private final String group;
+    @NotNull
+    private final ModelId id;
+
+    private PendingKey(@NotNull String group, @NotNull ModelId id) {
+      this.group = group;
+      this.id = id;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) return true;
+      if (o == null || getClass() != o.getClass()) return false;
+      PendingKey that = (PendingKey) o;
+      return group.equals(that.group) && id.equals(that.id);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(group, id);
+    }
+  }
+
+  // What set() was given, serialized at the time of the call.
+  private static final class PendingModel {
+    @NotNull
+    private final Class<? extends Model> type;
+    @NotNull
+    private final ProcessedModel model;
+    // Failed writes so far.
+    private final int attempts;
+
+    private PendingModel(
+      @NotNull Class<? extends Model> type, @NotNull ProcessedModel model, int attempts) {
+      this.type = type;
+      this.model = model;
+      this.attempts = attempts;
+    }
+
+    @NotNull
+    private PendingModel retried() {
+      return new PendingModel(type, model, attempts + 1);
+    }
+
+    @NotNull
+    private Model deserialize(@NotNull DataStore store) {
+      return store.deserializeModel(type, model);
+    }
+  }
+
+  public static final class Builder {
+    @NotNull
+    private final DataStore store;
+    @NotNull
+    private Duration flushInterval = Duration.ofSeconds(1);
+    private int maxPending = 10_000;
+    private int flushBatchSize = 1_000;
+    private int maxAttempts = 5;
+    @NotNull
+    private DataStoreMetrics metrics = DataStoreMetrics.NOOP;
+    @NotNull
+    private BiConsumer<ModelId, Model> deadLetters = (id, model) -> {};
+
+    private Builder(@NotNull DataStore store) {
+      this.store = store;
+    }
+
+    @NotNull
+    public Builder flushInterval(@NotNull Duration flushInterval) {
+      if (flushInterval.isZero() || flushInterval.isNegative()) {
+        throw new IllegalArgumentException("Flush interval must be positive, got " + flushInterval);
+      }
+
+      this.flushInterval = flushInterval;
+
+      return this;
+    }
+
+    @NotNull
+    public Builder maxPending(int maxPending) {
+      this.maxPending = maxPending;
+
+      return this;
+    }
+
+    @NotNull
+    public Builder flushBatchSize(int flushBatchSize) {
+      this.flushBatchSize = flushBatchSize;
+
+      return this;
+    }
+
+    @NotNull
+    public Builder maxAttempts(int maxAttempts) {
+      if (maxAttempts < 1) {
+        throw new IllegalArgumentException("Max attempts must be at least 1, got " + maxAttempts);
+      }
+
+      this.maxAttempts = maxAttempts;
+
+      return this;
+    }
+
+    // Where flush errors are recorded, per group.
+    @NotNull
+    public Builder metrics(@NotNull DataStoreMetrics metrics) {
+      this.metrics = metrics;
+
+      return this;
+    }
+
+    // Receives models given up on after maxAttempts failed writes; by default they are only
+    // logged.
+    @NotNull
+    public Builder deadLetters(@NotNull BiConsumer<ModelId, Model> deadLetters) {
+      this.deadLetters = deadLetters;
+
+      return this;
+    }
+
+    @NotNull
+    public WriteBehindDataStore build() {
+      return new WriteBehindDataStore(this);
+    }
+  }
+}
@@ -0,0 +1,41 @@
+package me.byteful.lib.datastore.api.data.cache;
+
+import me.byteful.lib.datastore.api.model.ModelId;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+
+final class CacheKey {
+  // Shape shared by every lookup that uses more than one ModelId.
+  static final String COMPOSITE_SHAPE = "*";
+
+  @NotNull
+  private final Class<?> type;
+  @NotNull
+  private final ModelId[] ids;
+  private final int hash;
+
+  CacheKey(@NotNull Class<?> type, @NotNull ModelId[] ids) {
+    this.type = type;
+    this.ids = ids;
+    this.hash = 31 * type.hashCode() + Arrays.hashCode(ids);
+  }
+
+  @NotNull
+  String shape() {
+    return ids.length == 1 ? ids[0].key() : COMPOSITE_SHAPE;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (o == null || getClass() != o.getClass()) return false;
+    CacheKey that = (CacheKey) o;
+    return type == that.type && Arrays.equals(ids, that.ids);
+  }
+
+  @Override
+  public int hashCode() {
+    return hash;
+  }
+}
@@ -0,0 +1,377 @@
+package me.byteful.lib.datastore.api.data.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import me.byteful.lib.datastore.api.data.DataStore;
+import me.byteful.lib.datastore.api.data.DataStoreTransaction;
+import me.byteful.lib.datastore.api.data.Page;
+import me.byteful.lib.datastore.api.data.PageRequest;
+import me.byteful.lib.datastore.api.model.Model;
+import me.byteful.lib.datastore.api.model.ModelId;
+import me.byteful.lib.datastore.api.model.ProcessedModel;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToIntFunction;
+import java.util.stream.Stream;
+
+// Read-through cache in front of any DataStore. Lookups are cached per model type and
+// ModelId[]; writes through this decorator keep it coherent, writes that bypass it are only
+// picked up once entries expire or are invalidated.
+//
+// Writes assume the ModelId passed to set/delete uniquely identifies a model, so cached
+// lookups of the same key for other values survive; lookups by any other key are
+// invalidated for the whole group.
+public class CachingDataStore implements DataStore {
+  @NotNull
+  private final DataStore store;
+  @NotNull
+  private final Cache<CacheKey, Entry> cache;
+  private final boolean cacheMisses;
+  private final GroupGenerations generations = new GroupGenerations();
+  private final LongAdder hits = new LongAdder(), misses = new LongAdder(), evictions = new LongAdder();
+
+  private CachingDataStore(@NotNull Builder builder) {
+    this.store = builder.store;
+    this.cacheMisses = builder.cacheMisses;
+
+    final Caffeine<Object, Object> caffeine =
+      Caffeine.newBuilder()
+        .executor(Runnable::run)
+        .removalListener(
+          (Object key, Object value, RemovalCause cause) -> {
+            if (cause.wasEvicted()) {
+              evictions.increment();
+            }
+          });
+
+    if (builder.weigher != null) {
+      final ToIntFunction<Model> weigher = builder.weigher;
+      caffeine
+        .maximumWeight(builder.maximumWeight)
+        .weigher(
+          (CacheKey key, Entry entry) ->
+            entry.model == null ? 1 : Math.max(1, weigher.applyAsInt(entry.model)));
+    } else {
+      caffeine.maximumSize(builder.maximumSize);
+    }
+
+    if (builder.expireAfterWrite != null) {
+      caffeine.expireAfterWrite(builder.expireAfterWrite);
+    }
+
+    if (builder.expireAfterAccess != null) {
+      caffeine.expireAfterAccess(builder.expireAfterAccess);
+    }
+
+    this.cache = caffeine.build();
+  }
+
+  @NotNull
+  public static Builder builder(@NotNull DataStore store) {
+    return new Builder(store);
+  }
+
+  @NotNull
+  public DataStore getDelegate() {
+    return store;
+  }
+
+  @Override
+  public @NotNull <T extends Model> Optional<T> get(
+    @NotNull Class<T> type, @NotNull ModelId id, @NotNull ModelId... ids) {
+    final String group = getStoredGroup(type);
+    final CacheKey key = new CacheKey(type, compile(id, ids));
+    final String shape = key.shape();
+
+    final Entry cached = cache.getIfPresent(key);
+    if (cached != null && cached.isCurrent(generations, group)) {
+      hits.increment();
+
+      return Optional.ofNullable(type.cast(cached.model));
+    }
+
+    misses.increment();
+
+    final Object[] loaded = new Object[1];
+    // Loading inside compute() makes a concurrent invalidate() of the same key wait for the
+    // load to finish, so a write can never be overwritten by the value it replaced.
+    cache.asMap().compute(
+      key,
+      (k, existing) -> {
+        if (existing != null && existing.isCurrent(generations, group)) {
+          loaded[0] = existing.model;
+
+          return existing;
+        }
+
+        final long generation = generations.current(group, shape);
+        final T model = store.get(type, id, ids).orElse(null);
+        loaded[0] = model;
+
+        return model != null || cacheMisses ? new Entry(model, shape, generation) : null;
+      });
+
+    return Optional.ofNullable(type.cast(loaded[0]));
+  }
+
+  @Override
+  public @NotNull Optional<ProcessedModel> getFields(
+    @NotNull Class<? extends Model> type,
+    @NotNull Set<String> fields,
+    @NotNull ModelId id,
+    @NotNull ModelId... ids) {
+    return store.getFields(type, fields, id, ids);
+  }
+
+  @Override
+  public @NotNull <T extends Model> List<T> getAll(
+    @NotNull Class<T> type, @NotNull ModelId... ids) {
+    return store.getAll(type, ids);
+  }
+
+  @Override
+  public @NotNull <T extends Model> Stream<T> stream(
+    @NotNull Class<T> type, @NotNull ModelId... ids) {
+    return store.stream(type, ids);
+  }
+
+  @Override
+  public @NotNull <T extends Model> Page<T> getPage(
+    @NotNull Class<T> type, @NotNull PageRequest request, @NotNull ModelId... ids) {
+    return store.getPage(type, request, ids);
+  }
+
+  @Override
+  public @NotNull <T extends Model> Map<ModelId, T> getMany(
+    @NotNull Class<T> type, @NotNull Collection<? extends ModelId> ids) {
+    final String group = getStoredGroup(type);
+    final Map<ModelId, T> found = new LinkedHashMap<>();
+    final List<ModelId> missing = new ArrayList<>();
+
+    for (ModelId id : ids) {
+      final Entry cached = cache.getIfPresent(new CacheKey(type, new ModelId[]{id}));
+
+      if (cached != null && cached.isCurrent(generations, group)) {
+        hits.increment();
+
+        if (cached.model != null) {
+          found.put(id, type.cast(cached.model));
+        }
+      } else {
+        misses.increment();
+        missing.add(id);
+      }
+    }
+
+    if (missing.isEmpty()) {
+      return found;
+    }
+
+    final long epoch = generations.epoch(group);
+    final Map<ModelId, T> loaded = store.getMany(type, missing);
+    found.putAll(loaded);
+
+    for (ModelId id : missing) {
+      final T model = loaded.get(id);
+
+      if (model == null && !cacheMisses) {
+        continue;
+      }
+
+      final String shape = id.key();
+      cache.asMap().compute(
+        new CacheKey(type, new ModelId[]{id}),
+        (k, existing) ->
+          generations.epoch(group) == epoch
+            ? new Entry(model, shape, generations.current(group, shape))
+            : existing);
+    }
+
+    return found;
+  }
+
+  @Override
+  public void set(@NotNull ModelId id, @NotNull Model model) {
+    store.set(id, model);
+    invalidate(model.getClass(), id);
+  }
+
+  @Override
+  public boolean setAll(@NotNull Map<? extends ModelId, ? extends Model> models) {
+    final boolean stored = store.setAll(models);
+    models.forEach((id, model) -> invalidate(model.getClass(), id));
+
+    return stored;
+  }
+
+  @Override
+  public boolean exists(
+    @NotNull Class<? extends Model> type, @NotNull ModelId id, @NotNull ModelId... ids) {
+    return get(type, id, ids).isPresent();
+  }
+
+  @Override
+  public void delete(
+    @NotNull Class<? extends Model> type, @NotNull ModelId id, @NotNull ModelId... ids) {
+    store.delete(type, id, ids);
+
+    if (ids.length == 0) {
+      invalidate(type, id);
+    } else {
+      invalidate(type);
+    }
+  }
+
+  @Override
+  public void clear(@NotNull Class<? extends Model> type) {
+    store.clear(type);
+    invalidate(type);
+  }
+
+  @Override
+  public boolean commit(@NotNull DataStoreTransaction transaction) {
+    final boolean committed = store.commit(transaction);
+
+    // Also after a failed commit, since the fallback commit may have applied part of it.
+    for (DataStoreTransaction.Operation operation : transaction.getOperations()) {
+      if (!operation.isDelete()) {
+        invalidate(operation.getModel().getClass(), operation.getId());
+      } else if (operation.getIds().length == 1) {
+        invalidate(operation.getType(), operation.getIds()[0]);
+      } else {
+        invalidate(operation.getType());
+      }
+    }
+
+    return committed;
+  }
+
+  public void invalidate(@NotNull Class<? extends Model> type) {
+    generations.advanceAll(getStoredGroup(type));
+  }
+
+  public void invalidateAll() {
+    generations.advanceEverything();
+    cache.invalidateAll();
+  }
+
+  public long getHitCount() {
+    return hits.sum();
+  }
+
+  public long getMissCount() {
+    return misses.sum();
+  }
+
+  public long getEvictionCount() {
+    return evictions.sum();
+  }
+
+  public double getHitRate() {
+    final long hits = getHitCount(), total = hits + getMissCount();
+
+    return total == 0 ? 1.0 : (double) hits / total;
+  }
+
+  public long getSize() {
+    return cache.estimatedSize();
+  }
+
+  @Override
+  public void close() throws Exception {
+    cache.invalidateAll();
+    store.close();
+  }
+
+  private void invalidate(@NotNull Class<?> type, @NotNull ModelId id) {
+    generations.advanceExcept(getStoredGroup(type), id.key());
+    cache.invalidate(new CacheKey(type, new ModelId[]{id}));
+  }
+
+  private static final class Entry {
+    @Nullable
+    private final Model model;
+    @NotNull
+    private final String shape;
+    private final long generation;
+
+    private Entry(@Nullable Model model, @NotNull String shape, long generation) {
+      this.model = model;
+      this.shape = shape;
+      this.generation = generation;
+    }
+
+    private boolean isCurrent(@NotNull GroupGenerations generations, @NotNull String group) {
+      return generations.current(group, shape) == generation;
+    }
+  }
+
+  public static final class Builder {
+    @NotNull
+    private final DataStore store;
+    private long maximumSize = 10_000;
+    private long maximumWeight;
+    @Nullable
+    private ToIntFunction<Model> weigher;
+    @Nullable
+    private Duration expireAfterWrite, expireAfterAccess;
+    private boolean cacheMisses = true;
+
+    private Builder(@NotNull DataStore store) {
+      this.store = store;
+    }
+
+    @NotNull
+    public Builder maximumSize(long maximumSize) {
+      this.maximumSize = maximumSize;
+      this.weigher = null;
+
+      return this;
+    }
+
+    @NotNull
+    public Builder maximumWeight(long maximumWeight, @NotNull ToIntFunction<Model> weigher) {
+      this.maximumWeight = maximumWeight;
+      this.weigher = weigher;
+
+      return this;
+    }
+
+    @NotNull
+    public Builder expireAfterWrite(@NotNull Duration duration) {
+      this.expireAfterWrite = duration;
+
+      return this;
+    }
+
+    @NotNull
+    public Builder expireAfterAccess(@NotNull Duration duration) {
+      this.expireAfterAccess = duration;
+
+      return this;
+    }
+
+    @NotNull
+    public Builder cacheMisses(boolean cacheMisses) {
+      this.cacheMisses = cacheMisses;
+
+      return this;
+    }
+
+    @NotNull
+    public CachingDataStore build() {
+      return new CachingDataStore(this);
+    }
+  }
+}
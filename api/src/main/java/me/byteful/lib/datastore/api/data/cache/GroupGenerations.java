@@ -0,0 +1,67 @@
+package me.byteful.lib.datastore.api.data.cache;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Per-group generation counters, one per lookup shape (the ModelId key used for single-id
+// lookups, or CacheKey#COMPOSITE_SHAPE). A cached entry is only valid while the generation it
+// was loaded under is still current, which lets a write invalidate every lookup it cannot
+// reason about in O(shapes) instead of scanning the cache.
+final class GroupGenerations {
+  private final Map<String, Map<String, AtomicLong>> groups = new ConcurrentHashMap<>();
+  private final Map<String, AtomicLong> epochs = new ConcurrentHashMap<>();
+
+  long current(@NotNull String group, @NotNull String shape) {
+    return counter(group, shape).get();
+  }
+
+  // Advanced by every write to the group, regardless of shape.
+  long epoch(@NotNull String group) {
+    return epochs.computeIfAbsent(group, k -> new AtomicLong()).get();
+  }
+
+  // A write addressed by a single ModelId only changes which model that id resolves to, so
+  // lookups of the same shape for other ids stay valid; every other shape is invalidated.
+  void advanceExcept(@NotNull String group, @NotNull String keep) {
+    advanceEpoch(group);
+    final Map<String, AtomicLong> shapes = groups.get(group);
+
+    if (shapes == null) {
+      return;
+    }
+
+    shapes.forEach(
+      (shape, counter) -> {
+        if (!shape.equals(keep)) {
+          counter.incrementAndGet();
+        }
+      });
+  }
+
+  void advanceAll(@NotNull String group) {
+    advanceEpoch(group);
+    final Map<String, AtomicLong> shapes = groups.get(group);
+
+    if (shapes != null) {
+      shapes.values().forEach(AtomicLong::incrementAndGet);
+    }
+  }
+
+  void advanceEverything() {
+    groups.keySet().forEach(this::advanceAll);
+  }
+
+  private void advanceEpoch(@NotNull String group) {
+    epochs.computeIfAbsent(group, k -> new AtomicLong()).incrementAndGet();
+  }
+
+  @NotNull
+  private AtomicLong counter(@NotNull String group, @NotNull String shape) {
+    return groups
+      .computeIfAbsent(group, k -> new ConcurrentHashMap<>())
+      .computeIfAbsent(shape, k -> new AtomicLong());
+  }
+}
@@ -0,0 +1,109 @@
+package me.byteful.lib.datastore.api.data.cache;
+
+// Open-addressing map between primitive longs, the on-heap index of an OffHeapShard: two
+// arrays and nothing per entry for the GC to trace. Linear probing with backward-shift
+// deletion, no tombstones. Not thread-safe; the shard guards it with its lock.
+final class LongLongMap {
+  private static final int MIN_CAPACITY = 16;
+
+  private long[] keys = new long[MIN_CAPACITY];
+  // Zero marks an empty slot, so zero can't be stored as a value.
+  private long[] values = new long[MIN_CAPACITY];
+  private int size;
+
+  int size() {
+    return size;
+  }
+
+  // Zero when the key is absent.
+  long get(long key) {
+    final int mask = keys.length - 1;
+    for (int slot = slot(key, mask); values[slot] != 0; slot = (slot + 1) & mask) {
+      if (keys[slot] == key) {
+        return values[slot];
+      }
+    }
+
+    return 0;
+  }
+
+  void put(long key, long value) {
+    final int mask = keys.length - 1;
+    int slot = slot(key, mask);
+    for (; values[slot] != 0; slot = (slot + 1) & mask) {
+      if (keys[slot] == key) {
+        values[slot] = value;
+        return;
+      }
+    }
+
+    keys[slot] = key;
+    values[slot] = value;
+
+    // Kept at most half full, so probe chains stay short.
+    if (++size * 2 > keys.length) {
+      resize(keys.length * 2);
+    }
+  }
+
+  void remove(long key) {
+    final int mask = keys.length - 1;
+    int slot = slot(key, mask);
+    for (; values[slot] != 0; slot = (slot + 1) & mask) {
+      if (keys[slot] == key) {
+        break;
+      }
+    }
+
+    if (values[slot] == 0) {
+      return;
+    }
+
+    // Move later entries of the chain back into the hole so lookups never stop early.
+    int hole = slot;
+    for (int next = (hole + 1) & mask; values[next] != 0; next = (next + 1) & mask) {
+      final int home = slot(keys[next], mask);
+      if (((next - home) & mask) >= ((next - hole) & mask)) {
+        keys[hole] = keys[next];
+        values[hole] = values[next];
+        hole = next;
+      }
+    }
+
+    values[hole] = 0;
+    size--;
+  }
+
+  void clear() {
+    keys = new long[MIN_CAPACITY];
+    values = new long[MIN_CAPACITY];
+    size = 0;
+  }
+
+  private void resize(int capacity) {
+    final long[] oldKeys = keys;
+    final long[] oldValues = values;
+    keys = new long[capacity];
+    values = new long[capacity];
+
+    final int mask = capacity - 1;
+    for (int i = 0; i < oldKeys.length; i++) {
+      if (oldValues[i] != 0) {
+        int slot = slot(oldKeys[i], mask);
+        while (values[slot] != 0) {
+          slot = (slot + 1) & mask;
+        }
+
+        keys[slot] = oldKeys[i];
+        values[slot] = oldValues[i];
+      }
+    }
+  }
+
+  private static int slot(long key, int mask) {
+    // Fibonacci hashing spreads the bits of the key across the table.
+    final long hash = key * 0x9E3779B97F4A7C15L;
+
+    return (int) (hash ^ (hash >>> 32)) & mask;
+  }
+}
@@ -0,0 +1,414 @@
+package me.byteful.lib.datastore.api.data.cache;
+
+import com.google.gson.Gson;
+import me.byteful.lib.datastore.api.DataStoreConstants;
+import me.byteful.lib.datastore.api.data.DataStore;
+import me.byteful.lib.datastore.api.data.DataStoreTransaction;
+import me.byteful.lib.datastore.api.data.Page;
+import me.byteful.lib.datastore.api.data.PageRequest;
+import me.byteful.lib.datastore.api.model.Model;
+import me.byteful.lib.datastore.api.model.ModelId;
+import me.byteful.lib.datastore.api.model.ProcessedModel;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+// Read-through cache like CachingDataStore, for working sets too large to keep as objects on
+// the heap. Models are cached in serialized form in direct buffers, split into shards that
+// each have their own lock, ring of entries and on-heap index from key hash to entry. A hit
+// copies the bytes out and deserializes them through the registered ModelStructure, so every
+// hit returns a new model instance. Invalidation works as in CachingDataStore.
+public class OffHeapCachingDataStore implements DataStore {
+  @NotNull
+  private final DataStore store;
+  @NotNull
+  private final Gson gson;
+  @NotNull
+  private final OffHeapShard[] shards;
+  private final long shardCapacity;
+  private final boolean cacheMisses;
+  private final long expireAfterWriteNanos;
+  private final GroupGenerations generations = new GroupGenerations();
+  private final LongAdder hits = new LongAdder(), misses = new LongAdder(), evictions = new LongAdder();
+
+  private OffHeapCachingDataStore(@NotNull Builder builder) {
+    this.store = builder.store;
+    this.gson = builder.gson;
+    this.cacheMisses = builder.cacheMisses;
+    this.expireAfterWriteNanos =
+      builder.expireAfterWrite == null ? 0 : builder.expireAfterWrite.toNanos();
+
+    // A power of two, few enough that each shard still holds a useful number of entries and
+    // enough that no shard's buffer exceeds what one ByteBuffer can address.
+    int count = Integer.highestOneBit(builder.concurrencyLevel * 2 - 1);
+    while (count > 1 && builder.maximumMemory / count < 64 * 1024) {
+      count /= 2;
+    }
+
+    while (builder.maximumMemory / count > Integer.MAX_VALUE) {
+      count *= 2;
+    }
+
+    this.shardCapacity = builder.maximumMemory / count;
+    this.shards = new OffHeapShard[count];
+    for (int i = 0; i < count; i++) {
+      shards[i] =
+        new OffHeapShard(
+          (int) shardCapacity, builder.eviction == Eviction.SECOND_CHANCE, evictions);
+    }
+  }
+
+  @NotNull
+  public static Builder builder(@NotNull DataStore store) {
+    return new Builder(store);
+  }
+
+  @NotNull
+  public DataStore getDelegate() {
+    return store;
+  }
+
+  @Override
+  public @NotNull <T extends Model> Optional<T> get(
+    @NotNull Class<T> type, @NotNull ModelId id, @NotNull ModelId... ids) {
+    final ModelId[] compiled = compile(id, ids);
+    final String group = getStoredGroup(type);
+    final String shape = compiled.length == 1 ? compiled[0].key() : CacheKey.COMPOSITE_SHAPE;
+    final byte[] key = SerializedModels.key(type, compiled);
+    final long hash = SerializedModels.hash(key);
+    final OffHeapShard shard = shard(hash);
+
+    final OffHeapShard.Hit cached = shard.get(hash, key, System.nanoTime());
+    if (cached != null && cached.generation == generations.current(group, shape)) {
+      hits.increment();
+
+      return cached.model == null
+        ? Optional.empty()
+        : Optional.of(deserializeModel(type, SerializedModels.decode(cached.model, gson)));
+    }
+
+    misses.increment();
+
+    // Read before loading: an invalidation in between advances the epoch and makes put() drop
+    // the now stale model.
+    final long epoch = shard.epoch();
+    final long generation = generations.current(group, shape);
+    final T model = store.get(type, id, ids).orElse(null);
+    store(shard, hash, key, model, generation, epoch);
+
+    return Optional.ofNullable(model);
+  }
+
+  @Override
+  public @NotNull Optional<ProcessedModel> getFields(
+    @NotNull Class<? extends Model> type,
+    @NotNull Set<String> fields,
+    @NotNull ModelId id,
+    @NotNull ModelId... ids) {
+    return store.getFields(type, fields, id, ids);
+  }
+
+  @Override
+  public @NotNull <T extends Model> List<T> getAll(
+    @NotNull Class<T> type, @NotNull ModelId... ids) {
+    return store.getAll(type, ids);
+  }
+
+  @Override
+  public @NotNull <T extends Model> Stream<T> stream(
+    @NotNull Class<T> type, @NotNull ModelId... ids) {
+    return store.stream(type, ids);
+  }
+
+  @Override
+  public @NotNull <T extends Model> Page<T> getPage(
+    @NotNull Class<T> type, @NotNull PageRequest request, @NotNull ModelId... ids) {
+    return store.getPage(type, request, ids);
+  }
+
+  @Override
+  public @NotNull <T extends Model> Map<ModelId, T> getMany(
+    @NotNull Class<T> type, @NotNull Collection<? extends ModelId> ids) {
+    final String group = getStoredGroup(type);
+    final Map<ModelId, T> found = new LinkedHashMap<>();
+    final List<ModelId> missing = new ArrayList<>();
+    final List<byte[]> keys = new ArrayList<>();
+    final List<long[]> states = new ArrayList<>();
+    final long now = System.nanoTime();
+
+    for (ModelId id : ids) {
+      final byte[] key = SerializedModels.key(type, new ModelId[]{id});
+      final long hash = SerializedModels.hash(key);
+      final OffHeapShard shard = shard(hash);
+      final OffHeapShard.Hit cached = shard.get(hash, key, now);
+
+      if (cached != null && cached.generation == generations.current(group, id.key())) {
+        hits.increment();
+
+        if (cached.model != null) {
+          found.put(id, deserializeModel(type, SerializedModels.decode(cached.model, gson)));
+        }
+      } else {
+        misses.increment();
+        missing.add(id);
+        keys.add(key);
+        states.add(new long[]{hash, shard.epoch(), generations.current(group, id.key())});
+      }
+    }
+
+    if (missing.isEmpty()) {
+      return found;
+    }
+
+    final Map<ModelId, T> loaded = store.getMany(type, missing);
+    found.putAll(loaded);
+
+    for (int i = 0; i < missing.size(); i++) {
+      final long[] state = states.get(i);
+      final T model = loaded.get(missing.get(i));
+      store(shard(state[0]), state[0], keys.get(i), model, state[2], state[1]);
+    }
+
+    return found;
+  }
+
+  @Override
+  public void set(@NotNull ModelId id, @NotNull Model model) {
+    store.set(id, model);
+    invalidate(model.getClass(), id);
+  }
+
+  @Override
+  public boolean setAll(@NotNull Map<? extends ModelId, ? extends Model> models) {
+    final boolean stored = store.setAll(models);
+    models.forEach((id, model) -> invalidate(model.getClass(), id));
+
+    return stored;
+  }
+
+  @Override
+  public boolean exists(
+    @NotNull Class<? extends Model> type, @NotNull ModelId id, @NotNull ModelId... ids) {
+    return get(type, id, ids).isPresent();
+  }
+
+  @Override
+  public void delete(
+    @NotNull Class<? extends Model> type, @NotNull ModelId id, @NotNull ModelId... ids) {
+    store.delete(type, id, ids);
+
+    if (ids.length == 0) {
+      invalidate(type, id);
+    } else {
+      invalidate(type);
+    }
+  }
+
+  @Override
+  public void clear(@NotNull Class<? extends Model> type) {
+    store.clear(type);
+    invalidate(type);
+  }
+
+  @Override
+  public boolean commit(@NotNull DataStoreTransaction transaction) {
+    final boolean committed = store.commit(transaction);
+
+    // Also after a failed commit, since the fallback commit may have applied part of it.
+    for (DataStoreTransaction.Operation operation : transaction.getOperations()) {
+      if (!operation.isDelete()) {
+        invalidate(operation.getModel().getClass(), operation.getId());
+      } else if (operation.getIds().length == 1) {
+        invalidate(operation.getType(), operation.getIds()[0]);
+      } else {
+        invalidate(operation.getType());
+      }
+    }
+
+    return committed;
+  }
+
+  public void invalidate(@NotNull Class<? extends Model> type) {
+    generations.advanceAll(getStoredGroup(type));
+  }
+
+  public void invalidateAll() {
+    generations.advanceEverything();
+    for (OffHeapShard shard : shards) {
+      shard.clear();
+    }
+  }
+
+  public long getHitCount() {
+    return hits.sum();
+  }
+
+  public long getMissCount() {
+    return misses.sum();
+  }
+
+  public long getEvictionCount() {
+    return evictions.sum();
+  }
+
+  public double getHitRate() {
+    final long hits = getHitCount(), total = hits + getMissCount();
+
+    return total == 0 ? 1.0 : (double) hits / total;
+  }
+
+  public long getSize() {
+    long size = 0;
+    for (OffHeapShard shard : shards) {
+      size += shard.size();
+    }
+
+    return size;
+  }
+
+  // Off-heap bytes currently taken by entries, out of getMemoryCapacity().
+  public long getMemoryUsed() {
+    long used = 0;
+    for (OffHeapShard shard : shards) {
+      used += shard.used();
+    }
+
+    return used;
+  }
+
+  public long getMemoryCapacity() {
+    return shardCapacity * shards.length;
+  }
+
+  // The direct buffers are released once this store is garbage collected.
+  @Override
+  public void close() throws Exception {
+    invalidateAll();
+    store.close();
+  }
+
+  @NotNull
+  private OffHeapShard shard(long hash) {
+    return shards[(int) (hash >>> 32) & (shards.length - 1)];
+  }
+
+  private void store(
+    @NotNull OffHeapShard shard,
+    long hash,
+    @NotNull byte[] key,
+    @Nullable Model model,
+    long generation,
+    long epoch) {
+    if (model == null && !cacheMisses) {
+      return;
+    }
+
+    final byte[] serialized = model == null ? null : SerializedModels.encode(serializeModel(model));
+    final long expires =
+      expireAfterWriteNanos == 0 ? 0 : (System.nanoTime() + expireAfterWriteNanos) | 1;
+    shard.put(hash, key, serialized, generation, expires, epoch);
+  }
+
+  private void invalidate(@NotNull Class<?> type, @NotNull ModelId id) {
+    generations.advanceExcept(getStoredGroup(type), id.key());
+
+    final byte[] key = SerializedModels.key(type, new ModelId[]{id});
+    final long hash = SerializedModels.hash(key);
+    shard(hash).invalidate(hash, key);
+  }
+
+  public enum Eviction {
+    // The oldest entries are dropped first, whether they are still being read or not.
+    FIFO,
+    // Like FIFO, but an entry read since it was cached is moved to the front once instead.
+    SECOND_CHANCE
+  }
+
+  public static final class Builder {
+    @NotNull
+    private final DataStore store;
+    @NotNull
+    private Gson gson = DataStoreConstants.GSON;
+    private long maximumMemory = 64L * 1024 * 1024;
+    private int concurrencyLevel = 16;
+    @NotNull
+    private Eviction eviction = Eviction.SECOND_CHANCE;
+    @Nullable
+    private Duration expireAfterWrite;
+    private boolean cacheMisses = true;
+
+    private Builder(@NotNull DataStore store) {
+      this.store = store;
+    }
+
+    // The Gson cached models are deserialized with; should match the delegate's.
+    @NotNull
+    public Builder gson(@NotNull Gson gson) {
+      this.gson = gson;
+
+      return this;
+    }
+
+    // Off-heap bytes allocated up front and shared evenly by the shards.
+    @NotNull
+    public Builder maximumMemory(long maximumMemory) {
+      if (maximumMemory < 64 * 1024) {
+        throw new IllegalArgumentException(
+          "Maximum memory must be at least 64 KiB, got " + maximumMemory);
+      }
+
+      this.maximumMemory = maximumMemory;
+
+      return this;
+    }
+
+    // Rounded up to a power of two shards, each with its own lock.
+    @NotNull
+    public Builder concurrencyLevel(int concurrencyLevel) {
+      if (concurrencyLevel < 1 || concurrencyLevel > 1 << 16) {
+        throw new IllegalArgumentException(
+          "Concurrency level must be between 1 and 65536, got " + concurrencyLevel);
+      }
+
+      this.concurrencyLevel = concurrencyLevel;
+
+      return this;
+    }
+
+    @NotNull
+    public Builder eviction(@NotNull Eviction eviction) {
+      this.eviction = eviction;
+
+      return this;
+    }
+
+    @NotNull
+    public Builder expireAfterWrite(@NotNull Duration duration) {
+      this.expireAfterWrite = duration;
+
+      return this;
+    }
+
+    @NotNull
+    public Builder cacheMisses(boolean cacheMisses) {
+      this.cacheMisses = cacheMisses;
+
+      return this;
+    }
+
+    @NotNull
+    public OffHeapCachingDataStore build() {
+      return new OffHeapCachingDataStore(this);
+    }
+  }
+}
@@ -0,0 +1,259 @@
+package me.byteful.lib.datastore.api.data.cache;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.LongAdder;
+
+// One slice of an OffHeapCachingDataStore: a direct buffer used as a ring, written at the head
+// and evicted from the tail, plus an on-heap index from key hash to where the entry starts.
+// Entries are appended and never updated in place (except for their flags), so allocation is
+// a pointer bump and memory never fragments. Positions are logical and only ever grow; the
+// buffer offset is the position modulo the capacity. An entry is laid out as
+//   size | key length | key hash | generation | expires at (nanoTime, 0 for never) | flags
+//   | key | serialized model (nothing for a cached miss)
+// and never wraps around the end of the buffer; a negative size pads the rest of it instead.
+final class OffHeapShard {
+  private static final int SIZE = 0;
+  private static final int KEY_LENGTH = 4;
+  private static final int HASH = 8;
+  private static final int GENERATION = 16;
+  private static final int EXPIRES = 24;
+  private static final int FLAGS = 32;
+  private static final int HEADER = 33;
+
+  private static final byte ACCESSED = 1;
+  private static final byte MISS = 2;
+  // Hot entries copied forward per allocation at most, so a shard where everything was read
+  // since its last pass still makes room.
+  private static final int MAX_REINSERTS = 8;
+
+  @NotNull
+  private final ByteBuffer buffer;
+  private final int capacity;
+  private final boolean secondChance;
+  @NotNull
+  private final LongAdder evictions;
+  // Index values are positions + 1, since the map can't hold a zero.
+  private final LongLongMap index = new LongLongMap();
+  private long head;
+  private long tail;
+  // Advanced by every invalidation, so a load that raced one doesn't store what it read.
+  private long epoch;
+
+  OffHeapShard(int capacity, boolean secondChance, @NotNull LongAdder evictions) {
+    this.buffer = ByteBuffer.allocateDirect(capacity);
+    this.capacity = capacity;
+    this.secondChance = secondChance;
+    this.evictions = evictions;
+  }
+
+  // Copies the entry out of the buffer, so it is decoded after the lock is released.
+  @Nullable
+  synchronized Hit get(long hash, @NotNull byte[] key, long now) {
+    final long position = index.get(hash) - 1;
+    if (position < 0) {
+      return null;
+    }
+
+    final int offset = offset(position);
+    if (!keyMatches(offset, key)) {
+      // Another key with the same 64-bit hash; the newer of the two is the one indexed.
+      return null;
+    }
+
+    final long expires = buffer.getLong(offset + EXPIRES);
+    if (expires != 0 && now - expires >= 0) {
+      index.remove(hash);
+      return null;
+    }
+
+    final byte flags = buffer.get(offset + FLAGS);
+    buffer.put(offset + FLAGS, (byte) (flags | ACCESSED));
+
+    if ((flags & MISS) != 0) {
+      return new Hit(null, buffer.getLong(offset + GENERATION));
+    }
+
+    final byte[] model = new byte[buffer.getInt(offset + SIZE) - HEADER - key.length];
+    read(offset + HEADER + key.length, model);
+
+    return new Hit(model, buffer.getLong(offset + GENERATION));
+  }
+
+  synchronized long epoch() {
+    return epoch;
+  }
+
+  // Stores the entry unless an invalidation happened since `epoch` was read, or the entry is
+  // too large to be worth a quarter of the shard.
+  synchronized void put(
+    long hash,
+    @NotNull byte[] key,
+    @Nullable byte[] model,
+    long generation,
+    long expires,
+    long epoch) {
+    if (epoch != this.epoch) {
+      return;
+    }
+
+    final int size = HEADER + key.length + (model == null ? 0 : model.length);
+    if (size > capacity / 4) {
+      return;
+    }
+
+    final long position = allocate(size);
+    final int offset = offset(position);
+    buffer.putInt(offset + SIZE, size);
+    buffer.putInt(offset + KEY_LENGTH, key.length);
+    buffer.putLong(offset + HASH, hash);
+    buffer.putLong(offset + GENERATION, generation);
+    buffer.putLong(offset + EXPIRES, expires);
+    buffer.put(offset + FLAGS, model == null ? MISS : 0);
+    write(offset + HEADER, key);
+    if (model != null) {
+      write(offset + HEADER + key.length, model);
+    }
+
+    index.put(hash, position + 1);
+  }
+
+  synchronized void invalidate(long hash, @NotNull byte[] key) {
+    epoch++;
+
+    final long position = index.get(hash) - 1;
+    if (position >= 0 && keyMatches(offset(position), key)) {
+      index.remove(hash);
+    }
+  }
+
+  synchronized void clear() {
+    epoch++;
+    index.clear();
+    head = 0;
+    tail = 0;
+  }
+
+  synchronized int size() {
+    return index.size();
+  }
+
+  // Bytes between tail and head, including entries that are no longer indexed.
+  synchronized long used() {
+    return head - tail;
+  }
+
+  private long allocate(int size) {
+    final int offset = offset(head);
+    if (capacity - offset < size) {
+      // Pad to the end of the buffer and start over at its beginning.
+      final int padding = capacity - offset;
+      ensureFree(padding, false);
+      if (padding >= 4) {
+        buffer.putInt(offset + SIZE, -padding);
+      }
+
+      head += padding;
+    }
+
+    ensureFree(size, secondChance);
+    final long position = head;
+    head += size;
+
+    return position;
+  }
+
+  // Evicts from the tail until `size` bytes are free. Hot entries moved to the head must leave
+  // `size` contiguous bytes after them, which is where the caller writes next.
+  private void ensureFree(int size, boolean reinsert) {
+    int reinserts = 0;
+
+    while (capacity - (head - tail) < size) {
+      final int offset = offset(tail);
+      if (capacity - offset < 4) {
+        // Too little room left before the end for even a padding marker.
+        tail += capacity - offset;
+        continue;
+      }
+
+      final int entry = buffer.getInt(offset + SIZE);
+      if (entry < 0) {
+        tail -= entry;
+        continue;
+      }
+
+      final long hash = buffer.getLong(offset + HASH);
+      final boolean live = index.get(hash) - 1 == tail;
+      final byte flags = buffer.get(offset + FLAGS);
+      tail += entry;
+
+      if (!live) {
+        continue;
+      }
+
+      // Second chance: an entry read since it was written or last moved goes back to the head
+      // instead of being dropped.
+      if (reinsert
+        && (flags & ACCESSED) != 0
+        && reinserts < MAX_REINSERTS
+        && capacity - offset(head) >= entry + size) {
+        reinserts++;
+        final byte[] copy = new byte[entry];
+        read(offset, copy);
+
+        copy[FLAGS] = (byte) (flags & ~ACCESSED);
+        write(offset(head), copy);
+        index.put(hash, head + 1);
+        head += entry;
+      } else {
+        index.remove(hash);
+        evictions.increment();
+      }
+    }
+  }
+
+  private boolean keyMatches(int offset, @NotNull byte[] key) {
+    if (buffer.getInt(offset + KEY_LENGTH) != key.length) {
+      return false;
+    }
+
+    final int start = offset + HEADER;
+    for (int i = 0; i < key.length; i++) {
+      if (buffer.get(start + i) != key[i]) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  private void read(int offset, @NotNull byte[] into) {
+    final ByteBuffer view = buffer.duplicate();
+    view.position(offset);
+    view.get(into);
+  }
+
+  private void write(int offset, @NotNull byte[] bytes) {
+    final ByteBuffer view = buffer.duplicate();
+    view.position(offset);
+    view.put(bytes);
+  }
+
+  private int offset(long position) {
+    return (int) (position % capacity);
+  }
+
+  static final class Hit {
+    // The serialized model, or null for a cached miss.
+    @Nullable
+    final byte[] model;
+    final long generation;
+
+    private Hit(@Nullable byte[] model, long generation) {
+      this.model = model;
+      this.generation = generation;
+    }
+  }
+}
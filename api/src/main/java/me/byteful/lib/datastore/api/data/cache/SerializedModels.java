@@ -0,0 +1,93 @@
+package me.byteful.lib.datastore.api.data.cache;
+
+import com.google.gson.Gson;
+import me.byteful.lib.datastore.api.data.internal.FieldCodec;
+import me.byteful.lib.datastore.api.model.ModelId;
+import me.byteful.lib.datastore.api.model.ProcessedModel;
+import me.byteful.lib.datastore.api.model.ProcessedModelField;
+import me.byteful.lib.datastore.api.model.impl.BinaryProcessedModel;
+import me.byteful.lib.datastore.api.model.impl.BinaryProcessedModelField;
+import me.byteful.lib.datastore.api.model.impl.JSONProcessedModel;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+// Byte forms kept off-heap by OffHeapCachingDataStore. A model is its fields as FieldCodec
+// writes them. A key is the model type's name followed by every id's key and value, as
+// length-prefixed UTF-8 strings.
+final class SerializedModels {
+  private SerializedModels() {
+  }
+
+  @NotNull
+  static byte[] key(@NotNull Class<?> type, @NotNull ModelId[] ids) {
+    final ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+    final DataOutputStream out = new DataOutputStream(bytes);
+
+    try {
+      writeString(out, type.getName());
+      out.writeInt(ids.length);
+      for (ModelId id : ids) {
+        writeString(out, id.key());
+        writeString(out, id.value());
+      }
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+
+    return bytes.toByteArray();
+  }
+
+  // 64-bit FNV-1a with a final avalanche, so both the shard (high bits) and the index slot get
+  // well mixed bits.
+  static long hash(@NotNull byte[] key) {
+    long hash = 0xcbf29ce484222325L;
+    for (byte b : key) {
+      hash ^= b & 0xff;
+      hash *= 0x100000001b3L;
+    }
+
+    hash ^= hash >>> 33;
+    hash *= 0xff51afd7ed558ccdL;
+    hash ^= hash >>> 33;
+
+    return hash;
+  }
+
+  @NotNull
+  static byte[] encode(@NotNull ProcessedModel model) {
+    final ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+
+    try {
+      FieldCodec.write(new DataOutputStream(bytes), model.values());
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+
+    return bytes.toByteArray();
+  }
+
+  @NotNull
+  static ProcessedModel decode(@NotNull byte[] bytes, @NotNull Gson gson) {
+    final Map<String, ProcessedModelField> fields = FieldCodec.read(ByteBuffer.wrap(bytes));
+    for (ProcessedModelField field : fields.values()) {
+      if (field instanceof BinaryProcessedModelField) {
+        return new BinaryProcessedModel(fields, gson);
+      }
+    }
+
+    return new JSONProcessedModel(fields, gson);
+  }
+
+  private static void writeString(@NotNull DataOutputStream out, @NotNull String value)
+    throws IOException {
+    final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+}
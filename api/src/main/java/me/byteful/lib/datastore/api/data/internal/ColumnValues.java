@@ -0,0 +1,226 @@
+package me.byteful.lib.datastore.api.data.internal;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonParser;
+import me.byteful.lib.datastore.api.model.ProcessedModelField;
+import me.byteful.lib.datastore.api.model.ProcessedModelFieldType;
+import me.byteful.lib.datastore.api.model.StorageType;
+import me.byteful.lib.datastore.api.model.impl.BinaryProcessedModelField;
+import me.byteful.lib.datastore.api.model.impl.JSONProcessedModelField;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+
+// Converts between the JSON field values and native column values for the SQL backends. A
+// null storage type is the legacy varchar(255) JSON text column; the column definitions
+// themselves are up to each backend.
+public final class ColumnValues {
+  private ColumnValues() {
+  }
+
+  // Binds a value as handed to a ModelSink: either a ProcessedModelField or the raw object.
+  // Returns roughly how many bytes were bound, for DataStoreMetrics.
+  public static int bindValue(
+    @NotNull PreparedStatement statement,
+    int index,
+    @Nullable StorageType type,
+    @Nullable Object value,
+    @NotNull Gson gson)
+    throws SQLException {
+    if (value instanceof ProcessedModelField) {
+      return bindField(statement, index, type, (ProcessedModelField) value, gson);
+    } else if (type == null || type == StorageType.JSON) {
+      return setString(statement, index, gson.toJson(value));
+    } else if (value == null) {
+      statement.setNull(index, sqlType(type));
+      return 0;
+    }
+
+    switch (type) {
+      case INT:
+        if (value instanceof Number) {
+          statement.setInt(index, ((Number) value).intValue());
+          return Integer.BYTES;
+        }
+        break;
+      case BIGINT:
+        if (value instanceof Number) {
+          statement.setLong(index, ((Number) value).longValue());
+          return Long.BYTES;
+        }
+        break;
+      case DOUBLE:
+        if (value instanceof Number) {
+          statement.setDouble(index, ((Number) value).doubleValue());
+          return Double.BYTES;
+        }
+        break;
+      case BOOLEAN:
+        if (value instanceof Boolean) {
+          statement.setBoolean(index, (Boolean) value);
+          return 1;
+        }
+        break;
+      case TEXT:
+        if (value instanceof String) {
+          return setString(statement, index, (String) value);
+        }
+        break;
+      case BLOB:
+        if (value instanceof byte[]) {
+          return setBytes(statement, index, (byte[]) value);
+        }
+        break;
+      case BINARY:
+        return setBytes(statement, index, BinaryProcessedModelField.encode(value, gson));
+      default:
+        break;
+    }
+
+    return bind(statement, index, type, gson.toJson(value), gson);
+  }
+
+  public static int bindField(
+    @NotNull PreparedStatement statement,
+    int index,
+    @Nullable StorageType type,
+    @Nullable ProcessedModelField field,
+    @NotNull Gson gson)
+    throws SQLException {
+    if (type == StorageType.BINARY && field instanceof BinaryProcessedModelField) {
+      return setBytes(statement, index, ((BinaryProcessedModelField) field).bytes());
+    }
+
+    return bind(statement, index, type, field == null ? null : field.value(), gson);
+  }
+
+  public static int bind(
+    @NotNull PreparedStatement statement,
+    int index,
+    @Nullable StorageType type,
+    @Nullable String value,
+    @NotNull Gson gson)
+    throws SQLException {
+    if (type == null || type == StorageType.JSON) {
+      return setString(statement, index, value);
+    }
+
+    final JsonElement element = value == null ? null : JsonParser.parseString(value);
+    if (element == null || element.isJsonNull()) {
+      statement.setNull(index, sqlType(type));
+      return 0;
+    }
+
+    switch (type) {
+      case INT:
+        statement.setInt(index, element.getAsInt());
+        return Integer.BYTES;
+      case BIGINT:
+        statement.setLong(index, element.getAsLong());
+        return Long.BYTES;
+      case DOUBLE:
+        statement.setDouble(index, element.getAsDouble());
+        return Double.BYTES;
+      case BOOLEAN:
+        statement.setBoolean(index, element.getAsBoolean());
+        return 1;
+      case TEXT:
+        return setString(statement, index, element.getAsString());
+      case BINARY:
+        return setBytes(
+          statement,
+          index,
+          BinaryProcessedModelField.fromJSON("", element, ProcessedModelFieldType.NORMAL).bytes());
+      default:
+        return setBytes(statement, index, gson.fromJson(element, byte[].class));
+    }
+  }
+
+  // Counts characters, which matches the encoded size for the mostly ASCII JSON stored here.
+  private static int setString(
+    @NotNull PreparedStatement statement, int index, @Nullable String value) throws SQLException {
+    statement.setString(index, value);
+
+    return value == null ? 0 : value.length();
+  }
+
+  private static int setBytes(
+    @NotNull PreparedStatement statement, int index, @Nullable byte[] value) throws SQLException {
+    statement.setBytes(index, value);
+
+    return value == null ? 0 : value.length;
+  }
+
+  @NotNull
+  public static ProcessedModelField readField(
+    @NotNull ResultSet rs,
+    int index,
+    @NotNull String column,
+    @Nullable StorageType type,
+    @NotNull Gson gson)
+    throws SQLException {
+    if (type == StorageType.BINARY) {
+      final byte[] bytes = rs.getBytes(index);
+
+      return bytes == null
+        ? BinaryProcessedModelField.fromJSON(column, JsonNull.INSTANCE, ProcessedModelFieldType.NORMAL)
+        : BinaryProcessedModelField.of(column, bytes, ProcessedModelFieldType.NORMAL);
+    }
+
+    return JSONProcessedModelField.of(column, read(rs, index, type, gson), ProcessedModelFieldType.NORMAL);
+  }
+
+  @Nullable
+  public static String read(
+    @NotNull ResultSet rs, int index, @Nullable StorageType type, @NotNull Gson gson)
+    throws SQLException {
+    if (type == null || type == StorageType.JSON) {
+      return rs.getString(index);
+    }
+
+    final String value;
+    switch (type) {
+      case INT:
+      case BIGINT:
+        value = Long.toString(rs.getLong(index));
+        break;
+      case DOUBLE:
+        value = Double.toString(rs.getDouble(index));
+        break;
+      case BOOLEAN:
+        value = Boolean.toString(rs.getBoolean(index));
+        break;
+      case TEXT:
+        value = gson.toJson(rs.getString(index));
+        break;
+      default:
+        value = gson.toJson(rs.getBytes(index));
+    }
+
+    return rs.wasNull() ? "null" : value;
+  }
+
+  private static int sqlType(@NotNull StorageType type) {
+    switch (type) {
+      case INT:
+        return Types.INTEGER;
+      case BIGINT:
+        return Types.BIGINT;
+      case DOUBLE:
+        return Types.DOUBLE;
+      case BOOLEAN:
+        return Types.BOOLEAN;
+      case BLOB:
+      case BINARY:
+        return Types.VARBINARY;
+      default:
+        return Types.VARCHAR;
+    }
+  }
+}
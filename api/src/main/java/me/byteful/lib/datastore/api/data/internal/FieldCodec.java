@@ -0,0 +1,131 @@
+package me.byteful.lib.datastore.api.data.internal;
+
+import me.byteful.lib.datastore.api.model.ProcessedModelField;
+import me.byteful.lib.datastore.api.model.ProcessedModelFieldType;
+import me.byteful.lib.datastore.api.model.StorageType;
+import me.byteful.lib.datastore.api.model.impl.BinaryProcessedModelField;
+import me.byteful.lib.datastore.api.model.impl.JSONProcessedModelField;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+// Byte form of a model's fields, shared by the snapshot, log and off-heap formats: the field
+// count, then per field its key, field type, storage type (-1 for none), a binary flag and
+// either the encoded bytes or the JSON. Binary fields are kept as is so reading them back
+// doesn't go through JSON. Strings are length-prefixed UTF-8.
+public final class FieldCodec {
+  private static final StorageType[] STORAGE_TYPES = StorageType.values();
+  private static final ProcessedModelFieldType[] FIELD_TYPES = ProcessedModelFieldType.values();
+
+  private FieldCodec() {
+  }
+
+  public static void write(
+    @NotNull DataOutput out, @NotNull Map<String, ProcessedModelField> fields)
+    throws IOException {
+    out.writeInt(fields.size());
+
+    for (ProcessedModelField field : fields.values()) {
+      final StorageType storage = field.storageType();
+      writeString(out, field.key());
+      out.writeByte(field.type().ordinal());
+      out.writeByte(storage == null ? -1 : storage.ordinal());
+
+      if (field instanceof BinaryProcessedModelField) {
+        final byte[] bytes = ((BinaryProcessedModelField) field).bytes();
+        out.writeBoolean(true);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+      } else {
+        out.writeBoolean(false);
+        writeString(out, field.value());
+      }
+    }
+  }
+
+  @NotNull
+  public static Map<String, ProcessedModelField> read(@NotNull DataInput in) throws IOException {
+    final int size = in.readInt();
+    final Map<String, ProcessedModelField> fields = new HashMap<>(size * 2);
+
+    for (int i = 0; i < size; i++) {
+      final String key = readString(in);
+      final ProcessedModelFieldType type = FIELD_TYPES[in.readByte()];
+      final byte storage = in.readByte();
+
+      if (in.readBoolean()) {
+        final byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        fields.put(key, BinaryProcessedModelField.of(key, bytes, type));
+      } else {
+        fields.put(
+          key,
+          JSONProcessedModelField.of(
+            key, readString(in), type, storage < 0 ? null : STORAGE_TYPES[storage]));
+      }
+    }
+
+    return fields;
+  }
+
+  // Reads from the buffer's position and leaves it just past the fields.
+  @NotNull
+  public static Map<String, ProcessedModelField> read(@NotNull ByteBuffer in) {
+    try {
+      return read(new DataInputStream(new BufferInput(in)));
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static void writeString(@NotNull DataOutput out, @NotNull String value)
+    throws IOException {
+    final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  @NotNull
+  private static String readString(@NotNull DataInput in) throws IOException {
+    final byte[] bytes = new byte[in.readInt()];
+    in.readFully(bytes);
+
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  // DataInputStream reads no further ahead than it needs, so the buffer's position stays exact.
+  private static final class BufferInput extends InputStream {
+    private final ByteBuffer buffer;
+
+    private BufferInput(@NotNull ByteBuffer buffer) {
+      this.buffer = buffer;
+    }
+
+    @Override
+    public int read() {
+      return buffer.hasRemaining() ? buffer.get() & 0xff : -1;
+    }
+
+    @Override
+    public int read(@NotNull byte[] bytes, int offset, int length) {
+      if (length == 0) {
+        return 0;
+      } else if (!buffer.hasRemaining()) {
+        return -1;
+      }
+
+      final int count = Math.min(length, buffer.remaining());
+      buffer.get(bytes, offset, count);
+
+      return count;
+    }
+  }
+}
@@ -0,0 +1,98 @@
+package me.byteful.lib.datastore.api.data.internal;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+// Secondary index of one column: comparable value -> rows holding it. Each bucket is a single
+// row, which is all a unique column ever has, or a set once several rows share the value, so
+// rows must not be Sets themselves. Integral values of numeric columns go into a LongObjectMap
+// instead of being boxed.
+public final class FieldIndex<R> {
+  private final Map<Object, Object> values = new HashMap<>();
+  @Nullable
+  private final LongObjectMap<Object> numbers;
+
+  public FieldIndex(boolean numeric) {
+    this.numbers = numeric ? new LongObjectMap<>() : null;
+  }
+
+  @NotNull
+  @SuppressWarnings("unchecked")
+  public Collection<R> get(@NotNull Object value) {
+    final Object bucket = bucket(value);
+    if (bucket == null) {
+      return Collections.emptyList();
+    }
+
+    return bucket instanceof Set
+      ? (Collection<R>) bucket
+      : Collections.singletonList((R) bucket);
+  }
+
+  @SuppressWarnings("unchecked")
+  public void add(@NotNull Object value, @NotNull R row) {
+    final Object bucket = bucket(value);
+    if (bucket == null) {
+      put(value, row);
+    } else if (bucket instanceof Set) {
+      ((Set<R>) bucket).add(row);
+    } else {
+      final Set<R> rows = new LinkedHashSet<>();
+      rows.add((R) bucket);
+      rows.add(row);
+      put(value, rows);
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  public void remove(@NotNull Object value, @NotNull R row) {
+    final Object bucket = bucket(value);
+    if (bucket == row) {
+      delete(value);
+    } else if (bucket instanceof Set) {
+      final Set<R> rows = (Set<R>) bucket;
+      rows.remove(row);
+
+      if (rows.size() == 1) {
+        put(value, rows.iterator().next());
+      }
+    }
+  }
+
+  public void clear() {
+    values.clear();
+    if (numbers != null) {
+      numbers.clear();
+    }
+  }
+
+  @Nullable
+  private Object bucket(@NotNull Object value) {
+    return numbers != null && value instanceof Long
+      ? numbers.get((Long) value)
+      : values.get(value);
+  }
+
+  private void put(@NotNull Object value, @NotNull Object bucket) {
+    if (numbers != null && value instanceof Long) {
+      numbers.put((Long) value, bucket);
+    } else {
+      values.put(value, bucket);
+    }
+  }
+
+  private void delete(@NotNull Object value) {
+    if (numbers != null && value instanceof Long) {
+      numbers.remove((Long) value);
+    } else {
+      values.remove(value);
+    }
+  }
+}
@@ -0,0 +1,146 @@
+package me.byteful.lib.datastore.api.data.internal;
+
+import me.byteful.lib.datastore.api.data.PageRequest;
+import me.byteful.lib.datastore.api.data.SchemaRegistry;
+import me.byteful.lib.datastore.api.model.ProcessedModelField;
+import me.byteful.lib.datastore.api.model.StorageType;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// Keyset paging for the SQL backends. Rows are ordered by the sort key and then by a unique
+// tiebreaker column, so rows sharing a sort key keep a stable order and the next page resumes
+// right after the last one instead of skipping the rest of its ties.
+public final class Keyset {
+  private Keyset() {
+  }
+
+  // Filters on the id conditions and a non-null sort key, then, when resuming, on rows past
+  // the last one: "sortKey > ?", or "(sortKey > ? or (sortKey = ? and tiebreaker > ?))" if the
+  // token carries the tiebreaker. The limit is bound last.
+  @NotNull
+  public static String select(
+    @NotNull String table,
+    @NotNull String conditions,
+    @NotNull String sortKey,
+    @Nullable String tiebreaker,
+    boolean resume,
+    boolean resumeTiebreaker) {
+    final StringBuilder where = new StringBuilder(conditions);
+    if (where.length() != 0) {
+      where.append(" and ");
+    }
+
+    where.append(sortKey).append(" is not null");
+
+    if (resumeTiebreaker) {
+      where
+        .append(" and (")
+        .append(sortKey).append(">? or (")
+        .append(sortKey).append("=? and ")
+        .append(tiebreaker).append(">?))");
+    } else if (resume) {
+      where.append(" and ").append(sortKey).append(">?");
+    }
+
+    return String.format(
+      "select * from %s where %s order by %s limit ?;",
+      table,
+      where,
+      tiebreaker == null ? sortKey : sortKey + "," + tiebreaker);
+  }
+
+  // The table's tiebreaker for the sort key, or null if the sort key is unique itself or the
+  // table has no unique column to break ties with.
+  @Nullable
+  public static String tiebreaker(
+    @NotNull SchemaRegistry schema,
+    @NotNull Connection connection,
+    @NotNull String table,
+    @NotNull Map<String, StorageType> types,
+    @NotNull String sortKey)
+    throws SQLException {
+    String column = schema.getTiebreaker(table);
+    if (column == null) {
+      column = readTiebreaker(connection, table, types);
+      schema.setTiebreaker(table, column);
+    }
+
+    return column.isEmpty() || column.equalsIgnoreCase(sortKey) ? null : column;
+  }
+
+  // Whether the request resumes after a tie; its token must name the table's tiebreaker.
+  public static boolean resumesTiebreaker(
+    @NotNull String table, @Nullable String tiebreaker, @NotNull PageRequest request) {
+    if (request.getTiebreaker() == null) {
+      return false;
+    }
+
+    if (!request.getTiebreaker().equals(tiebreaker)) {
+      throw new IllegalArgumentException(
+        "Page token breaks ties by " + request.getTiebreaker() + ", which " + table
+          + " no longer does");
+    }
+
+    return true;
+  }
+
+  @NotNull
+  public static String token(
+    @NotNull String sortKey,
+    @NotNull String lastValue,
+    @Nullable String tiebreaker,
+    @Nullable ProcessedModelField lastTiebreaker) {
+    // A NULL tiebreaker can't be resumed after; such a token only compares the sort key.
+    if (tiebreaker == null || lastTiebreaker == null || "null".equals(lastTiebreaker.value())) {
+      return PageRequest.token(sortKey, lastValue);
+    }
+
+    return PageRequest.token(sortKey, lastValue, tiebreaker, lastTiebreaker.value());
+  }
+
+  // The first, by name, of the table's single-column unique indexes over a non-binary column;
+  // empty if there is none.
+  @NotNull
+  private static String readTiebreaker(
+    @NotNull Connection connection,
+    @NotNull String table,
+    @NotNull Map<String, StorageType> types)
+    throws SQLException {
+    final Map<String, List<String>> indexes = new HashMap<>();
+    try (ResultSet rs = connection.getMetaData().getIndexInfo(null, null, table, true, false)) {
+      while (rs.next()) {
+        final String index = rs.getString("INDEX_NAME");
+        final String column = rs.getString("COLUMN_NAME");
+
+        // Some drivers list every index even when asked for unique ones only.
+        if (index != null && column != null && !rs.getBoolean("NON_UNIQUE")) {
+          indexes.computeIfAbsent(index, k -> new ArrayList<>(1)).add(column);
+        }
+      }
+    }
+
+    String tiebreaker = "";
+    for (List<String> columns : indexes.values()) {
+      final String column = columns.get(0);
+      if (columns.size() != 1 || types.get(column) == StorageType.BINARY) {
+        continue;
+      }
+
+      if (tiebreaker.isEmpty()
+        || column.toLowerCase(Locale.ROOT).compareTo(tiebreaker.toLowerCase(Locale.ROOT)) < 0) {
+        tiebreaker = column;
+      }
+    }
+
+    return tiebreaker;
+  }
+}
@@ -0,0 +1,113 @@
+package me.byteful.lib.datastore.api.data.internal;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+// Open-addressing map from primitive longs, so numeric columns are indexed without boxing a
+// Long per entry. Linear probing with backward-shift deletion, no tombstones. Not thread-safe;
+// callers guard it with their own lock.
+public final class LongObjectMap<V> {
+  private static final int MIN_CAPACITY = 16;
+
+  private long[] keys = new long[MIN_CAPACITY];
+  // A null value marks an empty slot.
+  private Object[] values = new Object[MIN_CAPACITY];
+  private int size;
+
+  public int size() {
+    return size;
+  }
+
+  @Nullable
+  @SuppressWarnings("unchecked")
+  public V get(long key) {
+    final int mask = keys.length - 1;
+    for (int slot = slot(key, mask); values[slot] != null; slot = (slot + 1) & mask) {
+      if (keys[slot] == key) {
+        return (V) values[slot];
+      }
+    }
+
+    return null;
+  }
+
+  public void put(long key, @NotNull V value) {
+    final int mask = keys.length - 1;
+    int slot = slot(key, mask);
+    for (; values[slot] != null; slot = (slot + 1) & mask) {
+      if (keys[slot] == key) {
+        values[slot] = value;
+        return;
+      }
+    }
+
+    keys[slot] = key;
+    values[slot] = value;
+
+    // Kept at most half full, so probe chains stay short.
+    if (++size * 2 > keys.length) {
+      resize(keys.length * 2);
+    }
+  }
+
+  public void remove(long key) {
+    final int mask = keys.length - 1;
+    int slot = slot(key, mask);
+    for (; values[slot] != null; slot = (slot + 1) & mask) {
+      if (keys[slot] == key) {
+        break;
+      }
+    }
+
+    if (values[slot] == null) {
+      return;
+    }
+
+    // Move later entries of the chain back into the hole so lookups never stop early.
+    int hole = slot;
+    for (int next = (hole + 1) & mask; values[next] != null; next = (next + 1) & mask) {
+      final int home = slot(keys[next], mask);
+      if (((next - home) & mask) >= ((next - hole) & mask)) {
+        keys[hole] = keys[next];
+        values[hole] = values[next];
+        hole = next;
+      }
+    }
+
+    values[hole] = null;
+    size--;
+  }
+
+  public void clear() {
+    keys = new long[MIN_CAPACITY];
+    values = new Object[MIN_CAPACITY];
+    size = 0;
+  }
+
+  private void resize(int capacity) {
+    final long[] oldKeys = keys;
+    final Object[] oldValues = values;
+    keys = new long[capacity];
+    values = new Object[capacity];
+
+    final int mask = capacity - 1;
+    for (int i = 0; i < oldKeys.length; i++) {
+      if (oldValues[i] != null) {
+        int slot = slot(oldKeys[i], mask);
+        while (values[slot] != null) {
+          slot = (slot + 1) & mask;
+        }
+
+        keys[slot] = oldKeys[i];
+        values[slot] = oldValues[i];
+      }
+    }
+  }
+
+  private static int slot(long key, int mask) {
+    // Fibonacci hashing spreads sequential ids across the table.
+    final long hash = key * 0x9E3779B97F4A7C15L;
+
+    return (int) (hash ^ (hash >>> 32)) & mask;
+  }
+}
@@ -0,0 +1,136 @@
+package me.byteful.lib.datastore.api.data.internal;
+
+import com.google.gson.Gson;
+import me.byteful.lib.datastore.api.model.ModelSink;
+import me.byteful.lib.datastore.api.model.ProcessedModel;
+import me.byteful.lib.datastore.api.model.ProcessedModelField;
+import me.byteful.lib.datastore.api.model.ProcessedModelFieldType;
+import me.byteful.lib.datastore.api.model.StorageType;
+import me.byteful.lib.datastore.api.model.impl.JSONProcessedModel;
+import me.byteful.lib.datastore.api.model.impl.JSONProcessedModelField;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Reusable per-thread buffer a ModelStructure writes one row into. Values stay as the objects
+// the structure handed over until they are bound, and the arrays are kept between rows, so a
+// steady-state set() allocates little beyond what the driver itself needs.
+public final class RowWriter implements ModelSink {
+  private final List<String> keys = new ArrayList<>();
+  private ProcessedModelFieldType[] fieldTypes = new ProcessedModelFieldType[16];
+  private StorageType[] storageTypes = new StorageType[16];
+  private Object[] values = new Object[16];
+  private int size;
+
+  // Insert SQL of the last shape, so repeated writes of one model type skip the template lookup.
+  private String lastTable;
+  private List<String> lastKeys = new ArrayList<>();
+  private String lastSql;
+
+  @Override
+  public @NotNull ModelSink append(
+    @NotNull String key, @NotNull ProcessedModelFieldType fieldType, @Nullable Object value) {
+    return add(key, fieldType, null, value);
+  }
+
+  @Override
+  public @NotNull ModelSink append(
+    @NotNull String key,
+    @NotNull ProcessedModelFieldType fieldType,
+    @NotNull StorageType storageType,
+    @Nullable Object value) {
+    return add(key, fieldType, storageType, value);
+  }
+
+  @Override
+  public @NotNull ModelSink append(@NotNull ProcessedModelField field) {
+    return add(field.key(), field.type(), field.storageType(), field);
+  }
+
+  @NotNull
+  private ModelSink add(
+    @NotNull String key,
+    @NotNull ProcessedModelFieldType fieldType,
+    @Nullable StorageType storageType,
+    @Nullable Object value) {
+    final int existing = keys.indexOf(key);
+    final int index = existing == -1 ? size : existing;
+    if (index == values.length) {
+      fieldTypes = Arrays.copyOf(fieldTypes, index * 2);
+      storageTypes = Arrays.copyOf(storageTypes, index * 2);
+      values = Arrays.copyOf(values, index * 2);
+    }
+
+    if (existing == -1) {
+      keys.add(key);
+      size++;
+    }
+
+    fieldTypes[index] = fieldType;
+    storageTypes[index] = storageType;
+    values[index] = value;
+
+    return this;
+  }
+
+  @NotNull
+  public List<String> keys() {
+    return keys;
+  }
+
+  @NotNull
+  public String insertSql(@NotNull StatementTemplates templates, @NotNull String table) {
+    if (!table.equals(lastTable) || !keys.equals(lastKeys)) {
+      lastSql = templates.insert(table, keys);
+      lastTable = table;
+      lastKeys = new ArrayList<>(keys);
+    }
+
+    return lastSql;
+  }
+
+  // Returns roughly how many bytes were bound.
+  public int bind(
+    @NotNull PreparedStatement statement,
+    @NotNull Map<String, StorageType> types,
+    @NotNull Gson gson)
+    throws SQLException {
+    int bytes = 0;
+    for (int i = 0; i < size; i++) {
+      bytes += ColumnValues.bindValue(statement, i + 1, types.get(keys.get(i)), values[i], gson);
+    }
+
+    return bytes;
+  }
+
+  // Only needed the first time a table is seen, to create it with the right column types.
+  @NotNull
+  public ProcessedModel toProcessedModel(@NotNull Gson gson) {
+    final Map<String, ProcessedModelField> fields = new HashMap<>();
+    for (int i = 0; i < size; i++) {
+      final String key = keys.get(i);
+      final Object value = values[i];
+
+      fields.put(
+        key,
+        value instanceof ProcessedModelField
+          ? (ProcessedModelField) value
+          : JSONProcessedModelField.of(key, value, fieldTypes[i], storageTypes[i], gson));
+    }
+
+    return new JSONProcessedModel(fields, gson);
+  }
+
+  public void reset() {
+    Arrays.fill(values, 0, size, null);
+    keys.clear();
+    size = 0;
+  }
+}
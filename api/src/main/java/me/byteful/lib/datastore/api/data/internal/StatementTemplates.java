@@ -0,0 +1,190 @@
+package me.byteful.lib.datastore.api.data.internal;
+
+import me.byteful.lib.datastore.api.model.ModelId;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Compiled SQL keyed by (kind, table, column shape), so steady-state operations hand the
+// exact same String to the driver's statement cache instead of formatting new SQL on every
+// call. Backends supply the statements their dialects spell differently.
+public abstract class StatementTemplates {
+  private final Map<Key, String> templates = new ConcurrentHashMap<>();
+
+  @NotNull
+  public String select(@NotNull String table, @NotNull ModelId[] ids) {
+    return templates.computeIfAbsent(
+      new Key(Kind.SELECT, table, names(ids), 0),
+      key -> String.format("select * from %s where %s;", table, where(key.columns)));
+  }
+
+  // Projection of the given columns; the key covers both the columns and the id shape.
+  @NotNull
+  public String selectFields(@NotNull String table, @NotNull String[] fields, @NotNull ModelId[] ids) {
+    final String[] names = names(ids);
+    final String[] columns = Arrays.copyOf(fields, fields.length + names.length);
+    System.arraycopy(names, 0, columns, fields.length, names.length);
+
+    return templates.computeIfAbsent(
+      new Key(Kind.SELECT_FIELDS, table, columns, fields.length),
+      key ->
+        String.format(
+          "select %s from %s where %s;", String.join(",", fields), table, where(names)));
+  }
+
+  @NotNull
+  public String selectAll(@NotNull String table, @NotNull ModelId[] ids) {
+    return templates.computeIfAbsent(
+      new Key(Kind.SELECT_ALL, table, names(ids), 0),
+      key ->
+        key.columns.length == 0
+          ? String.format("select * from %s;", table)
+          : String.format("select * from %s where %s;", table, where(key.columns)));
+  }
+
+  @NotNull
+  public String selectIn(@NotNull String table, @NotNull String column, int count) {
+    return templates.computeIfAbsent(
+      new Key(Kind.SELECT_IN, table, new String[]{column}, count),
+      key ->
+        String.format(
+          "select * from %s where %s in (%s);",
+          table,
+          column,
+          String.join(",", Collections.nCopies(count, "?"))));
+  }
+
+  // Keyset page over the rows matching the ids; see Keyset.select for the conditions.
+  @NotNull
+  public String page(
+    @NotNull String table,
+    @NotNull ModelId[] ids,
+    @NotNull String sortKey,
+    @Nullable String tiebreaker,
+    boolean resume,
+    boolean resumeTiebreaker) {
+    final String[] names = names(ids);
+    final String[] columns = Arrays.copyOf(names, names.length + (tiebreaker == null ? 1 : 2));
+    columns[names.length] = sortKey;
+    if (tiebreaker != null) {
+      columns[names.length + 1] = tiebreaker;
+    }
+
+    final Kind kind =
+      resumeTiebreaker ? Kind.PAGE_AFTER_TIE : resume ? Kind.PAGE_AFTER : Kind.PAGE_FIRST;
+
+    // The id count tells the id columns apart from the sort key and tiebreaker.
+    return templates.computeIfAbsent(
+      new Key(kind, table, columns, names.length),
+      key ->
+        Keyset.select(table, where(names), sortKey, tiebreaker, resume, resumeTiebreaker));
+  }
+
+  @NotNull
+  public String delete(@NotNull String table, @NotNull ModelId[] ids) {
+    return templates.computeIfAbsent(
+      new Key(Kind.DELETE, table, names(ids), 0),
+      key -> String.format("delete from %s where %s;", table, where(key.columns)));
+  }
+
+  @NotNull
+  public String clear(@NotNull String table) {
+    return templates.computeIfAbsent(
+      new Key(Kind.CLEAR, table, new String[0], 0), key -> clearSql(table));
+  }
+
+  // Upserts a row with the given columns, replacing the one with the same key.
+  @NotNull
+  public String insert(@NotNull String table, @NotNull List<String> columns) {
+    return templates.computeIfAbsent(
+      new Key(Kind.INSERT, table, columns.toArray(new String[0]), 0),
+      key -> insertSql(table, key.columns));
+  }
+
+  @NotNull
+  protected abstract String clearSql(@NotNull String table);
+
+  @NotNull
+  protected abstract String insertSql(@NotNull String table, @NotNull String[] columns);
+
+  public void invalidate(@NotNull String table) {
+    templates.keySet().removeIf(key -> key.table.equals(table));
+  }
+
+  @NotNull
+  private static String[] names(@NotNull ModelId[] ids) {
+    final String[] names = new String[ids.length];
+    for (int i = 0; i < ids.length; i++) {
+      names[i] = ids[i].key();
+    }
+
+    return names;
+  }
+
+  @NotNull
+  private static String where(@NotNull String[] columns) {
+    final StringBuilder builder = new StringBuilder();
+    for (int i = 0; i < columns.length; i++) {
+      if (i != 0) {
+        builder.append(" and ");
+      }
+
+      builder.append(columns[i]).append("=?");
+    }
+
+    return builder.toString();
+  }
+
+  private enum Kind {
+    SELECT,
+    SELECT_FIELDS,
+    SELECT_ALL,
+    SELECT_IN,
+    PAGE_FIRST,
+    PAGE_AFTER,
+    PAGE_AFTER_TIE,
+    DELETE,
+    CLEAR,
+    INSERT
+  }
+
+  private static final class Key {
+    @NotNull
+    private final Kind kind;
+    @NotNull
+    private final String table;
+    @NotNull
+    private final String[] columns;
+    private final int count;
+    private final int hash;
+
+    private Key(@NotNull Kind kind, @NotNull String table, @NotNull String[] columns, int count) {
+      this.kind = kind;
+      this.table = table;
+      this.columns = columns;
+      this.count = count;
+      this.hash = 31 * (31 * (31 * kind.hashCode() + table.hashCode()) + Arrays.hashCode(columns)) + count;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) return true;
+      if (o == null || getClass() != o.getClass()) return false;
+      Key that = (Key) o;
+      return kind == that.kind
+        && count == that.count
+        && table.equals(that.table)
+        && Arrays.equals(columns, that.columns);
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+  }
+}
@@ -0,0 +1,78 @@
+package me.byteful.lib.datastore.api.data.internal;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import me.byteful.lib.datastore.api.model.StorageType;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+// Comparable form of a stored JSON value under its column's StorageType. Ids and fields are
+// compared the way the SQL backends bind them: numerically in numeric columns, by the text
+// itself in JSON columns, and by JSON tree in binary ones. This package is shared between the
+// backends and is not meant for callers.
+public final class Values {
+  private Values() {
+  }
+
+  // Null stands for SQL NULL, which matches no id and never collides in a unique column.
+  @Nullable
+  public static Object canonical(@NotNull StorageType type, @NotNull String json) {
+    if (type == StorageType.JSON) {
+      return json;
+    }
+
+    try {
+      final JsonElement element = JsonParser.parseString(json);
+      if (element.isJsonNull()) {
+        return null;
+      }
+
+      switch (type) {
+        case INT:
+        case BIGINT:
+          return element.getAsLong();
+        case DOUBLE:
+          return element.getAsDouble();
+        case BOOLEAN:
+          return element.getAsBoolean();
+        case TEXT:
+          return element.getAsString();
+        default:
+          return element;
+      }
+    } catch (RuntimeException e) {
+      // Not representable in the column, so compared as the raw text instead.
+      return json;
+    }
+  }
+
+  // Sort order for getPage: numbers, then booleans, then text, then anything else by its JSON.
+  public static int compare(@NotNull Object a, @NotNull Object b) {
+    final int rank = Integer.compare(rank(a), rank(b));
+    if (rank != 0) {
+      return rank;
+    }
+
+    if (a instanceof Long && b instanceof Long) {
+      return Long.compare((Long) a, (Long) b);
+    } else if (a instanceof Number) {
+      return Double.compare(((Number) a).doubleValue(), ((Number) b).doubleValue());
+    } else if (a instanceof Boolean) {
+      return Boolean.compare((Boolean) a, (Boolean) b);
+    }
+
+    return a.toString().compareTo(b.toString());
+  }
+
+  private static int rank(@NotNull Object value) {
+    if (value instanceof Number) {
+      return 0;
+    } else if (value instanceof Boolean) {
+      return 1;
+    } else if (value instanceof String) {
+      return 2;
+    }
+
+    return 3;
+  }
+}
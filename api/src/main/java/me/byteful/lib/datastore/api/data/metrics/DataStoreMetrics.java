@@ -0,0 +1,38 @@
+package me.byteful.lib.datastore.api.data.metrics;
+
+import org.jetbrains.annotations.NotNull;
+
+// Receives what a DataStore does. Every method defaults to doing nothing, so implementations
+// pick what they care about. Calls come from the threads doing the work: implementations must
+// be thread-safe and should neither block nor allocate per call.
+//
+// InstrumentedDataStore reports operations. Backends report what only they can see, once the
+// metrics are set on their DataStoreOptions: serialized bytes, errors they log instead of
+// throwing and connection pool waits.
+public interface DataStoreMetrics {
+  DataStoreMetrics NOOP = new DataStoreMetrics() {};
+
+  // Group reported for calls that touch models of more than one StoredGroup.
+  String MIXED_GROUP = "*";
+
+  // rows counts the models read or written, where the call tells.
+  default void recordOperation(
+    @NotNull DataStoreOperation operation,
+    @NotNull String group,
+    long nanos,
+    int rows,
+    boolean failed) {
+  }
+
+  default void recordSerializedBytes(@NotNull String group, long bytes) {
+  }
+
+  default void recordError(@NotNull String group, @NotNull Throwable error) {
+  }
+
+  default void recordConnectionWait(long nanos) {
+  }
+
+  default void recordConnectionTimeout() {
+  }
+}
@@ -0,0 +1,16 @@
+package me.byteful.lib.datastore.api.data.metrics;
+
+public enum DataStoreOperation {
+  GET,
+  GET_FIELDS,
+  GET_ALL,
+  STREAM,
+  GET_PAGE,
+  GET_MANY,
+  SET,
+  SET_ALL,
+  EXISTS,
+  DELETE,
+  CLEAR,
+  COMMIT
+}
@@ -0,0 +1,150 @@
+package me.byteful.lib.datastore.api.data.metrics;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// Dependency-free DataStoreMetrics that keeps everything in memory, per StoredGroup and
+// operation, for exposing through whatever the application already reports with. Histograms
+// are created the first time a group sees an operation.
+public class InMemoryDataStoreMetrics implements DataStoreMetrics {
+  private static final DataStoreOperation[] OPERATIONS = DataStoreOperation.values();
+
+  private final ConcurrentHashMap<String, GroupStats> groups = new ConcurrentHashMap<>();
+  private final LatencyHistogram connectionWait = new LatencyHistogram();
+  private final LongAdder connectionTimeouts = new LongAdder();
+
+  @Override
+  public void recordOperation(
+    @NotNull DataStoreOperation operation,
+    @NotNull String group,
+    long nanos,
+    int rows,
+    boolean failed) {
+    group(group).operation(operation).record(nanos, rows, failed);
+  }
+
+  @Override
+  public void recordSerializedBytes(@NotNull String group, long bytes) {
+    group(group).serializedBytes.add(bytes);
+  }
+
+  @Override
+  public void recordError(@NotNull String group, @NotNull Throwable error) {
+    group(group).errors.increment();
+  }
+
+  @Override
+  public void recordConnectionWait(long nanos) {
+    connectionWait.record(nanos);
+  }
+
+  @Override
+  public void recordConnectionTimeout() {
+    connectionTimeouts.increment();
+  }
+
+  @NotNull
+  public Set<String> getGroups() {
+    return Collections.unmodifiableSet(groups.keySet());
+  }
+
+  @Nullable
+  public OperationStats getOperation(@NotNull String group, @NotNull DataStoreOperation operation) {
+    final GroupStats stats = groups.get(group);
+
+    return stats == null ? null : stats.operations.get(operation.ordinal());
+  }
+
+  public long getSerializedBytes(@NotNull String group) {
+    final GroupStats stats = groups.get(group);
+
+    return stats == null ? 0 : stats.serializedBytes.sum();
+  }
+
+  // Errors the backend caught and logged; operations that threw count as failed instead.
+  public long getErrors(@NotNull String group) {
+    final GroupStats stats = groups.get(group);
+
+    return stats == null ? 0 : stats.errors.sum();
+  }
+
+  @NotNull
+  public LatencyHistogram getConnectionWait() {
+    return connectionWait;
+  }
+
+  public long getConnectionTimeouts() {
+    return connectionTimeouts.sum();
+  }
+
+  public void reset() {
+    groups.clear();
+    connectionWait.reset();
+    connectionTimeouts.reset();
+  }
+
+  @NotNull
+  private GroupStats group(@NotNull String group) {
+    final GroupStats stats = groups.get(group);
+
+    return stats != null ? stats : groups.computeIfAbsent(group, key -> new GroupStats());
+  }
+
+  public static final class OperationStats {
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder rows = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+
+    private void record(long nanos, int rows, boolean failed) {
+      latency.record(nanos);
+      this.rows.add(rows);
+
+      if (failed) {
+        failures.increment();
+      }
+    }
+
+    @NotNull
+    public LatencyHistogram getLatency() {
+      return latency;
+    }
+
+    public long getCount() {
+      return latency.getCount();
+    }
+
+    public long getRows() {
+      return rows.sum();
+    }
+
+    public long getFailures() {
+      return failures.sum();
+    }
+  }
+
+  private static final class GroupStats {
+    private final AtomicReferenceArray<OperationStats> operations =
+      new AtomicReferenceArray<>(OPERATIONS.length);
+    private final LongAdder serializedBytes = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+
+    @NotNull
+    private OperationStats operation(@NotNull DataStoreOperation operation) {
+      final int index = operation.ordinal();
+      final OperationStats stats = operations.get(index);
+      if (stats != null) {
+        return stats;
+      }
+
+      operations.compareAndSet(index, null, new OperationStats());
+
+      return operations.get(index);
+    }
+  }
+}
@@ -0,0 +1,272 @@
+package me.byteful.lib.datastore.api.data.metrics;
+
+import me.byteful.lib.datastore.api.data.DataStore;
+import me.byteful.lib.datastore.api.data.DataStoreTransaction;
+import me.byteful.lib.datastore.api.data.Page;
+import me.byteful.lib.datastore.api.data.PageRequest;
+import me.byteful.lib.datastore.api.model.Model;
+import me.byteful.lib.datastore.api.model.ModelId;
+import me.byteful.lib.datastore.api.model.ProcessedModel;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+// Times every call to the wrapped store and reports it to DataStoreMetrics under the model's
+// StoredGroup. A call counts as failed when it throws; backends that log errors instead report
+// them through the metrics set on their own DataStoreOptions.
+public class InstrumentedDataStore implements DataStore {
+  @NotNull
+  private final DataStore store;
+  @NotNull
+  private final DataStoreMetrics metrics;
+
+  public InstrumentedDataStore(@NotNull DataStore store, @NotNull DataStoreMetrics metrics) {
+    this.store = store;
+    this.metrics = metrics;
+  }
+
+  @NotNull
+  public DataStore getDelegate() {
+    return store;
+  }
+
+  @NotNull
+  public DataStoreMetrics getMetrics() {
+    return metrics;
+  }
+
+  @Override
+  public @NotNull <T extends Model> Optional<T> get(
+    @NotNull Class<T> type, @NotNull ModelId id, @NotNull ModelId... ids) {
+    final String group = getStoredGroup(type);
+    final long start = System.nanoTime();
+    Optional<T> result = null;
+
+    try {
+      return result = store.get(type, id, ids);
+    } finally {
+      record(DataStoreOperation.GET, group, start, result == null ? -1 : count(result));
+    }
+  }
+
+  @Override
+  public @NotNull Optional<ProcessedModel> getFields(
+    @NotNull Class<? extends Model> type,
+    @NotNull Set<String> fields,
+    @NotNull ModelId id,
+    @NotNull ModelId... ids) {
+    final String group = getStoredGroup(type);
+    final long start = System.nanoTime();
+    Optional<ProcessedModel> result = null;
+
+    try {
+      return result = store.getFields(type, fields, id, ids);
+    } finally {
+      record(DataStoreOperation.GET_FIELDS, group, start, result == null ? -1 : count(result));
+    }
+  }
+
+  @Override
+  public @NotNull <T extends Model> List<T> getAll(
+    @NotNull Class<T> type, @NotNull ModelId... ids) {
+    final String group = getStoredGroup(type);
+    final long start = System.nanoTime();
+    List<T> result = null;
+
+    try {
+      return result = store.getAll(type, ids);
+    } finally {
+      record(DataStoreOperation.GET_ALL, group, start, result == null ? -1 : result.size());
+    }
+  }
+
+  // Recorded when the stream is closed, with the models actually read from it.
+  @Override
+  public @NotNull <T extends Model> Stream<T> stream(
+    @NotNull Class<T> type, @NotNull ModelId... ids) {
+    final String group = getStoredGroup(type);
+    final long start = System.nanoTime();
+    final Stream<T> stream;
+
+    try {
+      stream = store.stream(type, ids);
+    } catch (RuntimeException | Error e) {
+      record(DataStoreOperation.STREAM, group, start, -1);
+      throw e;
+    }
+
+    final AtomicInteger rows = new AtomicInteger();
+
+    return stream
+      .peek(model -> rows.incrementAndGet())
+      .onClose(() -> record(DataStoreOperation.STREAM, group, start, rows.get()));
+  }
+
+  @Override
+  public @NotNull <T extends Model> Page<T> getPage(
+    @NotNull Class<T> type, @NotNull PageRequest request, @NotNull ModelId... ids) {
+    final String group = getStoredGroup(type);
+    final long start = System.nanoTime();
+    Page<T> result = null;
+
+    try {
+      return result = store.getPage(type, request, ids);
+    } finally {
+      record(
+        DataStoreOperation.GET_PAGE, group, start, result == null ? -1 : result.getItems().size());
+    }
+  }
+
+  @Override
+  public @NotNull <T extends Model> Map<ModelId, T> getMany(
+    @NotNull Class<T> type, @NotNull Collection<? extends ModelId> ids) {
+    final String group = getStoredGroup(type);
+    final long start = System.nanoTime();
+    Map<ModelId, T> result = null;
+
+    try {
+      return result = store.getMany(type, ids);
+    } finally {
+      record(DataStoreOperation.GET_MANY, group, start, result == null ? -1 : result.size());
+    }
+  }
+
+  @Override
+  public void set(@NotNull ModelId id, @NotNull Model model) {
+    final String group = getStoredGroup(model.getClass());
+    final long start = System.nanoTime();
+    boolean done = false;
+
+    try {
+      store.set(id, model);
+      done = true;
+    } finally {
+      record(DataStoreOperation.SET, group, start, done ? 1 : -1);
+    }
+  }
+
+  @Override
+  public boolean setAll(@NotNull Map<? extends ModelId, ? extends Model> models) {
+    final String group = group(models.values());
+    final long start = System.nanoTime();
+    boolean done = false;
+
+    try {
+      return done = store.setAll(models);
+    } finally {
+      record(DataStoreOperation.SET_ALL, group, start, done ? models.size() : -1);
+    }
+  }
+
+  @Override
+  public boolean exists(
+    @NotNull Class<? extends Model> type, @NotNull ModelId id, @NotNull ModelId... ids) {
+    final String group = getStoredGroup(type);
+    final long start = System.nanoTime();
+    Boolean result = null;
+
+    try {
+      return result = store.exists(type, id, ids);
+    } finally {
+      record(DataStoreOperation.EXISTS, group, start, result == null ? -1 : result ? 1 : 0);
+    }
+  }
+
+  @Override
+  public void delete(
+    @NotNull Class<? extends Model> type, @NotNull ModelId id, @NotNull ModelId... ids) {
+    final String group = getStoredGroup(type);
+    final long start = System.nanoTime();
+    boolean done = false;
+
+    try {
+      store.delete(type, id, ids);
+      done = true;
+    } finally {
+      record(DataStoreOperation.DELETE, group, start, done ? 0 : -1);
+    }
+  }
+
+  @Override
+  public void clear(@NotNull Class<? extends Model> type) {
+    final String group = getStoredGroup(type);
+    final long start = System.nanoTime();
+    boolean done = false;
+
+    try {
+      store.clear(type);
+      done = true;
+    } finally {
+      record(DataStoreOperation.CLEAR, group, start, done ? 0 : -1);
+    }
+  }
+
+  // A commit that returns false counts as failed too.
+  @Override
+  public boolean commit(@NotNull DataStoreTransaction transaction) {
+    String group = null;
+    for (DataStoreTransaction.Operation operation : transaction.getOperations()) {
+      group =
+        merge(
+          group,
+          getStoredGroup(
+            operation.isDelete() ? operation.getType() : operation.getModel().getClass()));
+    }
+
+    final long start = System.nanoTime();
+    boolean committed = false;
+
+    try {
+      return committed = store.commit(transaction);
+    } finally {
+      record(
+        DataStoreOperation.COMMIT,
+        group == null ? DataStoreMetrics.MIXED_GROUP : group,
+        start,
+        committed ? transaction.size() : -1);
+    }
+  }
+
+  @Override
+  public void close() throws Exception {
+    store.close();
+  }
+
+  // rows of -1 marks a failed call.
+  private void record(
+    @NotNull DataStoreOperation operation, @NotNull String group, long start, int rows) {
+    metrics.recordOperation(
+      operation, group, System.nanoTime() - start, Math.max(0, rows), rows < 0);
+  }
+
+  private static int count(@NotNull Optional<?> result) {
+    return result.isPresent() ? 1 : 0;
+  }
+
+  @NotNull
+  private String group(@NotNull Collection<? extends Model> models) {
+    String group = null;
+    Class<?> last = null;
+    for (Model model : models) {
+      // Consecutive models of one type are the common case; look their group up once.
+      if (model.getClass() != last) {
+        last = model.getClass();
+        group = merge(group, getStoredGroup(last));
+      }
+    }
+
+    return group == null ? DataStoreMetrics.MIXED_GROUP : group;
+  }
+
+  @NotNull
+  private static String merge(@Nullable String group, @NotNull String next) {
+    return group == null || group.equals(next) ? next : DataStoreMetrics.MIXED_GROUP;
+  }
+}
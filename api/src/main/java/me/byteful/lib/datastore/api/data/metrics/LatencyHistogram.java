@@ -0,0 +1,107 @@
+package me.byteful.lib.datastore.api.data.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// Log-linear histogram of nanosecond latencies, in the style of HdrHistogram: every power of two
+// is split into 32 linear buckets, so any recorded value is reported within about 3% of what it
+// was. Recording is a couple of atomic increments and never allocates.
+public final class LatencyHistogram {
+  private static final int SUB_BUCKET_BITS = 5;
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  // Values below SUB_BUCKETS get a bucket each; above that, SUB_BUCKETS per power of two.
+  private static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+  private final LongAdder count = new LongAdder();
+  private final LongAdder total = new LongAdder();
+  private final AtomicLong max = new AtomicLong();
+
+  public void record(long nanos) {
+    final long value = Math.max(0, nanos);
+    counts.incrementAndGet(index(value));
+    count.increment();
+    total.add(value);
+
+    long current;
+    while (value > (current = max.get()) && !max.compareAndSet(current, value)) {
+      // Lost to a concurrent record; retry against its value.
+    }
+  }
+
+  public long getCount() {
+    return count.sum();
+  }
+
+  public long getMax() {
+    return max.get();
+  }
+
+  public double getMean() {
+    final long count = getCount();
+
+    return count == 0 ? 0 : (double) total.sum() / count;
+  }
+
+  // Upper bound of the bucket holding the given percentile (0-100), capped at the maximum.
+  public long getValueAtPercentile(double percentile) {
+    if (percentile < 0 || percentile > 100) {
+      throw new IllegalArgumentException("Percentile must be between 0 and 100, got " + percentile);
+    }
+
+    long remaining = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      remaining += counts.get(i);
+    }
+
+    if (remaining == 0) {
+      return 0;
+    }
+
+    final long target = Math.max(1, (long) Math.ceil(percentile / 100 * remaining));
+    long seen = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      seen += counts.get(i);
+
+      if (seen >= target) {
+        return Math.min(highestValue(i), getMax());
+      }
+    }
+
+    return getMax();
+  }
+
+  public void reset() {
+    for (int i = 0; i < BUCKETS; i++) {
+      counts.set(i, 0);
+    }
+
+    count.reset();
+    total.reset();
+    max.set(0);
+  }
+
+  static int index(long value) {
+    if (value < SUB_BUCKETS) {
+      return (int) value;
+    }
+
+    final int exponent = 63 - Long.numberOfLeadingZeros(value);
+    final int shift = exponent - SUB_BUCKET_BITS;
+    final int subBucket = (int) (value >>> shift) - SUB_BUCKETS;
+
+    return (shift + 1) * SUB_BUCKETS + subBucket;
+  }
+
+  static long highestValue(int index) {
+    if (index < SUB_BUCKETS) {
+      return index;
+    }
+
+    final int shift = index / SUB_BUCKETS - 1;
+    final long lowest = (long) (SUB_BUCKETS + index % SUB_BUCKETS) << shift;
+
+    return lowest + (1L << shift) - 1;
+  }
+}
@@ -0,0 +1,24 @@
+package me.byteful.lib.datastore.api.model;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+// Receives a model's fields one by one as ModelStructure#write produces them. Backends
+// implement it with reusable buffers that bind values straight into their native write call,
+// so no ProcessedModel or JSON strings need to be built on the way.
+public interface ModelSink {
+  @NotNull
+  ModelSink append(
+    @NotNull String key, @NotNull ProcessedModelFieldType fieldType, @Nullable Object value);
+
+  // Pass StorageType.BINARY to get the compact encoding BinaryProcessedModel would use.
+  @NotNull
+  ModelSink append(
+    @NotNull String key,
+    @NotNull ProcessedModelFieldType fieldType,
+    @NotNull StorageType storageType,
+    @Nullable Object value);
+
+  @NotNull
+  ModelSink append(@NotNull ProcessedModelField field);
+}
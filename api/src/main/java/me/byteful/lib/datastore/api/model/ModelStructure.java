@@ -11,4 +11,12 @@ public interface ModelStructure<T extends Model> {
 
   @NotNull
   Class<T> getModelType();
+
+  // Write path used by the backends. Override it with the same appends serialize makes to
+  // skip the intermediate ProcessedModel entirely.
+  default void write(@NotNull T t, @NotNull ModelSink sink) {
+    for (ProcessedModelField field : serialize(t).values().values()) {
+      sink.append(field);
+    }
+  }
 }
@@ -15,6 +15,16 @@ public interface ProcessedModel {
   ProcessedModel append(
     @NotNull String key, @NotNull ProcessedModelFieldType fieldType, @Nullable Object value);
 
+  // Implementations that cannot carry storage hints simply drop them.
+  @NotNull
+  default ProcessedModel append(
+    @NotNull String key,
+    @NotNull ProcessedModelFieldType fieldType,
+    @NotNull StorageType storageType,
+    @Nullable Object value) {
+    return append(key, fieldType, value);
+  }
+
   @NotNull
   ProcessedModel append(@NotNull ProcessedModelField field);
 
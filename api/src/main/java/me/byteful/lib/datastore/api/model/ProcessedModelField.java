@@ -1,6 +1,7 @@
 package me.byteful.lib.datastore.api.model;
 
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 public interface ProcessedModelField {
   @NotNull
@@ -11,4 +12,10 @@ public interface ProcessedModelField {
 
   @NotNull
   ProcessedModelFieldType type();
+
+  // Null means no preference, which backends treat as the legacy JSON text column.
+  @Nullable
+  default StorageType storageType() {
+    return null;
+  }
 }
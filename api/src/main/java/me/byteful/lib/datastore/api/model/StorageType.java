@@ -0,0 +1,16 @@
+package me.byteful.lib.datastore.api.model;
+
+// Optional hint telling a backend how a field should be persisted. Field values are still
+// JSON; backends that understand the hint store them in a native column instead of the
+// legacy varchar(255) JSON text.
+public enum StorageType {
+  INT,
+  BIGINT,
+  DOUBLE,
+  BOOLEAN,
+  TEXT,
+  BLOB,
+  JSON,
+  // The field's own compact encoding, see BinaryProcessedModelField.
+  BINARY;
+}
@@ -0,0 +1,449 @@
+package me.byteful.lib.datastore.api.model.impl;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.JsonSyntaxException;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.ByteArrayOutputStream;
+import java.lang.reflect.Array;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Map;
+
+// Compact tagged encoding used by BinaryProcessedModelField. Every value is one tag byte
+// followed by its payload: zig-zag varints for integers, raw IEEE doubles, length-prefixed
+// UTF-8 / bytes, and count-prefixed arrays and records. Anything without a direct encoding
+// goes through Gson's JsonElement tree, so custom type adapters keep working.
+final class BinaryCodec {
+  static final byte NULL = 0;
+  static final byte FALSE = 1;
+  static final byte TRUE = 2;
+  static final byte INT = 3;
+  static final byte DOUBLE = 4;
+  static final byte STRING = 5;
+  static final byte BYTES = 6;
+  static final byte ARRAY = 7;
+  static final byte RECORD = 8;
+  // Numbers that fit neither a long nor a double exactly, kept as their decimal text.
+  static final byte NUMBER = 9;
+
+  private BinaryCodec() {
+  }
+
+  @NotNull
+  static byte[] encode(@Nullable Object value, @NotNull Gson gson) {
+    final Output out = new Output();
+    write(out, value, gson);
+
+    return out.toByteArray();
+  }
+
+  @NotNull
+  static byte[] encodeTree(@NotNull JsonElement element) {
+    final Output out = new Output();
+    writeTree(out, element);
+
+    return out.toByteArray();
+  }
+
+  private static void write(@NotNull Output out, @Nullable Object value, @NotNull Gson gson) {
+    if (value == null) {
+      out.write(NULL);
+    } else if (value instanceof Boolean) {
+      out.write((Boolean) value ? TRUE : FALSE);
+    } else if (value instanceof Integer
+      || value instanceof Long
+      || value instanceof Short
+      || value instanceof Byte) {
+      out.write(INT);
+      out.writeVarLong(((Number) value).longValue());
+    } else if (value instanceof Double || value instanceof Float) {
+      out.write(DOUBLE);
+      out.writeDouble(((Number) value).doubleValue());
+    } else if (value instanceof String || value instanceof Character) {
+      out.write(STRING);
+      out.writeLengthPrefixed(value.toString().getBytes(StandardCharsets.UTF_8));
+    } else if (value instanceof byte[]) {
+      out.write(BYTES);
+      out.writeLengthPrefixed((byte[]) value);
+    } else if (value instanceof Collection) {
+      final Collection<?> collection = (Collection<?>) value;
+      out.write(ARRAY);
+      out.writeVarInt(collection.size());
+      for (Object element : collection) {
+        write(out, element, gson);
+      }
+    } else if (value.getClass().isArray()) {
+      final int length = Array.getLength(value);
+      out.write(ARRAY);
+      out.writeVarInt(length);
+      for (int i = 0; i < length; i++) {
+        write(out, Array.get(value, i), gson);
+      }
+    } else if (value instanceof Map && hasStringKeys((Map<?, ?>) value)) {
+      final Map<?, ?> map = (Map<?, ?>) value;
+      out.write(RECORD);
+      out.writeVarInt(map.size());
+      for (Map.Entry<?, ?> entry : map.entrySet()) {
+        out.writeLengthPrefixed(((String) entry.getKey()).getBytes(StandardCharsets.UTF_8));
+        write(out, entry.getValue(), gson);
+      }
+    } else {
+      writeTree(out, gson.toJsonTree(value));
+    }
+  }
+
+  private static boolean hasStringKeys(@NotNull Map<?, ?> map) {
+    for (Object key : map.keySet()) {
+      if (!(key instanceof String)) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  private static void writeTree(@NotNull Output out, @NotNull JsonElement element) {
+    if (element.isJsonNull()) {
+      out.write(NULL);
+    } else if (element.isJsonArray()) {
+      final JsonArray array = element.getAsJsonArray();
+      out.write(ARRAY);
+      out.writeVarInt(array.size());
+      for (JsonElement child : array) {
+        writeTree(out, child);
+      }
+    } else if (element.isJsonObject()) {
+      final JsonObject object = element.getAsJsonObject();
+      out.write(RECORD);
+      out.writeVarInt(object.size());
+      for (Map.Entry<String, JsonElement> entry : object.entrySet()) {
+        out.writeLengthPrefixed(entry.getKey().getBytes(StandardCharsets.UTF_8));
+        writeTree(out, entry.getValue());
+      }
+    } else {
+      final JsonPrimitive primitive = element.getAsJsonPrimitive();
+      if (primitive.isBoolean()) {
+        out.write(primitive.getAsBoolean() ? TRUE : FALSE);
+      } else if (primitive.isString()) {
+        out.write(STRING);
+        out.writeLengthPrefixed(primitive.getAsString().getBytes(StandardCharsets.UTF_8));
+      } else {
+        final Number number = primitive.getAsNumber();
+        if (number instanceof Double || number instanceof Float) {
+          out.write(DOUBLE);
+          out.writeDouble(number.doubleValue());
+        } else if (number instanceof Integer
+          || number instanceof Long
+          || number instanceof Short
+          || number instanceof Byte) {
+          out.write(INT);
+          out.writeVarLong(number.longValue());
+        } else {
+          writeNumber(out, primitive.getAsBigDecimal());
+        }
+      }
+    }
+  }
+
+  private static void writeNumber(@NotNull Output out, @NotNull BigDecimal number) {
+    try {
+      final long exact = number.longValueExact();
+      out.write(INT);
+      out.writeVarLong(exact);
+      return;
+    } catch (ArithmeticException ignored) {
+      // Not an integral long.
+    }
+
+    final double approx = number.doubleValue();
+    if (!Double.isInfinite(approx) && BigDecimal.valueOf(approx).compareTo(number) == 0) {
+      out.write(DOUBLE);
+      out.writeDouble(approx);
+    } else {
+      out.write(NUMBER);
+      out.writeLengthPrefixed(number.toString().getBytes(StandardCharsets.UTF_8));
+    }
+  }
+
+  @NotNull
+  static JsonElement decodeTree(@NotNull byte[] bytes) {
+    return readTree(new Input(bytes));
+  }
+
+  @NotNull
+  private static JsonElement readTree(@NotNull Input in) {
+    final byte tag = in.read();
+    switch (tag) {
+      case NULL:
+        return JsonNull.INSTANCE;
+      case FALSE:
+        return new JsonPrimitive(false);
+      case TRUE:
+        return new JsonPrimitive(true);
+      case INT:
+        return new JsonPrimitive(in.readVarLong());
+      case DOUBLE:
+        return new JsonPrimitive(in.readDouble());
+      case STRING:
+        return new JsonPrimitive(in.readString());
+      case NUMBER:
+        return new JsonPrimitive(new BigDecimal(in.readString()));
+      case BYTES: {
+        // Same shape Gson uses for byte[].
+        final byte[] raw = in.readLengthPrefixed();
+        final JsonArray array = new JsonArray(raw.length);
+        for (byte b : raw) {
+          array.add(b);
+        }
+
+        return array;
+      }
+      case ARRAY: {
+        final int size = in.readVarInt();
+        final JsonArray array = new JsonArray(size);
+        for (int i = 0; i < size; i++) {
+          array.add(readTree(in));
+        }
+
+        return array;
+      }
+      case RECORD: {
+        final int size = in.readVarInt();
+        final JsonObject object = new JsonObject();
+        for (int i = 0; i < size; i++) {
+          final String key = in.readString();
+          object.add(key, readTree(in));
+        }
+
+        return object;
+      }
+      default:
+        throw new IllegalArgumentException("Unknown binary field tag: " + tag);
+    }
+  }
+
+  // Decodes a top-level scalar directly into the requested class without building a tree.
+  // Returns the input array itself as a marker when there is no direct conversion.
+  @Nullable
+  static Object decodeScalar(@NotNull byte[] bytes, @NotNull Class<?> type) {
+    final Input in = new Input(bytes);
+    final byte tag = in.read();
+    if (tag == NULL) {
+      return null;
+    }
+
+    switch (tag) {
+      case FALSE:
+      case TRUE:
+        if (type == Boolean.class || type == boolean.class) {
+          return tag == TRUE;
+        }
+        break;
+      case INT: {
+        final long value = in.readVarLong();
+        if (!fits(value, type)) {
+          // Rejected like Gson rejects it, instead of wrapping around.
+          throw new JsonSyntaxException("Expected " + type.getSimpleName() + " but was " + value);
+        }
+
+        if (type == Integer.class || type == int.class) {
+          return (int) value;
+        } else if (type == Long.class || type == long.class) {
+          return value;
+        } else if (type == Double.class || type == double.class) {
+          return (double) value;
+        } else if (type == Short.class || type == short.class) {
+          return (short) value;
+        } else if (type == Byte.class || type == byte.class) {
+          return (byte) value;
+        } else if (type == Float.class || type == float.class) {
+          return (float) value;
+        }
+        break;
+      }
+      case DOUBLE: {
+        final double value = in.readDouble();
+        if (type == Double.class || type == double.class) {
+          return value;
+        } else if (type == Float.class || type == float.class) {
+          return (float) value;
+        }
+        break;
+      }
+      case STRING:
+        if (type == String.class || type == Object.class || type == CharSequence.class) {
+          return in.readString();
+        }
+        break;
+      case BYTES:
+        if (type == byte[].class) {
+          return in.readLengthPrefixed();
+        }
+        break;
+      default:
+        break;
+    }
+
+    return bytes;
+  }
+
+  // Whether an INT value, possibly written under a wider type, is in range for the given one.
+  private static boolean fits(long value, @NotNull Class<?> type) {
+    if (type == Integer.class || type == int.class) {
+      return value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE;
+    } else if (type == Short.class || type == short.class) {
+      return value >= Short.MIN_VALUE && value <= Short.MAX_VALUE;
+    } else if (type == Byte.class || type == byte.class) {
+      return value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE;
+    }
+
+    return true;
+  }
+
+  // Type check without decoding anything but the leading tag.
+  static boolean isCompatible(@NotNull byte[] bytes, @NotNull Class<?> type) {
+    final byte tag = bytes[0];
+    switch (tag) {
+      case NULL:
+        return true;
+      case FALSE:
+      case TRUE:
+        return type == Boolean.class || type == boolean.class || type == Object.class;
+      case INT: {
+        final Input in = new Input(bytes);
+        in.read();
+
+        return isNumeric(type) && fits(in.readVarLong(), type);
+      }
+      case DOUBLE:
+      case NUMBER:
+        return isNumeric(type);
+      case STRING:
+        return type == String.class
+          || type == CharSequence.class
+          || type == Object.class
+          || type == Character.class
+          || type == char.class
+          || type.isEnum();
+      case BYTES:
+      case ARRAY:
+        return type.isArray() || Collection.class.isAssignableFrom(type) || type == Object.class;
+      default:
+        return !type.isPrimitive() && !Number.class.isAssignableFrom(type) && type != String.class;
+    }
+  }
+
+  private static boolean isNumeric(@NotNull Class<?> type) {
+    return Number.class.isAssignableFrom(type)
+      || (type.isPrimitive() && type != boolean.class && type != char.class)
+      || type == Object.class;
+  }
+
+  private static final class Output extends ByteArrayOutputStream {
+    private Output() {
+      super(32);
+    }
+
+    void writeVarInt(int value) {
+      while ((value & ~0x7F) != 0) {
+        write((value & 0x7F) | 0x80);
+        value >>>= 7;
+      }
+
+      write(value);
+    }
+
+    void writeVarLong(long value) {
+      long zigzag = (value << 1) ^ (value >> 63);
+      while ((zigzag & ~0x7FL) != 0) {
+        write((int) ((zigzag & 0x7F) | 0x80));
+        zigzag >>>= 7;
+      }
+
+      write((int) zigzag);
+    }
+
+    void writeDouble(double value) {
+      final long bits = Double.doubleToRawLongBits(value);
+      for (int shift = 56; shift >= 0; shift -= 8) {
+        write((int) (bits >>> shift));
+      }
+    }
+
+    void writeLengthPrefixed(@NotNull byte[] bytes) {
+      writeVarInt(bytes.length);
+      write(bytes, 0, bytes.length);
+    }
+  }
+
+  private static final class Input {
+    private final byte[] bytes;
+    private int position;
+
+    private Input(@NotNull byte[] bytes) {
+      this.bytes = bytes;
+    }
+
+    byte read() {
+      return bytes[position++];
+    }
+
+    int readVarInt() {
+      int value = 0;
+      for (int shift = 0; ; shift += 7) {
+        final byte b = read();
+        value |= (b & 0x7F) << shift;
+        if ((b & 0x80) == 0) {
+          return value;
+        }
+      }
+    }
+
+    long readVarLong() {
+      long zigzag = 0;
+      for (int shift = 0; ; shift += 7) {
+        final byte b = read();
+        zigzag |= (long) (b & 0x7F) << shift;
+        if ((b & 0x80) == 0) {
+          return (zigzag >>> 1) ^ -(zigzag & 1);
+        }
+      }
+    }
+
+    double readDouble() {
+      long bits = 0;
+      for (int i = 0; i < 8; i++) {
+        bits = (bits << 8) | (read() & 0xFF);
+      }
+
+      return Double.longBitsToDouble(bits);
+    }
+
+    @NotNull
+    byte[] readLengthPrefixed() {
+      final int length = readVarInt();
+      final byte[] out = new byte[length];
+      System.arraycopy(bytes, position, out, 0, length);
+      position += length;
+
+      return out;
+    }
+
+    @NotNull
+    String readString() {
+      final int length = readVarInt();
+      final String value = new String(bytes, position, length, StandardCharsets.UTF_8);
+      position += length;
+
+      return value;
+    }
+  }
+}
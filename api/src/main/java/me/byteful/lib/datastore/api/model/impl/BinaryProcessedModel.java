@@ -0,0 +1,206 @@
+package me.byteful.lib.datastore.api.model.impl;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import me.byteful.lib.datastore.api.DataStoreConstants;
+import me.byteful.lib.datastore.api.model.ProcessedModel;
+import me.byteful.lib.datastore.api.model.ProcessedModelField;
+import me.byteful.lib.datastore.api.model.ProcessedModelFieldType;
+import me.byteful.lib.datastore.api.model.StorageType;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.reflect.Type;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+// ProcessedModel whose normal fields use the compact BinaryCodec encoding instead of JSON
+// text. Indexed fields stay JSON, so they can still be matched against ModelId values, and
+// fields with an explicit storage hint other than BINARY are kept as typed JSON fields.
+public class BinaryProcessedModel implements ProcessedModel {
+  private final Map<String, ProcessedModelField> data;
+  private final Gson gson;
+
+  public BinaryProcessedModel() {
+    this.gson = DataStoreConstants.GSON;
+    this.data = new HashMap<>();
+  }
+
+  public BinaryProcessedModel(@NotNull final Gson gson) {
+    this.gson = gson;
+    this.data = new HashMap<>();
+  }
+
+  public BinaryProcessedModel(@NotNull final Map<String, ProcessedModelField> data) {
+    this.gson = DataStoreConstants.GSON;
+    this.data = new HashMap<>(data);
+  }
+
+  public BinaryProcessedModel(
+    @NotNull final Map<String, ProcessedModelField> data, @NotNull final Gson gson) {
+    this.gson = gson;
+    this.data = new HashMap<>(data);
+  }
+
+  @Override
+  public @NotNull Map<String, ProcessedModelField> values() {
+    return data;
+  }
+
+  @Override
+  public @NotNull ProcessedModel append(
+    @NotNull String key, @NotNull ProcessedModelFieldType fieldType, @Nullable Object value) {
+    if (fieldType == ProcessedModelFieldType.NORMAL) {
+      data.put(key, BinaryProcessedModelField.of(key, value, fieldType, gson));
+    } else {
+      data.put(key, JSONProcessedModelField.of(key, value, fieldType, gson));
+    }
+
+    return this;
+  }
+
+  @Override
+  public @NotNull ProcessedModel append(
+    @NotNull String key,
+    @NotNull ProcessedModelFieldType fieldType,
+    @NotNull StorageType storageType,
+    @Nullable Object value) {
+    if (storageType == StorageType.BINARY) {
+      return append(key, fieldType, value);
+    }
+
+    data.put(key, JSONProcessedModelField.of(key, value, fieldType, storageType, gson));
+
+    return this;
+  }
+
+  @Override
+  public @NotNull ProcessedModel append(@NotNull ProcessedModelField field) {
+    data.put(field.key(), field);
+
+    return this;
+  }
+
+  @Override
+  public @NotNull <T> Optional<T> get(@NotNull String key, @NotNull Class<T> type) {
+    final ProcessedModelField field = data.get(key);
+    if (field instanceof BinaryProcessedModelField) {
+      final byte[] bytes = ((BinaryProcessedModelField) field).bytes();
+      final Object scalar = BinaryCodec.decodeScalar(bytes, type);
+      if (scalar != bytes) {
+        // Boxed, since primitive classes cannot cast.
+        @SuppressWarnings("unchecked") final T value = (T) scalar;
+
+        return Optional.ofNullable(value);
+      }
+
+      return Optional.ofNullable(gson.fromJson(BinaryCodec.decodeTree(bytes), type));
+    } else if (field instanceof JSONProcessedModelField) {
+      return Optional.ofNullable(((JSONProcessedModelField) field).decode(gson, type));
+    }
+
+    return Optional.ofNullable(gson.fromJson(field.value(), type));
+  }
+
+  @Override
+  public <T> @Nullable T getNullable(@NotNull String key, @NotNull Class<T> type) {
+    return get(key, type).orElse(null);
+  }
+
+  @Override
+  public <T> @NotNull Optional<T> get(@NotNull String key, @NotNull Type type) {
+    if (type instanceof Class) {
+      @SuppressWarnings("unchecked") final Class<T> cls = (Class<T>) type;
+
+      return get(key, cls);
+    }
+
+    final ProcessedModelField field = data.get(key);
+    if (field instanceof BinaryProcessedModelField) {
+      return Optional.ofNullable(
+        gson.fromJson(BinaryCodec.decodeTree(((BinaryProcessedModelField) field).bytes()), type));
+    }
+
+    return Optional.ofNullable(gson.fromJson(field.value(), type));
+  }
+
+  @Override
+  public <T> T getNullable(@NotNull String key, @NotNull Type type) {
+    return (T) get(key, type).orElse(null);
+  }
+
+  @Override
+  public @NotNull Optional<ProcessedModelField> getField(@NotNull String key) {
+    return Optional.ofNullable(data.get(key));
+  }
+
+  @Override
+  public @Nullable ProcessedModelField getFieldNullable(@NotNull String key) {
+    return getField(key).orElse(null);
+  }
+
+  @Override
+  public boolean has(@NotNull String key) {
+    return data.containsKey(key);
+  }
+
+  @Override
+  public boolean hasType(@NotNull String key, @NotNull Class<?> type) {
+    final ProcessedModelField field = data.get(key);
+    if (field == null) {
+      return false;
+    }
+
+    if (field instanceof BinaryProcessedModelField) {
+      return BinaryCodec.isCompatible(((BinaryProcessedModelField) field).bytes(), type);
+    } else if (field instanceof JSONProcessedModelField) {
+      return ((JSONProcessedModelField) field).hasShapeOf(type);
+    }
+
+    try {
+      gson.fromJson(field.value(), type);
+
+      return true;
+    } catch (Exception ignored) {
+      return false;
+    }
+  }
+
+  @NotNull
+  public String toJSON() {
+    final JsonObject obj = new JsonObject();
+
+    for (ProcessedModelField value : data.values()) {
+      if (value instanceof BinaryProcessedModelField) {
+        obj.add(value.key(), ((BinaryProcessedModelField) value).toJsonTree());
+      } else if (value instanceof JSONProcessedModelField) {
+        obj.add(value.key(), ((JSONProcessedModelField) value).toJsonTree());
+      } else {
+        obj.add(value.key(), JsonParser.parseString(value.value()));
+      }
+    }
+
+    return obj.toString();
+  }
+
+  @Override
+  public @NotNull String toString() {
+    return toJSON();
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (o == null || getClass() != o.getClass()) return false;
+    BinaryProcessedModel that = (BinaryProcessedModel) o;
+    return Objects.equals(data, that.data) && Objects.equals(gson, that.gson);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(data, gson);
+  }
+}
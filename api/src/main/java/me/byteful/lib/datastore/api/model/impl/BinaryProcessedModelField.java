@@ -0,0 +1,123 @@
+package me.byteful.lib.datastore.api.model.impl;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import me.byteful.lib.datastore.api.model.ProcessedModelField;
+import me.byteful.lib.datastore.api.model.ProcessedModelFieldType;
+import me.byteful.lib.datastore.api.model.StorageType;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+public class BinaryProcessedModelField implements ProcessedModelField {
+  @NotNull
+  private final String key;
+  @NotNull
+  private final byte[] bytes;
+  @NotNull
+  private final ProcessedModelFieldType type;
+  // JSON form, only built when something asks for value().
+  private volatile String json;
+
+  private BinaryProcessedModelField(
+    @NotNull String key, @NotNull byte[] bytes, @NotNull ProcessedModelFieldType type) {
+    this.key = key;
+    this.bytes = bytes;
+    this.type = type;
+  }
+
+  // Wraps bytes previously produced by bytes(), e.g. read back from a BLOB column.
+  public static BinaryProcessedModelField of(
+    @NotNull final String key,
+    @NotNull final byte[] bytes,
+    @NotNull ProcessedModelFieldType type) {
+    return new BinaryProcessedModelField(key, bytes, type);
+  }
+
+  public static BinaryProcessedModelField of(
+    @NotNull final String key,
+    @Nullable final Object value,
+    @NotNull ProcessedModelFieldType type,
+    @NotNull final Gson gson) {
+    return new BinaryProcessedModelField(key, BinaryCodec.encode(value, gson), type);
+  }
+
+  // Just the encoding, for writers that bind the bytes directly.
+  @NotNull
+  public static byte[] encode(@Nullable final Object value, @NotNull final Gson gson) {
+    return BinaryCodec.encode(value, gson);
+  }
+
+  public static BinaryProcessedModelField fromJSON(
+    @NotNull final String key,
+    @NotNull final JsonElement value,
+    @NotNull ProcessedModelFieldType type) {
+    return new BinaryProcessedModelField(key, BinaryCodec.encodeTree(value), type);
+  }
+
+  @Override
+  public @NotNull String key() {
+    return key;
+  }
+
+  @Override
+  public @NotNull String value() {
+    String value = json;
+    if (value == null) {
+      value = BinaryCodec.decodeTree(bytes).toString();
+      json = value;
+    }
+
+    return value;
+  }
+
+  @Override
+  public @NotNull ProcessedModelFieldType type() {
+    return type;
+  }
+
+  @Override
+  public @NotNull StorageType storageType() {
+    return StorageType.BINARY;
+  }
+
+  // The encoded value. Not copied, so callers must not modify it.
+  @NotNull
+  public byte[] bytes() {
+    return bytes;
+  }
+
+  @NotNull
+  public JsonElement toJsonTree() {
+    return BinaryCodec.decodeTree(bytes);
+  }
+
+  @Override
+  public String toString() {
+    return "BinaryProcessedModelField{"
+      + "key='"
+      + key
+      + '\''
+      + ", value='"
+      + value()
+      + '\''
+      + ", type="
+      + type
+      + '}';
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (o == null || getClass() != o.getClass()) return false;
+    BinaryProcessedModelField that = (BinaryProcessedModelField) o;
+    return key.equals(that.key) && Arrays.equals(bytes, that.bytes) && type == that.type;
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(key, Arrays.hashCode(bytes), type);
+  }
+}
@@ -3,13 +3,17 @@ package me.byteful.lib.datastore.api.model.impl;
 import com.google.gson.Gson;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonWriter;
 import me.byteful.lib.datastore.api.DataStoreConstants;
 import me.byteful.lib.datastore.api.model.ProcessedModel;
 import me.byteful.lib.datastore.api.model.ProcessedModelField;
 import me.byteful.lib.datastore.api.model.ProcessedModelFieldType;
+import me.byteful.lib.datastore.api.model.StorageType;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.io.IOException;
+import java.io.StringWriter;
 import java.lang.reflect.Type;
 import java.util.HashMap;
 import java.util.Map;
@@ -59,7 +63,10 @@ public class JSONProcessedModel implements ProcessedModel, Cloneable {
     final JsonObject obj = gson.fromJson(json, JsonObject.class);
 
     for (Map.Entry<String, JsonElement> entry : obj.entrySet()) {
-      append(entry.getKey(), ProcessedModelFieldType.NORMAL, entry.getValue());
+      data.put(
+        entry.getKey(),
+        JSONProcessedModelField.ofTree(
+          entry.getKey(), entry.getValue(), ProcessedModelFieldType.NORMAL, gson));
     }
   }
 
@@ -76,6 +83,17 @@ public class JSONProcessedModel implements ProcessedModel, Cloneable {
     return this;
   }
 
+  @Override
+  public @NotNull ProcessedModel append(
+    @NotNull String key,
+    @NotNull ProcessedModelFieldType fieldType,
+    @NotNull StorageType storageType,
+    @Nullable Object value) {
+    data.put(key, JSONProcessedModelField.of(key, value, fieldType, storageType, gson));
+
+    return this;
+  }
+
   @Override
   public @NotNull ProcessedModel append(@NotNull ProcessedModelField field) {
     if (field instanceof JSONProcessedModelField) {
@@ -92,7 +110,12 @@ public class JSONProcessedModel implements ProcessedModel, Cloneable {
 
   @Override
   public @NotNull <T> Optional<T> get(@NotNull String key, @NotNull Class<T> type) {
-    return Optional.ofNullable(gson.fromJson(data.get(key).value(), type));
+    final ProcessedModelField field = data.get(key);
+    if (field instanceof JSONProcessedModelField) {
+      return Optional.ofNullable(((JSONProcessedModelField) field).decode(gson, type));
+    }
+
+    return Optional.ofNullable(gson.fromJson(field.value(), type));
   }
 
   @Override
@@ -102,7 +125,18 @@ public class JSONProcessedModel implements ProcessedModel, Cloneable {
 
   @Override
   public <T> @NotNull Optional<T> get(@NotNull String key, @NotNull Type type) {
-    return Optional.ofNullable(gson.fromJson(data.get(key).value(), type));
+    if (type instanceof Class) {
+      @SuppressWarnings("unchecked") final Class<T> cls = (Class<T>) type;
+
+      return get(key, cls);
+    }
+
+    final ProcessedModelField field = data.get(key);
+    if (field instanceof JSONProcessedModelField) {
+      return Optional.ofNullable(gson.fromJson(((JSONProcessedModelField) field).toJsonTree(), type));
+    }
+
+    return Optional.ofNullable(gson.fromJson(field.value(), type));
   }
 
   @Override
@@ -127,32 +161,37 @@ public class JSONProcessedModel implements ProcessedModel, Cloneable {
 
   @Override
   public boolean hasType(@NotNull String key, @NotNull Class<?> type) {
-    boolean b = false;
-
-    try {
-      gson.fromJson(
-        data.get(key).value(),
-        type); // Yes, exception catching is bad... But I have not been able to find a valid
-      // method in GSON that lets me check if it's the correct type. Please make a PR if
-      // you do know of this method!
-
-      b = true;
-    } catch (Exception ignored) {
-      //
+    final ProcessedModelField field = data.get(key);
+    if (field instanceof JSONProcessedModelField) {
+      return ((JSONProcessedModelField) field).hasShapeOf(type);
     }
 
-    return has(key) && b;
+    return field != null && JSONProcessedModelField.of(key, field.value(), field.type()).hasShapeOf(type);
   }
 
+  // Field values are already JSON, so they are copied into the output as-is.
   @NotNull
   public String toJSON() {
-    final JsonObject obj = new JsonObject();
-
-    for (ProcessedModelField value : data.values()) {
-      obj.add(value.key(), gson.fromJson(value.value(), JsonElement.class));
+    final StringWriter out = new StringWriter();
+
+    try (JsonWriter writer = new JsonWriter(out)) {
+      writer.setSerializeNulls(true);
+      writer.beginObject();
+      for (ProcessedModelField value : data.values()) {
+        writer.name(value.key());
+
+        if (value.value() == null) {
+          writer.nullValue();
+        } else {
+          writer.jsonValue(value.value());
+        }
+      }
+      writer.endObject();
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
     }
 
-    return obj.toString();
+    return out.toString();
   }
 
   @Override
@@ -1,38 +1,71 @@
 package me.byteful.lib.datastore.api.model.impl;
 
 import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
 import me.byteful.lib.datastore.api.DataStoreConstants;
 import me.byteful.lib.datastore.api.model.ProcessedModelField;
 import me.byteful.lib.datastore.api.model.ProcessedModelFieldType;
+import me.byteful.lib.datastore.api.model.StorageType;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Collection;
 import java.util.Objects;
+import java.util.UUID;
 
 public class JSONProcessedModelField implements ProcessedModelField {
   @NotNull
   private final String key, value;
   @NotNull
   private final ProcessedModelFieldType type;
+  @Nullable
+  private final StorageType storageType;
+  // Parsed lazily, at most once per field.
+  private volatile JsonElement tree;
+  // Last decoded value, only kept for immutable types so callers can't observe each other.
+  private volatile Decoded decoded;
 
   private JSONProcessedModelField(
-    @NotNull String key, @NotNull String value, @NotNull ProcessedModelFieldType type) {
+    @NotNull String key,
+    @NotNull String value,
+    @NotNull ProcessedModelFieldType type,
+    @Nullable StorageType storageType) {
     this.key = key;
     this.value = value;
     this.type = type;
+    this.storageType = storageType;
+  }
+
+  // For values that are already parsed, so the tree doesn't need to be rebuilt from text.
+  public static JSONProcessedModelField ofTree(
+    @NotNull final String key,
+    @NotNull final JsonElement tree,
+    @NotNull ProcessedModelFieldType type,
+    @NotNull final Gson gson) {
+    final JSONProcessedModelField field =
+      new JSONProcessedModelField(key, gson.toJson(tree), type, null);
+    field.tree = tree;
+
+    return field;
   }
 
   public static JSONProcessedModelField of(
     @NotNull final String key,
     @NotNull final String value,
     @NotNull ProcessedModelFieldType type) {
-    return new JSONProcessedModelField(key, value, type);
+    return new JSONProcessedModelField(key, value, type, null);
   }
 
   public static JSONProcessedModelField of(
     @NotNull final String key,
     @NotNull final Object value,
     @NotNull ProcessedModelFieldType type) {
-    return new JSONProcessedModelField(key, DataStoreConstants.GSON.toJson(value), type);
+    return new JSONProcessedModelField(key, DataStoreConstants.GSON.toJson(value), type, null);
   }
 
   public static JSONProcessedModelField of(
@@ -40,7 +73,24 @@ public class JSONProcessedModelField implements ProcessedModelField {
     @NotNull final Object value,
     @NotNull ProcessedModelFieldType type,
     @NotNull final Gson gson) {
-    return new JSONProcessedModelField(key, gson.toJson(value), type);
+    return new JSONProcessedModelField(key, gson.toJson(value), type, null);
+  }
+
+  public static JSONProcessedModelField of(
+    @NotNull final String key,
+    @NotNull final String value,
+    @NotNull ProcessedModelFieldType type,
+    @Nullable StorageType storageType) {
+    return new JSONProcessedModelField(key, value, type, storageType);
+  }
+
+  public static JSONProcessedModelField of(
+    @NotNull final String key,
+    @NotNull final Object value,
+    @NotNull ProcessedModelFieldType type,
+    @Nullable StorageType storageType,
+    @NotNull final Gson gson) {
+    return new JSONProcessedModelField(key, gson.toJson(value), type, storageType);
   }
 
   @Override
@@ -58,6 +108,164 @@ public class JSONProcessedModelField implements ProcessedModelField {
     return type;
   }
 
+  @Override
+  public @Nullable StorageType storageType() {
+    return storageType;
+  }
+
+  @NotNull
+  public JsonElement toJsonTree() {
+    JsonElement parsed = tree;
+    if (parsed == null) {
+      //noinspection ConstantConditions
+      parsed = value == null ? JsonNull.INSTANCE : JsonParser.parseString(value);
+      tree = parsed;
+    }
+
+    return parsed;
+  }
+
+  @Nullable
+  @SuppressWarnings("unchecked")
+  <T> T decode(@NotNull Gson gson, @NotNull Class<T> cls) {
+    final Decoded last = decoded;
+    if (last != null && last.type == cls && last.gson == gson) {
+      return (T) last.value;
+    }
+
+    final T result = gson.fromJson(toJsonTree(), cls);
+    if (isImmutable(cls)) {
+      decoded = new Decoded(cls, gson, result);
+    }
+
+    return result;
+  }
+
+  // Shape check against the parsed tree, mirroring what Gson would accept for the common
+  // cases without decoding or throwing.
+  boolean hasShapeOf(@NotNull Class<?> cls) {
+    final JsonElement element = toJsonTree();
+    if (element.isJsonNull() || cls == Object.class) {
+      return true;
+    } else if (element.isJsonArray()) {
+      return cls.isArray() || Collection.class.isAssignableFrom(cls);
+    } else if (element.isJsonObject()) {
+      return !cls.isPrimitive()
+        && !cls.isArray()
+        && !Number.class.isAssignableFrom(cls)
+        && !Collection.class.isAssignableFrom(cls)
+        && cls != String.class
+        && cls != Boolean.class;
+    }
+
+    final JsonPrimitive primitive = element.getAsJsonPrimitive();
+    if (cls == Boolean.class || cls == boolean.class) {
+      return primitive.isBoolean() || primitive.isString();
+    } else if (isNumeric(cls)) {
+      return (primitive.isNumber() || (primitive.isString() && isNumber(primitive.getAsString())))
+        && fits(cls, primitive.getAsString());
+    } else if (cls == String.class || cls == CharSequence.class) {
+      return true;
+    } else if (cls == Character.class || cls == char.class) {
+      return primitive.isString() && primitive.getAsString().length() == 1;
+    }
+
+    return cls.isEnum() && primitive.isString();
+  }
+
+  private static boolean isNumeric(@NotNull Class<?> cls) {
+    return Number.class.isAssignableFrom(cls)
+      || (cls.isPrimitive() && cls != boolean.class && cls != char.class);
+  }
+
+  // Integral types only take whole numbers within their range, even where Gson would clamp or
+  // wrap instead of throwing; 1.0 and 1e2 still pass as ints, since Gson reads them as such.
+  private static boolean fits(@NotNull Class<?> cls, @NotNull String text) {
+    final long min;
+    final long max;
+    if (cls == Long.class || cls == long.class) {
+      min = Long.MIN_VALUE;
+      max = Long.MAX_VALUE;
+    } else if (cls == Integer.class || cls == int.class) {
+      min = Integer.MIN_VALUE;
+      max = Integer.MAX_VALUE;
+    } else if (cls == Short.class || cls == short.class) {
+      min = Short.MIN_VALUE;
+      max = Short.MAX_VALUE;
+    } else if (cls == Byte.class || cls == byte.class) {
+      min = Byte.MIN_VALUE;
+      max = Byte.MAX_VALUE;
+    } else if (cls == BigInteger.class) {
+      // Read straight from the text, so no fraction or exponent at all.
+      try {
+        new BigInteger(text);
+        return true;
+      } catch (NumberFormatException e) {
+        return false;
+      }
+    } else {
+      return true;
+    }
+
+    final BigDecimal value;
+    try {
+      value = new BigDecimal(text);
+    } catch (NumberFormatException e) {
+      return false;
+    }
+
+    return (value.signum() == 0 || value.stripTrailingZeros().scale() <= 0)
+      && value.compareTo(BigDecimal.valueOf(min)) >= 0
+      && value.compareTo(BigDecimal.valueOf(max)) <= 0;
+  }
+
+  private static boolean isNumber(@NotNull String text) {
+    if (text.isEmpty()) {
+      return false;
+    }
+
+    boolean digit = false;
+    for (int i = 0; i < text.length(); i++) {
+      final char c = text.charAt(i);
+      if (c >= '0' && c <= '9') {
+        digit = true;
+      } else if (c != '-' && c != '+' && c != '.' && c != 'e' && c != 'E') {
+        return false;
+      }
+    }
+
+    return digit;
+  }
+
+  private static boolean isImmutable(@NotNull Class<?> cls) {
+    return cls.isPrimitive()
+      || cls == String.class
+      || cls == Integer.class
+      || cls == Long.class
+      || cls == Double.class
+      || cls == Float.class
+      || cls == Short.class
+      || cls == Byte.class
+      || cls == Boolean.class
+      || cls == Character.class
+      || cls == BigDecimal.class
+      || cls == BigInteger.class
+      || cls == UUID.class
+      || cls.isEnum();
+  }
+
+  private static final class Decoded {
+    private final Class<?> type;
+    private final Gson gson;
+    private final Object value;
+
+    private Decoded(@NotNull Class<?> type, @NotNull Gson gson, @Nullable Object value) {
+      this.type = type;
+      this.gson = gson;
+      this.value = value;
+    }
+  }
+
   @Override
   public String toString() {
     return "JSONProcessedModelField{"
@@ -69,6 +277,8 @@ public class JSONProcessedModelField implements ProcessedModelField {
       + '\''
       + ", type="
       + type
+      + ", storageType="
+      + storageType
       + '}';
   }
 
@@ -77,11 +287,14 @@ public class JSONProcessedModelField implements ProcessedModelField {
     if (this == o) return true;
     if (o == null || getClass() != o.getClass()) return false;
     JSONProcessedModelField that = (JSONProcessedModelField) o;
-    return key.equals(that.key) && value.equals(that.value) && type == that.type;
+    return key.equals(that.key)
+      && value.equals(that.value)
+      && type == that.type
+      && storageType == that.storageType;
   }
 
   @Override
   public int hashCode() {
-    return Objects.hash(key, value, type);
+    return Objects.hash(key, value, type, storageType);
   }
 }
@@ -0,0 +1,106 @@
+package me.byteful.lib.datastore.benchmarks;
+
+import me.byteful.lib.datastore.api.ModelManager;
+import me.byteful.lib.datastore.api.data.DataStore;
+import me.byteful.lib.datastore.api.model.ModelId;
+import org.jetbrains.annotations.NotNull;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// The same operations against every backend. Subclasses only open the store; the group is
+// filled with `rows` profiles before measuring, and reads pick one of them at random.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public abstract class DataStoreBenchmark {
+  @Param({"1000"})
+  public int rows;
+
+  private DataStore store;
+  private ModelId[] ids;
+  private Profile[] profiles;
+  // Ids above `rows` are never preloaded, so setThenDelete always inserts a new model.
+  private final AtomicInteger fresh = new AtomicInteger();
+
+  @NotNull
+  protected abstract DataStore open() throws Exception;
+
+  // Backend specific cleanup after the store is closed, such as stopping a server.
+  protected void shutdown() throws Exception {
+  }
+
+  @Setup(Level.Trial)
+  public void setup() throws Exception {
+    ModelManager.registerModelStructure(new Profile.Structure());
+    store = open();
+    store.clear(Profile.class);
+
+    ids = new ModelId[rows];
+    profiles = new Profile[rows];
+    final Map<ModelId, Profile> models = new LinkedHashMap<>();
+    for (int i = 0; i < rows; i++) {
+      ids[i] = Profile.id(i);
+      profiles[i] = Profile.create(i);
+      models.put(ids[i], profiles[i]);
+    }
+
+    store.setAll(models);
+    fresh.set(rows);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws Exception {
+    try {
+      store.close();
+    } finally {
+      shutdown();
+    }
+  }
+
+  @Benchmark
+  public Optional<Profile> get() {
+    return store.get(Profile.class, ids[ThreadLocalRandom.current().nextInt(rows)]);
+  }
+
+  @Benchmark
+  public Optional<Profile> getMissing() {
+    return store.get(Profile.class, Profile.id(-1 - ThreadLocalRandom.current().nextInt(rows)));
+  }
+
+  // Upsert of an existing row.
+  @Benchmark
+  public void set() {
+    final int index = ThreadLocalRandom.current().nextInt(rows);
+    store.set(ids[index], profiles[index].withCoins(ThreadLocalRandom.current().nextLong()));
+  }
+
+  @Benchmark
+  public List<Profile> getAll() {
+    return store.getAll(Profile.class);
+  }
+
+  // Insert and delete of a new model, which leaves the group as it was.
+  @Benchmark
+  public void setThenDelete() {
+    final int index = fresh.getAndIncrement();
+    final ModelId id = Profile.id(index);
+    store.set(id, Profile.create(index));
+    store.delete(Profile.class, id);
+  }
+}
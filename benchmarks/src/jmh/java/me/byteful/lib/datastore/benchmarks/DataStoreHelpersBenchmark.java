@@ -0,0 +1,103 @@
+package me.byteful.lib.datastore.benchmarks;
+
+import me.byteful.lib.datastore.api.ModelManager;
+import me.byteful.lib.datastore.api.data.DataStore;
+import me.byteful.lib.datastore.api.model.Model;
+import me.byteful.lib.datastore.api.model.ModelId;
+import me.byteful.lib.datastore.api.model.ProcessedModel;
+import org.jetbrains.annotations.NotNull;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+// The per-call overhead every backend pays in DataStore's default methods before touching
+// the database.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DataStoreHelpersBenchmark {
+  private final DataStore store = new DefaultsOnlyDataStore();
+  private final ModelId[] none = new ModelId[0];
+  private ModelId id;
+  private ModelId[] more;
+  private Profile profile;
+
+  @Setup
+  public void setup() {
+    ModelManager.registerModelStructure(new Profile.Structure());
+    id = Profile.id(1);
+    more = new ModelId[]{Profile.id(2), Profile.id(3)};
+    profile = Profile.create(1);
+  }
+
+  @Benchmark
+  public ModelId[] compileOne() {
+    return store.compile(id, none);
+  }
+
+  @Benchmark
+  public ModelId[] compileThree() {
+    return store.compile(id, more);
+  }
+
+  @Benchmark
+  public String storedGroup() {
+    return store.getStoredGroup(Profile.class);
+  }
+
+  // Includes the ModelManager lookup of the structure.
+  @Benchmark
+  public ProcessedModel serializeModel() {
+    return store.serializeModel(profile);
+  }
+
+  // Only the default methods are benchmarked here; everything else is unreachable.
+  private static final class DefaultsOnlyDataStore implements DataStore {
+    @Override
+    public @NotNull <T extends Model> Optional<T> get(
+      @NotNull Class<T> type, @NotNull ModelId id, @NotNull ModelId... ids) {
+      return Optional.empty();
+    }
+
+    @Override
+    public @NotNull <T extends Model> List<T> getAll(
+      @NotNull Class<T> type, @NotNull ModelId... ids) {
+      return Collections.emptyList();
+    }
+
+    @Override
+    public void set(@NotNull ModelId id, @NotNull Model model) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean exists(
+      @NotNull Class<? extends Model> type, @NotNull ModelId id, @NotNull ModelId... ids) {
+      return false;
+    }
+
+    @Override
+    public void delete(
+      @NotNull Class<? extends Model> type, @NotNull ModelId id, @NotNull ModelId... ids) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void clear(@NotNull Class<? extends Model> type) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void close() {
+    }
+  }
+}
@@ -0,0 +1,13 @@
+package me.byteful.lib.datastore.benchmarks;
+
+import me.byteful.lib.datastore.api.data.DataStore;
+import me.byteful.lib.datastore.inmemory.InMemoryDataStore;
+import org.jetbrains.annotations.NotNull;
+
+// No I/O at all, so this is the floor for serialization plus index maintenance.
+public class InMemoryBenchmark extends DataStoreBenchmark {
+  @Override
+  protected @NotNull DataStore open() {
+    return new InMemoryDataStore();
+  }
+}
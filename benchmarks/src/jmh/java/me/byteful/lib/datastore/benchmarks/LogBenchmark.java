@@ -0,0 +1,37 @@
+package me.byteful.lib.datastore.benchmarks;
+
+import me.byteful.lib.datastore.api.data.DataStore;
+import me.byteful.lib.datastore.logstore.LogDataStore;
+import me.byteful.lib.datastore.logstore.LogSettings;
+import org.jetbrains.annotations.NotNull;
+import org.openjdk.jmh.annotations.Param;
+
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class LogBenchmark extends DataStoreBenchmark {
+  @Param({"default", "production"})
+  public String settings;
+
+  private Path directory;
+
+  @Override
+  protected @NotNull DataStore open() throws Exception {
+    directory = Files.createTempDirectory("datastore-bench");
+
+    return new LogDataStore(
+      directory, settings.equals("production") ? LogSettings.production() : new LogSettings());
+  }
+
+  @Override
+  protected void shutdown() throws Exception {
+    try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+      for (Path file : files) {
+        Files.delete(file);
+      }
+    }
+
+    Files.delete(directory);
+  }
+}
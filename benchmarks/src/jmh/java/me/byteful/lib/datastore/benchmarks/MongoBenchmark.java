@@ -0,0 +1,29 @@
+package me.byteful.lib.datastore.benchmarks;
+
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import me.byteful.lib.datastore.api.data.DataStore;
+import me.byteful.lib.datastore.sqlite.MongoDBDataStore;
+import org.jetbrains.annotations.NotNull;
+
+import java.net.InetSocketAddress;
+
+// mongo-java-server speaks the wire protocol from memory, so this covers the driver, codecs and
+// MongoDBDataStore but none of a real server's storage engine.
+public class MongoBenchmark extends DataStoreBenchmark {
+  private MongoServer server;
+
+  @Override
+  protected @NotNull DataStore open() {
+    server = new MongoServer(new MemoryBackend());
+    final InetSocketAddress address = server.bind();
+
+    return new MongoDBDataStore(
+      "mongodb://" + address.getHostString() + ":" + address.getPort(), "benchmark");
+  }
+
+  @Override
+  protected void shutdown() {
+    server.shutdownNow();
+  }
+}
@@ -0,0 +1,19 @@
+package me.byteful.lib.datastore.benchmarks;
+
+import com.zaxxer.hikari.HikariConfig;
+import me.byteful.lib.datastore.api.data.DataStore;
+import me.byteful.lib.datastore.mysql.MySQLDataStore;
+import org.jetbrains.annotations.NotNull;
+
+// H2 in MySQL mode stands in for a server. It measures MySQLDataStore's own overhead (pooling,
+// statement templates, binding) rather than MySQL itself, so compare it release to release.
+public class MySQLBenchmark extends DataStoreBenchmark {
+  @Override
+  protected @NotNull DataStore open() {
+    final HikariConfig config = new HikariConfig();
+    config.setJdbcUrl(
+      "jdbc:h2:mem:datastore-bench;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+
+    return new MySQLDataStore(config);
+  }
+}
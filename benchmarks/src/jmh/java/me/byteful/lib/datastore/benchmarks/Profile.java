@@ -0,0 +1,139 @@
+package me.byteful.lib.datastore.benchmarks;
+
+import com.google.gson.reflect.TypeToken;
+import me.byteful.lib.datastore.api.data.StoredGroup;
+import me.byteful.lib.datastore.api.model.Model;
+import me.byteful.lib.datastore.api.model.ModelId;
+import me.byteful.lib.datastore.api.model.ModelSink;
+import me.byteful.lib.datastore.api.model.ModelStructure;
+import me.byteful.lib.datastore.api.model.ProcessedModel;
+import me.byteful.lib.datastore.api.model.ProcessedModelFieldType;
+import me.byteful.lib.datastore.api.model.impl.JSONModelId;
+import me.byteful.lib.datastore.api.model.impl.JSONProcessedModel;
+import org.jetbrains.annotations.NotNull;
+
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+
+// Model shared by every benchmark: an indexed id and name, a few scalars and two collections,
+// roughly what a player profile stored through DataStore looks like.
+@StoredGroup("benchmark_profiles")
+public final class Profile implements Model {
+  private static final Type TAGS = new TypeToken<List<String>>() {}.getType();
+  private static final Type STATS = new TypeToken<Map<String, Integer>>() {}.getType();
+
+  private final UUID uuid;
+  private final String name;
+  private final long coins;
+  private final double ratio;
+  private final List<String> tags;
+  private final Map<String, Integer> stats;
+
+  public Profile(
+    @NotNull UUID uuid,
+    @NotNull String name,
+    long coins,
+    double ratio,
+    @NotNull List<String> tags,
+    @NotNull Map<String, Integer> stats) {
+    this.uuid = uuid;
+    this.name = name;
+    this.coins = coins;
+    this.ratio = ratio;
+    this.tags = tags;
+    this.stats = stats;
+  }
+
+  // Deterministic, so every run and every backend stores the same data.
+  @NotNull
+  public static Profile create(int index) {
+    final List<String> tags = new ArrayList<>();
+    for (int i = 0; i < 4; i++) {
+      tags.add("tag-" + (index + i) % 16);
+    }
+
+    final Map<String, Integer> stats = new LinkedHashMap<>();
+    stats.put("kills", index * 3);
+    stats.put("deaths", index * 2);
+    stats.put("wins", index);
+
+    return new Profile(uuid(index), "player-" + index, index * 100L, index / 7.0, tags, stats);
+  }
+
+  @NotNull
+  public static UUID uuid(int index) {
+    return new UUID(0x5EED_0000_0000_0000L, index);
+  }
+
+  @NotNull
+  public static ModelId id(int index) {
+    return JSONModelId.of("uuid", uuid(index));
+  }
+
+  @NotNull
+  public Profile withCoins(long coins) {
+    return new Profile(uuid, name, coins, ratio, tags, stats);
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (o == null || getClass() != o.getClass()) return false;
+    Profile profile = (Profile) o;
+    return coins == profile.coins
+      && Double.compare(profile.ratio, ratio) == 0
+      && uuid.equals(profile.uuid)
+      && name.equals(profile.name)
+      && tags.equals(profile.tags)
+      && stats.equals(profile.stats);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(uuid, name, coins, ratio, tags, stats);
+  }
+
+  public static final class Structure implements ModelStructure<Profile> {
+    @Override
+    public @NotNull ProcessedModel serialize(@NotNull Profile profile) {
+      return new JSONProcessedModel()
+        .append("uuid", ProcessedModelFieldType.UNIQUE_INDEXED, profile.uuid)
+        .append("name", ProcessedModelFieldType.INDEXED, profile.name)
+        .append("coins", ProcessedModelFieldType.NORMAL, profile.coins)
+        .append("ratio", ProcessedModelFieldType.NORMAL, profile.ratio)
+        .append("tags", ProcessedModelFieldType.NORMAL, profile.tags)
+        .append("stats", ProcessedModelFieldType.NORMAL, profile.stats);
+    }
+
+    @Override
+    public void write(@NotNull Profile profile, @NotNull ModelSink sink) {
+      sink.append("uuid", ProcessedModelFieldType.UNIQUE_INDEXED, profile.uuid)
+        .append("name", ProcessedModelFieldType.INDEXED, profile.name)
+        .append("coins", ProcessedModelFieldType.NORMAL, profile.coins)
+        .append("ratio", ProcessedModelFieldType.NORMAL, profile.ratio)
+        .append("tags", ProcessedModelFieldType.NORMAL, profile.tags)
+        .append("stats", ProcessedModelFieldType.NORMAL, profile.stats);
+    }
+
+    @Override
+    public @NotNull Profile deserialize(@NotNull ProcessedModel processed) {
+      return new Profile(
+        Objects.requireNonNull(processed.getNullable("uuid", UUID.class)),
+        Objects.requireNonNull(processed.getNullable("name", String.class)),
+        Objects.requireNonNull(processed.getNullable("coins", Long.class)),
+        Objects.requireNonNull(processed.getNullable("ratio", Double.class)),
+        Objects.requireNonNull(processed.<List<String>>getNullable("tags", TAGS)),
+        Objects.requireNonNull(processed.<Map<String, Integer>>getNullable("stats", STATS)));
+    }
+
+    @Override
+    public @NotNull Class<Profile> getModelType() {
+      return Profile.class;
+    }
+  }
+}
@@ -0,0 +1,50 @@
+package me.byteful.lib.datastore.benchmarks;
+
+import me.byteful.lib.datastore.api.data.DataStore;
+import me.byteful.lib.datastore.sqlite.SQLiteDataStore;
+import me.byteful.lib.datastore.sqlite.SQLiteSettings;
+import org.jetbrains.annotations.NotNull;
+import org.openjdk.jmh.annotations.Param;
+
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+// A private :memory: database can't be shared between the writer and the reader connections,
+// so the in-memory case is a file on tmpfs instead: no disk, but the same code paths.
+public class SQLiteBenchmark extends DataStoreBenchmark {
+  private static final Path TMPFS = Paths.get("/dev/shm");
+
+  @Param({"disk", "memory"})
+  public String storage;
+
+  @Param({"default", "production"})
+  public String settings;
+
+  private Path directory;
+
+  @Override
+  protected @NotNull DataStore open() throws Exception {
+    directory =
+      storage.equals("memory") && Files.isDirectory(TMPFS)
+        ? Files.createTempDirectory(TMPFS, "datastore-bench")
+        : Files.createTempDirectory("datastore-bench");
+
+    return new SQLiteDataStore(
+      directory.resolve("bench.db"),
+      settings.equals("production") ? SQLiteSettings.production() : new SQLiteSettings());
+  }
+
+  @Override
+  protected void shutdown() throws Exception {
+    // The database plus whatever -wal or -shm files the journal mode left behind.
+    try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+      for (Path file : files) {
+        Files.delete(file);
+      }
+    }
+
+    Files.delete(directory);
+  }
+}
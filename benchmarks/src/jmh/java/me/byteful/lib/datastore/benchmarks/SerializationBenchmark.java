@@ -0,0 +1,104 @@
+package me.byteful.lib.datastore.benchmarks;
+
+import me.byteful.lib.datastore.api.model.ModelSink;
+import me.byteful.lib.datastore.api.model.ModelStructure;
+import me.byteful.lib.datastore.api.model.ProcessedModel;
+import me.byteful.lib.datastore.api.model.ProcessedModelField;
+import me.byteful.lib.datastore.api.model.ProcessedModelFieldType;
+import me.byteful.lib.datastore.api.model.StorageType;
+import me.byteful.lib.datastore.api.model.impl.JSONProcessedModel;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+// Model <-> ProcessedModel <-> JSON text, without any backend involved. Decoding always starts
+// from text, since a ProcessedModel caches the values it has already decoded.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class SerializationBenchmark {
+  private final ModelStructure<Profile> structure = new Profile.Structure();
+  private final CapturingSink sink = new CapturingSink();
+  private Profile profile;
+  private String json;
+
+  @Setup
+  public void setup() {
+    profile = Profile.create(42);
+    json = ((JSONProcessedModel) structure.serialize(profile)).toJSON();
+  }
+
+  @Benchmark
+  public ProcessedModel serialize() {
+    return structure.serialize(profile);
+  }
+
+  // The path the backends take: fields streamed into a sink, no ProcessedModel built.
+  @Benchmark
+  public ModelSink write() {
+    structure.write(profile, sink);
+
+    return sink;
+  }
+
+  @Benchmark
+  public String encode() {
+    return ((JSONProcessedModel) structure.serialize(profile)).toJSON();
+  }
+
+  @Benchmark
+  public ProcessedModel parse() {
+    return new JSONProcessedModel(json);
+  }
+
+  @Benchmark
+  public Profile decode() {
+    return structure.deserialize(new JSONProcessedModel(json));
+  }
+
+  @Benchmark
+  public Profile roundTrip() {
+    return structure.deserialize(
+      new JSONProcessedModel(((JSONProcessedModel) structure.serialize(profile)).toJSON()));
+  }
+
+  // Keeps what it is given in fields of a returned object, so nothing can be optimized away.
+  private static final class CapturingSink implements ModelSink {
+    private int fields;
+    private Object last;
+
+    @Override
+    public @NotNull ModelSink append(
+      @NotNull String key, @NotNull ProcessedModelFieldType fieldType, @Nullable Object value) {
+      fields++;
+      last = value;
+
+      return this;
+    }
+
+    @Override
+    public @NotNull ModelSink append(
+      @NotNull String key,
+      @NotNull ProcessedModelFieldType fieldType,
+      @NotNull StorageType storageType,
+      @Nullable Object value) {
+      return append(key, fieldType, value);
+    }
+
+    @Override
+    public @NotNull ModelSink append(@NotNull ProcessedModelField field) {
+      fields++;
+      last = field;
+
+      return this;
+    }
+  }
+}
@@ -0,0 +1,469 @@
+package me.byteful.lib.datastore.inmemory;
+
+import com.google.gson.Gson;
+import me.byteful.lib.datastore.api.DataStoreConstants;
+import me.byteful.lib.datastore.api.data.DataStore;
+import me.byteful.lib.datastore.api.data.DataStoreOptions;
+import me.byteful.lib.datastore.api.data.DataStoreTransaction;
+import me.byteful.lib.datastore.api.data.Page;
+import me.byteful.lib.datastore.api.data.PageRequest;
+import me.byteful.lib.datastore.api.data.internal.Values;
+import me.byteful.lib.datastore.api.data.metrics.DataStoreMetrics;
+import me.byteful.lib.datastore.api.model.Model;
+import me.byteful.lib.datastore.api.model.ModelId;
+import me.byteful.lib.datastore.api.model.ProcessedModel;
+import me.byteful.lib.datastore.api.model.ProcessedModelField;
+import me.byteful.lib.datastore.api.model.impl.BinaryProcessedModel;
+import me.byteful.lib.datastore.api.model.impl.BinaryProcessedModelField;
+import me.byteful.lib.datastore.api.model.impl.JSONProcessedModel;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Keeps every group in memory with no I/O, behaving like the SQLite store: ids match fields the
+// way SQL compares them, INDEXED and UNIQUE_INDEXED fields are looked up through hash indexes,
+// and a write replaces the rows it collides with on a unique field. Each group has its own
+// read/write lock, so groups never contend with each other.
+public class InMemoryDataStore implements DataStore {
+  private final Gson gson;
+  private final DataStoreOptions options = new DataStoreOptions();
+  private final ConcurrentHashMap<String, Table> tables = new ConcurrentHashMap<>();
+  @Nullable
+  private final Path snapshot;
+  @Nullable
+  private final ScheduledExecutorService scheduler;
+
+  public InMemoryDataStore() {
+    this(null, null, DataStoreConstants.GSON);
+  }
+
+  public InMemoryDataStore(@NotNull Gson gson) {
+    this(null, null, gson);
+  }
+
+  // Loads the snapshot if the file exists and writes it back on close().
+  public InMemoryDataStore(@NotNull Path snapshot) {
+    this(snapshot, null, DataStoreConstants.GSON);
+  }
+
+  public InMemoryDataStore(@NotNull Gson gson, @NotNull Path snapshot) {
+    this(snapshot, null, gson);
+  }
+
+  // Also writes the snapshot every interval in the background.
+  public InMemoryDataStore(@NotNull Gson gson, @NotNull Path snapshot, @NotNull Duration interval) {
+    this(snapshot, interval, gson);
+  }
+
+  private InMemoryDataStore(
+    @Nullable Path snapshot, @Nullable Duration interval, @NotNull Gson gson) {
+    this.gson = gson;
+    this.snapshot = snapshot;
+
+    if (snapshot != null && Files.exists(snapshot)) {
+      try {
+        Snapshots.read(snapshot, this::table);
+      } catch (IOException e) {
+        throw new RuntimeException(e);
+      }
+    }
+
+    if (interval == null) {
+      this.scheduler = null;
+      return;
+    }
+
+    this.scheduler =
+      Executors.newSingleThreadScheduledExecutor(
+        runnable -> {
+          final Thread thread = new Thread(runnable, "datastore-inmemory-snapshot");
+          thread.setDaemon(true);
+
+          return thread;
+        });
+
+    final long millis = interval.toMillis();
+    scheduler.scheduleWithFixedDelay(
+      () -> {
+        try {
+          Snapshots.write(snapshot, tables.values());
+        } catch (IOException | RuntimeException e) {
+          failed(DataStoreMetrics.MIXED_GROUP, e);
+        }
+      },
+      millis,
+      millis,
+      TimeUnit.MILLISECONDS);
+  }
+
+  @NotNull
+  public DataStoreOptions getOptions() {
+    return options;
+  }
+
+  // Writes every group to the snapshot file given to the constructor.
+  public void snapshot() {
+    if (snapshot == null) {
+      throw new IllegalStateException("This store was created without a snapshot file.");
+    }
+
+    snapshot(snapshot);
+  }
+
+  public void snapshot(@NotNull Path file) {
+    try {
+      Snapshots.write(file, tables.values());
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  @Override
+  public @NotNull <T extends Model> Optional<T> get(
+    @NotNull Class<T> type, @NotNull ModelId id, @NotNull ModelId... ids) {
+    final List<Row> found = find(getStoredGroup(type), compile(id, ids), 1);
+
+    return found.isEmpty() ? Optional.empty() : Optional.of(read(type, found.get(0)));
+  }
+
+  // Shares the stored fields; nothing is serialized or deserialized.
+  @Override
+  public @NotNull Optional<ProcessedModel> getFields(
+    @NotNull Class<? extends Model> type,
+    @NotNull Set<String> fields,
+    @NotNull ModelId id,
+    @NotNull ModelId... ids) {
+    final List<Row> found = find(getStoredGroup(type), compile(id, ids), 1);
+    if (found.isEmpty()) {
+      return Optional.empty();
+    }
+
+    final Map<String, ProcessedModelField> partial = new HashMap<>();
+    for (String key : fields) {
+      final ProcessedModelField field = found.get(0).fields().get(key);
+      if (field != null) {
+        partial.put(key, field);
+      }
+    }
+
+    return Optional.of(toProcessedModel(partial));
+  }
+
+  @Override
+  public @NotNull <T extends Model> List<T> getAll(
+    @NotNull Class<T> type, @NotNull ModelId... ids) {
+    final List<T> list = new ArrayList<>();
+    for (Row row : find(getStoredGroup(type), ids, Integer.MAX_VALUE)) {
+      list.add(read(type, row));
+    }
+
+    return list;
+  }
+
+  // Models without a value for the sort key are left out, like the DataStore fallback does.
+  @Override
+  public @NotNull <T extends Model> Page<T> getPage(
+    @NotNull Class<T> type, @NotNull PageRequest request, @NotNull ModelId... ids) {
+    final Table table = tables.get(getStoredGroup(type));
+    if (table == null) {
+      return new Page<>(Collections.emptyList(), null);
+    }
+
+    final int limit = request.getLimit();
+    final List<Row> sorted;
+    table.readLock().lock();
+
+    try {
+      final Table.Column column = table.column(request.getSortKey());
+      if (column == null) {
+        return new Page<>(Collections.emptyList(), null);
+      }
+
+      final int ordinal = column.ordinal;
+      final Object after =
+        request.getAfter() == null ? null : Values.canonical(column.storage, request.getAfter());
+      final Comparator<Row> order =
+        (a, b) -> Values.compare(a.value(ordinal), b.value(ordinal));
+      // The limit + 1 smallest rows past the token; the extra one tells whether more follow.
+      final PriorityQueue<Row> smallest = new PriorityQueue<>(order.reversed());
+
+      for (Row row : table.find(ids, Integer.MAX_VALUE)) {
+        final Object value = row.value(ordinal);
+        if (value == null || (after != null && Values.compare(value, after) <= 0)) {
+          continue;
+        }
+
+        smallest.add(row);
+        if (smallest.size() - 1 > limit) {
+          smallest.poll();
+        }
+      }
+
+      sorted = new ArrayList<>(smallest);
+      sorted.sort(order);
+    } finally {
+      table.readLock().unlock();
+    }
+
+    final List<T> items = new ArrayList<>();
+    for (int i = 0; i < Math.min(limit, sorted.size()); i++) {
+      items.add(read(type, sorted.get(i)));
+    }
+
+    if (sorted.size() <= limit) {
+      return new Page<>(items, null);
+    }
+
+    final String last = sorted.get(limit - 1).fields().get(request.getSortKey()).value();
+
+    return new Page<>(items, PageRequest.token(request.getSortKey(), last));
+  }
+
+  @Override
+  public @NotNull <T extends Model> Map<ModelId, T> getMany(
+    @NotNull Class<T> type, @NotNull Collection<? extends ModelId> ids) {
+    final Map<ModelId, T> found = new LinkedHashMap<>();
+    final Table table = tables.get(getStoredGroup(type));
+    if (table == null || ids.isEmpty()) {
+      return found;
+    }
+
+    final Map<ModelId, Row> rows = new LinkedHashMap<>();
+    table.readLock().lock();
+
+    try {
+      for (ModelId id : ids) {
+        final List<Row> row = table.find(new ModelId[]{id}, 1);
+        if (!row.isEmpty()) {
+          rows.put(id, row.get(0));
+        }
+      }
+    } finally {
+      table.readLock().unlock();
+    }
+
+    rows.forEach((id, row) -> found.put(id, read(type, row)));
+
+    return found;
+  }
+
+  @Override
+  public void set(@NotNull ModelId id, @NotNull Model model) {
+    // Serialized before the lock is taken, so only the index updates hold up other writers.
+    final Map<String, ProcessedModelField> fields = serializeModel(model).values();
+    final Table table = table(getStoredGroup(model.getClass()));
+    table.writeLock().lock();
+
+    try {
+      table.put(fields);
+    } finally {
+      table.writeLock().unlock();
+    }
+  }
+
+  @Override
+  public boolean setAll(@NotNull Map<? extends ModelId, ? extends Model> models) {
+    final List<Write> writes = new ArrayList<>(models.size());
+    for (Model model : models.values()) {
+      writes.add(
+        new Write(table(getStoredGroup(model.getClass())), serializeModel(model).values(), null));
+    }
+
+    apply(writes);
+
+    return true;
+  }
+
+  @Override
+  public boolean exists(
+    @NotNull Class<? extends Model> type, @NotNull ModelId id, @NotNull ModelId... ids) {
+    return !find(getStoredGroup(type), compile(id, ids), 1).isEmpty();
+  }
+
+  @Override
+  public void delete(
+    @NotNull Class<? extends Model> type, @NotNull ModelId id, @NotNull ModelId... ids) {
+    final Table table = tables.get(getStoredGroup(type));
+    if (table == null) {
+      return;
+    }
+
+    final ModelId[] compiled = compile(id, ids);
+    table.writeLock().lock();
+
+    try {
+      table.delete(compiled);
+    } finally {
+      table.writeLock().unlock();
+    }
+  }
+
+  @Override
+  public void clear(@NotNull Class<? extends Model> type) {
+    final Table table = tables.get(getStoredGroup(type));
+    if (table == null) {
+      return;
+    }
+
+    table.writeLock().lock();
+
+    try {
+      table.clear();
+    } finally {
+      table.writeLock().unlock();
+    }
+  }
+
+  // Every model is serialized up front, then the writes are applied while holding the locks of
+  // all groups involved, so readers see either none of the transaction or all of it.
+  @Override
+  public boolean commit(@NotNull DataStoreTransaction transaction) {
+    final List<Write> writes = new ArrayList<>(transaction.size());
+    for (DataStoreTransaction.Operation operation : transaction.getOperations()) {
+      if (operation.isDelete()) {
+        // A group nobody has written to yet has nothing to delete.
+        final Table table = tables.get(getStoredGroup(operation.getType()));
+        if (table != null) {
+          writes.add(new Write(table, null, operation.getIds()));
+        }
+      } else {
+        final Model model = operation.getModel();
+        writes.add(
+          new Write(table(getStoredGroup(model.getClass())), serializeModel(model).values(), null));
+      }
+    }
+
+    apply(writes);
+
+    return true;
+  }
+
+  @NotNull
+  private Table table(@NotNull String group) {
+    final Table table = tables.get(group);
+
+    return table != null ? table : tables.computeIfAbsent(group, Table::new);
+  }
+
+  @NotNull
+  private List<Row> find(@NotNull String group, @NotNull ModelId[] ids, int limit) {
+    final Table table = tables.get(group);
+    if (table == null) {
+      return Collections.emptyList();
+    }
+
+    table.readLock().lock();
+
+    try {
+      return table.find(ids, limit);
+    } finally {
+      table.readLock().unlock();
+    }
+  }
+
+  // Rows never change once stored, so they are deserialized after the lock is released.
+  @NotNull
+  private <T extends Model> T read(@NotNull Class<T> type, @NotNull Row row) {
+    return deserializeModel(type, toProcessedModel(row.fields()));
+  }
+
+  @NotNull
+  private ProcessedModel toProcessedModel(@NotNull Map<String, ProcessedModelField> fields) {
+    for (ProcessedModelField field : fields.values()) {
+      if (field instanceof BinaryProcessedModelField) {
+        return new BinaryProcessedModel(fields, gson);
+      }
+    }
+
+    return new JSONProcessedModel(fields, gson);
+  }
+
+  private void apply(@NotNull List<Write> writes) {
+    if (writes.isEmpty()) {
+      return;
+    }
+
+    // Locked in name order, so two transactions over the same groups cannot deadlock.
+    final Set<Table> involved = new LinkedHashSet<>();
+    for (Write write : writes) {
+      involved.add(write.table);
+    }
+
+    final List<Table> locked = new ArrayList<>(involved);
+    locked.sort(Comparator.comparing(Table::name));
+    for (Table table : locked) {
+      table.writeLock().lock();
+    }
+
+    try {
+      for (Write write : writes) {
+        if (write.fields != null) {
+          write.table.put(write.fields);
+        } else {
+          write.table.delete(write.ids);
+        }
+      }
+    } finally {
+      for (Table table : locked) {
+        table.writeLock().unlock();
+      }
+    }
+  }
+
+  private void failed(@NotNull String group, @NotNull Exception e) {
+    e.printStackTrace();
+    options.getMetrics().recordError(group, e);
+  }
+
+  @Override
+  public void close() throws Exception {
+    if (scheduler != null) {
+      // A snapshot still being written must not finish after, and overwrite, the final one.
+      scheduler.shutdown();
+      scheduler.awaitTermination(1, TimeUnit.MINUTES);
+    }
+
+    if (snapshot != null) {
+      Snapshots.write(snapshot, tables.values());
+    }
+  }
+
+  // One set (fields) or delete (ids) of a setAll or transaction.
+  private static final class Write {
+    @NotNull
+    private final Table table;
+    @Nullable
+    private final Map<String, ProcessedModelField> fields;
+    @Nullable
+    private final ModelId[] ids;
+
+    private Write(
+      @NotNull Table table,
+      @Nullable Map<String, ProcessedModelField> fields,
+      @Nullable ModelId[] ids) {
+      this.table = table;
+      this.fields = fields;
+      this.ids = ids;
+    }
+  }
+}
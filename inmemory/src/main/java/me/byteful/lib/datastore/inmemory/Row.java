@@ -0,0 +1,34 @@
+package me.byteful.lib.datastore.inmemory;
+
+import me.byteful.lib.datastore.api.model.ProcessedModelField;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Map;
+
+// One stored model. Immutable: a write replaces the whole row, so readers can keep using rows
+// they found after the table's lock is released.
+final class Row {
+  @NotNull
+  private final Map<String, ProcessedModelField> fields;
+  // Comparable form of each field, by column ordinal; null where the field is missing or SQL
+  // would hold a NULL.
+  @NotNull
+  private final Object[] values;
+
+  Row(@NotNull Map<String, ProcessedModelField> fields, @NotNull Object[] values) {
+    this.fields = fields;
+    this.values = values;
+  }
+
+  @NotNull
+  Map<String, ProcessedModelField> fields() {
+    return fields;
+  }
+
+  @Nullable
+  Object value(int ordinal) {
+    // Columns added after this row was written are simply missing from it.
+    return ordinal < values.length ? values[ordinal] : null;
+  }
+}
@@ -0,0 +1,151 @@
+package me.byteful.lib.datastore.inmemory;
+
+import me.byteful.lib.datastore.api.data.internal.FieldCodec;
+import me.byteful.lib.datastore.api.model.ProcessedModelFieldType;
+import me.byteful.lib.datastore.api.model.StorageType;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Function;
+
+// Binary snapshot of every table: its columns, then each row's fields as stored. Enums are
+// written by ordinal, so new constants may only ever be appended to them.
+final class Snapshots {
+  private static final int MAGIC = 0x44534d53;
+  private static final int VERSION = 1;
+
+  private Snapshots() {
+  }
+
+  // Rows are immutable, so only copying the references happens under the read locks; the file
+  // is written after they are released. The file is replaced atomically where supported.
+  static void write(@NotNull Path file, @NotNull Collection<Table> tables) throws IOException {
+    final List<Table> sorted = new ArrayList<>(tables);
+    // Same order commits lock tables in.
+    sorted.sort(Comparator.comparing(Table::name));
+    final List<List<Table.Column>> columns = new ArrayList<>();
+    final List<List<Row>> rows = new ArrayList<>();
+
+    for (Table table : sorted) {
+      table.readLock().lock();
+    }
+
+    try {
+      for (Table table : sorted) {
+        columns.add(new ArrayList<>(table.columns()));
+        rows.add(new ArrayList<>(table.rows()));
+      }
+    } finally {
+      for (Table table : sorted) {
+        table.readLock().unlock();
+      }
+    }
+
+    final Path target = file.toAbsolutePath();
+    final Path temp =
+      Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+
+    try {
+      try (DataOutputStream out =
+             new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(sorted.size());
+
+        for (int i = 0; i < sorted.size(); i++) {
+          writeString(out, sorted.get(i).name());
+
+          out.writeInt(columns.get(i).size());
+          for (Table.Column column : columns.get(i)) {
+            writeString(out, column.key);
+            out.writeByte(column.storage.ordinal());
+            out.writeByte(column.type.ordinal());
+          }
+
+          out.writeInt(rows.get(i).size());
+          for (Row row : rows.get(i)) {
+            FieldCodec.write(out, row.fields());
+          }
+        }
+      }
+
+      try {
+        Files.move(
+          temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      } catch (AtomicMoveNotSupportedException e) {
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+      }
+    } finally {
+      Files.deleteIfExists(temp);
+    }
+  }
+
+  static void read(@NotNull Path file, @NotNull Function<String, Table> tables) throws IOException {
+    try (DataInputStream in =
+           new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+      if (in.readInt() != MAGIC) {
+        throw new IOException("Not a datastore snapshot: " + file);
+      }
+
+      final int version = in.readInt();
+      if (version != VERSION) {
+        throw new IOException("Unsupported snapshot version " + version + ": " + file);
+      }
+
+      final StorageType[] storageTypes = StorageType.values();
+      final ProcessedModelFieldType[] fieldTypes = ProcessedModelFieldType.values();
+
+      for (int count = in.readInt(); count > 0; count--) {
+        final Table table = tables.apply(readString(in));
+        table.writeLock().lock();
+
+        try {
+          for (int columns = in.readInt(); columns > 0; columns--) {
+            final String key = readString(in);
+            final StorageType storage = storageTypes[in.readByte()];
+            final ProcessedModelFieldType type = fieldTypes[in.readByte()];
+
+            if (table.column(key) == null) {
+              table.addColumn(key, storage, type);
+            }
+          }
+
+          for (int rows = in.readInt(); rows > 0; rows--) {
+            table.put(FieldCodec.read(in));
+          }
+        } finally {
+          table.writeLock().unlock();
+        }
+      }
+    }
+  }
+
+  // Length-prefixed UTF-8; writeUTF would cap values at 64 KiB.
+  private static void writeString(@NotNull DataOutputStream out, @NotNull String value)
+    throws IOException {
+    final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  @NotNull
+  private static String readString(@NotNull DataInputStream in) throws IOException {
+    final byte[] bytes = new byte[in.readInt()];
+    in.readFully(bytes);
+
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,243 @@
+package me.byteful.lib.datastore.inmemory;
+
+import me.byteful.lib.datastore.api.data.internal.FieldIndex;
+import me.byteful.lib.datastore.api.data.internal.Values;
+import me.byteful.lib.datastore.api.model.ModelId;
+import me.byteful.lib.datastore.api.model.ProcessedModelField;
+import me.byteful.lib.datastore.api.model.ProcessedModelFieldType;
+import me.byteful.lib.datastore.api.model.StorageType;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// The rows of one StoredGroup. Columns are fixed by the first model written with each key, the
+// way the SQL backends create their tables, and INDEXED / UNIQUE_INDEXED columns get a
+// FieldIndex. Callers hold the read lock to look rows up and the write lock to change them.
+final class Table {
+  @NotNull
+  private final String name;
+  private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+  private final Map<String, Column> columns = new LinkedHashMap<>();
+  private final List<Column> indexed = new ArrayList<>();
+  private final List<Column> unique = new ArrayList<>();
+  private final Set<Row> rows = new LinkedHashSet<>();
+
+  Table(@NotNull String name) {
+    this.name = name;
+  }
+
+  @NotNull
+  String name() {
+    return name;
+  }
+
+  @NotNull
+  Lock readLock() {
+    return lock.readLock();
+  }
+
+  @NotNull
+  Lock writeLock() {
+    return lock.writeLock();
+  }
+
+  @Nullable
+  Column column(@NotNull String key) {
+    return columns.get(key);
+  }
+
+  @NotNull
+  Collection<Column> columns() {
+    return columns.values();
+  }
+
+  @NotNull
+  Collection<Row> rows() {
+    return rows;
+  }
+
+  @NotNull
+  Column addColumn(
+    @NotNull String key, @NotNull StorageType storage, @NotNull ProcessedModelFieldType type) {
+    final FieldIndex<Row> index =
+      type == ProcessedModelFieldType.NORMAL
+        ? null
+        : new FieldIndex<>(storage == StorageType.INT || storage == StorageType.BIGINT);
+    final Column column = new Column(key, columns.size(), storage, type, index);
+    columns.put(key, column);
+
+    if (index != null) {
+      indexed.add(column);
+    }
+
+    if (type == ProcessedModelFieldType.UNIQUE_INDEXED) {
+      unique.add(column);
+    }
+
+    return column;
+  }
+
+  // Rows matching every id, in insertion order, at most `limit` of them. Starts from the
+  // smallest index bucket among the ids and only scans the table when none is indexed.
+  @NotNull
+  List<Row> find(@NotNull ModelId[] ids, int limit) {
+    final int[] ordinals = new int[ids.length];
+    final Object[] wanted = new Object[ids.length];
+    Collection<Row> candidates = rows;
+
+    for (int i = 0; i < ids.length; i++) {
+      final Column column = columns.get(ids[i].key());
+      if (column == null) {
+        return Collections.emptyList();
+      }
+
+      final Object value = Values.canonical(column.storage, ids[i].value());
+      if (value == null) {
+        // "= NULL" matches nothing in SQL either.
+        return Collections.emptyList();
+      }
+
+      ordinals[i] = column.ordinal;
+      wanted[i] = value;
+
+      if (column.index != null) {
+        final Collection<Row> bucket = column.index.get(value);
+        if (bucket.size() < candidates.size()) {
+          candidates = bucket;
+        }
+      }
+    }
+
+    final List<Row> found = new ArrayList<>(Math.min(limit, candidates.size()));
+    for (Row row : candidates) {
+      if (matches(row, ordinals, wanted)) {
+        found.add(row);
+
+        if (found.size() == limit) {
+          break;
+        }
+      }
+    }
+
+    return found;
+  }
+
+  // Stores the model's fields, first removing every row that holds one of its unique values,
+  // like the "replace into" the SQL backends write with.
+  void put(@NotNull Map<String, ProcessedModelField> fields) {
+    final Row row = row(fields);
+
+    for (Column column : unique) {
+      final Object value = row.value(column.ordinal);
+      if (value == null) {
+        continue;
+      }
+
+      final Collection<Row> existing = column.index.get(value);
+      if (!existing.isEmpty()) {
+        for (Row replaced : existing.toArray(new Row[0])) {
+          remove(replaced);
+        }
+      }
+    }
+
+    rows.add(row);
+    for (Column column : indexed) {
+      final Object value = row.value(column.ordinal);
+      if (value != null) {
+        column.index.add(value, row);
+      }
+    }
+  }
+
+  void delete(@NotNull ModelId[] ids) {
+    for (Row row : find(ids, Integer.MAX_VALUE)) {
+      remove(row);
+    }
+  }
+
+  // Keeps the columns, like a SQL table that has been emptied.
+  void clear() {
+    rows.clear();
+    for (Column column : indexed) {
+      column.index.clear();
+    }
+  }
+
+  @NotNull
+  private Row row(@NotNull Map<String, ProcessedModelField> fields) {
+    for (ProcessedModelField field : fields.values()) {
+      if (!columns.containsKey(field.key())) {
+        final StorageType storage = field.storageType();
+        addColumn(field.key(), storage == null ? StorageType.JSON : storage, field.type());
+      }
+    }
+
+    final Object[] values = new Object[columns.size()];
+    for (ProcessedModelField field : fields.values()) {
+      final Column column = columns.get(field.key());
+      values[column.ordinal] = Values.canonical(column.storage, field.value());
+    }
+
+    return new Row(fields, values);
+  }
+
+  private void remove(@NotNull Row row) {
+    if (!rows.remove(row)) {
+      return;
+    }
+
+    for (Column column : indexed) {
+      final Object value = row.value(column.ordinal);
+      if (value != null) {
+        column.index.remove(value, row);
+      }
+    }
+  }
+
+  private static boolean matches(
+    @NotNull Row row, @NotNull int[] ordinals, @NotNull Object[] wanted) {
+    for (int i = 0; i < ordinals.length; i++) {
+      if (!wanted[i].equals(row.value(ordinals[i]))) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  static final class Column {
+    @NotNull
+    final String key;
+    final int ordinal;
+    @NotNull
+    final StorageType storage;
+    @NotNull
+    final ProcessedModelFieldType type;
+    @Nullable
+    final FieldIndex<Row> index;
+
+    private Column(
+      @NotNull String key,
+      int ordinal,
+      @NotNull StorageType storage,
+      @NotNull ProcessedModelFieldType type,
+      @Nullable FieldIndex<Row> index) {
+      this.key = key;
+      this.ordinal = ordinal;
+      this.storage = storage;
+      this.type = type;
+      this.index = index;
+    }
+  }
+}
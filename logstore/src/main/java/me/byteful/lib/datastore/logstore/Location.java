@@ -0,0 +1,26 @@
+package me.byteful.lib.datastore.logstore;
+
+import me.byteful.lib.datastore.api.model.ProcessedModelField;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.util.Map;
+
+// Where the PUT record of a row sits in the log.
+final class Location {
+  @NotNull
+  final Segment segment;
+  final long offset;
+  final int length;
+
+  Location(@NotNull Segment segment, long offset, int length) {
+    this.segment = segment;
+    this.offset = offset;
+    this.length = length;
+  }
+
+  @NotNull
+  Map<String, ProcessedModelField> fields() throws IOException {
+    return Records.readPut(segment.read(offset, length));
+  }
+}
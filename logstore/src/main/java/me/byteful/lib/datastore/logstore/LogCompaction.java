@@ -0,0 +1,203 @@
+package me.byteful.lib.datastore.logstore;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+// Rewrites the sealed segments into one holding only the records rows still point at, dropping
+// superseded models along with everything delete() and clear() left behind. Writers carry on
+// in a fresh active segment meanwhile; tables are only read-locked to copy their rows out and
+// write-locked one at a time to point them at the new copies.
+final class LogCompaction implements AutoCloseable {
+  // Payload bytes per record of a compacted segment; records only bound what replay reads at once.
+  private static final int RECORD_SIZE = 1024 * 1024;
+
+  private final SegmentLog log;
+  private final LogSettings settings;
+  private final Supplier<Collection<Table>> tables;
+  @Nullable
+  private final ScheduledExecutorService scheduler;
+
+  LogCompaction(
+    @NotNull SegmentLog log,
+    @NotNull LogSettings settings,
+    @NotNull Supplier<Collection<Table>> tables,
+    @NotNull Consumer<Exception> failed) {
+    this.log = log;
+    this.settings = settings;
+    this.tables = tables;
+
+    final Duration interval = settings.getCompactionInterval();
+    if (interval == null) {
+      this.scheduler = null;
+      return;
+    }
+
+    this.scheduler =
+      Executors.newSingleThreadScheduledExecutor(
+        runnable -> {
+          final Thread thread = new Thread(runnable, "datastore-log-compaction");
+          thread.setDaemon(true);
+
+          return thread;
+        });
+
+    final long millis = interval.toMillis();
+    scheduler.scheduleWithFixedDelay(
+      () -> {
+        try {
+          runIfWorthwhile();
+        } catch (IOException | RuntimeException e) {
+          failed.accept(e);
+        }
+      },
+      millis,
+      millis,
+      TimeUnit.MILLISECONDS);
+  }
+
+  synchronized void run() throws IOException {
+    final List<Segment> sealed = log.seal();
+    if (sealed.isEmpty()) {
+      return;
+    }
+
+    final Set<Segment> compacting = Collections.newSetFromMap(new IdentityHashMap<>());
+    compacting.addAll(sealed);
+
+    // Same order writes lock tables in.
+    final List<Table> sorted = new ArrayList<>(tables.get());
+    sorted.sort(Comparator.comparing(Table::name));
+    final List<List<Table.Column>> columns = new ArrayList<>();
+    final List<Row> rows = new ArrayList<>();
+    final List<Location> from = new ArrayList<>();
+    final List<Table> owners = new ArrayList<>();
+
+    for (Table table : sorted) {
+      table.readLock().lock();
+    }
+
+    try {
+      for (Table table : sorted) {
+        columns.add(new ArrayList<>(table.columns()));
+
+        for (Row row : table.rows()) {
+          if (compacting.contains(row.location.segment)) {
+            rows.add(row);
+            from.add(row.location);
+            owners.add(table);
+          }
+        }
+      }
+    } finally {
+      for (Table table : sorted) {
+        table.readLock().unlock();
+      }
+    }
+
+    final Segment compacted = log.compaction(sealed);
+    final List<Location> to = new ArrayList<>(rows.size());
+
+    try {
+      RecordWriter record = new RecordWriter();
+      // Undoes the older segments in case a crash leaves them behind. The columns come next, so
+      // their types survive even when the rows that first had them are gone.
+      record.reset();
+      for (int i = 0; i < sorted.size(); i++) {
+        for (Table.Column column : columns.get(i)) {
+          record.column(sorted.get(i).name(), column.key, column.storage, column.type);
+        }
+      }
+
+      // Offsets within the current record of the rows copied into it since the last write.
+      final List<Integer> offsets = new ArrayList<>();
+      for (int i = 0; i < rows.size(); i++) {
+        final Location location = from.get(i);
+        final ByteBuffer operation = location.segment.read(location.offset, location.length);
+        offsets.add(record.copy(operation));
+
+        if (record.size() >= RECORD_SIZE) {
+          write(compacted, record, offsets, from, to);
+          record = new RecordWriter();
+          offsets.clear();
+        }
+      }
+
+      if (!record.isEmpty()) {
+        write(compacted, record, offsets, from, to);
+      }
+
+      log.replace(sealed, compacted);
+    } catch (IOException | RuntimeException e) {
+      compacted.channel.close();
+      throw e;
+    }
+
+    for (int i = 0; i < rows.size(); i++) {
+      final Table table = owners.get(i);
+      table.writeLock().lock();
+
+      try {
+        table.relocate(rows.get(i), from.get(i), to.get(i));
+      } finally {
+        table.writeLock().unlock();
+      }
+    }
+
+    log.release(sealed);
+  }
+
+  // Compacts once the share of the log no row points at reaches the threshold.
+  private void runIfWorthwhile() throws IOException {
+    final long[] usage = log.usage();
+    final long size = usage[0];
+    final long garbage = size - usage[1];
+
+    if (size > 0 && garbage >= settings.getCompactionThreshold() * size) {
+      run();
+    }
+  }
+
+  private static void write(
+    @NotNull Segment compacted,
+    @NotNull RecordWriter record,
+    @NotNull List<Integer> offsets,
+    @NotNull List<Location> from,
+    @NotNull List<Location> to)
+    throws IOException {
+    final long start = compacted.size;
+    final ByteBuffer buffer = ByteBuffer.wrap(record.finish(), 0, record.size());
+    while (buffer.hasRemaining()) {
+      compacted.channel.write(buffer);
+    }
+
+    compacted.size = start + record.size();
+    for (int offset : offsets) {
+      to.add(new Location(compacted, start + offset, from.get(to.size()).length));
+    }
+  }
+
+  @Override
+  public void close() throws InterruptedException {
+    if (scheduler != null) {
+      // A compaction still running must finish before the log's files are closed under it.
+      scheduler.shutdown();
+      scheduler.awaitTermination(1, TimeUnit.MINUTES);
+    }
+  }
+}
@@ -0,0 +1,603 @@
+package me.byteful.lib.datastore.logstore;
+
+import com.google.gson.Gson;
+import me.byteful.lib.datastore.api.DataStoreConstants;
+import me.byteful.lib.datastore.api.data.DataStore;
+import me.byteful.lib.datastore.api.data.DataStoreOptions;
+import me.byteful.lib.datastore.api.data.DataStoreTransaction;
+import me.byteful.lib.datastore.api.data.Page;
+import me.byteful.lib.datastore.api.data.PageRequest;
+import me.byteful.lib.datastore.api.data.internal.Values;
+import me.byteful.lib.datastore.api.data.metrics.DataStoreMetrics;
+import me.byteful.lib.datastore.api.model.Model;
+import me.byteful.lib.datastore.api.model.ModelId;
+import me.byteful.lib.datastore.api.model.ProcessedModel;
+import me.byteful.lib.datastore.api.model.ProcessedModelField;
+import me.byteful.lib.datastore.api.model.ProcessedModelFieldType;
+import me.byteful.lib.datastore.api.model.StorageType;
+import me.byteful.lib.datastore.api.model.impl.BinaryProcessedModel;
+import me.byteful.lib.datastore.api.model.impl.BinaryProcessedModelField;
+import me.byteful.lib.datastore.api.model.impl.JSONProcessedModel;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Appends every write to a log of segment files in a directory and keeps only an index in
+// memory: per group, the position of each model's latest record, plus hash indexes over its
+// INDEXED and UNIQUE_INDEXED fields. Reads go straight to the record, through a memory mapping
+// once its segment is full. Ids match fields the way SQL compares them, and a write replaces
+// the rows it collides with on a unique field, like the SQLite store. The index is rebuilt by
+// replaying the log on open, and LogCompaction drops what later writes superseded.
+public class LogDataStore implements DataStore {
+  private final Gson gson;
+  private final LogSettings settings;
+  private final DataStoreOptions options = new DataStoreOptions();
+  private final ConcurrentHashMap<String, Table> tables = new ConcurrentHashMap<>();
+  private final SegmentLog log;
+  private final LogCompaction compaction;
+  @Nullable
+  private final ScheduledExecutorService syncer;
+
+  public LogDataStore(Gson gson, Path directory, LogSettings settings) {
+    this.gson = gson;
+    this.settings = settings;
+
+    try {
+      this.log = new SegmentLog(directory, settings);
+      log.replay(this::replay);
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+
+    this.compaction =
+      new LogCompaction(
+        log, settings, tables::values, e -> failed(DataStoreMetrics.MIXED_GROUP, e));
+
+    if (settings.getFsync() != LogSettings.Fsync.INTERVAL) {
+      this.syncer = null;
+      return;
+    }
+
+    this.syncer =
+      Executors.newSingleThreadScheduledExecutor(
+        runnable -> {
+          final Thread thread = new Thread(runnable, "datastore-log-sync");
+          thread.setDaemon(true);
+
+          return thread;
+        });
+
+    final long millis = settings.getFsyncInterval().toMillis();
+    syncer.scheduleWithFixedDelay(
+      () -> {
+        try {
+          log.sync(log.written());
+        } catch (IOException | RuntimeException e) {
+          failed(DataStoreMetrics.MIXED_GROUP, e);
+        }
+      },
+      millis,
+      millis,
+      TimeUnit.MILLISECONDS);
+  }
+
+  public LogDataStore(Gson gson, Path directory) {
+    this(gson, directory, new LogSettings());
+  }
+
+  public LogDataStore(Path directory, LogSettings settings) {
+    this(DataStoreConstants.GSON, directory, settings);
+  }
+
+  public LogDataStore(Path directory) {
+    this(DataStoreConstants.GSON, directory, new LogSettings());
+  }
+
+  @NotNull
+  public DataStoreOptions getOptions() {
+    return options;
+  }
+
+  // Compacts the log now, whatever the threshold.
+  public void compact() {
+    try {
+      compaction.run();
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  @Override
+  public @NotNull <T extends Model> Optional<T> get(
+    @NotNull Class<T> type, @NotNull ModelId id, @NotNull ModelId... ids) {
+    final String group = getStoredGroup(type);
+
+    try {
+      final List<Location> found = find(group, compile(id, ids), 1);
+
+      return found.isEmpty() ? Optional.empty() : Optional.of(read(type, found.get(0)));
+    } catch (IOException e) {
+      failed(group, e);
+
+      return Optional.empty();
+    }
+  }
+
+  @Override
+  public @NotNull Optional<ProcessedModel> getFields(
+    @NotNull Class<? extends Model> type,
+    @NotNull Set<String> fields,
+    @NotNull ModelId id,
+    @NotNull ModelId... ids) {
+    final String group = getStoredGroup(type);
+
+    try {
+      final List<Location> found = find(group, compile(id, ids), 1);
+      if (found.isEmpty()) {
+        return Optional.empty();
+      }
+
+      final Map<String, ProcessedModelField> stored = found.get(0).fields();
+      final Map<String, ProcessedModelField> partial = new HashMap<>();
+      for (String key : fields) {
+        final ProcessedModelField field = stored.get(key);
+        if (field != null) {
+          partial.put(key, field);
+        }
+      }
+
+      return Optional.of(toProcessedModel(partial));
+    } catch (IOException e) {
+      failed(group, e);
+
+      return Optional.empty();
+    }
+  }
+
+  @Override
+  public @NotNull <T extends Model> List<T> getAll(
+    @NotNull Class<T> type, @NotNull ModelId... ids) {
+    final String group = getStoredGroup(type);
+    final List<T> list = new ArrayList<>();
+
+    try {
+      for (Location location : find(group, ids, Integer.MAX_VALUE)) {
+        list.add(read(type, location));
+      }
+    } catch (IOException e) {
+      failed(group, e);
+    }
+
+    return list;
+  }
+
+  // Models without a value for the sort key are left out, like the DataStore fallback does.
+  // Sorting on a field that isn't indexed reads the record of every matching model.
+  @Override
+  public @NotNull <T extends Model> Page<T> getPage(
+    @NotNull Class<T> type, @NotNull PageRequest request, @NotNull ModelId... ids) {
+    final String group = getStoredGroup(type);
+    final Table table = tables.get(group);
+    if (table == null) {
+      return new Page<>(Collections.emptyList(), null);
+    }
+
+    final int limit = request.getLimit();
+    final List<Location> sorted = new ArrayList<>();
+
+    try {
+      table.readLock().lock();
+
+      try {
+        final Table.Column column = table.column(request.getSortKey());
+        if (column == null) {
+          return new Page<>(Collections.emptyList(), null);
+        }
+
+        final Object after =
+          request.getAfter() == null ? null : Values.canonical(column.storage, request.getAfter());
+        final Comparator<Sorted> order = (a, b) -> Values.compare(a.value, b.value);
+        // The limit + 1 smallest rows past the token; the extra one tells whether more follow.
+        final PriorityQueue<Sorted> smallest = new PriorityQueue<>(order.reversed());
+
+        for (Row row : table.find(ids, Integer.MAX_VALUE)) {
+          final Object value = table.value(row, column);
+          if (value == null || (after != null && Values.compare(value, after) <= 0)) {
+            continue;
+          }
+
+          smallest.add(new Sorted(row.location, value));
+          if (smallest.size() - 1 > limit) {
+            smallest.poll();
+          }
+        }
+
+        final List<Sorted> rows = new ArrayList<>(smallest);
+        rows.sort(order);
+        for (Sorted row : rows) {
+          sorted.add(row.location);
+        }
+      } finally {
+        table.readLock().unlock();
+      }
+
+      final List<T> items = new ArrayList<>();
+      for (int i = 0; i < Math.min(limit, sorted.size()); i++) {
+        items.add(read(type, sorted.get(i)));
+      }
+
+      if (sorted.size() <= limit) {
+        return new Page<>(items, null);
+      }
+
+      final String last = sorted.get(limit - 1).fields().get(request.getSortKey()).value();
+
+      return new Page<>(items, PageRequest.token(request.getSortKey(), last));
+    } catch (IOException e) {
+      failed(group, e);
+
+      return new Page<>(Collections.emptyList(), null);
+    }
+  }
+
+  @Override
+  public @NotNull <T extends Model> Map<ModelId, T> getMany(
+    @NotNull Class<T> type, @NotNull Collection<? extends ModelId> ids) {
+    final Map<ModelId, T> found = new LinkedHashMap<>();
+    final String group = getStoredGroup(type);
+    final Table table = tables.get(group);
+    if (table == null || ids.isEmpty()) {
+      return found;
+    }
+
+    final Map<ModelId, Location> locations = new LinkedHashMap<>();
+
+    try {
+      table.readLock().lock();
+
+      try {
+        for (ModelId id : ids) {
+          final List<Row> row = table.find(new ModelId[]{id}, 1);
+          if (!row.isEmpty()) {
+            locations.put(id, row.get(0).location);
+          }
+        }
+      } finally {
+        table.readLock().unlock();
+      }
+
+      for (Map.Entry<ModelId, Location> entry : locations.entrySet()) {
+        found.put(entry.getKey(), read(type, entry.getValue()));
+      }
+    } catch (IOException e) {
+      failed(group, e);
+    }
+
+    return found;
+  }
+
+  @Override
+  public void set(@NotNull ModelId id, @NotNull Model model) {
+    final Map<String, ProcessedModelField> fields = serializeModel(model).values();
+    final Table table = table(getStoredGroup(model.getClass()));
+
+    apply(Collections.singletonList(new Write(table, fields, null)), table.name());
+  }
+
+  @Override
+  public boolean setAll(@NotNull Map<? extends ModelId, ? extends Model> models) {
+    final List<Write> writes = new ArrayList<>(models.size());
+    for (Model model : models.values()) {
+      writes.add(
+        new Write(table(getStoredGroup(model.getClass())), serializeModel(model).values(), null));
+    }
+
+    return apply(writes, DataStoreMetrics.MIXED_GROUP);
+  }
+
+  @Override
+  public boolean exists(
+    @NotNull Class<? extends Model> type, @NotNull ModelId id, @NotNull ModelId... ids) {
+    final String group = getStoredGroup(type);
+
+    try {
+      return !find(group, compile(id, ids), 1).isEmpty();
+    } catch (IOException e) {
+      failed(group, e);
+
+      return false;
+    }
+  }
+
+  @Override
+  public void delete(
+    @NotNull Class<? extends Model> type, @NotNull ModelId id, @NotNull ModelId... ids) {
+    // A group nobody has written to yet has nothing to delete.
+    final Table table = tables.get(getStoredGroup(type));
+    if (table != null) {
+      apply(Collections.singletonList(new Write(table, null, compile(id, ids))), table.name());
+    }
+  }
+
+  @Override
+  public void clear(@NotNull Class<? extends Model> type) {
+    final Table table = tables.get(getStoredGroup(type));
+    if (table == null) {
+      return;
+    }
+
+    final RecordWriter record = new RecordWriter();
+    record.clear(table.name());
+    final SegmentLog.Appended appended;
+    table.writeLock().lock();
+
+    try {
+      appended = log.append(record.finish(), record.size());
+      table.clear();
+    } catch (IOException e) {
+      failed(table.name(), e);
+      return;
+    } finally {
+      table.writeLock().unlock();
+    }
+
+    sync(appended, table.name());
+  }
+
+  // Written as a single record, so a crash can't leave only part of the transaction behind.
+  @Override
+  public boolean commit(@NotNull DataStoreTransaction transaction) {
+    final List<Write> writes = new ArrayList<>(transaction.size());
+    for (DataStoreTransaction.Operation operation : transaction.getOperations()) {
+      if (operation.isDelete()) {
+        final Table table = tables.get(getStoredGroup(operation.getType()));
+        if (table != null) {
+          writes.add(new Write(table, null, operation.getIds()));
+        }
+      } else {
+        final Model model = operation.getModel();
+        writes.add(
+          new Write(table(getStoredGroup(model.getClass())), serializeModel(model).values(), null));
+      }
+    }
+
+    return apply(writes, DataStoreMetrics.MIXED_GROUP);
+  }
+
+  @NotNull
+  private Table table(@NotNull String group) {
+    final Table table = tables.get(group);
+
+    return table != null ? table : tables.computeIfAbsent(group, Table::new);
+  }
+
+  // Locations are looked up under the read lock and read after it is released; compaction
+  // leaves the record they point at readable.
+  @NotNull
+  private List<Location> find(@NotNull String group, @NotNull ModelId[] ids, int limit)
+    throws IOException {
+    final Table table = tables.get(group);
+    if (table == null) {
+      return Collections.emptyList();
+    }
+
+    table.readLock().lock();
+
+    try {
+      final List<Row> rows = table.find(ids, limit);
+      final List<Location> locations = new ArrayList<>(rows.size());
+      for (Row row : rows) {
+        locations.add(row.location);
+      }
+
+      return locations;
+    } finally {
+      table.readLock().unlock();
+    }
+  }
+
+  @NotNull
+  private <T extends Model> T read(@NotNull Class<T> type, @NotNull Location location)
+    throws IOException {
+    return deserializeModel(type, toProcessedModel(location.fields()));
+  }
+
+  @NotNull
+  private ProcessedModel toProcessedModel(@NotNull Map<String, ProcessedModelField> fields) {
+    for (ProcessedModelField field : fields.values()) {
+      if (field instanceof BinaryProcessedModelField) {
+        return new BinaryProcessedModel(fields, gson);
+      }
+    }
+
+    return new JSONProcessedModel(fields, gson);
+  }
+
+  // Encodes the writes into one record before any lock is taken, then appends it and updates
+  // the index while holding the locks of all groups involved, so the log and the index see
+  // writes in the same order. The fsync, if any, waits until the locks are released.
+  private boolean apply(@NotNull List<Write> writes, @NotNull String group) {
+    if (writes.isEmpty()) {
+      return true;
+    }
+
+    final RecordWriter record = new RecordWriter();
+    for (Write write : writes) {
+      if (write.fields != null) {
+        write.offset = record.put(write.table.name(), write.fields);
+        write.length = record.size() - write.offset;
+        options.getMetrics().recordSerializedBytes(write.table.name(), write.length);
+      } else {
+        record.delete(write.table.name(), write.ids);
+      }
+    }
+
+    // Locked in name order, so two transactions over the same groups cannot deadlock.
+    final Set<Table> involved = new LinkedHashSet<>();
+    for (Write write : writes) {
+      involved.add(write.table);
+    }
+
+    final List<Table> locked = new ArrayList<>(involved);
+    locked.sort(Comparator.comparing(Table::name));
+    for (Table table : locked) {
+      table.writeLock().lock();
+    }
+
+    final SegmentLog.Appended appended;
+
+    try {
+      appended = log.append(record.finish(), record.size());
+
+      for (Write write : writes) {
+        if (write.fields != null) {
+          write.table.put(
+            write.fields,
+            new Location(appended.segment, appended.start + write.offset, write.length));
+        } else {
+          write.table.delete(write.ids);
+        }
+      }
+    } catch (IOException e) {
+      failed(group, e);
+      return false;
+    } finally {
+      for (Table table : locked) {
+        table.writeLock().unlock();
+      }
+    }
+
+    return sync(appended, group);
+  }
+
+  private boolean sync(@NotNull SegmentLog.Appended appended, @NotNull String group) {
+    if (settings.getFsync() != LogSettings.Fsync.ALWAYS) {
+      return true;
+    }
+
+    try {
+      log.sync(appended.mark);
+
+      return true;
+    } catch (IOException e) {
+      failed(group, e);
+
+      return false;
+    }
+  }
+
+  private void replay(@NotNull Segment segment, long start, @NotNull ByteBuffer record)
+    throws IOException {
+    Records.read(
+      record,
+      new Records.Visitor() {
+        @Override
+        public void put(
+          @NotNull String group,
+          @NotNull Map<String, ProcessedModelField> fields,
+          int offset,
+          int length) {
+          table(group).put(fields, new Location(segment, start + offset, length));
+        }
+
+        @Override
+        public void delete(@NotNull String group, @NotNull ModelId[] ids) throws IOException {
+          table(group).delete(ids);
+        }
+
+        @Override
+        public void clear(@NotNull String group) {
+          table(group).clear();
+        }
+
+        @Override
+        public void column(
+          @NotNull String group,
+          @NotNull String key,
+          @NotNull StorageType storage,
+          @NotNull ProcessedModelFieldType type) {
+          final Table table = table(group);
+          if (table.column(key) == null) {
+            table.addColumn(key, storage, type);
+          }
+        }
+
+        @Override
+        public void reset() {
+          for (Table table : tables.values()) {
+            table.clear();
+          }
+        }
+      });
+  }
+
+  private void failed(@NotNull String group, @NotNull Exception e) {
+    e.printStackTrace();
+    options.getMetrics().recordError(group, e);
+  }
+
+  @Override
+  public void close() throws Exception {
+    compaction.close();
+
+    if (syncer != null) {
+      syncer.shutdown();
+      syncer.awaitTermination(1, TimeUnit.MINUTES);
+    }
+
+    log.close();
+  }
+
+  // One set (fields) or delete (ids) of a write; where the set was encoded in its record.
+  private static final class Write {
+    @NotNull
+    private final Table table;
+    @Nullable
+    private final Map<String, ProcessedModelField> fields;
+    @Nullable
+    private final ModelId[] ids;
+    private int offset;
+    private int length;
+
+    private Write(
+      @NotNull Table table,
+      @Nullable Map<String, ProcessedModelField> fields,
+      @Nullable ModelId[] ids) {
+      this.table = table;
+      this.fields = fields;
+      this.ids = ids;
+    }
+  }
+
+  // A row's location and its value in the sort key, for getPage.
+  private static final class Sorted {
+    @NotNull
+    private final Location location;
+    @NotNull
+    private final Object value;
+
+    private Sorted(@NotNull Location location, @NotNull Object value) {
+      this.location = location;
+      this.value = value;
+    }
+  }
+}
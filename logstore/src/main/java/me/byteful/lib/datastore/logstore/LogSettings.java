@@ -0,0 +1,123 @@
+package me.byteful.lib.datastore.logstore;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.time.Duration;
+
+// Settings for LogDataStore, read once when the store is opened. The defaults fsync every write
+// before it returns (concurrent writers share one fsync) and compact once half of the log is
+// superseded; production() fsyncs once a second instead, trading the last second of writes on
+// a power loss for not waiting on the disk.
+public class LogSettings {
+  public static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+  public static final Duration DEFAULT_FSYNC_INTERVAL = Duration.ofSeconds(1);
+  public static final Duration DEFAULT_COMPACTION_INTERVAL = Duration.ofMinutes(1);
+  public static final double DEFAULT_COMPACTION_THRESHOLD = 0.5;
+
+  private Fsync fsync = Fsync.ALWAYS;
+  private Duration fsyncInterval = DEFAULT_FSYNC_INTERVAL;
+  private int segmentSize = DEFAULT_SEGMENT_SIZE;
+  @Nullable
+  private Duration compactionInterval = DEFAULT_COMPACTION_INTERVAL;
+  private double compactionThreshold = DEFAULT_COMPACTION_THRESHOLD;
+
+  @NotNull
+  public static LogSettings production() {
+    return new LogSettings().setFsync(Fsync.INTERVAL);
+  }
+
+  @NotNull
+  public Fsync getFsync() {
+    return fsync;
+  }
+
+  @NotNull
+  public LogSettings setFsync(@NotNull Fsync fsync) {
+    this.fsync = fsync;
+
+    return this;
+  }
+
+  @NotNull
+  public Duration getFsyncInterval() {
+    return fsyncInterval;
+  }
+
+  // Only used with Fsync.INTERVAL.
+  @NotNull
+  public LogSettings setFsyncInterval(@NotNull Duration fsyncInterval) {
+    if (fsyncInterval.isNegative() || fsyncInterval.isZero()) {
+      throw new IllegalArgumentException("Fsync interval must be positive, got " + fsyncInterval);
+    }
+
+    this.fsyncInterval = fsyncInterval;
+
+    return this;
+  }
+
+  public int getSegmentSize() {
+    return segmentSize;
+  }
+
+  // Bytes written to a segment file before the log moves on to a new one. Full segments are
+  // memory-mapped for reads and are what compaction rewrites.
+  @NotNull
+  public LogSettings setSegmentSize(int segmentSize) {
+    if (segmentSize < 4096) {
+      throw new IllegalArgumentException("Segment size must be at least 4096, got " + segmentSize);
+    }
+
+    this.segmentSize = segmentSize;
+
+    return this;
+  }
+
+  @Nullable
+  public Duration getCompactionInterval() {
+    return compactionInterval;
+  }
+
+  // How often the log is checked for compaction. Null disables background compaction, leaving
+  // only LogDataStore#compact().
+  @NotNull
+  public LogSettings setCompactionInterval(@Nullable Duration compactionInterval) {
+    if (compactionInterval != null
+      && (compactionInterval.isNegative() || compactionInterval.isZero())) {
+      throw new IllegalArgumentException(
+        "Compaction interval must be positive, got " + compactionInterval);
+    }
+
+    this.compactionInterval = compactionInterval;
+
+    return this;
+  }
+
+  public double getCompactionThreshold() {
+    return compactionThreshold;
+  }
+
+  // Share of the log, between 0 and 1, that must be superseded or deleted records before
+  // background compaction rewrites it.
+  @NotNull
+  public LogSettings setCompactionThreshold(double compactionThreshold) {
+    if (!(compactionThreshold > 0 && compactionThreshold <= 1)) {
+      throw new IllegalArgumentException(
+        "Compaction threshold must be in (0, 1], got " + compactionThreshold);
+    }
+
+    this.compactionThreshold = compactionThreshold;
+
+    return this;
+  }
+
+  public enum Fsync {
+    // Every write is on disk before it returns. Writers that arrive while an fsync is running
+    // are covered by the next one together.
+    ALWAYS,
+    // A background thread fsyncs every fsync interval.
+    INTERVAL,
+    // Left to the operating system; survives the process dying but not the machine.
+    NEVER
+  }
+}
@@ -0,0 +1,146 @@
+package me.byteful.lib.datastore.logstore;
+
+import me.byteful.lib.datastore.api.data.internal.FieldCodec;
+import me.byteful.lib.datastore.api.model.ModelId;
+import me.byteful.lib.datastore.api.model.ProcessedModelField;
+import me.byteful.lib.datastore.api.model.ProcessedModelFieldType;
+import me.byteful.lib.datastore.api.model.StorageType;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+// Builds one record, in the layout described in Records. Room for the header is left at the
+// start, so finish() can fill it in without copying the payload.
+final class RecordWriter {
+  private byte[] bytes = new byte[256];
+  private int size = Records.HEADER;
+  // Appends straight to bytes; DataOutputStream doesn't buffer.
+  private final DataOutputStream out = new DataOutputStream(new Output());
+
+  int size() {
+    return size;
+  }
+
+  boolean isEmpty() {
+    return size == Records.HEADER;
+  }
+
+  // Returns the operation's offset within the record; its length is size() minus that.
+  int put(@NotNull String group, @NotNull Map<String, ProcessedModelField> fields) {
+    final int offset = size;
+    writeByte(Records.PUT);
+    writeString(group);
+
+    try {
+      FieldCodec.write(out, fields);
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+
+    return offset;
+  }
+
+  void delete(@NotNull String group, @NotNull ModelId[] ids) {
+    writeByte(Records.DELETE);
+    writeString(group);
+    writeInt(ids.length);
+
+    for (ModelId id : ids) {
+      writeString(id.key());
+      writeString(id.value());
+    }
+  }
+
+  void clear(@NotNull String group) {
+    writeByte(Records.CLEAR);
+    writeString(group);
+  }
+
+  void column(
+    @NotNull String group,
+    @NotNull String key,
+    @NotNull StorageType storage,
+    @NotNull ProcessedModelFieldType type) {
+    writeByte(Records.COLUMN);
+    writeString(group);
+    writeString(key);
+    writeByte(storage.ordinal());
+    writeByte(type.ordinal());
+  }
+
+  void reset() {
+    writeByte(Records.RESET);
+  }
+
+  // Appends an operation read back from the log as is, returning its offset like put().
+  int copy(@NotNull ByteBuffer operation) {
+    final int offset = size;
+    final int length = operation.remaining();
+    ensure(length);
+    operation.get(bytes, size, length);
+    size += length;
+
+    return offset;
+  }
+
+  // Fills in the header. The returned array is only meaningful up to size().
+  @NotNull
+  byte[] finish() {
+    final CRC32 crc = new CRC32();
+    crc.update(bytes, Records.HEADER, size - Records.HEADER);
+    ByteBuffer.wrap(bytes).putInt(size - Records.HEADER).putInt((int) crc.getValue());
+
+    return bytes;
+  }
+
+  private void writeString(@NotNull String value) {
+    final byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+    writeInt(utf8.length);
+    writeBytes(utf8, 0, utf8.length);
+  }
+
+  private void writeInt(int value) {
+    ensure(4);
+    bytes[size] = (byte) (value >>> 24);
+    bytes[size + 1] = (byte) (value >>> 16);
+    bytes[size + 2] = (byte) (value >>> 8);
+    bytes[size + 3] = (byte) value;
+    size += 4;
+  }
+
+  private void writeByte(int value) {
+    ensure(1);
+    bytes[size++] = (byte) value;
+  }
+
+  private void writeBytes(@NotNull byte[] value, int offset, int length) {
+    ensure(length);
+    System.arraycopy(value, offset, bytes, size, length);
+    size += length;
+  }
+
+  private void ensure(int extra) {
+    if (size + extra > bytes.length) {
+      bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + extra));
+    }
+  }
+
+  private final class Output extends OutputStream {
+    @Override
+    public void write(int value) {
+      writeByte(value);
+    }
+
+    @Override
+    public void write(@NotNull byte[] value, int offset, int length) {
+      writeBytes(value, offset, length);
+    }
+  }
+}
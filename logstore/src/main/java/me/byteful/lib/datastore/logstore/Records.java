@@ -0,0 +1,125 @@
+package me.byteful.lib.datastore.logstore;
+
+import me.byteful.lib.datastore.api.data.internal.FieldCodec;
+import me.byteful.lib.datastore.api.model.ModelId;
+import me.byteful.lib.datastore.api.model.ProcessedModelField;
+import me.byteful.lib.datastore.api.model.ProcessedModelFieldType;
+import me.byteful.lib.datastore.api.model.StorageType;
+import me.byteful.lib.datastore.api.model.impl.JSONModelId;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+// Layout of the log. A record is its payload length, the CRC32 of the payload and the payload:
+// one or more operations, so a setAll or transaction is replayed entirely or not at all.
+//   PUT     group, then the fields as FieldCodec writes them
+//   DELETE  group, id count, then per id: key and value
+//   CLEAR   group
+//   COLUMN  group, key, storage type, field type
+//   RESET   drops the rows of every group; compacted segments start with it
+// Ints are big-endian, strings length-prefixed UTF-8, and enums are written by ordinal, so new
+// constants may only ever be appended to them.
+final class Records {
+  static final int HEADER = 8;
+  static final byte PUT = 1;
+  static final byte DELETE = 2;
+  static final byte CLEAR = 3;
+  static final byte COLUMN = 4;
+  static final byte RESET = 5;
+
+  private static final StorageType[] STORAGE_TYPES = StorageType.values();
+  private static final ProcessedModelFieldType[] FIELD_TYPES = ProcessedModelFieldType.values();
+
+  private Records() {
+  }
+
+  // Hands every operation of a record to the visitor. Offsets are from the start of the record.
+  static void read(@NotNull ByteBuffer record, @NotNull Visitor visitor) throws IOException {
+    record.position(HEADER);
+
+    while (record.hasRemaining()) {
+      final int offset = record.position();
+      final byte kind = record.get();
+
+      switch (kind) {
+        case PUT: {
+          final String group = readString(record);
+          final Map<String, ProcessedModelField> fields = FieldCodec.read(record);
+          visitor.put(group, fields, offset, record.position() - offset);
+          break;
+        }
+        case DELETE: {
+          final String group = readString(record);
+          final ModelId[] ids = new ModelId[record.getInt()];
+          for (int i = 0; i < ids.length; i++) {
+            ids[i] = JSONModelId.of(readString(record), readString(record));
+          }
+
+          visitor.delete(group, ids);
+          break;
+        }
+        case CLEAR:
+          visitor.clear(readString(record));
+          break;
+        case COLUMN:
+          visitor.column(
+            readString(record),
+            readString(record),
+            STORAGE_TYPES[record.get()],
+            FIELD_TYPES[record.get()]);
+          break;
+        case RESET:
+          visitor.reset();
+          break;
+        default:
+          throw new IOException("Unknown log operation " + kind + " at offset " + offset);
+      }
+    }
+  }
+
+  // The fields of a single PUT operation, as located by a Row.
+  @NotNull
+  static Map<String, ProcessedModelField> readPut(@NotNull ByteBuffer operation)
+    throws IOException {
+    final byte kind = operation.get();
+    if (kind != PUT) {
+      throw new IOException("Expected a PUT operation, found " + kind);
+    }
+
+    readString(operation);
+
+    return FieldCodec.read(operation);
+  }
+
+  @NotNull
+  private static String readString(@NotNull ByteBuffer in) {
+    final byte[] bytes = new byte[in.getInt()];
+    in.get(bytes);
+
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  interface Visitor {
+    void put(
+      @NotNull String group,
+      @NotNull Map<String, ProcessedModelField> fields,
+      int offset,
+      int length)
+      throws IOException;
+
+    void delete(@NotNull String group, @NotNull ModelId[] ids) throws IOException;
+
+    void clear(@NotNull String group);
+
+    void column(
+      @NotNull String group,
+      @NotNull String key,
+      @NotNull StorageType storage,
+      @NotNull ProcessedModelFieldType type);
+
+    void reset();
+  }
+}
@@ -0,0 +1,27 @@
+package me.byteful.lib.datastore.logstore;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+// One stored model: the location of its record plus the comparable values of its indexed
+// fields. Everything else is read back from the log when it is needed.
+final class Row {
+  // Only changed by compaction, under the table's write lock.
+  @NotNull
+  Location location;
+  // By column ordinal; null where the column isn't indexed, the field is missing or SQL would
+  // hold a NULL.
+  @NotNull
+  private final Object[] values;
+
+  Row(@NotNull Location location, @NotNull Object[] values) {
+    this.location = location;
+    this.values = values;
+  }
+
+  @Nullable
+  Object value(int ordinal) {
+    // Columns added after this row was written are simply missing from it.
+    return ordinal < values.length ? values[ordinal] : null;
+  }
+}
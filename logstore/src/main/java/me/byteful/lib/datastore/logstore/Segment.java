@@ -0,0 +1,66 @@
+package me.byteful.lib.datastore.logstore;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicLong;
+
+// One file of the log. Only the active segment is appended to; once sealed it never changes
+// again and is read through a memory mapping instead of the channel.
+final class Segment {
+  final long id;
+  @NotNull
+  final Path file;
+  @NotNull
+  final FileChannel channel;
+  // Bytes of complete records. Only grows while this is the active segment, under the log's lock.
+  volatile long size;
+  // Bytes of PUT records that rows still point at; the rest is garbage for compaction.
+  final AtomicLong live = new AtomicLong();
+  @Nullable
+  private volatile MappedByteBuffer mapped;
+
+  Segment(long id, @NotNull Path file, @NotNull FileChannel channel, long size) {
+    this.id = id;
+    this.file = file;
+    this.channel = channel;
+    this.size = size;
+  }
+
+  // A mapping can't address more than 2 GiB, so a larger segment keeps using the channel.
+  void seal() throws IOException {
+    if (size > 0 && size <= Integer.MAX_VALUE) {
+      mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+    }
+  }
+
+  // The mapping stays valid after the channel is closed and the file deleted, so a reader that
+  // looked a row up just before compaction moved it can still read it from here.
+  @NotNull
+  ByteBuffer read(long offset, int length) throws IOException {
+    final MappedByteBuffer mapped = this.mapped;
+    if (mapped != null) {
+      final ByteBuffer view = mapped.duplicate();
+      view.position((int) offset).limit((int) offset + length);
+
+      return view.slice();
+    }
+
+    final ByteBuffer buffer = ByteBuffer.allocate(length);
+    while (buffer.hasRemaining()) {
+      if (channel.read(buffer, offset + buffer.position()) < 0) {
+        throw new EOFException("Record past the end of " + file);
+      }
+    }
+
+    buffer.flip();
+
+    return buffer;
+  }
+}
@@ -0,0 +1,310 @@
+package me.byteful.lib.datastore.logstore;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+// The segment files of a LogDataStore's directory, oldest first, named by an increasing id.
+// Records are only ever appended to the newest, active segment; it is sealed and a new one
+// started once it reaches the segment size. Appends are serialized on this object, while
+// fsyncs happen outside of it, so writers that wait for one are all covered by the next.
+final class SegmentLog implements AutoCloseable {
+  private static final String SUFFIX = ".log";
+  private static final String TEMPORARY = ".tmp";
+
+  @NotNull
+  private final Path directory;
+  @NotNull
+  private final LogSettings settings;
+  // Guarded by this.
+  private final List<Segment> segments = new ArrayList<>();
+  @NotNull
+  private Segment active;
+  // Bytes ever appended and bytes known to be on disk, compared by sync().
+  private long written;
+  private volatile long synced;
+  private final Object syncLock = new Object();
+
+  SegmentLog(@NotNull Path directory, @NotNull LogSettings settings) throws IOException {
+    this.directory = directory;
+    this.settings = settings;
+    Files.createDirectories(directory);
+
+    final List<Long> ids = new ArrayList<>();
+    try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+      for (Path file : files) {
+        final String name = file.getFileName().toString();
+
+        if (name.endsWith(TEMPORARY)) {
+          // Left behind by a compaction that didn't finish; the segments it read are still here.
+          Files.delete(file);
+        } else if (name.endsWith(SUFFIX)) {
+          ids.add(Long.parseLong(name.substring(0, name.length() - SUFFIX.length())));
+        }
+      }
+    }
+
+    ids.sort(null);
+    for (long id : ids) {
+      final Path file = file(id);
+      final FileChannel channel =
+        FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+      segments.add(new Segment(id, file, channel, channel.size()));
+    }
+
+    if (segments.isEmpty()) {
+      segments.add(create(1));
+    }
+
+    this.active = segments.get(segments.size() - 1);
+  }
+
+  // Hands every complete record to the visitor in log order, then seals all but the last
+  // segment. A record cut short or corrupted by a crash ends its segment, which is truncated
+  // there so later appends don't land after the garbage.
+  void replay(@NotNull Replayer replayer) throws IOException {
+    final CRC32 crc = new CRC32();
+
+    for (Segment segment : segments) {
+      long end = 0;
+
+      while (segment.size - end >= Records.HEADER) {
+        final ByteBuffer header = segment.read(end, Records.HEADER);
+        final int length = header.getInt();
+        final int checksum = header.getInt();
+        if (length <= 0 || length > segment.size - end - Records.HEADER) {
+          break;
+        }
+
+        final ByteBuffer record = segment.read(end, Records.HEADER + length);
+        record.position(Records.HEADER);
+        crc.reset();
+        crc.update(record);
+        if ((int) crc.getValue() != checksum) {
+          break;
+        }
+
+        replayer.replay(segment, end, record);
+        end += Records.HEADER + length;
+      }
+
+      if (end < segment.size) {
+        segment.channel.truncate(end);
+        segment.size = end;
+      }
+
+      if (segment != active) {
+        segment.seal();
+      }
+    }
+
+    active.channel.position(active.size);
+    written = synced = active.size;
+  }
+
+  // Appends a finished record, returning the position its first byte was written at.
+  @NotNull
+  synchronized Appended append(@NotNull byte[] record, int length) throws IOException {
+    if (active.size > 0 && active.size + length > settings.getSegmentSize()) {
+      roll();
+    }
+
+    final long start = active.size;
+    final ByteBuffer buffer = ByteBuffer.wrap(record, 0, length);
+
+    try {
+      while (buffer.hasRemaining()) {
+        active.channel.write(buffer);
+      }
+    } catch (IOException e) {
+      // A partial record would end the segment on replay, taking every later one with it.
+      active.channel.truncate(start);
+      active.channel.position(start);
+      throw e;
+    }
+
+    active.size = start + length;
+    written += length;
+
+    return new Appended(active, start, written);
+  }
+
+  // Returns once everything up to the mark is on disk. Whoever gets here first fsyncs all that
+  // has been appended so far, so the writers queued behind it usually find their mark covered.
+  void sync(long mark) throws IOException {
+    if (synced >= mark) {
+      return;
+    }
+
+    synchronized (syncLock) {
+      if (synced >= mark) {
+        return;
+      }
+
+      final long target;
+      final Segment segment;
+      synchronized (this) {
+        target = written;
+        segment = active;
+      }
+
+      // Segments sealed since were fsynced by roll().
+      segment.channel.force(false);
+      synced = target;
+    }
+  }
+
+  synchronized long written() {
+    return written;
+  }
+
+  // Total bytes and live bytes of every segment, for the compaction threshold.
+  @NotNull
+  synchronized long[] usage() {
+    long size = 0;
+    long live = 0;
+    for (Segment segment : segments) {
+      size += segment.size;
+      live += segment.live.get();
+    }
+
+    return new long[]{size, live};
+  }
+
+  // Seals the active segment if it has anything in it and returns every sealed segment, which
+  // will not change anymore and can be compacted.
+  @NotNull
+  synchronized List<Segment> seal() throws IOException {
+    if (active.size > 0) {
+      roll();
+    }
+
+    return new ArrayList<>(segments.subList(0, segments.size() - 1));
+  }
+
+  // A segment for compaction to write the sealed segments' live records into. It is named after
+  // the newest of them, which it replaces once complete.
+  @NotNull
+  Segment compaction(@NotNull List<Segment> sealed) throws IOException {
+    final long id = sealed.get(sealed.size() - 1).id;
+    final FileChannel channel =
+      FileChannel.open(
+        temporary(id),
+        StandardOpenOption.CREATE,
+        StandardOpenOption.TRUNCATE_EXISTING,
+        StandardOpenOption.READ,
+        StandardOpenOption.WRITE);
+
+    return new Segment(id, file(id), channel, 0);
+  }
+
+  // Puts a finished compaction in place of the segments it was made from. The new file
+  // replaces the newest of them in one rename, so if the older ones outlive a crash they are
+  // still replayed first, and the RESET the compacted segment starts with undoes them.
+  void replace(@NotNull List<Segment> sealed, @NotNull Segment compacted) throws IOException {
+    compacted.channel.force(false);
+    compacted.seal();
+
+    try {
+      Files.move(
+        temporary(compacted.id),
+        compacted.file,
+        StandardCopyOption.REPLACE_EXISTING,
+        StandardCopyOption.ATOMIC_MOVE);
+    } catch (AtomicMoveNotSupportedException e) {
+      Files.move(temporary(compacted.id), compacted.file, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    synchronized (this) {
+      segments.removeAll(sealed);
+      segments.add(0, compacted);
+    }
+  }
+
+  // Deletes compacted segments once no row points into them anymore. Their mappings stay
+  // readable until collected, for readers that looked a row up just before.
+  void release(@NotNull List<Segment> sealed) throws IOException {
+    for (int i = 0; i < sealed.size(); i++) {
+      final Segment segment = sealed.get(i);
+      segment.channel.close();
+
+      // The newest one's file is the compacted segment now.
+      if (i < sealed.size() - 1) {
+        Files.deleteIfExists(segment.file);
+      }
+    }
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    if (settings.getFsync() != LogSettings.Fsync.NEVER) {
+      active.channel.force(false);
+    }
+
+    for (Segment segment : segments) {
+      segment.channel.close();
+    }
+  }
+
+  private void roll() throws IOException {
+    if (settings.getFsync() != LogSettings.Fsync.NEVER) {
+      active.channel.force(false);
+    }
+
+    active.seal();
+    active = create(active.id + 1);
+    segments.add(active);
+  }
+
+  @NotNull
+  private Segment create(long id) throws IOException {
+    final Path file = file(id);
+    final FileChannel channel =
+      FileChannel.open(
+        file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+    return new Segment(id, file, channel, 0);
+  }
+
+  @NotNull
+  private Path file(long id) {
+    // Zero-padded, so the names sort the way the ids do.
+    return directory.resolve(String.format("%016d", id) + SUFFIX);
+  }
+
+  @NotNull
+  private Path temporary(long id) {
+    return directory.resolve(String.format("%016d", id) + TEMPORARY);
+  }
+
+  interface Replayer {
+    // `record` holds the header and payload of the record starting at `start` in the segment.
+    void replay(@NotNull Segment segment, long start, @NotNull ByteBuffer record)
+      throws IOException;
+  }
+
+  static final class Appended {
+    @NotNull
+    final Segment segment;
+    final long start;
+    // Pass to sync() to wait until the record is on disk.
+    final long mark;
+
+    private Appended(@NotNull Segment segment, long start, long mark) {
+      this.segment = segment;
+      this.start = start;
+      this.mark = mark;
+    }
+  }
+}
@@ -0,0 +1,295 @@
+package me.byteful.lib.datastore.logstore;
+
+import me.byteful.lib.datastore.api.data.internal.FieldIndex;
+import me.byteful.lib.datastore.api.data.internal.Values;
+import me.byteful.lib.datastore.api.model.ModelId;
+import me.byteful.lib.datastore.api.model.ProcessedModelField;
+import me.byteful.lib.datastore.api.model.ProcessedModelFieldType;
+import me.byteful.lib.datastore.api.model.StorageType;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// The rows of one StoredGroup. Columns are fixed by the first model written with each key, the
+// way the SQL backends create their tables, and INDEXED / UNIQUE_INDEXED columns get a
+// FieldIndex whose values are kept in memory. Other columns are compared by reading the row's
+// record back, like a table scan. Callers hold the read lock to look rows up and the write lock
+// to change them.
+final class Table {
+  @NotNull
+  private final String name;
+  private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+  private final Map<String, Column> columns = new LinkedHashMap<>();
+  private final List<Column> indexed = new ArrayList<>();
+  private final List<Column> unique = new ArrayList<>();
+  private final Set<Row> rows = new LinkedHashSet<>();
+
+  Table(@NotNull String name) {
+    this.name = name;
+  }
+
+  @NotNull
+  String name() {
+    return name;
+  }
+
+  @NotNull
+  Lock readLock() {
+    return lock.readLock();
+  }
+
+  @NotNull
+  Lock writeLock() {
+    return lock.writeLock();
+  }
+
+  @Nullable
+  Column column(@NotNull String key) {
+    return columns.get(key);
+  }
+
+  @NotNull
+  Collection<Column> columns() {
+    return columns.values();
+  }
+
+  @NotNull
+  Collection<Row> rows() {
+    return rows;
+  }
+
+  @NotNull
+  Column addColumn(
+    @NotNull String key, @NotNull StorageType storage, @NotNull ProcessedModelFieldType type) {
+    final FieldIndex<Row> index =
+      type == ProcessedModelFieldType.NORMAL
+        ? null
+        : new FieldIndex<>(storage == StorageType.INT || storage == StorageType.BIGINT);
+    final Column column = new Column(key, columns.size(), storage, type, index);
+    columns.put(key, column);
+
+    if (index != null) {
+      indexed.add(column);
+    }
+
+    if (type == ProcessedModelFieldType.UNIQUE_INDEXED) {
+      unique.add(column);
+    }
+
+    return column;
+  }
+
+  // Rows matching every id, in insertion order, at most `limit` of them. Starts from the
+  // smallest index bucket among the ids and only scans the table when none is indexed.
+  @NotNull
+  List<Row> find(@NotNull ModelId[] ids, int limit) throws IOException {
+    final Column[] wantedColumns = new Column[ids.length];
+    final Object[] wanted = new Object[ids.length];
+    Collection<Row> candidates = rows;
+
+    for (int i = 0; i < ids.length; i++) {
+      final Column column = columns.get(ids[i].key());
+      if (column == null) {
+        return Collections.emptyList();
+      }
+
+      final Object value = Values.canonical(column.storage, ids[i].value());
+      if (value == null) {
+        // "= NULL" matches nothing in SQL either.
+        return Collections.emptyList();
+      }
+
+      wantedColumns[i] = column;
+      wanted[i] = value;
+
+      if (column.index != null) {
+        final Collection<Row> bucket = column.index.get(value);
+        if (bucket.size() < candidates.size()) {
+          candidates = bucket;
+        }
+      }
+    }
+
+    final List<Row> found = new ArrayList<>(Math.min(limit, candidates.size()));
+    for (Row row : candidates) {
+      if (matches(row, wantedColumns, wanted)) {
+        found.add(row);
+
+        if (found.size() == limit) {
+          break;
+        }
+      }
+    }
+
+    return found;
+  }
+
+  // The row's comparable value in the column, read from its record unless the column is indexed.
+  @Nullable
+  Object value(@NotNull Row row, @NotNull Column column) throws IOException {
+    if (column.index != null) {
+      return row.value(column.ordinal);
+    }
+
+    return value(row.location.fields(), column);
+  }
+
+  // Stores the model's fields, first removing every row that holds one of its unique values,
+  // like the "replace into" the SQL backends write with.
+  void put(@NotNull Map<String, ProcessedModelField> fields, @NotNull Location location) {
+    final Row row = row(fields, location);
+
+    for (Column column : unique) {
+      final Object value = row.value(column.ordinal);
+      if (value == null) {
+        continue;
+      }
+
+      final Collection<Row> existing = column.index.get(value);
+      if (!existing.isEmpty()) {
+        for (Row replaced : existing.toArray(new Row[0])) {
+          remove(replaced);
+        }
+      }
+    }
+
+    rows.add(row);
+    location.segment.live.addAndGet(location.length);
+    for (Column column : indexed) {
+      final Object value = row.value(column.ordinal);
+      if (value != null) {
+        column.index.add(value, row);
+      }
+    }
+  }
+
+  void delete(@NotNull ModelId[] ids) throws IOException {
+    for (Row row : find(ids, Integer.MAX_VALUE)) {
+      remove(row);
+    }
+  }
+
+  // Keeps the columns, like a SQL table that has been emptied.
+  void clear() {
+    for (Row row : rows) {
+      row.location.segment.live.addAndGet(-row.location.length);
+    }
+
+    rows.clear();
+    for (Column column : indexed) {
+      column.index.clear();
+    }
+  }
+
+  // Points the row at the copy compaction made of its record, unless a write replaced or
+  // removed the row in the meantime.
+  void relocate(@NotNull Row row, @NotNull Location from, @NotNull Location to) {
+    if (row.location != from || !rows.contains(row)) {
+      return;
+    }
+
+    row.location = to;
+    from.segment.live.addAndGet(-from.length);
+    to.segment.live.addAndGet(to.length);
+  }
+
+  @NotNull
+  private Row row(@NotNull Map<String, ProcessedModelField> fields, @NotNull Location location) {
+    for (ProcessedModelField field : fields.values()) {
+      if (!columns.containsKey(field.key())) {
+        final StorageType storage = field.storageType();
+        addColumn(field.key(), storage == null ? StorageType.JSON : storage, field.type());
+      }
+    }
+
+    final Object[] values = new Object[columns.size()];
+    for (Column column : indexed) {
+      values[column.ordinal] = value(fields, column);
+    }
+
+    return new Row(location, values);
+  }
+
+  private void remove(@NotNull Row row) {
+    if (!rows.remove(row)) {
+      return;
+    }
+
+    row.location.segment.live.addAndGet(-row.location.length);
+    for (Column column : indexed) {
+      final Object value = row.value(column.ordinal);
+      if (value != null) {
+        column.index.remove(value, row);
+      }
+    }
+  }
+
+  private boolean matches(@NotNull Row row, @NotNull Column[] columns, @NotNull Object[] wanted)
+    throws IOException {
+    // Read at most once per row, and only if an id is on a column without an index.
+    Map<String, ProcessedModelField> fields = null;
+
+    for (int i = 0; i < columns.length; i++) {
+      final Object value;
+      if (columns[i].index != null) {
+        value = row.value(columns[i].ordinal);
+      } else {
+        if (fields == null) {
+          fields = row.location.fields();
+        }
+
+        value = value(fields, columns[i]);
+      }
+
+      if (!wanted[i].equals(value)) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  @Nullable
+  private static Object value(
+    @NotNull Map<String, ProcessedModelField> fields, @NotNull Column column) {
+    final ProcessedModelField field = fields.get(column.key);
+
+    return field == null ? null : Values.canonical(column.storage, field.value());
+  }
+
+  static final class Column {
+    @NotNull
+    final String key;
+    final int ordinal;
+    @NotNull
+    final StorageType storage;
+    @NotNull
+    final ProcessedModelFieldType type;
+    @Nullable
+    final FieldIndex<Row> index;
+
+    private Column(
+      @NotNull String key,
+      int ordinal,
+      @NotNull StorageType storage,
+      @NotNull ProcessedModelFieldType type,
+      @Nullable FieldIndex<Row> index) {
+      this.key = key;
+      this.ordinal = ordinal;
+      this.storage = storage;
+      this.type = type;
+      this.index = index;
+    }
+  }
+}
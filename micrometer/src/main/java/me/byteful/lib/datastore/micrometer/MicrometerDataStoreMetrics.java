@@ -0,0 +1,164 @@
+package me.byteful.lib.datastore.micrometer;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import me.byteful.lib.datastore.api.data.metrics.DataStoreMetrics;
+import me.byteful.lib.datastore.api.data.metrics.DataStoreOperation;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// Publishes DataStoreMetrics to a Micrometer registry. Operations become a timer tagged with
+// the group, operation and outcome, so p99 per group comes from the registry's own histograms.
+// Meters are registered the first time they are needed and then looked up by index.
+public class MicrometerDataStoreMetrics implements DataStoreMetrics {
+  private static final DataStoreOperation[] OPERATIONS = DataStoreOperation.values();
+
+  @NotNull
+  private final MeterRegistry registry;
+  @NotNull
+  private final String prefix;
+  private final ConcurrentHashMap<String, GroupMeters> groups = new ConcurrentHashMap<>();
+  private final Timer connectionWait;
+  private final Counter connectionTimeouts;
+
+  public MicrometerDataStoreMetrics(@NotNull MeterRegistry registry) {
+    this(registry, "datastore");
+  }
+
+  public MicrometerDataStoreMetrics(@NotNull MeterRegistry registry, @NotNull String prefix) {
+    this.registry = registry;
+    this.prefix = prefix;
+    this.connectionWait =
+      Timer.builder(prefix + ".connection.wait")
+        .description("Time spent waiting for a pooled connection")
+        .publishPercentileHistogram()
+        .register(registry);
+    this.connectionTimeouts =
+      Counter.builder(prefix + ".connection.timeouts")
+        .description("Connection requests that timed out")
+        .register(registry);
+  }
+
+  @Override
+  public void recordOperation(
+    @NotNull DataStoreOperation operation,
+    @NotNull String group,
+    long nanos,
+    int rows,
+    boolean failed) {
+    final GroupMeters meters = group(group);
+    meters.timer(operation, failed).record(nanos, TimeUnit.NANOSECONDS);
+
+    if (rows > 0) {
+      meters.rows(operation).record(rows);
+    }
+  }
+
+  @Override
+  public void recordSerializedBytes(@NotNull String group, long bytes) {
+    group(group).serializedBytes.increment(bytes);
+  }
+
+  @Override
+  public void recordError(@NotNull String group, @NotNull Throwable error) {
+    group(group).errors.increment();
+  }
+
+  @Override
+  public void recordConnectionWait(long nanos) {
+    connectionWait.record(nanos, TimeUnit.NANOSECONDS);
+  }
+
+  @Override
+  public void recordConnectionTimeout() {
+    connectionTimeouts.increment();
+  }
+
+  @NotNull
+  private GroupMeters group(@NotNull String group) {
+    final GroupMeters meters = groups.get(group);
+
+    return meters != null ? meters : groups.computeIfAbsent(group, GroupMeters::new);
+  }
+
+  private final class GroupMeters {
+    @NotNull
+    private final String group;
+    // Two timers per operation: success at 2 * ordinal, failure right after it.
+    private final AtomicReferenceArray<Timer> timers =
+      new AtomicReferenceArray<>(OPERATIONS.length * 2);
+    private final AtomicReferenceArray<DistributionSummary> rows =
+      new AtomicReferenceArray<>(OPERATIONS.length);
+    private final Counter serializedBytes;
+    private final Counter errors;
+
+    private GroupMeters(@NotNull String group) {
+      this.group = group;
+      this.serializedBytes =
+        Counter.builder(prefix + ".serialized")
+          .baseUnit("bytes")
+          .description("Bytes of model data written to the backend")
+          .tag("group", group)
+          .register(registry);
+      this.errors =
+        Counter.builder(prefix + ".errors")
+          .description("Errors caught and logged by the backend")
+          .tag("group", group)
+          .register(registry);
+    }
+
+    @NotNull
+    private Timer timer(@NotNull DataStoreOperation operation, boolean failed) {
+      final int index = operation.ordinal() * 2 + (failed ? 1 : 0);
+      final Timer timer = timers.get(index);
+      if (timer != null) {
+        return timer;
+      }
+
+      // Registering twice hands back the same meter, so losing this race is harmless.
+      timers.compareAndSet(
+        index,
+        null,
+        Timer.builder(prefix + ".operations")
+          .description("DataStore calls by group and operation")
+          .tag("group", group)
+          .tag("operation", name(operation))
+          .tag("outcome", failed ? "failure" : "success")
+          .publishPercentileHistogram()
+          .register(registry));
+
+      return timers.get(index);
+    }
+
+    @NotNull
+    private DistributionSummary rows(@NotNull DataStoreOperation operation) {
+      final int index = operation.ordinal();
+      final DistributionSummary summary = rows.get(index);
+      if (summary != null) {
+        return summary;
+      }
+
+      rows.compareAndSet(
+        index,
+        null,
+        DistributionSummary.builder(prefix + ".rows")
+          .description("Models read or written per call")
+          .tag("group", group)
+          .tag("operation", name(operation))
+          .register(registry));
+
+      return rows.get(index);
+    }
+  }
+
+  @NotNull
+  private static String name(@NotNull DataStoreOperation operation) {
+    return operation.name().toLowerCase(Locale.ROOT);
+  }
+}
@@ -0,0 +1,157 @@
+package me.byteful.lib.datastore.sqlite;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
+import me.byteful.lib.datastore.api.model.ModelId;
+import me.byteful.lib.datastore.api.model.ProcessedModelField;
+import me.byteful.lib.datastore.api.model.impl.BinaryProcessedModelField;
+import me.byteful.lib.datastore.api.model.impl.JSONProcessedModelField;
+import org.bson.BsonArray;
+import org.bson.BsonBinary;
+import org.bson.BsonBinarySubType;
+import org.bson.BsonBoolean;
+import org.bson.BsonDecimal128;
+import org.bson.BsonDocument;
+import org.bson.BsonDouble;
+import org.bson.BsonInt32;
+import org.bson.BsonInt64;
+import org.bson.BsonNull;
+import org.bson.BsonString;
+import org.bson.BsonValue;
+import org.bson.types.Decimal128;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+// Conversions from model values to native BSON, so documents hold real numbers, booleans,
+// arrays and sub-documents instead of JSON text. BinaryProcessedModel fields are stored as
+// user-defined binary, which is how ProcessedModelCodec tells them apart on the way back.
+final class BsonValues {
+  static final byte BINARY_FIELD = BsonBinarySubType.USER_DEFINED.getValue();
+
+  private BsonValues() {
+  }
+
+  @NotNull
+  static BsonValue toBson(@Nullable Object value, @NotNull Gson gson) {
+    if (value == null) {
+      return BsonNull.VALUE;
+    } else if (value instanceof String || value instanceof Character) {
+      return new BsonString(value.toString());
+    } else if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+      return new BsonInt32(((Number) value).intValue());
+    } else if (value instanceof Long) {
+      return new BsonInt64((Long) value);
+    } else if (value instanceof Double || value instanceof Float) {
+      return new BsonDouble(((Number) value).doubleValue());
+    } else if (value instanceof Boolean) {
+      return BsonBoolean.valueOf((Boolean) value);
+    }
+
+    return toBson(gson.toJsonTree(value));
+  }
+
+  @NotNull
+  static BsonValue toBson(@NotNull ProcessedModelField field) {
+    if (field instanceof BinaryProcessedModelField) {
+      return binary(((BinaryProcessedModelField) field).bytes());
+    } else if (field instanceof JSONProcessedModelField) {
+      return toBson(((JSONProcessedModelField) field).toJsonTree());
+    }
+
+    return toBson(JsonParser.parseString(field.value()));
+  }
+
+  // ModelId values are JSON text, the same representation the fields were serialized from.
+  @NotNull
+  static BsonValue toBson(@NotNull ModelId id) {
+    return toBson(JsonParser.parseString(id.value()));
+  }
+
+  @NotNull
+  static BsonValue binary(@NotNull byte[] bytes) {
+    return new BsonBinary(BINARY_FIELD, bytes);
+  }
+
+  @NotNull
+  static BsonValue toBson(@Nullable JsonElement element) {
+    if (element == null || element.isJsonNull()) {
+      return BsonNull.VALUE;
+    } else if (element.isJsonObject()) {
+      final BsonDocument document = new BsonDocument();
+      for (Map.Entry<String, JsonElement> entry : element.getAsJsonObject().entrySet()) {
+        document.append(entry.getKey(), toBson(entry.getValue()));
+      }
+
+      return document;
+    } else if (element.isJsonArray()) {
+      final JsonArray array = element.getAsJsonArray();
+      final BsonArray values = new BsonArray();
+      for (JsonElement child : array) {
+        values.add(toBson(child));
+      }
+
+      return values;
+    }
+
+    final JsonPrimitive primitive = element.getAsJsonPrimitive();
+    if (primitive.isBoolean()) {
+      return BsonBoolean.valueOf(primitive.getAsBoolean());
+    } else if (primitive.isString()) {
+      return new BsonString(primitive.getAsString());
+    }
+
+    return toBson(primitive.getAsNumber());
+  }
+
+  @NotNull
+  private static BsonValue toBson(@NotNull Number number) {
+    if (number instanceof Integer || number instanceof Short || number instanceof Byte) {
+      return new BsonInt32(number.intValue());
+    } else if (number instanceof Long) {
+      return new BsonInt64(number.longValue());
+    } else if (number instanceof Double || number instanceof Float) {
+      return new BsonDouble(number.doubleValue());
+    }
+
+    // Parsed JSON numbers are lazy; pick the narrowest BSON type that holds them exactly.
+    final String text = number.toString();
+    if (text.indexOf('.') == -1 && text.indexOf('e') == -1 && text.indexOf('E') == -1) {
+      try {
+        final long value = Long.parseLong(text);
+
+        return value == (int) value ? new BsonInt32((int) value) : new BsonInt64(value);
+      } catch (NumberFormatException ignored) {
+        // Wider than a long.
+      }
+    }
+
+    final BigDecimal decimal = new BigDecimal(text);
+    final double approx = decimal.doubleValue();
+    if (!Double.isInfinite(approx) && BigDecimal.valueOf(approx).compareTo(decimal) == 0) {
+      return new BsonDouble(approx);
+    }
+
+    try {
+      return new BsonDecimal128(new Decimal128(decimal));
+    } catch (NumberFormatException e) {
+      return new BsonDouble(approx);
+    }
+  }
+
+  // Gson's shape for raw bytes, used for binary values that are not model fields.
+  @NotNull
+  static JsonArray bytes(@NotNull byte[] bytes) {
+    final JsonArray array = new JsonArray(bytes.length);
+    for (byte b : bytes) {
+      array.add(b);
+    }
+
+    return array;
+  }
+}
@@ -0,0 +1,101 @@
+package me.byteful.lib.datastore.sqlite;
+
+import com.google.gson.Gson;
+import me.byteful.lib.datastore.api.model.ModelSink;
+import me.byteful.lib.datastore.api.model.ProcessedModelField;
+import me.byteful.lib.datastore.api.model.ProcessedModelFieldType;
+import me.byteful.lib.datastore.api.model.StorageType;
+import me.byteful.lib.datastore.api.model.impl.BinaryProcessedModelField;
+import org.bson.BsonDocument;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// ModelSink that appends fields straight into a BsonDocument as native BSON values. Keeps its index bookkeeping
+// map between models; the document is either reused (single writes, which the driver encodes
+// before returning) or detached and replaced (bulk writes, which hold on to it).
+final class DocumentWriter implements ModelSink {
+  private final Map<String, ProcessedModelFieldType> indexed = new LinkedHashMap<>();
+  private Gson gson;
+  private BsonDocument document = fresh();
+
+  @NotNull
+  DocumentWriter start(@NotNull Gson gson) {
+    this.gson = gson;
+
+    return this;
+  }
+
+  @Override
+  public @NotNull ModelSink append(
+    @NotNull String key, @NotNull ProcessedModelFieldType fieldType, @Nullable Object value) {
+    track(key, fieldType);
+    document.append(key, BsonValues.toBson(value, gson));
+
+    return this;
+  }
+
+  @Override
+  public @NotNull ModelSink append(
+    @NotNull String key,
+    @NotNull ProcessedModelFieldType fieldType,
+    @NotNull StorageType storageType,
+    @Nullable Object value) {
+    // Indexed fields stay native so ModelId filters can match them, as in BinaryProcessedModel.
+    if (storageType != StorageType.BINARY || fieldType != ProcessedModelFieldType.NORMAL) {
+      return append(key, fieldType, value);
+    }
+
+    document.append(key, BsonValues.binary(BinaryProcessedModelField.encode(value, gson)));
+
+    return this;
+  }
+
+  @Override
+  public @NotNull ModelSink append(@NotNull ProcessedModelField field) {
+    track(field.key(), field.type());
+    document.append(field.key(), BsonValues.toBson(field));
+
+    return this;
+  }
+
+  private void track(@NotNull String key, @NotNull ProcessedModelFieldType fieldType) {
+    if (fieldType != ProcessedModelFieldType.NORMAL) {
+      indexed.put(key, fieldType);
+    }
+  }
+
+  @NotNull
+  BsonDocument document() {
+    return document;
+  }
+
+  @NotNull
+  Map<String, ProcessedModelFieldType> indexed() {
+    return indexed;
+  }
+
+  // Hands the current document over to the caller and starts a fresh one.
+  @NotNull
+  BsonDocument detach() {
+    final BsonDocument detached = document;
+    document = fresh();
+    indexed.clear();
+
+    return detached;
+  }
+
+  void reset() {
+    document.clear();
+    document.append(LegacyDocuments.FORMAT, LegacyDocuments.NATIVE);
+    indexed.clear();
+  }
+
+  // Every document starts with the format field, which tells it apart from legacy ones.
+  @NotNull
+  private static BsonDocument fresh() {
+    return new BsonDocument(LegacyDocuments.FORMAT, LegacyDocuments.NATIVE);
+  }
+}
@@ -0,0 +1,108 @@
+package me.byteful.lib.datastore.sqlite;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
+import com.mongodb.ErrorCategory;
+import com.mongodb.MongoWriteException;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.ReplaceOptions;
+import org.bson.BsonDocument;
+import org.bson.BsonInt32;
+import org.bson.BsonString;
+import org.bson.BsonValue;
+import org.bson.conversions.Bson;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.List;
+import java.util.Map;
+
+// Documents written before native BSON stored every field as a string of JSON text, such as
+// uuid: "\"a\"", which native ModelId filters no longer match. Documents written since carry a
+// format field. Until a collection is converted, the filters below find legacy documents and
+// ProcessedModelCodec parses their text; convert() rewrites them in place with native values and
+// records the collection in a metadata collection, so each one is only scanned once.
+final class LegacyDocuments {
+  static final String FORMAT = "_format";
+  static final BsonInt32 NATIVE = new BsonInt32(1);
+  private static final String ID = "_id";
+  private static final String FORMATS = "datastore_formats";
+
+  private LegacyDocuments() {
+  }
+
+  // Legacy document whose key holds the given JSON text.
+  @NotNull
+  static Bson eq(@NotNull String key, @NotNull String json) {
+    return Filters.and(Filters.exists(FORMAT, false), Filters.eq(key, json));
+  }
+
+  @NotNull
+  static Bson in(@NotNull String key, @NotNull List<String> json) {
+    return Filters.and(Filters.exists(FORMAT, false), Filters.in(key, json));
+  }
+
+  // A legacy field's value; text that isn't JSON is kept as a plain string.
+  @NotNull
+  static JsonElement toTree(@NotNull String text) {
+    try {
+      return JsonParser.parseString(text);
+    } catch (JsonParseException e) {
+      return new JsonPrimitive(text);
+    }
+  }
+
+  // Returns how many documents were converted.
+  static long convert(@NotNull MongoDatabase database, @NotNull String group) {
+    final MongoCollection<BsonDocument> formats =
+      database.getCollection(FORMATS, BsonDocument.class);
+    final BsonDocument recorded = formats.find(Filters.eq(ID, group)).first();
+    if (recorded != null && NATIVE.equals(recorded.get("format"))) {
+      return 0;
+    }
+
+    final MongoCollection<BsonDocument> col = database.getCollection(group, BsonDocument.class);
+    long converted = 0;
+
+    try (MongoCursor<BsonDocument> cursor = col.find(Filters.exists(FORMAT, false)).iterator()) {
+      while (cursor.hasNext()) {
+        final BsonDocument legacy = cursor.next();
+        final BsonValue id = legacy.get(ID);
+        final BsonDocument document = new BsonDocument(FORMAT, NATIVE);
+        for (Map.Entry<String, BsonValue> entry : legacy.entrySet()) {
+          final BsonValue value = entry.getValue();
+          document.append(entry.getKey(), ID.equals(entry.getKey()) ? value : toNative(value));
+        }
+
+        try {
+          col.replaceOne(Filters.eq(ID, id), document);
+        } catch (MongoWriteException e) {
+          if (e.getError().getCategory() != ErrorCategory.DUPLICATE_KEY) {
+            throw e;
+          }
+
+          // A native document with the same unique key was written since; it is the newer one.
+          col.deleteOne(Filters.eq(ID, id));
+        }
+
+        converted++;
+      }
+    }
+
+    formats.replaceOne(
+      Filters.eq(ID, group),
+      new BsonDocument(ID, new BsonString(group)).append("format", NATIVE),
+      new ReplaceOptions().upsert(true));
+
+    return converted;
+  }
+
+  @NotNull
+  private static BsonValue toNative(@NotNull BsonValue value) {
+    return value.isString() ? BsonValues.toBson(toTree(value.asString().getValue())) : value;
+  }
+}
@@ -1,134 +1,586 @@
 package me.byteful.lib.datastore.sqlite;
 
 import com.google.gson.Gson;
+import com.google.gson.JsonParser;
+import com.mongodb.ErrorCategory;
 import com.mongodb.MongoClient;
 import com.mongodb.MongoClientURI;
-import com.mongodb.client.FindIterable;
+import com.mongodb.MongoCommandException;
+import com.mongodb.MongoException;
+import com.mongodb.MongoWriteException;
+import com.mongodb.client.ClientSession;
 import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
 import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.DeleteOneModel;
 import com.mongodb.client.model.Filters;
 import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.ReplaceOneModel;
+import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.model.Sorts;
+import com.mongodb.client.model.WriteModel;
 import me.byteful.lib.datastore.api.DataStoreConstants;
 import me.byteful.lib.datastore.api.data.DataStore;
+import me.byteful.lib.datastore.api.data.DataStoreOptions;
+import me.byteful.lib.datastore.api.data.DataStoreTransaction;
+import me.byteful.lib.datastore.api.data.Page;
+import me.byteful.lib.datastore.api.data.PageRequest;
+import me.byteful.lib.datastore.api.data.SchemaRegistry;
+import me.byteful.lib.datastore.api.data.async.AsyncDataStore;
+import me.byteful.lib.datastore.api.data.async.DataStoreExecutors;
+import me.byteful.lib.datastore.api.data.async.ExecutorAsyncDataStore;
+import me.byteful.lib.datastore.api.data.internal.Keyset;
+import me.byteful.lib.datastore.api.data.internal.Values;
+import me.byteful.lib.datastore.api.data.metrics.DataStoreMetrics;
 import me.byteful.lib.datastore.api.model.*;
-import org.bson.Document;
+import org.bson.BsonDocument;
+import org.bson.BsonDocumentReader;
+import org.bson.BsonValue;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.BsonDocumentCodec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.configuration.CodecRegistries;
 import org.bson.conversions.Bson;
-import org.bson.json.JsonMode;
-import org.bson.json.JsonWriterSettings;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
-import java.util.function.Consumer;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.StreamSupport;
 
 public class MongoDBDataStore implements DataStore {
-  private static final JsonWriterSettings SETTINGS = JsonWriterSettings.builder().outputMode(JsonMode.RELAXED).build();
+  private static final ReplaceOptions UPSERT = new ReplaceOptions().upsert(true);
+  private static final BsonDocumentCodec DOCUMENTS = new BsonDocumentCodec();
+  private static final DecoderContext DECODE = DecoderContext.builder().build();
+  private static final String ID = "_id";
+  private static final int INDEX_OPTIONS_CONFLICT = 85;
+  private static final int INDEX_KEY_SPECS_CONFLICT = 86;
 
   private final Gson gson;
+  private final ProcessedModelCodec codec;
   private final MongoDatabase database;
   private final MongoClient client;
+  private final DataStoreOptions options = new DataStoreOptions();
+  private final SchemaRegistry schema = new SchemaRegistry();
+  private final ThreadLocal<DocumentWriter> writers = ThreadLocal.withInitial(DocumentWriter::new);
+  // Groups whose legacy documents have been converted, or found to have none; ids in other
+  // groups also match the JSON text legacy documents hold.
+  private final Map<String, Boolean> converted = new ConcurrentHashMap<>();
 
   public MongoDBDataStore(Gson gson, String uri, String database) {
     this.gson = gson;
+    this.codec = new ProcessedModelCodec(gson);
     this.client = new MongoClient(new MongoClientURI(uri));
-    this.database = client.getDatabase(database);
+    this.database =
+      client
+        .getDatabase(database)
+        .withCodecRegistry(
+          CodecRegistries.fromRegistries(
+            CodecRegistries.fromCodecs(codec),
+            MongoClient.getDefaultCodecRegistry()));
   }
 
   public MongoDBDataStore(String uri, String database) {
     this(DataStoreConstants.GSON, uri, database);
   }
 
+  @NotNull
+  public DataStoreOptions getOptions() {
+    return options;
+  }
+
+  @NotNull
+  public SchemaRegistry getSchemaRegistry() {
+    return schema;
+  }
+
+  // Rewrites documents stored as JSON text by releases before native BSON, once per group, on
+  // the calling thread. Until then reads and writes find both formats, but getPage orders by
+  // native values and skips legacy documents, and id lookups cost an extra $or branch.
+  public long convertLegacyDocuments(@NotNull Class<? extends Model> type) {
+    final String group = getStoredGroup(type);
+    final long count = LegacyDocuments.convert(database, group);
+    converted.put(group, Boolean.TRUE);
+
+    return count;
+  }
+
   @Override
   public @NotNull <T extends Model> Optional<T> get(@NotNull Class<T> type, @NotNull ModelId id, @NotNull ModelId... ids) {
     final String group = getStoredGroup(type);
-    final MongoCollection<Document> col = database.getCollection(group);
-    FindIterable<Document> find = col.find(Filters.eq(id.key(), id.value()));
-    for (ModelId modelId : ids) {
-      find = find.filter(Filters.eq(modelId.key(), modelId.value()));
-    }
-
-    final Document document = find.first();
-    if (document == null) {
+    final ProcessedModel processed =
+      models(group).find(filter(group, compile(id, ids))).first();
+    if (processed == null) {
       return Optional.empty();
     }
 
-    return Optional.of(gson.fromJson(document.toJson(SETTINGS), type));
+    return Optional.of(deserializeModel(type, processed));
+  }
+
+  @Override
+  public @NotNull Optional<ProcessedModel> getFields(
+    @NotNull Class<? extends Model> type,
+    @NotNull Set<String> fields,
+    @NotNull ModelId id,
+    @NotNull ModelId... ids) {
+    final String group = getStoredGroup(type);
+
+    return Optional.ofNullable(
+      models(group)
+        .find(filter(group, compile(id, ids)))
+        // The format field tells the codec whether string values are legacy JSON text.
+        .projection(
+          Projections.fields(
+            Projections.include(new ArrayList<>(fields)),
+            Projections.include(LegacyDocuments.FORMAT),
+            Projections.excludeId()))
+        .first());
   }
 
   @Override
   public @NotNull <T extends Model> List<T> getAll(@NotNull Class<T> type, @NotNull ModelId... ids) {
     final String group = getStoredGroup(type);
     final List<T> list = new ArrayList<>();
-    final MongoCollection<Document> col = database.getCollection(group);
-    FindIterable<Document> find = col.find();
-    for (ModelId modelId : ids) {
-      find = find.filter(Filters.eq(modelId.key(), modelId.value()));
+    try (MongoCursor<ProcessedModel> cursor = models(group).find(filter(group, ids)).iterator()) {
+      while (cursor.hasNext()) {
+        list.add(deserializeModel(type, cursor.next()));
+      }
     }
-    find.forEach((Consumer<? super Document>) doc -> {
-      if (doc == null) {
-        return;
+
+    return list;
+  }
+
+  @Override
+  public @NotNull <T extends Model> Stream<T> stream(
+    @NotNull Class<T> type, @NotNull ModelId... ids) {
+    final String group = getStoredGroup(type);
+    final MongoCursor<ProcessedModel> cursor =
+      models(group).find(filter(group, ids)).batchSize(options.getFetchSize()).iterator();
+    final Spliterator<ProcessedModel> documents =
+      Spliterators.spliteratorUnknownSize(
+        cursor, Spliterator.ORDERED | Spliterator.NONNULL);
+
+    return StreamSupport.stream(documents, false)
+      .map(processed -> deserializeModel(type, processed))
+      .onClose(cursor::close);
+  }
+
+  @Override
+  public @NotNull <T extends Model> Page<T> getPage(
+    @NotNull Class<T> type, @NotNull PageRequest request, @NotNull ModelId... ids) {
+    final String group = getStoredGroup(type);
+    final String sortKey = request.getSortKey();
+    final MongoCollection<BsonDocument> col = documents(group);
+
+    // Documents without the sort key have no position to resume after.
+    Bson filter = Filters.and(filter(group, ids), Filters.ne(sortKey, null));
+    if (!converted.containsKey(group)) {
+      // Legacy JSON text doesn't sort like the values it holds.
+      filter = Filters.and(filter, Filters.exists(LegacyDocuments.FORMAT));
+    }
+
+    if (request.getAfter() != null) {
+      final BsonValue after = BsonValues.toBson(JsonParser.parseString(request.getAfter()));
+
+      if (Keyset.resumesTiebreaker(group, ID, request)) {
+        final BsonValue afterId =
+          BsonDocument.parse(Objects.requireNonNull(request.getAfterTiebreaker())).get(ID);
+
+        filter =
+          Filters.and(
+            filter,
+            Filters.or(
+              Filters.gt(sortKey, after),
+              Filters.and(Filters.eq(sortKey, after), Filters.gt(ID, afterId))));
+      } else {
+        filter = Filters.and(filter, Filters.gt(sortKey, after));
       }
+    }
 
-      list.add(gson.fromJson(doc.toJson(SETTINGS), type));
-    });
+    final List<T> items = new ArrayList<>();
+    String last = null;
+    BsonValue lastId = null;
+    // One extra document tells whether another page follows. Ties in the sort key are ordered
+    // by _id, which the token carries as extended JSON so it keeps its BSON type.
+    try (MongoCursor<BsonDocument> cursor =
+           col.find(filter)
+             .sort(Sorts.ascending(sortKey, ID))
+             .limit(request.getLimit() + 1)
+             .iterator()) {
+      while (cursor.hasNext()) {
+        final BsonDocument document = cursor.next();
+        // BINARY fields are stored as binary, which never compares greater than the token's
+        // value, so a page after the first would always come back empty.
+        final BsonValue key = document.get(sortKey);
+        if (key != null
+          && key.isBinary()
+          && key.asBinary().getType() == BsonValues.BINARY_FIELD) {
+          throw new IllegalArgumentException(
+            "Cannot page " + group + " by BINARY field " + sortKey);
+        }
 
+        if (items.size() == request.getLimit()) {
+          return new Page<>(
+            items,
+            PageRequest.token(
+              sortKey,
+              Objects.requireNonNull(last),
+              ID,
+              new BsonDocument(ID, Objects.requireNonNull(lastId)).toJson()));
+        }
 
-    return list;
+        final ProcessedModel processed = codec.decode(new BsonDocumentReader(document), DECODE);
+        last = Objects.requireNonNull(processed.getFieldNullable(sortKey)).value();
+        lastId = document.get(ID);
+        items.add(deserializeModel(type, processed));
+      }
+    }
+
+    return new Page<>(items, null);
+  }
+
+  @Override
+  public @NotNull <T extends Model> Map<ModelId, T> getMany(
+    @NotNull Class<T> type, @NotNull Collection<? extends ModelId> ids) {
+    final String group = getStoredGroup(type);
+    final Map<ModelId, T> found = new LinkedHashMap<>();
+    final MongoCollection<ProcessedModel> col = models(group);
+
+    final Map<String, Map<String, ModelId>> keys = new LinkedHashMap<>();
+    for (ModelId id : ids) {
+      keys.computeIfAbsent(id.key(), k -> new LinkedHashMap<>()).put(id.value(), id);
+    }
+
+    for (Map.Entry<String, Map<String, ModelId>> entry : keys.entrySet()) {
+      final String key = entry.getKey();
+      // The server matches native BSON by value (5 finds 5.0), so ids are matched back the same
+      // way, by JSON tree rather than by the id's text.
+      final Map<Object, List<ModelId>> byValue = new HashMap<>();
+      final List<BsonValue> values = new ArrayList<>(entry.getValue().size());
+      final List<String> legacy = new ArrayList<>(entry.getValue().size());
+      for (ModelId id : entry.getValue().values()) {
+        final Object value = Values.canonical(StorageType.BINARY, id.value());
+
+        if (value != null) {
+          byValue.computeIfAbsent(value, k -> new ArrayList<>(1)).add(id);
+          values.add(BsonValues.toBson(id));
+          legacy.add(id.value());
+        }
+      }
+
+      Bson filter = Filters.in(key, values);
+      if (!converted.containsKey(group)) {
+        filter = Filters.or(filter, LegacyDocuments.in(key, legacy));
+      }
+
+      try (MongoCursor<ProcessedModel> cursor = col.find(filter).iterator()) {
+        while (cursor.hasNext()) {
+          final ProcessedModel processed = cursor.next();
+          final ProcessedModelField field = processed.getFieldNullable(key);
+          final List<ModelId> matched =
+            field == null ? null : byValue.get(Values.canonical(StorageType.BINARY, field.value()));
+
+          if (matched != null) {
+            for (ModelId id : matched) {
+              found.put(id, deserializeModel(type, processed));
+            }
+          }
+        }
+      }
+    }
+
+    return found;
   }
 
   @Override
   public void set(@NotNull ModelId id, @NotNull Model model) {
-    final ProcessedModel processed = serializeModel(model);
     final String group = getStoredGroup(model.getClass());
-    final MongoCollection<Document> col = database.getCollection(group);
-    final Bson fID = Filters.eq(id.key(), id.value());
-    Document doc = new Document();
-    for (ProcessedModelField field : processed.values().values()) {
-      doc = doc.append(field.key(), field.value());
-
-      if (field.type() == ProcessedModelFieldType.INDEXED) {
-        col.createIndex(Filters.eq(field.key(), field.value()));
-      } else if (field.type() == ProcessedModelFieldType.UNIQUE_INDEXED) {
-        col.createIndex(Filters.eq(field.key(), field.value()), new IndexOptions().unique(true));
+    final MongoCollection<BsonDocument> col = documents(group);
+    final Bson fID = filter(group, id);
+    final DocumentWriter writer = writers.get().start(gson);
+
+    try {
+      writeModel(model, writer);
+      createIdIndex(group, col, id.key());
+      createIndexes(group, col, writer.indexed());
+
+      try {
+        col.replaceOne(fID, writer.document(), UPSERT);
+      } catch (MongoWriteException e) {
+        if (e.getError().getCategory() != ErrorCategory.DUPLICATE_KEY) {
+          throw e;
+        }
+
+        // Lost an insert race on the id index; the document exists now, so this replaces it.
+        col.replaceOne(fID, writer.document(), UPSERT);
       }
+
+      options.getMetrics().recordSerializedBytes(group, sizeOf(writer.document()));
+    } finally {
+      writer.reset();
     }
+  }
+
+  @Override
+  public boolean setAll(@NotNull Map<? extends ModelId, ? extends Model> models) {
+    final Map<String, List<WriteModel<BsonDocument>>> groups = new LinkedHashMap<>();
+    final Map<String, Long> bytes = new LinkedHashMap<>();
+    final DocumentWriter writer = writers.get().start(gson);
+    try {
+      for (Map.Entry<? extends ModelId, ? extends Model> entry : models.entrySet()) {
+        final ModelId id = entry.getKey();
+        final String group = getStoredGroup(entry.getValue().getClass());
 
-    if (col.find(fID).first() == null) {
-      col.insertOne(doc);
-    } else {
-      col.replaceOne(fID, doc);
+        final MongoCollection<BsonDocument> col = documents(group);
+
+        writeModel(entry.getValue(), writer);
+        createIdIndex(group, col, id.key());
+        createIndexes(group, col, writer.indexed());
+        bytes.merge(group, sizeOf(writer.document()), Long::sum);
+        groups
+          .computeIfAbsent(group, k -> new ArrayList<>())
+          .add(
+            new ReplaceOneModel<>(filter(group, id), writer.detach(), UPSERT));
+      }
+    } finally {
+      writer.reset();
+    }
+
+    final int batchSize = options.getBatchSize();
+    boolean written = true;
+    for (Map.Entry<String, List<WriteModel<BsonDocument>>> entry : groups.entrySet()) {
+      final MongoCollection<BsonDocument> col = documents(entry.getKey());
+      final List<WriteModel<BsonDocument>> writes = entry.getValue();
+
+      // Unordered, so a failed batch may still have written some of its models; the other
+      // groups are written either way.
+      try {
+        for (int i = 0; i < writes.size(); i += batchSize) {
+          col.bulkWrite(
+            writes.subList(i, Math.min(i + batchSize, writes.size())),
+            new BulkWriteOptions().ordered(false));
+        }
+
+        options.getMetrics().recordSerializedBytes(entry.getKey(), bytes.get(entry.getKey()));
+      } catch (MongoException e) {
+        failed(entry.getKey(), e);
+        written = false;
+      }
+    }
+
+    return written;
+  }
+
+  @NotNull
+  private Bson filter(@NotNull String group, @NotNull ModelId[] ids) {
+    if (ids.length == 0) {
+      return new BsonDocument();
+    }
+
+    final Bson[] filters = new Bson[ids.length];
+    for (int i = 0; i < ids.length; i++) {
+      filters[i] = filter(group, ids[i]);
+    }
+
+    return filters.length == 1 ? filters[0] : Filters.and(filters);
+  }
+
+  // Also matches a legacy document holding the id's JSON text until the group is converted,
+  // so writes replace it instead of adding a native duplicate next to it.
+  @NotNull
+  private Bson filter(@NotNull String group, @NotNull ModelId id) {
+    final Bson filter = Filters.eq(id.key(), BsonValues.toBson(id));
+
+    return converted.containsKey(group)
+      ? filter
+      : Filters.or(filter, LegacyDocuments.eq(id.key(), id.value()));
+  }
+
+  @NotNull
+  private MongoCollection<ProcessedModel> models(@NotNull String group) {
+    return database.getCollection(group, ProcessedModel.class);
+  }
+
+  @NotNull
+  private MongoCollection<BsonDocument> documents(@NotNull String group) {
+    return database.getCollection(group, BsonDocument.class);
+  }
+
+  // Unique index on the ModelId key, created once per collection, so upserts resolve through
+  // an index and two writers racing on a new id can't both insert it.
+  private void createIdIndex(
+    @NotNull String group, @NotNull MongoCollection<BsonDocument> col, @NotNull String key) {
+    if (options.isSchemaManagedExternally() || schema.hasIndex(group, key)) {
+      return;
+    }
+
+    try {
+      col.createIndex(Indexes.ascending(key), new IndexOptions().unique(true));
+    } catch (MongoCommandException e) {
+      final int code = e.getErrorCode();
+      if (code != INDEX_OPTIONS_CONFLICT && code != INDEX_KEY_SPECS_CONFLICT) {
+        // Not recorded, so the next write tries again.
+        failed(group, e);
+
+        return;
+      }
+
+      // An index with other options already covers the key; keep using it.
+    }
+
+    schema.addIndex(group, key);
+  }
+
+  private void createIndexes(
+    @NotNull String group,
+    @NotNull MongoCollection<BsonDocument> col,
+    @NotNull Map<String, ProcessedModelFieldType> indexed) {
+    if (options.isSchemaManagedExternally()) {
+      return;
+    }
+
+    for (Map.Entry<String, ProcessedModelFieldType> field : indexed.entrySet()) {
+      if (schema.hasIndex(group, field.getKey())) {
+        continue;
+      }
+
+      col.createIndex(
+        Indexes.ascending(field.getKey()),
+        new IndexOptions().unique(field.getValue() == ProcessedModelFieldType.UNIQUE_INDEXED));
+      schema.addIndex(group, field.getKey());
     }
   }
 
   @Override
   public boolean exists(@NotNull Class<? extends Model> type, @NotNull ModelId id, @NotNull ModelId... ids) {
-    return get(type, id, ids).isPresent(); // TODO: UPDATE TO A BETTER EXISTS METHOD
+    final String group = getStoredGroup(type);
+
+    return documents(group)
+      .find(filter(group, compile(id, ids)))
+      .projection(Projections.include(ID))
+      .first()
+      != null;
   }
 
   @Override
   public void delete(@NotNull Class<? extends Model> type, @NotNull ModelId id, @NotNull ModelId... ids) {
     final String group = getStoredGroup(type);
-    final @NotNull ModelId[] compiled = compile(id, ids);
-    final MongoCollection<Document> col = database.getCollection(group);
-    final Bson[] filters = new Bson[compiled.length];
-    for (int i = 0; i < compiled.length; i++) {
-      final ModelId modelId = compiled[i];
-      filters[i] = Filters.eq(modelId.key(), modelId.value());
+    documents(group).deleteOne(filter(group, compile(id, ids)));
+  }
+
+  @Override
+  public void clear(@NotNull Class<? extends Model> type) {
+    documents(getStoredGroup(type)).deleteMany(new BsonDocument());
+  }
+
+  // Needs a replica set or sharded cluster; a standalone server rejects the transaction and
+  // nothing is written.
+  @Override
+  public boolean commit(@NotNull DataStoreTransaction transaction) {
+    if (transaction.isEmpty()) {
+      return true;
+    }
+
+    final Map<String, List<WriteModel<BsonDocument>>> groups = new LinkedHashMap<>();
+    final Map<String, Long> bytes = new LinkedHashMap<>();
+    final DocumentWriter writer = writers.get().start(gson);
+    try {
+      for (DataStoreTransaction.Operation operation : transaction.getOperations()) {
+        if (operation.isDelete()) {
+          final String group = getStoredGroup(operation.getType());
+          groups
+            .computeIfAbsent(group, k -> new ArrayList<>())
+            .add(new DeleteOneModel<>(filter(group, operation.getIds())));
+          continue;
+        }
+
+        final ModelId id = operation.getId();
+        final String group = getStoredGroup(operation.getModel().getClass());
+        final MongoCollection<BsonDocument> col = documents(group);
+
+        // Indexes can't be created inside a multi-document transaction.
+        writeModel(operation.getModel(), writer);
+        createIdIndex(group, col, id.key());
+        createIndexes(group, col, writer.indexed());
+        bytes.merge(group, sizeOf(writer.document()), Long::sum);
+        groups
+          .computeIfAbsent(group, k -> new ArrayList<>())
+          .add(
+            new ReplaceOneModel<>(filter(group, id), writer.detach(), UPSERT));
+      }
+    } finally {
+      writer.reset();
     }
 
-    col.deleteOne(Filters.and(filters));
+    try (ClientSession session = client.startSession()) {
+      session.withTransaction(
+        () -> {
+          // Ordered, so a set and a delete of the same model apply in the order given.
+          for (Map.Entry<String, List<WriteModel<BsonDocument>>> entry : groups.entrySet()) {
+            documents(entry.getKey())
+              .bulkWrite(session, entry.getValue(), new BulkWriteOptions().ordered(true));
+          }
+
+          return null;
+        });
+
+      bytes.forEach(options.getMetrics()::recordSerializedBytes);
+
+      return true;
+    } catch (MongoException e) {
+      failed(groups.keySet(), e);
+    }
+
+    return false;
   }
 
   @Override
-  public void clear(@NotNull Class<? extends Model> type) {
-    final String group = getStoredGroup(type);
-    database.getCollection(group).deleteMany(new Document());
+  public @NotNull AsyncDataStore async() {
+    return new ExecutorAsyncDataStore(
+      this,
+      DataStoreExecutors.virtualThreadsOrBounded(
+        client.getMongoClientOptions().getConnectionsPerHost()),
+      true);
   }
 
   @Override
   public void close() throws Exception {
     client.close();
   }
+
+  // The driver encodes documents as it sends them, so measuring one means encoding it again;
+  // skipped unless metrics are set.
+  private long sizeOf(@NotNull BsonDocument document) {
+    if (options.getMetrics() == DataStoreMetrics.NOOP) {
+      return 0;
+    }
+
+    return new RawBsonDocument(document, DOCUMENTS).getByteBuffer().remaining();
+  }
+
+  private void failed(@NotNull String group, @NotNull Exception e) {
+    e.printStackTrace();
+    options.getMetrics().recordError(group, e);
+  }
+
+  private void failed(@NotNull Collection<String> groups, @NotNull Exception e) {
+    e.printStackTrace();
+    for (String group : groups) {
+      options.getMetrics().recordError(group, e);
+    }
+  }
 }
\ No newline at end of file
@@ -0,0 +1,183 @@
+package me.byteful.lib.datastore.sqlite;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
+import me.byteful.lib.datastore.api.model.ProcessedModel;
+import me.byteful.lib.datastore.api.model.ProcessedModelField;
+import me.byteful.lib.datastore.api.model.ProcessedModelFieldType;
+import me.byteful.lib.datastore.api.model.impl.BinaryProcessedModel;
+import me.byteful.lib.datastore.api.model.impl.BinaryProcessedModelField;
+import me.byteful.lib.datastore.api.model.impl.JSONProcessedModel;
+import me.byteful.lib.datastore.api.model.impl.JSONProcessedModelField;
+import org.bson.BsonBinary;
+import org.bson.BsonDocument;
+import org.bson.BsonReader;
+import org.bson.BsonType;
+import org.bson.BsonValue;
+import org.bson.BsonWriter;
+import org.bson.codecs.BsonValueCodec;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.bson.json.JsonMode;
+import org.bson.json.JsonWriterSettings;
+import org.bson.types.Decimal128;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// Reads documents straight off the wire into ProcessedModel fields, so models are rebuilt
+// through their ModelStructure without a detour through a Document and its JSON text.
+final class ProcessedModelCodec implements Codec<ProcessedModel> {
+  private static final JsonWriterSettings SETTINGS = JsonWriterSettings.builder().outputMode(JsonMode.RELAXED).build();
+  private static final String ID = "_id";
+
+  private final Gson gson;
+  private final BsonValueCodec values = new BsonValueCodec();
+
+  ProcessedModelCodec(@NotNull Gson gson) {
+    this.gson = gson;
+  }
+
+  @Override
+  public ProcessedModel decode(BsonReader reader, DecoderContext context) {
+    final Map<String, ProcessedModelField> fields = new HashMap<>();
+    // Top-level strings, which hold JSON text if the document turns out to be a legacy one.
+    final Map<String, String> strings = new HashMap<>();
+    boolean binary = false;
+    boolean legacy = true;
+
+    reader.readStartDocument();
+    while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+      final String key = reader.readName();
+      if (LegacyDocuments.FORMAT.equals(key)) {
+        legacy = false;
+      }
+
+      if (ID.equals(key) || LegacyDocuments.FORMAT.equals(key)) {
+        reader.skipValue();
+        continue;
+      }
+
+      if (reader.getCurrentBsonType() == BsonType.STRING) {
+        final String text = reader.readString();
+        strings.put(key, text);
+        fields.put(
+          key,
+          JSONProcessedModelField.ofTree(
+            key, new JsonPrimitive(text), ProcessedModelFieldType.NORMAL, gson));
+      } else if (reader.getCurrentBsonType() == BsonType.BINARY
+        && reader.peekBinarySubType() == BsonValues.BINARY_FIELD) {
+        fields.put(
+          key,
+          BinaryProcessedModelField.of(
+            key, reader.readBinaryData().getData(), ProcessedModelFieldType.NORMAL));
+        binary = true;
+      } else {
+        fields.put(
+          key,
+          JSONProcessedModelField.ofTree(
+            key, readTree(reader, context), ProcessedModelFieldType.NORMAL, gson));
+      }
+    }
+    reader.readEndDocument();
+
+    if (legacy) {
+      for (Map.Entry<String, String> entry : strings.entrySet()) {
+        fields.put(
+          entry.getKey(),
+          JSONProcessedModelField.ofTree(
+            entry.getKey(),
+            LegacyDocuments.toTree(entry.getValue()),
+            ProcessedModelFieldType.NORMAL,
+            gson));
+      }
+    }
+
+    return binary ? new BinaryProcessedModel(fields, gson) : new JSONProcessedModel(fields, gson);
+  }
+
+  @NotNull
+  private JsonElement readTree(@NotNull BsonReader reader, @NotNull DecoderContext context) {
+    switch (reader.getCurrentBsonType()) {
+      case DOCUMENT: {
+        final JsonObject object = new JsonObject();
+        reader.readStartDocument();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+          final String key = reader.readName();
+          object.add(key, readTree(reader, context));
+        }
+        reader.readEndDocument();
+
+        return object;
+      }
+      case ARRAY: {
+        final JsonArray array = new JsonArray();
+        reader.readStartArray();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+          array.add(readTree(reader, context));
+        }
+        reader.readEndArray();
+
+        return array;
+      }
+      case STRING:
+        return new JsonPrimitive(reader.readString());
+      case INT32:
+        return new JsonPrimitive(reader.readInt32());
+      case INT64:
+        return new JsonPrimitive(reader.readInt64());
+      case DOUBLE:
+        return new JsonPrimitive(reader.readDouble());
+      case DECIMAL128: {
+        final Decimal128 decimal = reader.readDecimal128();
+
+        return decimal.isNaN() || decimal.isInfinite()
+          ? new JsonPrimitive(decimal.toString())
+          : new JsonPrimitive(decimal.bigDecimalValue());
+      }
+      case BOOLEAN:
+        return new JsonPrimitive(reader.readBoolean());
+      case NULL:
+        reader.readNull();
+
+        return JsonNull.INSTANCE;
+      case BINARY:
+        return BsonValues.bytes(reader.readBinaryData().getData());
+      case OBJECT_ID:
+        return new JsonPrimitive(reader.readObjectId().toHexString());
+      case DATE_TIME:
+        return new JsonPrimitive(reader.readDateTime());
+      default: {
+        // Rarer types keep the relaxed extended JSON shape the old text path produced.
+        final BsonValue value = values.decode(reader, context);
+
+        return JsonParser.parseString(new BsonDocument("v", value).toJson(SETTINGS))
+          .getAsJsonObject()
+          .get("v");
+      }
+    }
+  }
+
+  @Override
+  public void encode(BsonWriter writer, ProcessedModel model, EncoderContext context) {
+    writer.writeStartDocument();
+    writer.writeInt32(LegacyDocuments.FORMAT, LegacyDocuments.NATIVE.getValue());
+    for (ProcessedModelField field : model.values().values()) {
+      writer.writeName(field.key());
+      values.encode(writer, BsonValues.toBson(field), context);
+    }
+    writer.writeEndDocument();
+  }
+
+  @Override
+  public Class<ProcessedModel> getEncoderClass() {
+    return ProcessedModel.class;
+  }
+}
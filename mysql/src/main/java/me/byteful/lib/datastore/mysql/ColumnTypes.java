@@ -0,0 +1,76 @@
+package me.byteful.lib.datastore.mysql;
+
+import me.byteful.lib.datastore.api.model.ProcessedModelField;
+import me.byteful.lib.datastore.api.model.ProcessedModelFieldType;
+import me.byteful.lib.datastore.api.model.StorageType;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Locale;
+
+// Maps StorageType hints to MySQL columns and back. A null storage type is the legacy
+// varchar(255) JSON text column.
+final class ColumnTypes {
+  // Widest utf8mb4 varchar InnoDB can index, used for indexed TEXT fields.
+  private static final int INDEXED_TEXT_LENGTH = 768;
+  // Column comment that tells BINARY columns apart from plain BLOB ones.
+  private static final String BINARY_REMARK = "datastore:binary";
+
+  private ColumnTypes() {
+  }
+
+  @NotNull
+  static String definition(@NotNull ProcessedModelField field) {
+    final StorageType type = field.storageType();
+    final boolean indexed = field.type() != ProcessedModelFieldType.NORMAL;
+    if (type == null) {
+      return "varchar(255)";
+    }
+
+    switch (type) {
+      case INT:
+        return "int";
+      case BIGINT:
+        return "bigint";
+      case DOUBLE:
+        return "double";
+      case BOOLEAN:
+        return "boolean";
+      case TEXT:
+        return indexed ? "varchar(" + INDEXED_TEXT_LENGTH + ")" : "mediumtext";
+      case BLOB:
+        return indexed ? "varbinary(767)" : "mediumblob";
+      case BINARY:
+        return indexed ? "varchar(255)" : "mediumblob comment '" + BINARY_REMARK + "'";
+      default:
+        // JSON columns cannot be indexed; the legacy column holds the same JSON text.
+        return indexed ? "varchar(255)" : "json";
+    }
+  }
+
+  // Reverse of definition for tables found in the database. Character columns wider than the
+  // legacy varchar(255) are treated as TEXT.
+  @Nullable
+  static StorageType fromMetadata(@NotNull String typeName, int size, @Nullable String remarks) {
+    final String name = typeName.toUpperCase(Locale.ROOT);
+    if (BINARY_REMARK.equals(remarks)) {
+      return StorageType.BINARY;
+    } else if (name.contains("JSON")) {
+      return StorageType.JSON;
+    } else if (name.contains("BIGINT")) {
+      return StorageType.BIGINT;
+    } else if (name.contains("BOOL") || name.equals("BIT")) {
+      return StorageType.BOOLEAN;
+    } else if (name.contains("INT")) {
+      return StorageType.INT;
+    } else if (name.contains("DOUBLE") || name.contains("FLOAT") || name.contains("REAL")) {
+      return StorageType.DOUBLE;
+    } else if (name.contains("BLOB") || name.contains("BINARY")) {
+      return StorageType.BLOB;
+    } else if (name.contains("TEXT") || name.contains("CLOB") || (name.contains("CHAR") && size > 255)) {
+      return StorageType.TEXT;
+    }
+
+    return null;
+  }
+}
@@ -0,0 +1,33 @@
+package me.byteful.lib.datastore.mysql;
+
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+import me.byteful.lib.datastore.api.data.DataStoreOptions;
+import org.jetbrains.annotations.NotNull;
+
+// Forwards Hikari's connection wait and timeouts to DataStoreMetrics. The metrics are read from
+// the options on every event, so setMetrics() takes effect on a pool that is already running.
+public class DataStoreMetricsTrackerFactory implements MetricsTrackerFactory {
+  @NotNull
+  private final DataStoreOptions options;
+
+  public DataStoreMetricsTrackerFactory(@NotNull DataStoreOptions options) {
+    this.options = options;
+  }
+
+  @Override
+  public IMetricsTracker create(String poolName, PoolStats poolStats) {
+    return new IMetricsTracker() {
+      @Override
+      public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+        options.getMetrics().recordConnectionWait(elapsedAcquiredNanos);
+      }
+
+      @Override
+      public void recordConnectionTimeout() {
+        options.getMetrics().recordConnectionTimeout();
+      }
+    };
+  }
+}
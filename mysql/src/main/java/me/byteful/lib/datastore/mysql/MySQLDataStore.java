@@ -5,26 +5,55 @@ import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
 import me.byteful.lib.datastore.api.DataStoreConstants;
 import me.byteful.lib.datastore.api.data.DataStore;
+import me.byteful.lib.datastore.api.data.DataStoreOptions;
+import me.byteful.lib.datastore.api.data.DataStoreTransaction;
+import me.byteful.lib.datastore.api.data.Page;
+import me.byteful.lib.datastore.api.data.PageRequest;
+import me.byteful.lib.datastore.api.data.SchemaRegistry;
+import me.byteful.lib.datastore.api.data.async.AsyncDataStore;
+import me.byteful.lib.datastore.api.data.async.DataStoreExecutors;
+import me.byteful.lib.datastore.api.data.async.ExecutorAsyncDataStore;
+import me.byteful.lib.datastore.api.data.internal.ColumnValues;
+import me.byteful.lib.datastore.api.data.internal.Keyset;
+import me.byteful.lib.datastore.api.data.internal.RowWriter;
+import me.byteful.lib.datastore.api.data.internal.StatementTemplates;
+import me.byteful.lib.datastore.api.data.internal.Values;
+import me.byteful.lib.datastore.api.data.metrics.DataStoreMetrics;
 import me.byteful.lib.datastore.api.model.*;
+import me.byteful.lib.datastore.api.model.impl.BinaryProcessedModel;
+import me.byteful.lib.datastore.api.model.impl.BinaryProcessedModelField;
 import me.byteful.lib.datastore.api.model.impl.JSONProcessedModel;
-import me.byteful.lib.datastore.api.model.impl.JSONProcessedModelField;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.sql.*;
 import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class MySQLDataStore implements DataStore {
+  private static final int ER_DUP_KEYNAME = 1061;
+
   private final HikariDataSource pool;
   private final Gson gson;
+  // Whether setFetchSize() streams through a server-side cursor.
+  private final boolean cursorFetch;
+  private final DataStoreOptions options = new DataStoreOptions();
+  private final SchemaRegistry schema = new SchemaRegistry();
+  private final StatementTemplates templates = new MySQLStatementTemplates();
+  private final ThreadLocal<RowWriter> rows = ThreadLocal.withInitial(RowWriter::new);
 
   public MySQLDataStore(@NotNull HikariConfig hikariConfig) {
-    this.pool = new HikariDataSource(hikariConfig);
+    this.pool = new HikariDataSource(applyDefaults(hikariConfig, options));
     this.gson = DataStoreConstants.GSON;
+    this.cursorFetch = usesCursorFetch(pool);
   }
 
   public MySQLDataStore(@NotNull HikariDataSource pool) {
-    this.pool = pool;
+    this.pool = attach(pool, options);
     this.gson = DataStoreConstants.GSON;
+    this.cursorFetch = usesCursorFetch(pool);
   }
 
   public MySQLDataStore(
@@ -40,18 +69,21 @@ public class MySQLDataStore implements DataStore {
     final HikariConfig config = new HikariConfig();
     config.setJdbcUrl(uri);
 
-    this.pool = new HikariDataSource(config);
+    this.pool = new HikariDataSource(applyDefaults(config, options));
     this.gson = gson;
+    this.cursorFetch = usesCursorFetch(pool);
   }
 
   public MySQLDataStore(@NotNull HikariConfig hikariConfig, @NotNull Gson gson) {
-    this.pool = new HikariDataSource(hikariConfig);
+    this.pool = new HikariDataSource(applyDefaults(hikariConfig, options));
     this.gson = gson;
+    this.cursorFetch = usesCursorFetch(pool);
   }
 
   public MySQLDataStore(@NotNull HikariDataSource pool, @NotNull Gson gson) {
-    this.pool = pool;
+    this.pool = attach(pool, options);
     this.gson = gson;
+    this.cursorFetch = usesCursorFetch(pool);
   }
 
   public MySQLDataStore(
@@ -64,6 +96,65 @@ public class MySQLDataStore implements DataStore {
     this(String.format("jdbc:mysql://%s:%s/%s", host, port, database), user, password, gson);
   }
 
+  @NotNull
+  private static HikariConfig applyDefaults(
+    @NotNull HikariConfig config, @NotNull DataStoreOptions options) {
+    final Properties properties = config.getDataSourceProperties();
+    // Lets Connector/J collapse executeBatch() into multi-row inserts.
+    properties.putIfAbsent("rewriteBatchedStatements", "true");
+    // Server-side prepared statements cached per connection, keyed by the SQL text that
+    // StatementTemplates hands out.
+    properties.putIfAbsent("useServerPrepStmts", "true");
+    properties.putIfAbsent("cachePrepStmts", "true");
+    properties.putIfAbsent("prepStmtCacheSize", "250");
+    properties.putIfAbsent("prepStmtCacheSqlLimit", "2048");
+    // Makes setFetchSize() stream rows through a server-side cursor instead of buffering
+    // the whole result set on the client.
+    properties.putIfAbsent("useCursorFetch", "true");
+    // Hikari allows a single tracker, and none alongside a metric registry; keep the user's.
+    if (config.getMetricsTrackerFactory() == null && config.getMetricRegistry() == null) {
+      config.setMetricsTrackerFactory(new DataStoreMetricsTrackerFactory(options));
+    }
+
+    return config;
+  }
+
+  // A pool built elsewhere may already be running, so its properties are left alone and only
+  // the metrics tracker is added; Hikari accepts one on a started pool.
+  @NotNull
+  private static HikariDataSource attach(
+    @NotNull HikariDataSource pool, @NotNull DataStoreOptions options) {
+    if (pool.getMetricsTrackerFactory() == null && pool.getMetricRegistry() == null) {
+      pool.setMetricsTrackerFactory(new DataStoreMetricsTrackerFactory(options));
+    }
+
+    return pool;
+  }
+
+  private static boolean usesCursorFetch(@NotNull HikariConfig config) {
+    final String url = config.getJdbcUrl();
+
+    return Boolean.parseBoolean(config.getDataSourceProperties().getProperty("useCursorFetch"))
+      || (url != null && url.contains("useCursorFetch=true"));
+  }
+
+  @NotNull
+  public DataStoreOptions getOptions() {
+    return options;
+  }
+
+  @NotNull
+  public SchemaRegistry getSchemaRegistry() {
+    return schema;
+  }
+
+  // Drops cached schema state and compiled statements for a table that was altered or
+  // dropped outside of this store.
+  public void invalidateSchema(@NotNull String table) {
+    schema.invalidate(table);
+    templates.invalidate(table);
+  }
+
   @Override
   public @NotNull <T extends Model> Optional<T> get(
     @NotNull Class<T> type, @NotNull ModelId id, @NotNull ModelId... ids) {
@@ -75,22 +166,46 @@ public class MySQLDataStore implements DataStore {
         return Optional.empty();
       }
 
-      final Map<String, String> data = runSelectQuery(conn, table, compiled);
+      final Map<String, ProcessedModelField> data = runSelectQuery(conn, table, compiled);
 
       if (data == null) {
         return Optional.empty();
       }
 
-      final JSONProcessedModel processed = new JSONProcessedModel(gson);
-      Objects.requireNonNull(data)
-        .forEach(
-          (k, v) ->
-            processed.append(
-              JSONProcessedModelField.of(k, v, ProcessedModelFieldType.NORMAL)));
+      return Optional.of(deserializeModel(type, toProcessedModel(data)));
+    } catch (SQLException e) {
+      failed(table, e);
+    }
+
+    return Optional.empty();
+  }
+
+  @Override
+  public @NotNull Optional<ProcessedModel> getFields(
+    @NotNull Class<? extends Model> type,
+    @NotNull Set<String> fields,
+    @NotNull ModelId id,
+    @NotNull ModelId... ids) {
+    final String table = getStoredGroup(type);
+    final @NotNull ModelId[] compiled = compile(id, ids);
+    final String[] columns = fields.toArray(new String[0]);
+    if (columns.length == 0) {
+      return exists(type, id, ids) ? Optional.of(new JSONProcessedModel(gson)) : Optional.empty();
+    }
+
+    Arrays.sort(columns);
+
+    try (Connection conn = pool.getConnection()) {
+      if (tableNotExists(conn, table)) {
+        return Optional.empty();
+      }
+
+      final Map<String, ProcessedModelField> data =
+        runSelectSql(conn, table, templates.selectFields(table, columns, compiled), compiled);
 
-      return Optional.of(deserializeModel(type, processed));
+      return Optional.ofNullable(data).map(this::toProcessedModel);
     } catch (SQLException e) {
-      e.printStackTrace();
+      failed(table, e);
     }
 
     return Optional.empty();
@@ -106,40 +221,224 @@ public class MySQLDataStore implements DataStore {
         return list;
       }
 
-      final List<Map<String, String>> data = runSelectAllQuery(conn, table, ids);
+      final List<Map<String, ProcessedModelField>> data = runSelectAllQuery(conn, table, ids);
 
       if (data == null) {
         return list;
       }
 
-      for (Map<String, String> map : data) {
-        final JSONProcessedModel processed = new JSONProcessedModel(gson);
-        map.forEach((k, v) ->
-          processed.append(
-            JSONProcessedModelField.of(k, v, ProcessedModelFieldType.NORMAL)));
-        list.add(deserializeModel(type, processed));
+      for (Map<String, ProcessedModelField> map : data) {
+        list.add(deserializeModel(type, toProcessedModel(map)));
       }
     } catch (SQLException e) {
-      e.printStackTrace();
+      failed(table, e);
     }
 
     return list;
   }
 
+  @Override
+  public @NotNull <T extends Model> Stream<T> stream(
+    @NotNull Class<T> type, @NotNull ModelId... ids) {
+    final String table = getStoredGroup(type);
+    Connection conn = null;
+    PreparedStatement statement = null;
+
+    try {
+      conn = pool.getConnection();
+
+      if (tableNotExists(conn, table)) {
+        conn.close();
+
+        return Stream.empty();
+      }
+
+      statement =
+        conn.prepareStatement(
+          templates.selectAll(table, ids), ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+      // Without a cursor Connector/J buffers the whole result for any other fetch size.
+      statement.setFetchSize(cursorFetch ? options.getFetchSize() : Integer.MIN_VALUE);
+      final Map<String, StorageType> types = columnTypes(conn, table);
+      bindIds(statement, 1, types, ids);
+
+      return streamRows(type, types, statement.executeQuery(), statement, conn);
+    } catch (SQLException e) {
+      if (statement != null) {
+        closeQuietly(statement);
+      }
+
+      if (conn != null) {
+        closeQuietly(conn);
+      }
+
+      failed(table, e);
+    }
+
+    return Stream.empty();
+  }
+
+  @Override
+  public @NotNull <T extends Model> Page<T> getPage(
+    @NotNull Class<T> type, @NotNull PageRequest request, @NotNull ModelId... ids) {
+    final String table = getStoredGroup(type);
+
+    try (Connection conn = pool.getConnection()) {
+      if (tableNotExists(conn, table)) {
+        return new Page<>(Collections.emptyList(), null);
+      }
+
+      final Map<String, StorageType> types = columnTypes(conn, table);
+      // BINARY columns hold each value's own encoding, whose bytes don't sort like the values.
+      if (types.get(request.getSortKey()) == StorageType.BINARY) {
+        throw new IllegalArgumentException(
+          "Cannot page " + table + " by BINARY column " + request.getSortKey());
+      }
+
+      final String tiebreaker =
+        Keyset.tiebreaker(schema, conn, table, types, request.getSortKey());
+      final boolean resumeTiebreaker = Keyset.resumesTiebreaker(table, tiebreaker, request);
+      final String sql =
+        templates.page(
+          table,
+          ids,
+          request.getSortKey(),
+          tiebreaker,
+          request.getAfter() != null,
+          resumeTiebreaker);
+
+      try (PreparedStatement statement = conn.prepareStatement(sql)) {
+        bindPage(statement, types, request, resumeTiebreaker, ids);
+
+        try (ResultSet rs = statement.executeQuery()) {
+          return readPage(type, types, request, tiebreaker, rs);
+        }
+      }
+    } catch (SQLException e) {
+      failed(table, e);
+    }
+
+    return new Page<>(Collections.emptyList(), null);
+  }
+
+  @Override
+  public @NotNull <T extends Model> Map<ModelId, T> getMany(
+    @NotNull Class<T> type, @NotNull Collection<? extends ModelId> ids) {
+    final String table = getStoredGroup(type);
+    final Map<ModelId, T> found = new LinkedHashMap<>();
+
+    if (ids.isEmpty()) {
+      return found;
+    }
+
+    final Map<String, Map<String, ModelId>> columns = new LinkedHashMap<>();
+    for (ModelId id : ids) {
+      columns.computeIfAbsent(id.key(), k -> new LinkedHashMap<>()).put(id.value(), id);
+    }
+
+    try (Connection conn = pool.getConnection()) {
+      if (tableNotExists(conn, table)) {
+        return found;
+      }
+
+      final int chunkSize = options.getLookupChunkSize();
+      for (Map.Entry<String, Map<String, ModelId>> entry : columns.entrySet()) {
+        final String column = entry.getKey();
+        final List<String> values = new ArrayList<>(entry.getValue().keySet());
+        // Rows come back in the column's own form (5 for "5.0", unquoted text), so both sides
+        // are matched canonically rather than by the id's text.
+        final StorageType storage =
+          columnTypes(conn, table).getOrDefault(column, StorageType.JSON);
+        final Map<Object, List<ModelId>> byValue = new HashMap<>();
+        for (ModelId id : entry.getValue().values()) {
+          final Object value = Values.canonical(storage, id.value());
+
+          if (value != null) {
+            byValue.computeIfAbsent(value, k -> new ArrayList<>(1)).add(id);
+          }
+        }
+
+        for (int i = 0; i < values.size(); i += chunkSize) {
+          final List<String> chunk = values.subList(i, Math.min(i + chunkSize, values.size()));
+
+          for (Map<String, ProcessedModelField> row : runSelectInQuery(conn, table, column, chunk)) {
+            final List<ModelId> matched =
+              byValue.get(Values.canonical(storage, row.get(column).value()));
+
+            if (matched != null) {
+              for (ModelId id : matched) {
+                found.put(id, deserializeModel(type, toProcessedModel(row)));
+              }
+            }
+          }
+        }
+      }
+    } catch (SQLException e) {
+      failed(table, e);
+    }
+
+    return found;
+  }
+
   @Override
   public void set(@NotNull ModelId id, @NotNull Model model) {
-    final ProcessedModel processed = serializeModel(model);
     final String table = getStoredGroup(model.getClass());
+    final RowWriter row = rows.get();
 
     try (Connection conn = pool.getConnection()) {
-      createTableIfNotExists(conn, table, processed);
+      writeModel(model, row);
+      ensureTable(conn, table, row);
 
-      runInsertSql(conn, table, processed);
+      try (PreparedStatement statement = conn.prepareStatement(row.insertSql(templates, table))) {
+        final int bytes = row.bind(statement, columnTypes(conn, table), gson);
+
+        statement.execute();
+        options.getMetrics().recordSerializedBytes(table, bytes);
+      }
     } catch (SQLException e) {
-      e.printStackTrace();
+      failed(table, e);
+    } finally {
+      row.reset();
     }
   }
 
+  @Override
+  public boolean setAll(@NotNull Map<? extends ModelId, ? extends Model> models) {
+    if (models.isEmpty()) {
+      return true;
+    }
+
+    final Map<String, List<Model>> tables = new LinkedHashMap<>();
+    for (Model model : models.values()) {
+      tables.computeIfAbsent(getStoredGroup(model.getClass()), k -> new ArrayList<>()).add(model);
+    }
+
+    try (Connection conn = pool.getConnection()) {
+      ensureTables(conn, models.values());
+
+      final boolean autoCommit = conn.getAutoCommit();
+      conn.setAutoCommit(false);
+
+      try {
+        for (Map.Entry<String, List<Model>> entry : tables.entrySet()) {
+          runInsertBatch(conn, entry.getKey(), entry.getValue());
+        }
+
+        conn.commit();
+      } catch (SQLException e) {
+        conn.rollback();
+        throw e;
+      } finally {
+        conn.setAutoCommit(autoCommit);
+      }
+
+      return true;
+    } catch (SQLException e) {
+      failed(tables.keySet(), e);
+    }
+
+    return false;
+  }
+
   @Override
   public boolean exists(
     @NotNull Class<? extends Model> type, @NotNull ModelId id, @NotNull ModelId... ids) {
@@ -159,31 +458,83 @@ public class MySQLDataStore implements DataStore {
 
       runDeleteSql(conn, table, compiled);
     } catch (SQLException e) {
-      e.printStackTrace();
+      failed(table, e);
     }
   }
 
   @Override
   public void clear(@NotNull Class<? extends Model> type) {
     final String table = getStoredGroup(type);
-    final String sql = String.format("truncate table %s;", table);
 
-    try (Connection conn = pool.getConnection(); PreparedStatement statement = conn.prepareStatement(sql)) {
+    try (Connection conn = pool.getConnection()) {
       if (tableNotExists(conn, table)) {
         return;
       }
 
-      statement.execute();
+      try (PreparedStatement statement = conn.prepareStatement(templates.clear(table))) {
+        statement.execute();
+      }
     } catch (SQLException e) {
-      e.printStackTrace();
+      failed(table, e);
     }
   }
 
+  @Override
+  public boolean commit(@NotNull DataStoreTransaction transaction) {
+    if (transaction.isEmpty()) {
+      return true;
+    }
+
+    final List<Model> models = new ArrayList<>();
+    for (DataStoreTransaction.Operation operation : transaction.getOperations()) {
+      if (!operation.isDelete()) {
+        models.add(operation.getModel());
+      }
+    }
+
+    try (Connection conn = pool.getConnection()) {
+      ensureTables(conn, models);
+
+      final boolean autoCommit = conn.getAutoCommit();
+      conn.setAutoCommit(false);
+
+      try {
+        runOperations(conn, transaction.getOperations());
+        conn.commit();
+
+        return true;
+      } catch (SQLException | RuntimeException e) {
+        // Restoring auto-commit below would otherwise commit the partial work.
+        conn.rollback();
+        throw e;
+      } finally {
+        conn.setAutoCommit(autoCommit);
+      }
+    } catch (SQLException e) {
+      failed(DataStoreMetrics.MIXED_GROUP, e);
+    }
+
+    return false;
+  }
+
+  @Override
+  public @NotNull AsyncDataStore async() {
+    // Every call holds a pooled connection for its whole duration, so more threads than
+    // connections would only queue up inside Hikari.
+    return new ExecutorAsyncDataStore(
+      this, DataStoreExecutors.bounded(pool.getMaximumPoolSize()), true);
+  }
+
   private void createTableIfNotExists(
     @NotNull Connection connection, @NotNull String tableName, @NotNull ProcessedModel model) {
+    if (options.isSchemaManagedExternally()
+      || schema.hasColumns(tableName, model.values().keySet())) {
+      return;
+    }
+
     final List<String> list = new ArrayList<>(), indexes = new ArrayList<>(), uniqueIndexes = new ArrayList<>();
     for (ProcessedModelField field : model.values().values()) {
-      String data = field.key() + " varchar(255)";
+      String data = field.key() + " " + ColumnTypes.definition(field);
 
       if (field.type() == ProcessedModelFieldType.INDEXED) {
         indexes.add(field.key());
@@ -195,196 +546,481 @@ public class MySQLDataStore implements DataStore {
       list.add(data);
     }
 
-    String sql =
-      String.format("create table if not exists %s (%s);", tableName, String.join(",", list));
-
-    try (PreparedStatement statement = connection.prepareStatement(sql)) {
-      statement.execute();
-    } catch (SQLException e) {
-      e.printStackTrace();
-    }
+    boolean created =
+      executeDdl(
+        connection,
+        String.format("create table if not exists %s (%s);", tableName, String.join(",", list)));
 
-    if (indexes.isEmpty()) {
-      return;
+    // MySQL has no "create index if not exists", so columns already covered are looked up.
+    final Set<String> indexed = new HashSet<>();
+    final Set<String> uniquelyIndexed = new HashSet<>();
+    if (created && (!indexes.isEmpty() || !uniqueIndexes.isEmpty())) {
+      created = readIndexes(connection, tableName, indexed, uniquelyIndexed);
     }
 
     for (String index : indexes) {
-      sql = String.format("create index if not exists index_%s on %s (%s);", index, tableName, index);
-
-      try (PreparedStatement statement = connection.prepareStatement(sql)) {
-        statement.execute();
-      } catch (SQLException e) {
-        e.printStackTrace();
+      if (!indexed.contains(index.toLowerCase(Locale.ROOT))) {
+        created &=
+          executeDdl(
+            connection, String.format("create index index_%s on %s (%s);", index, tableName, index));
       }
     }
 
     for (String index : uniqueIndexes) {
-      sql = String.format("create unique index if not exists index_%s on %s (%s);", index, tableName, index);
-
-      try (PreparedStatement statement = connection.prepareStatement(sql)) {
-        statement.execute();
-      } catch (SQLException e) {
-        e.printStackTrace();
+      if (!uniquelyIndexed.contains(index.toLowerCase(Locale.ROOT))) {
+        created &=
+          executeDdl(
+            connection,
+            String.format("create unique index index_%s on %s (%s);", index, tableName, index));
       }
     }
+
+    if (created) {
+      schema.addColumns(tableName, model.values().keySet());
+      schema.invalidateColumnTypes(tableName);
+    }
   }
 
-  private void runDeleteSql(
-    @NotNull Connection connection, @NotNull String table, @NotNull ModelId[] ids) {
-    final List<String> list = new ArrayList<>();
-    for (ModelId id : ids) {
-      list.add(id.key() + "=?");
+  private boolean executeDdl(@NotNull Connection connection, @NotNull String sql) {
+    try (PreparedStatement statement = connection.prepareStatement(sql)) {
+      statement.execute();
+
+      return true;
+    } catch (SQLException e) {
+      // ER_DUP_KEYNAME: another store created the same index first.
+      if (e.getErrorCode() == ER_DUP_KEYNAME) {
+        return true;
+      }
+
+      e.printStackTrace();
+
+      return false;
     }
+  }
 
-    final String sql = String.format("delete from %s where %s;", table, String.join(" and ", list));
+  // Collects the lower-cased columns that lead an index of the table, and those that lead a
+  // unique one.
+  private boolean readIndexes(
+    @NotNull Connection connection,
+    @NotNull String table,
+    @NotNull Set<String> indexed,
+    @NotNull Set<String> uniquelyIndexed) {
+    try (ResultSet rs = connection.getMetaData().getIndexInfo(null, null, table, false, true)) {
+      while (rs.next()) {
+        final String column = rs.getString("COLUMN_NAME");
+        if (column == null || rs.getShort("ORDINAL_POSITION") != 1) {
+          continue;
+        }
 
-    try (PreparedStatement statement = connection.prepareStatement(sql)) {
-      for (int i = 1; i < ids.length + 1; i++) {
-        statement.setString(i, ids[i - 1].value());
+        indexed.add(column.toLowerCase(Locale.ROOT));
+        if (!rs.getBoolean("NON_UNIQUE")) {
+          uniquelyIndexed.add(column.toLowerCase(Locale.ROOT));
+        }
       }
 
-      statement.execute();
+      return true;
     } catch (SQLException e) {
       e.printStackTrace();
+
+      return false;
     }
   }
 
-  private Map<String, String> runSelectQuery(
-    @NotNull Connection connection, @NotNull String table, @NotNull ModelId[] ids) {
-    final List<String> list = new ArrayList<>();
-    for (ModelId id : ids) {
-      list.add(id.key() + "=?");
+  private void runDeleteSql(
+    @NotNull Connection connection, @NotNull String table, @NotNull ModelId[] ids)
+    throws SQLException {
+    try (PreparedStatement statement = connection.prepareStatement(templates.delete(table, ids))) {
+      bindIds(statement, 1, columnTypes(connection, table), ids);
+
+      statement.execute();
     }
+  }
 
-    final String sql =
-      String.format("select * from %s where %s;", table, String.join(" and ", list));
+  private Map<String, ProcessedModelField> runSelectQuery(
+    @NotNull Connection connection, @NotNull String table, @NotNull ModelId[] ids) {
+    return runSelectSql(connection, table, templates.select(table, ids), ids);
+  }
 
-    try (PreparedStatement statement = connection.prepareStatement(sql, ResultSet.TYPE_SCROLL_SENSITIVE, ResultSet.CONCUR_UPDATABLE)) {
-      for (int i = 1; i < ids.length + 1; i++) {
-        statement.setString(i, ids[i - 1].value());
-      }
+  private Map<String, ProcessedModelField> runSelectSql(
+    @NotNull Connection connection,
+    @NotNull String table,
+    @NotNull String sql,
+    @NotNull ModelId[] ids) {
+    try (PreparedStatement statement = connection.prepareStatement(sql)) {
+      final Map<String, StorageType> types = columnTypes(connection, table);
+      bindIds(statement, 1, types, ids);
 
       try (ResultSet rs = statement.executeQuery()) {
-        if (rs.first()) {
-          final Map<String, String> map = new HashMap<>();
-
-          final ResultSetMetaData meta = rs.getMetaData();
-          for (int i = 1; i <= meta.getColumnCount(); i++) {
-            map.put(meta.getColumnName(i), rs.getString(i));
-          }
-
-          return map;
+        if (rs.next()) {
+          return readRow(rs, rs.getMetaData(), types);
         } else {
           return null;
         }
       }
     } catch (SQLException e) {
-      e.printStackTrace();
+      failed(table, e);
     }
 
     return null;
   }
 
-  private List<Map<String, String>> runSelectAllQuery(
+  private List<Map<String, ProcessedModelField>> runSelectAllQuery(
     @NotNull Connection connection, @NotNull String table, @NotNull ModelId[] ids) {
-    String sql;
-    if(ids.length != 0) {
-      final List<String> list = new ArrayList<>();
-      for (ModelId id : ids) {
-        list.add(id.key() + "=?");
-      }
+    try (PreparedStatement statement = connection.prepareStatement(templates.selectAll(table, ids))) {
+      final Map<String, StorageType> types = columnTypes(connection, table);
+      bindIds(statement, 1, types, ids);
+
+      try (ResultSet rs = statement.executeQuery()) {
+        final List<Map<String, ProcessedModelField>> data = new ArrayList<>();
+        final ResultSetMetaData meta = rs.getMetaData();
+        while (rs.next()) {
+          data.add(readRow(rs, meta, types));
+        }
 
-      sql =
-        String.format("select * from %s where %s;", table, String.join(" and ", list));
-    } else {
-      sql =
-        String.format("select * from %s;", table);
+        return data;
+      }
+    } catch (SQLException e) {
+      failed(table, e);
     }
 
+    return null;
+  }
+
+  private List<Map<String, ProcessedModelField>> runSelectInQuery(
+    @NotNull Connection connection,
+    @NotNull String table,
+    @NotNull String column,
+    @NotNull List<String> values)
+    throws SQLException {
+    final String sql = templates.selectIn(table, column, values.size());
+
     try (PreparedStatement statement = connection.prepareStatement(sql)) {
-      for (int i = 0; i < ids.length; i++) {
-        ModelId id = ids[i];
-        statement.setString(i + 1, id.value());
+      final Map<String, StorageType> types = columnTypes(connection, table);
+      final StorageType columnType = types.get(column);
+      for (int i = 0; i < values.size(); i++) {
+        ColumnValues.bind(statement, i + 1, columnType, values.get(i), gson);
       }
+
       try (ResultSet rs = statement.executeQuery()) {
-        final List<Map<String, String>> data = new ArrayList<>();
+        final List<Map<String, ProcessedModelField>> data = new ArrayList<>();
+        final ResultSetMetaData meta = rs.getMetaData();
         while (rs.next()) {
-          final Map<String, String> map = new HashMap<>();
+          data.add(readRow(rs, meta, types));
+        }
 
-          final ResultSetMetaData meta = rs.getMetaData();
-          for (int i = 1; i <= meta.getColumnCount(); i++) {
-            map.put(meta.getColumnName(i), rs.getString(i));
+        return data;
+      }
+    }
+  }
+
+  @NotNull
+  private <T extends Model> Stream<T> streamRows(
+    @NotNull Class<T> type,
+    @NotNull Map<String, StorageType> types,
+    @NotNull ResultSet rs,
+    @NotNull AutoCloseable... resources)
+    throws SQLException {
+    final ResultSetMetaData meta = rs.getMetaData();
+    final Spliterator<T> rows =
+      new Spliterators.AbstractSpliterator<T>(
+        Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+          try {
+            if (!rs.next()) {
+              return false;
+            }
+
+            action.accept(deserializeModel(type, toProcessedModel(readRow(rs, meta, types))));
+
+            return true;
+          } catch (SQLException e) {
+            throw new RuntimeException(e);
           }
+        }
+      };
+
+    return StreamSupport.stream(rows, false)
+      .onClose(
+        () -> {
+          closeQuietly(rs);
+          for (AutoCloseable resource : resources) {
+            closeQuietly(resource);
+          }
+        });
+  }
+
+  // Errors are still only logged, but also counted for the group they hit.
+  private void failed(@NotNull String group, @NotNull Exception e) {
+    e.printStackTrace();
+    options.getMetrics().recordError(group, e);
+  }
+
+  private void failed(@NotNull Collection<String> groups, @NotNull Exception e) {
+    e.printStackTrace();
+    for (String group : groups) {
+      options.getMetrics().recordError(group, e);
+    }
+  }
+
+  private static void closeQuietly(@NotNull AutoCloseable resource) {
+    try {
+      resource.close();
+    } catch (Exception e) {
+      e.printStackTrace();
+    }
+  }
 
-          data.add(map);
+  private void bindPage(
+    @NotNull PreparedStatement statement,
+    @NotNull Map<String, StorageType> types,
+    @NotNull PageRequest request,
+    boolean resumeTiebreaker,
+    @NotNull ModelId[] ids)
+    throws SQLException {
+    int index = bindIds(statement, 1, types, ids);
+
+    if (request.getAfter() != null) {
+      final StorageType sortType = types.get(request.getSortKey());
+      ColumnValues.bind(statement, index++, sortType, request.getAfter(), gson);
+
+      if (resumeTiebreaker) {
+        ColumnValues.bind(statement, index++, sortType, request.getAfter(), gson);
+        ColumnValues.bind(
+          statement,
+          index++,
+          types.get(request.getTiebreaker()),
+          Objects.requireNonNull(request.getAfterTiebreaker()),
+          gson);
+      }
+    }
+
+    // One extra row tells whether another page follows.
+    statement.setInt(index, request.getLimit() + 1);
+  }
+
+  @NotNull
+  private <T extends Model> Page<T> readPage(
+    @NotNull Class<T> type,
+    @NotNull Map<String, StorageType> types,
+    @NotNull PageRequest request,
+    @Nullable String tiebreaker,
+    @NotNull ResultSet rs)
+    throws SQLException {
+    final List<T> items = new ArrayList<>();
+    final ResultSetMetaData meta = rs.getMetaData();
+    Map<String, ProcessedModelField> last = null;
+
+    while (rs.next()) {
+      if (items.size() == request.getLimit()) {
+        Objects.requireNonNull(last);
+
+        return new Page<>(
+          items,
+          Keyset.token(
+            request.getSortKey(),
+            last.get(request.getSortKey()).value(),
+            tiebreaker,
+            tiebreaker == null ? null : last.get(tiebreaker)));
+      }
+
+      final Map<String, ProcessedModelField> row = readRow(rs, meta, types);
+      last = row;
+      items.add(deserializeModel(type, toProcessedModel(row)));
+    }
+
+    return new Page<>(items, null);
+  }
+
+  @NotNull
+  private Map<String, ProcessedModelField> readRow(
+    @NotNull ResultSet rs, @NotNull ResultSetMetaData meta, @NotNull Map<String, StorageType> types)
+    throws SQLException {
+    final Map<String, ProcessedModelField> map = new HashMap<>();
+    for (int i = 1; i <= meta.getColumnCount(); i++) {
+      final String column = meta.getColumnName(i);
+      map.put(column, ColumnValues.readField(rs, i, column, types.get(column), gson));
+    }
+
+    return map;
+  }
+
+  private int bindIds(
+    @NotNull PreparedStatement statement,
+    int index,
+    @NotNull Map<String, StorageType> types,
+    @NotNull ModelId[] ids)
+    throws SQLException {
+    for (ModelId id : ids) {
+      ColumnValues.bind(statement, index++, types.get(id.key()), id.value(), gson);
+    }
+
+    return index;
+  }
+
+  // Storage types of the table's typed columns, read from the database once per table.
+  @NotNull
+  private Map<String, StorageType> columnTypes(
+    @NotNull Connection connection, @NotNull String table) throws SQLException {
+    final Map<String, StorageType> known = schema.getColumnTypes(table);
+    if (known != null) {
+      return known;
+    }
+
+    final Map<String, StorageType> types = new HashMap<>();
+    boolean found = false;
+    try (ResultSet rs = connection.getMetaData().getColumns(null, null, table, null)) {
+      while (rs.next()) {
+        final StorageType type =
+          ColumnTypes.fromMetadata(
+            rs.getString("TYPE_NAME"), rs.getInt("COLUMN_SIZE"), rs.getString("REMARKS"));
+        found = true;
+
+        if (type != null) {
+          types.put(rs.getString("COLUMN_NAME"), type);
         }
+      }
+    }
 
-        return data;
+    if (found) {
+      schema.setColumnTypes(table, types);
+    }
+
+    return types;
+  }
+
+  @NotNull
+  private ProcessedModel toProcessedModel(@NotNull Map<String, ProcessedModelField> data) {
+    for (ProcessedModelField field : data.values()) {
+      if (field instanceof BinaryProcessedModelField) {
+        return new BinaryProcessedModel(data, gson);
       }
-    } catch (SQLException e) {
-      e.printStackTrace();
     }
 
-    return null;
+    return new JSONProcessedModel(data, gson);
   }
 
-  private void runInsertSql(
-    @NotNull Connection connection, @NotNull String table, @NotNull ProcessedModel model) {
-    final List<String> keys = new ArrayList<>(), combined = new ArrayList<>();
+  private void runInsertBatch(
+    @NotNull Connection connection, @NotNull String table, @NotNull List<Model> models)
+    throws SQLException {
+    final RowWriter row = rows.get();
+    final Map<String, PreparedStatement> statements = new HashMap<>();
+    final Map<String, int[]> pending = new HashMap<>();
+    final int batchSize = options.getBatchSize();
+    long bytes = 0;
+
+    try {
+      for (Model model : models) {
+        row.reset();
+        writeModel(model, row);
+        // DDL here would commit the open transaction, so ensureTables must have created it.
+        if (!options.isSchemaManagedExternally() && !schema.hasColumns(table, row.keys())) {
+          throw new SQLException("Table " + table + " is missing columns for " + row.keys());
+        }
 
-    model
-      .values()
-      .forEach(
-        (k, v) -> {
-          keys.add(k);
-          combined.add(k + "=?");
-        });
+        // Models normally share one shape; a different field set just gets its own statement.
+        final String sql = row.insertSql(templates, table);
+        PreparedStatement statement = statements.get(sql);
+        if (statement == null) {
+          statement = connection.prepareStatement(sql);
+          statements.put(sql, statement);
+          pending.put(sql, new int[1]);
+        }
 
-    final String sql =
-      String.format(
-        "insert into %s (%s) values (%s) on duplicate key update %s;",
-        table,
-        String.join(",", keys),
-        String.join(",", Collections.nCopies(keys.size(), "?")),
-        String.join(",", combined));
+        bytes += row.bind(statement, columnTypes(connection, table), gson);
+        statement.addBatch();
 
-    try (PreparedStatement statement = connection.prepareStatement(sql)) {
-      for (int i = 1; i <= keys.size(); i++) {
-        int finalI = i;
-        model
-          .getField(keys.get(i - 1))
-          .ifPresent(
-            field -> {
-              try {
-                statement.setString(finalI, field.value());
-              } catch (SQLException e) {
-                e.printStackTrace();
-              }
-            });
-      }
-      for (int i = keys.size() + 1; i <= (keys.size() * 2); i++) {
-        int finalI = i;
-        model
-          .getField(keys.get(Math.abs(keys.size() - i + 1)))
-          .ifPresent(
-            field -> {
-              try {
-                statement.setString(finalI, field.value());
-              } catch (SQLException e) {
-                e.printStackTrace();
-              }
-            });
+        final int[] count = pending.get(sql);
+        if (++count[0] == batchSize) {
+          statement.executeBatch();
+          count[0] = 0;
+        }
       }
 
-      statement.execute();
-    } catch (SQLException e) {
-      e.printStackTrace();
+      for (Map.Entry<String, PreparedStatement> entry : statements.entrySet()) {
+        if (pending.get(entry.getKey())[0] != 0) {
+          entry.getValue().executeBatch();
+        }
+      }
+
+      options.getMetrics().recordSerializedBytes(table, bytes);
+    } finally {
+      row.reset();
+      for (PreparedStatement statement : statements.values()) {
+        closeQuietly(statement);
+      }
+    }
+  }
+
+  // Consecutive sets are batched per table; a delete first writes the sets queued before it.
+  private void runOperations(
+    @NotNull Connection connection, @NotNull List<DataStoreTransaction.Operation> operations)
+    throws SQLException {
+    final Map<String, List<Model>> inserts = new LinkedHashMap<>();
+
+    for (DataStoreTransaction.Operation operation : operations) {
+      if (!operation.isDelete()) {
+        inserts
+          .computeIfAbsent(getStoredGroup(operation.getModel().getClass()), k -> new ArrayList<>())
+          .add(operation.getModel());
+        continue;
+      }
+
+      for (Map.Entry<String, List<Model>> entry : inserts.entrySet()) {
+        runInsertBatch(connection, entry.getKey(), entry.getValue());
+      }
+      inserts.clear();
+
+      final String table = getStoredGroup(operation.getType());
+      if (!tableNotExists(connection, table)) {
+        runDeleteSql(connection, table, operation.getIds());
+      }
+    }
+
+    for (Map.Entry<String, List<Model>> entry : inserts.entrySet()) {
+      runInsertBatch(connection, entry.getKey(), entry.getValue());
+    }
+  }
+
+  // DDL commits implicitly on MySQL, so the schema for every field set in the batch is created
+  // before a transaction opens; runInsertBatch fails the batch if any of it is still missing.
+  private void ensureTables(
+    @NotNull Connection connection, @NotNull Collection<? extends Model> models) {
+    final RowWriter row = rows.get();
+
+    try {
+      for (Model model : models) {
+        row.reset();
+        writeModel(model, row);
+        ensureTable(connection, getStoredGroup(model.getClass()), row);
+      }
+    } finally {
+      row.reset();
+    }
+  }
+
+  private void ensureTable(
+    @NotNull Connection connection, @NotNull String table, @NotNull RowWriter row) {
+    if (!options.isSchemaManagedExternally() && !schema.hasColumns(table, row.keys())) {
+      createTableIfNotExists(connection, table, row.toProcessedModel(gson));
     }
   }
 
   private boolean tableNotExists(@NotNull Connection connection, @NotNull String table)
     throws SQLException {
-    return !connection.getMetaData().getTables(null, null, table, null).next();
+    if (options.isSchemaManagedExternally() || schema.isKnown(table)) {
+      return false;
+    }
+
+    try (ResultSet rs = connection.getMetaData().getTables(null, null, table, null)) {
+      if (!rs.next()) {
+        return true;
+      }
+    }
+
+    schema.markKnown(table);
+
+    return false;
   }
 
   @Override
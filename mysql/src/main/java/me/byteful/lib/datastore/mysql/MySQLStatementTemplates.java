@@ -0,0 +1,39 @@
+package me.byteful.lib.datastore.mysql;
+
+import me.byteful.lib.datastore.api.data.internal.StatementTemplates;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collections;
+
+// MySQL spellings of the statements; the templates are handed to Connector/J's prepared
+// statement cache.
+final class MySQLStatementTemplates extends StatementTemplates {
+  @Override
+  protected @NotNull String clearSql(@NotNull String table) {
+    return String.format("truncate table %s;", table);
+  }
+
+  @Override
+  protected @NotNull String insertSql(@NotNull String table, @NotNull String[] columns) {
+    return String.format(
+      "insert into %s (%s) values (%s) on duplicate key update %s;",
+      table,
+      String.join(",", columns),
+      String.join(",", Collections.nCopies(columns.length, "?")),
+      assignments(columns));
+  }
+
+  @NotNull
+  private static String assignments(@NotNull String[] columns) {
+    final StringBuilder builder = new StringBuilder();
+    for (int i = 0; i < columns.length; i++) {
+      if (i != 0) {
+        builder.append(',');
+      }
+
+      builder.append(columns[i]).append("=values(").append(columns[i]).append(')');
+    }
+
+    return builder.toString();
+  }
+}
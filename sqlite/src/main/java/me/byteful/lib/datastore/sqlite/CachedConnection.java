@@ -0,0 +1,83 @@
+package me.byteful.lib.datastore.sqlite;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// A connection paired with an LRU cache of its prepared statements. Statements handed out by
+// prepare() stay owned by the cache and must not be closed by callers.
+final class CachedConnection implements AutoCloseable {
+  static final int DEFAULT_CAPACITY = 128;
+
+  @NotNull
+  private final Connection connection;
+  @NotNull
+  private final Map<String, PreparedStatement> statements;
+
+  CachedConnection(@NotNull Connection connection, int capacity) {
+    this.connection = connection;
+    this.statements =
+      new LinkedHashMap<String, PreparedStatement>(16, 0.75F, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+          if (size() <= capacity) {
+            return false;
+          }
+
+          closeQuietly(eldest.getValue());
+
+          return true;
+        }
+      };
+  }
+
+  @NotNull
+  Connection getConnection() {
+    return connection;
+  }
+
+  @NotNull
+  synchronized PreparedStatement prepare(@NotNull String sql) throws SQLException {
+    PreparedStatement statement = statements.get(sql);
+
+    if (statement == null || statement.isClosed()) {
+      statement = connection.prepareStatement(sql);
+      statements.put(sql, statement);
+    } else {
+      statement.clearParameters();
+    }
+
+    return statement;
+  }
+
+  synchronized void evict(@NotNull String sql) {
+    final PreparedStatement statement = statements.remove(sql);
+
+    if (statement != null) {
+      closeQuietly(statement);
+    }
+  }
+
+  synchronized void evictAll() {
+    statements.values().forEach(CachedConnection::closeQuietly);
+    statements.clear();
+  }
+
+  @Override
+  public void close() throws SQLException {
+    evictAll();
+    connection.close();
+  }
+
+  private static void closeQuietly(@NotNull PreparedStatement statement) {
+    try {
+      statement.close();
+    } catch (SQLException ignored) {
+      //
+    }
+  }
+}
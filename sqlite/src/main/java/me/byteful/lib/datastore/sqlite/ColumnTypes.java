@@ -0,0 +1,69 @@
+package me.byteful.lib.datastore.sqlite;
+
+import me.byteful.lib.datastore.api.model.ProcessedModelField;
+import me.byteful.lib.datastore.api.model.ProcessedModelFieldType;
+import me.byteful.lib.datastore.api.model.StorageType;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Locale;
+
+// Maps StorageType hints to SQLite declared types and back. A null storage type is the legacy
+// varchar(255) JSON text column.
+final class ColumnTypes {
+  private ColumnTypes() {
+  }
+
+  @NotNull
+  static String definition(@NotNull ProcessedModelField field) {
+    final StorageType type = field.storageType();
+    if (type == null) {
+      return "varchar(255)";
+    }
+
+    switch (type) {
+      case INT:
+        return "int";
+      case BIGINT:
+        return "bigint";
+      case DOUBLE:
+        return "double";
+      case BOOLEAN:
+        return "boolean";
+      case TEXT:
+        return "text";
+      case BLOB:
+        return "blob";
+      case BINARY:
+        return field.type() == ProcessedModelFieldType.NORMAL ? "binary blob" : "varchar(255)";
+      default:
+        // A bare "json" would get numeric affinity and rewrite number literals.
+        return "json text";
+    }
+  }
+
+  // Reverse of definition, based on the declared type SQLite reports for the column.
+  @Nullable
+  static StorageType fromMetadata(@NotNull String typeName) {
+    final String name = typeName.toUpperCase(Locale.ROOT);
+    if (name.contains("BINARY")) {
+      return StorageType.BINARY;
+    } else if (name.contains("JSON")) {
+      return StorageType.JSON;
+    } else if (name.contains("BIGINT")) {
+      return StorageType.BIGINT;
+    } else if (name.contains("BOOL")) {
+      return StorageType.BOOLEAN;
+    } else if (name.contains("INT")) {
+      return StorageType.INT;
+    } else if (name.contains("DOUBLE") || name.contains("FLOAT") || name.contains("REAL")) {
+      return StorageType.DOUBLE;
+    } else if (name.contains("BLOB")) {
+      return StorageType.BLOB;
+    } else if (name.contains("TEXT") || name.contains("CLOB")) {
+      return StorageType.TEXT;
+    }
+
+    return null;
+  }
+}
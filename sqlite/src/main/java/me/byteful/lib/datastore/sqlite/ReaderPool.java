@@ -0,0 +1,74 @@
+package me.byteful.lib.datastore.sqlite;
+
+import me.byteful.lib.datastore.api.data.DataStoreOptions;
+import org.jetbrains.annotations.NotNull;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Fixed set of read-only connections, each used by one caller at a time.
+final class ReaderPool implements AutoCloseable {
+  private final List<CachedConnection> connections;
+  private final DataStoreOptions options;
+  private final BlockingQueue<CachedConnection> idle;
+  // Statement caches are dropped lazily, the next time each connection is handed out, so
+  // evictAll() never touches a connection that is in use.
+  private final AtomicInteger generation = new AtomicInteger();
+  private final Map<CachedConnection, Integer> generations = new IdentityHashMap<>();
+
+  ReaderPool(@NotNull List<CachedConnection> connections, @NotNull DataStoreOptions options) {
+    this.connections = new ArrayList<>(connections);
+    this.options = options;
+    this.idle = new ArrayBlockingQueue<>(connections.size(), false, connections);
+  }
+
+  @NotNull
+  CachedConnection acquire() {
+    final long start = System.nanoTime();
+    final CachedConnection connection;
+    try {
+      connection = idle.take();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while waiting for a SQLite reader connection", e);
+    }
+
+    // Reported like a Hikari pool wait would be.
+    options.getMetrics().recordConnectionWait(System.nanoTime() - start);
+
+    final int current = generation.get();
+    synchronized (generations) {
+      final Integer seen = generations.put(connection, current);
+      if (seen != null && seen != current) {
+        connection.evictAll();
+      }
+    }
+
+    return connection;
+  }
+
+  void release(@NotNull CachedConnection connection) {
+    idle.add(connection);
+  }
+
+  void evictAll() {
+    generation.incrementAndGet();
+  }
+
+  @Override
+  public void close() {
+    for (CachedConnection connection : connections) {
+      try {
+        connection.close();
+      } catch (SQLException e) {
+        e.printStackTrace();
+      }
+    }
+  }
+}
@@ -3,65 +3,223 @@ package me.byteful.lib.datastore.sqlite;
 import com.google.gson.Gson;
 import me.byteful.lib.datastore.api.DataStoreConstants;
 import me.byteful.lib.datastore.api.data.DataStore;
+import me.byteful.lib.datastore.api.data.DataStoreOptions;
+import me.byteful.lib.datastore.api.data.DataStoreTransaction;
+import me.byteful.lib.datastore.api.data.Page;
+import me.byteful.lib.datastore.api.data.PageRequest;
+import me.byteful.lib.datastore.api.data.SchemaRegistry;
+import me.byteful.lib.datastore.api.data.async.AsyncDataStore;
+import me.byteful.lib.datastore.api.data.async.DataStoreExecutors;
+import me.byteful.lib.datastore.api.data.async.ExecutorAsyncDataStore;
+import me.byteful.lib.datastore.api.data.internal.ColumnValues;
+import me.byteful.lib.datastore.api.data.internal.Keyset;
+import me.byteful.lib.datastore.api.data.internal.RowWriter;
+import me.byteful.lib.datastore.api.data.internal.StatementTemplates;
+import me.byteful.lib.datastore.api.data.internal.Values;
+import me.byteful.lib.datastore.api.data.metrics.DataStoreMetrics;
 import me.byteful.lib.datastore.api.model.*;
+import me.byteful.lib.datastore.api.model.impl.BinaryProcessedModel;
+import me.byteful.lib.datastore.api.model.impl.BinaryProcessedModelField;
 import me.byteful.lib.datastore.api.model.impl.JSONProcessedModel;
-import me.byteful.lib.datastore.api.model.impl.JSONProcessedModelField;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.nio.file.Path;
 import java.sql.*;
 import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class SQLiteDataStore implements DataStore {
   private final Gson gson;
-  private final Connection conn;
+  private final SQLiteSettings settings;
+  private final SQLiteWriter writer;
+  // Null unless in WAL mode, where reads run on the writer connection instead.
+  @Nullable
+  private final ReaderPool readers;
+  private final SQLiteMaintenance maintenance;
+  private final DataStoreOptions options = new DataStoreOptions();
+  private final SchemaRegistry schema = new SchemaRegistry();
+  private final StatementTemplates templates = new SQLiteStatementTemplates();
+  private final ThreadLocal<RowWriter> rows = ThreadLocal.withInitial(RowWriter::new);
+
+  public SQLiteDataStore(Gson gson, Path file, SQLiteSettings settings) {
+    this.gson = gson;
+    this.settings = settings;
+    // The writer opens (and, on first use, creates) the file before any reader does.
+    final CachedConnection writable = buildConnection(file, settings.writerProperties());
+    applyAutoVacuum(writable, settings.getAutoVacuum());
+    this.writer = new SQLiteWriter(writable, settings.getMaxWriteBatch());
+
+    // In the rollback journal modes a reader's shared lock keeps the writer from committing, so
+    // a long read such as an open stream() would make writes time out with SQLITE_BUSY.
+    if (settings.getJournalMode() == SQLiteSettings.JournalMode.WAL) {
+      final List<CachedConnection> connections = new ArrayList<>();
+      for (int i = 0; i < settings.getReaderConnections(); i++) {
+        connections.add(buildConnection(file, settings.readerProperties()));
+      }
+
+      this.readers = new ReaderPool(connections, options);
+    } else {
+      this.readers = null;
+    }
+
+    this.maintenance = new SQLiteMaintenance(writer, settings);
+  }
 
   public SQLiteDataStore(Gson gson, Path file) {
-    this.gson = gson;
-    this.conn = buildConnection(file);
+    this(gson, file, new SQLiteSettings());
   }
 
-  public SQLiteDataStore(Path file) {
-    this.conn = buildConnection(file);
-    this.gson = DataStoreConstants.GSON;
+  public SQLiteDataStore(Path file, SQLiteSettings settings) {
+    this(DataStoreConstants.GSON, file, settings);
   }
 
-  private Connection buildConnection(Path file) {
-    final Properties properties = new Properties();
-    properties.setProperty("foreign_keys", "on");
-    properties.setProperty("busy_timeout", "1000");
+  public SQLiteDataStore(Path file) {
+    this(DataStoreConstants.GSON, file, new SQLiteSettings());
+  }
 
+  private CachedConnection buildConnection(Path file, Properties properties) {
     try {
-      return DriverManager.getConnection("jdbc:sqlite:" + file.toAbsolutePath(), properties);
+      return new CachedConnection(
+        DriverManager.getConnection("jdbc:sqlite:" + file.toAbsolutePath(), properties),
+        CachedConnection.DEFAULT_CAPACITY);
+    } catch (SQLException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  // Not a connection property in sqlite-jdbc. Once the file has a header (which switching to WAL
+  // already writes) the mode only changes through VACUUM, so that is run while it is still free.
+  private static void applyAutoVacuum(
+    @NotNull CachedConnection connection, @Nullable SQLiteSettings.AutoVacuum mode) {
+    if (mode == null) {
+      return;
+    }
+
+    try (Statement statement = connection.getConnection().createStatement()) {
+      statement.execute("pragma auto_vacuum=" + mode.name() + ";");
+
+      try (ResultSet rs = statement.executeQuery("pragma auto_vacuum;")) {
+        if (rs.next() && rs.getInt(1) == mode.ordinal()) {
+          return;
+        }
+      }
+
+      try (ResultSet rs = statement.executeQuery("select count(*) from sqlite_master;")) {
+        if (rs.next() && rs.getInt(1) != 0) {
+          return;
+        }
+      }
+
+      statement.execute("VACUUM;");
     } catch (SQLException e) {
       throw new RuntimeException(e);
     }
   }
 
+  @NotNull
+  public DataStoreOptions getOptions() {
+    return options;
+  }
+
+  @NotNull
+  public SchemaRegistry getSchemaRegistry() {
+    return schema;
+  }
+
+  // Drops cached schema state and compiled statements for a table that was altered or
+  // dropped outside of this store.
+  public void invalidateSchema(@NotNull String table) {
+    schema.invalidate(table);
+    templates.invalidate(table);
+    if (readers != null) {
+      readers.evictAll();
+    }
+
+    try {
+      writer.call(
+        connection -> {
+          connection.evictAll();
+
+          return null;
+        });
+    } catch (SQLException e) {
+      failed(table, e);
+    }
+  }
+
+  // Runs one round of the background maintenance now, ignoring its schedule and quiet period.
+  public void runMaintenance() {
+    try {
+      maintenance.run();
+    } catch (SQLException e) {
+      e.printStackTrace();
+    }
+  }
+
+  // Rebuilds the whole file to reclaim all free space, holding up every write until it is done.
+  // Also the only way to move an existing file to a different auto_vacuum mode.
+  public void vacuum() {
+    try {
+      writer.callOutsideTransaction(
+        connection -> {
+          try (Statement statement = connection.getConnection().createStatement()) {
+            statement.execute("VACUUM;");
+          }
+
+          return null;
+        });
+    } catch (SQLException e) {
+      e.printStackTrace();
+    }
+  }
+
   @Override
   public @NotNull <T extends Model> Optional<T> get(@NotNull Class<T> type, @NotNull ModelId id, @NotNull ModelId... ids) {
     final String table = getStoredGroup(type);
     final @NotNull ModelId[] compiled = compile(id, ids);
 
     try {
-      if (tableNotExists(conn, table)) {
-        return Optional.empty();
-      }
-
-      final Map<String, String> data = runSelectQuery(conn, table, compiled);
+      final Map<String, ProcessedModelField> data =
+        read(conn -> tableNotExists(conn, table) ? null : runSelectQuery(conn, table, compiled));
 
       if (data == null) {
         return Optional.empty();
       }
 
-      final JSONProcessedModel processed = new JSONProcessedModel(gson);
-      Objects.requireNonNull(data)
-        .forEach(
-          (k, v) ->
-            processed.append(
-              JSONProcessedModelField.of(k, v, ProcessedModelFieldType.NORMAL)));
+      return Optional.of(deserializeModel(type, toProcessedModel(data)));
+    } catch (SQLException e) {
+      throw new RuntimeException(e);
+    }
+  }
 
-      return Optional.of(deserializeModel(type, processed));
+  @Override
+  public @NotNull Optional<ProcessedModel> getFields(
+    @NotNull Class<? extends Model> type,
+    @NotNull Set<String> fields,
+    @NotNull ModelId id,
+    @NotNull ModelId... ids) {
+    final String table = getStoredGroup(type);
+    final @NotNull ModelId[] compiled = compile(id, ids);
+    final String[] columns = fields.toArray(new String[0]);
+    if (columns.length == 0) {
+      return exists(type, id, ids) ? Optional.of(new JSONProcessedModel(gson)) : Optional.empty();
+    }
+
+    Arrays.sort(columns);
+
+    try {
+      final Map<String, ProcessedModelField> data =
+        read(
+          conn ->
+            tableNotExists(conn, table)
+              ? null
+              : runSelectSql(
+                conn, table, templates.selectFields(table, columns, compiled), compiled));
+
+      return Optional.ofNullable(data).map(this::toProcessedModel);
     } catch (SQLException e) {
       throw new RuntimeException(e);
     }
@@ -73,37 +231,264 @@ public class SQLiteDataStore implements DataStore {
     final List<T> list = new ArrayList<>();
 
     try {
-      if (tableNotExists(conn, table)) {
-        return list;
-      }
-
-      final List<Map<String, String>> data = runSelectAllQuery(conn, table, ids);
+      final List<Map<String, ProcessedModelField>> data =
+        read(conn -> tableNotExists(conn, table) ? null : runSelectAllQuery(conn, table, ids));
 
       if (data == null) {
         return list;
       }
 
-      for (Map<String, String> map : data) {
-        final JSONProcessedModel processed = new JSONProcessedModel(gson);
-        map.forEach((k, v) ->
-          processed.append(
-            JSONProcessedModelField.of(k, v, ProcessedModelFieldType.NORMAL)));
-        list.add(deserializeModel(type, processed));
+      for (Map<String, ProcessedModelField> map : data) {
+        list.add(deserializeModel(type, toProcessedModel(map)));
       }
     } catch (SQLException e) {
-      e.printStackTrace();
+      failed(table, e);
     }
 
     return list;
   }
 
+  @Override
+  public @NotNull <T extends Model> Stream<T> stream(
+    @NotNull Class<T> type, @NotNull ModelId... ids) {
+    if (readers == null) {
+      // Loaded up front: a cursor on the writer connection would hold it for as long as the
+      // caller iterates.
+      return getAll(type, ids).stream();
+    }
+
+    final String table = getStoredGroup(type);
+    final CachedConnection conn = readers.acquire();
+    PreparedStatement statement = null;
+
+    try {
+      if (tableNotExists(conn, table)) {
+        readers.release(conn);
+
+        return Stream.empty();
+      }
+
+      // Not taken from the statement cache: the cursor stays open while the caller iterates,
+      // so the statement must not be handed out to anyone else in the meantime.
+      statement = conn.getConnection().prepareStatement(templates.selectAll(table, ids));
+      statement.setFetchSize(options.getFetchSize());
+      final Map<String, StorageType> types = columnTypes(conn, table);
+      bindIds(statement, 1, types, ids);
+
+      // The reader connection stays checked out until the stream is closed.
+      return streamRows(
+        type, types, statement.executeQuery(), statement, () -> readers.release(conn));
+    } catch (SQLException e) {
+      if (statement != null) {
+        closeQuietly(statement);
+      }
+
+      readers.release(conn);
+      failed(table, e);
+    }
+
+    return Stream.empty();
+  }
+
+  @Override
+  public @NotNull <T extends Model> Page<T> getPage(
+    @NotNull Class<T> type, @NotNull PageRequest request, @NotNull ModelId... ids) {
+    final String table = getStoredGroup(type);
+
+    try {
+      return read(
+        conn -> {
+          if (tableNotExists(conn, table)) {
+            return new Page<>(Collections.<T>emptyList(), null);
+          }
+
+          final Map<String, StorageType> types = columnTypes(conn, table);
+          // BINARY columns hold each value's own encoding, whose bytes don't sort like the values.
+          if (types.get(request.getSortKey()) == StorageType.BINARY) {
+            throw new IllegalArgumentException(
+              "Cannot page " + table + " by BINARY column " + request.getSortKey());
+          }
+
+          if (schema.getTiebreaker(table) == null) {
+            reloadSchema(conn);
+          }
+
+          final String tiebreaker =
+            Keyset.tiebreaker(
+              schema, conn.getConnection(), table, types, request.getSortKey());
+          final boolean resumeTiebreaker = Keyset.resumesTiebreaker(table, tiebreaker, request);
+          final String sql =
+            templates.page(
+              table,
+              ids,
+              request.getSortKey(),
+              tiebreaker,
+              request.getAfter() != null,
+              resumeTiebreaker);
+
+          try {
+            final PreparedStatement statement = conn.prepare(sql);
+            bindPage(statement, types, request, resumeTiebreaker, ids);
+
+            try (ResultSet rs = statement.executeQuery()) {
+              return readPage(type, types, request, tiebreaker, rs);
+            }
+          } catch (SQLException e) {
+            conn.evict(sql);
+            throw e;
+          }
+        });
+    } catch (SQLException e) {
+      failed(table, e);
+    }
+
+    return new Page<>(Collections.emptyList(), null);
+  }
+
+  @Override
+  public @NotNull <T extends Model> Map<ModelId, T> getMany(
+    @NotNull Class<T> type, @NotNull Collection<? extends ModelId> ids) {
+    final String table = getStoredGroup(type);
+    final Map<ModelId, T> found = new LinkedHashMap<>();
+
+    if (ids.isEmpty()) {
+      return found;
+    }
+
+    final Map<String, Map<String, ModelId>> columns = new LinkedHashMap<>();
+    for (ModelId id : ids) {
+      columns.computeIfAbsent(id.key(), k -> new LinkedHashMap<>()).put(id.value(), id);
+    }
+
+    try {
+      read(
+        conn -> {
+          if (tableNotExists(conn, table)) {
+            return null;
+          }
+
+          final int chunkSize = options.getLookupChunkSize();
+          for (Map.Entry<String, Map<String, ModelId>> entry : columns.entrySet()) {
+            final String column = entry.getKey();
+            final List<String> values = new ArrayList<>(entry.getValue().keySet());
+            // Rows come back in the column's own form (5 for "5.0", unquoted text), so both sides
+            // are matched canonically rather than by the id's text.
+            final StorageType storage =
+              columnTypes(conn, table).getOrDefault(column, StorageType.JSON);
+            final Map<Object, List<ModelId>> byValue = new HashMap<>();
+            for (ModelId id : entry.getValue().values()) {
+              final Object value = Values.canonical(storage, id.value());
+
+              if (value != null) {
+                byValue.computeIfAbsent(value, k -> new ArrayList<>(1)).add(id);
+              }
+            }
+
+            for (int i = 0; i < values.size(); i += chunkSize) {
+              final List<String> chunk =
+                values.subList(i, Math.min(i + chunkSize, values.size()));
+
+              for (Map<String, ProcessedModelField> row :
+                runSelectInQuery(conn, table, column, chunk)) {
+                final List<ModelId> matched =
+                  byValue.get(Values.canonical(storage, row.get(column).value()));
+
+                if (matched != null) {
+                  for (ModelId id : matched) {
+                    found.put(id, deserializeModel(type, toProcessedModel(row)));
+                  }
+                }
+              }
+            }
+          }
+
+          return null;
+        });
+    } catch (SQLException e) {
+      failed(table, e);
+    }
+
+    return found;
+  }
+
   @Override
   public void set(@NotNull ModelId id, @NotNull Model model) {
-    final ProcessedModel processed = serializeModel(model);
     final String table = getStoredGroup(model.getClass());
+    final RowWriter row = rows.get();
 
-    createTableIfNotExists(conn, table, processed);
-    runInsertSql(conn, table, processed);
+    try {
+      // Serialized on the calling thread; only binding and executing happen on the writer.
+      writeModel(model, row);
+      ensureTableCommitted(table, row);
+      writer.call(
+        connection -> {
+          final String sql = row.insertSql(templates, table);
+
+          try {
+            final PreparedStatement statement = connection.prepare(sql);
+            final int bytes = row.bind(statement, columnTypes(connection, table), gson);
+
+            statement.execute();
+            options.getMetrics().recordSerializedBytes(table, bytes);
+          } catch (SQLException e) {
+            connection.evict(sql);
+            throw e;
+          }
+
+          return null;
+        });
+    } catch (SQLException e) {
+      failed(table, e);
+    } finally {
+      row.reset();
+    }
+  }
+
+  @Override
+  public boolean setAll(@NotNull Map<? extends ModelId, ? extends Model> models) {
+    if (models.isEmpty()) {
+      return true;
+    }
+
+    final Map<String, List<Model>> tables = new LinkedHashMap<>();
+    for (Model model : models.values()) {
+      tables.computeIfAbsent(getStoredGroup(model.getClass()), k -> new ArrayList<>()).add(model);
+    }
+
+    final RowWriter row = rows.get();
+
+    try {
+      // Tables are created up front from one model of each type, outside the transaction.
+      for (Map.Entry<String, List<Model>> entry : tables.entrySet()) {
+        final Set<Class<?>> seen = new HashSet<>();
+        for (Model model : entry.getValue()) {
+          if (seen.add(model.getClass())) {
+            row.reset();
+            writeModel(model, row);
+            ensureTableCommitted(entry.getKey(), row);
+          }
+        }
+      }
+
+      row.reset();
+      // One task, so the whole map is written or rolled back together.
+      writer.call(
+        connection -> {
+          for (Map.Entry<String, List<Model>> entry : tables.entrySet()) {
+            runInsertBatch(connection, entry.getKey(), entry.getValue());
+          }
+
+          return null;
+        });
+
+      return true;
+    } catch (SQLException e) {
+      failed(tables.keySet(), e);
+    } finally {
+      row.reset();
+    }
+
+    return false;
   }
 
   @Override
@@ -117,43 +502,101 @@ public class SQLiteDataStore implements DataStore {
     final @NotNull ModelId[] compiled = compile(id, ids);
 
     try {
-      if (tableNotExists(conn, table)) {
-        return;
-      }
+      writer.call(
+        connection -> {
+          if (!tableNotExists(connection, table)) {
+            runDeleteSql(connection, table, compiled);
+          }
 
-      runDeleteSql(conn, table, compiled);
+          return null;
+        });
     } catch (SQLException e) {
-      e.printStackTrace();
+      failed(table, e);
     }
   }
 
   @Override
   public void clear(@NotNull Class<? extends Model> type) {
     final String table = getStoredGroup(type);
-    final String sql = String.format("delete from %s;", table);
+    final String sql = templates.clear(table);
 
     try {
-      if (tableNotExists(conn, table)) {
-        return;
-      }
+      // An unconditional delete is truncated by SQLite instead of removing rows one by one. The
+      // freed pages are reclaimed later by maintenance (or vacuum()), not on the caller's time.
+      writer.call(
+        connection -> {
+          if (tableNotExists(connection, table)) {
+            return null;
+          }
 
-      try (PreparedStatement statement = conn.prepareStatement(sql)) {
-        statement.execute();
-      }
+          try {
+            connection.prepare(sql).execute();
+          } catch (SQLException e) {
+            connection.evict(sql);
+            throw e;
+          }
+
+          return null;
+        });
+    } catch (SQLException e) {
+      failed(table, e);
+    }
+  }
+
+  @Override
+  public boolean commit(@NotNull DataStoreTransaction transaction) {
+    if (transaction.isEmpty()) {
+      return true;
+    }
+
+    final RowWriter row = rows.get();
 
-      try (PreparedStatement statement = conn.prepareStatement("VACUUM;")) {
-        statement.execute();
+    try {
+      // Same as setAll: tables first, then the whole transaction as one writer task.
+      final Set<Class<?>> seen = new HashSet<>();
+      for (DataStoreTransaction.Operation operation : transaction.getOperations()) {
+        if (!operation.isDelete() && seen.add(operation.getModel().getClass())) {
+          row.reset();
+          writeModel(operation.getModel(), row);
+          ensureTableCommitted(getStoredGroup(operation.getModel().getClass()), row);
+        }
       }
+
+      row.reset();
+      writer.call(
+        connection -> {
+          runOperations(connection, transaction.getOperations());
+
+          return null;
+        });
+
+      return true;
     } catch (SQLException e) {
-      e.printStackTrace();
+      failed(DataStoreMetrics.MIXED_GROUP, e);
+    } finally {
+      row.reset();
     }
+
+    return false;
+  }
+
+  @Override
+  public @NotNull AsyncDataStore async() {
+    // Reads run in parallel on the reader connections; writes queue up for the writer thread.
+    return new ExecutorAsyncDataStore(
+      this, DataStoreExecutors.bounded(settings.getReaderConnections() + 1), true);
   }
 
   private void createTableIfNotExists(
-    @NotNull Connection connection, @NotNull String tableName, @NotNull ProcessedModel model) {
+    @NotNull CachedConnection connection, @NotNull String tableName, @NotNull ProcessedModel model) {
+    if (options.isSchemaManagedExternally()
+      || schema.hasColumns(tableName, model.values().keySet())) {
+      return;
+    }
+
     final List<String> list = new ArrayList<>(), indexes = new ArrayList<>(), uniqueIndexes = new ArrayList<>();
     for (ProcessedModelField field : model.values().values()) {
-      String data = field.key() + " varchar(255)";
+      String data = field.key() + " " + ColumnTypes.definition(field);
 
       if (field.type() == ProcessedModelFieldType.INDEXED) {
         indexes.add(field.key());
@@ -165,183 +608,499 @@ public class SQLiteDataStore implements DataStore {
       list.add(data);
     }
 
-    String sql =
-      String.format("create table if not exists %s (%s);", tableName, String.join(",", list));
+    boolean created =
+      executeDdl(
+        connection,
+        String.format("create table if not exists %s (%s);", tableName, String.join(",", list)));
+
+    if (!indexes.isEmpty()) {
+      for (String index : indexes) {
+        created &=
+          executeDdl(
+            connection,
+            String.format("create index if not exists index_%s on %s (%s);", index, tableName, index));
+      }
 
-    try (PreparedStatement statement = connection.prepareStatement(sql)) {
+      for (String index : uniqueIndexes) {
+        created &=
+          executeDdl(
+            connection,
+            String.format(
+              "create unique index if not exists index_%s on %s (%s);", index, tableName, index));
+      }
+    }
+
+    // Readers trust the registry, so it only learns about the table once the DDL is visible.
+    if (created) {
+      writer.afterCommit(
+        () -> {
+          schema.addColumns(tableName, model.values().keySet());
+          schema.invalidateColumnTypes(tableName);
+        });
+    }
+  }
+
+  private boolean executeDdl(@NotNull CachedConnection connection, @NotNull String sql) {
+    try (PreparedStatement statement = connection.getConnection().prepareStatement(sql)) {
       statement.execute();
+
+      return true;
     } catch (SQLException e) {
       e.printStackTrace();
-    }
 
-    if (indexes.isEmpty()) {
-      return;
+      return false;
     }
+  }
 
-    for (String index : indexes) {
-      sql = String.format("create index if not exists index_%s on %s (%s);", index, tableName, index);
+  private void runDeleteSql(
+    @NotNull CachedConnection connection, @NotNull String table, @NotNull ModelId[] ids)
+    throws SQLException {
+    final String sql = templates.delete(table, ids);
 
-      try (PreparedStatement statement = connection.prepareStatement(sql)) {
-        statement.execute();
-      } catch (SQLException e) {
-        e.printStackTrace();
-      }
+    try {
+      final PreparedStatement statement = connection.prepare(sql);
+      bindIds(statement, 1, columnTypes(connection, table), ids);
+
+      statement.execute();
+    } catch (SQLException e) {
+      connection.evict(sql);
+      throw e;
     }
+  }
 
-    for (String index : uniqueIndexes) {
-      sql = String.format("create unique index if not exists index_%s on %s (%s);", index, tableName, index);
+  private Map<String, ProcessedModelField> runSelectQuery(
+    @NotNull CachedConnection connection, @NotNull String table, @NotNull ModelId[] ids) {
+    return runSelectSql(connection, table, templates.select(table, ids), ids);
+  }
+
+  private Map<String, ProcessedModelField> runSelectSql(
+    @NotNull CachedConnection connection,
+    @NotNull String table,
+    @NotNull String sql,
+    @NotNull ModelId[] ids) {
+    try {
+      final Map<String, StorageType> types = columnTypes(connection, table);
+      final PreparedStatement statement = connection.prepare(sql);
+      bindIds(statement, 1, types, ids);
 
-      try (PreparedStatement statement = connection.prepareStatement(sql)) {
-        statement.execute();
-      } catch (SQLException e) {
-        e.printStackTrace();
+      try (ResultSet rs = statement.executeQuery()) {
+        if (rs.next()) {
+          return readRow(rs, rs.getMetaData(), types);
+        } else {
+          return null;
+        }
       }
+    } catch (SQLException e) {
+      connection.evict(sql);
+      failed(table, e);
     }
+
+    return null;
   }
 
-  private void runDeleteSql(
-    @NotNull Connection connection, @NotNull String table, @NotNull ModelId[] ids) {
-    final List<String> list = new ArrayList<>();
-    for (ModelId id : ids) {
-      list.add(id.key() + "=?");
+  private List<Map<String, ProcessedModelField>> runSelectAllQuery(
+    @NotNull CachedConnection connection, @NotNull String table, @NotNull ModelId[] ids) {
+    final String sql = templates.selectAll(table, ids);
+
+    try {
+      final Map<String, StorageType> types = columnTypes(connection, table);
+      final PreparedStatement statement = connection.prepare(sql);
+      bindIds(statement, 1, types, ids);
+
+      try (ResultSet rs = statement.executeQuery()) {
+        final List<Map<String, ProcessedModelField>> data = new ArrayList<>();
+        final ResultSetMetaData meta = rs.getMetaData();
+        while (rs.next()) {
+          data.add(readRow(rs, meta, types));
+        }
+
+        return data;
+      }
+    } catch (SQLException e) {
+      connection.evict(sql);
+      failed(table, e);
     }
 
-    final String sql = String.format("delete from %s where %s;", table, String.join(" and ", list));
+    return null;
+  }
+
+  private List<Map<String, ProcessedModelField>> runSelectInQuery(
+    @NotNull CachedConnection connection,
+    @NotNull String table,
+    @NotNull String column,
+    @NotNull List<String> values)
+    throws SQLException {
+    final String sql = templates.selectIn(table, column, values.size());
 
-    try (PreparedStatement statement = connection.prepareStatement(sql)) {
-      for (int i = 1; i < ids.length + 1; i++) {
-        statement.setString(i, ids[i - 1].value());
+    try {
+      final Map<String, StorageType> types = columnTypes(connection, table);
+      final StorageType columnType = types.get(column);
+      final PreparedStatement statement = connection.prepare(sql);
+      for (int i = 0; i < values.size(); i++) {
+        ColumnValues.bind(statement, i + 1, columnType, values.get(i), gson);
       }
 
-      statement.execute();
+      try (ResultSet rs = statement.executeQuery()) {
+        final List<Map<String, ProcessedModelField>> data = new ArrayList<>();
+        final ResultSetMetaData meta = rs.getMetaData();
+        while (rs.next()) {
+          data.add(readRow(rs, meta, types));
+        }
+
+        return data;
+      }
     } catch (SQLException e) {
+      connection.evict(sql);
+      throw e;
+    }
+  }
+
+  @NotNull
+  private <T extends Model> Stream<T> streamRows(
+    @NotNull Class<T> type,
+    @NotNull Map<String, StorageType> types,
+    @NotNull ResultSet rs,
+    @NotNull AutoCloseable... resources)
+    throws SQLException {
+    final ResultSetMetaData meta = rs.getMetaData();
+    final Spliterator<T> rows =
+      new Spliterators.AbstractSpliterator<T>(
+        Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+          try {
+            if (!rs.next()) {
+              return false;
+            }
+
+            action.accept(deserializeModel(type, toProcessedModel(readRow(rs, meta, types))));
+
+            return true;
+          } catch (SQLException e) {
+            throw new RuntimeException(e);
+          }
+        }
+      };
+
+    return StreamSupport.stream(rows, false)
+      .onClose(
+        () -> {
+          closeQuietly(rs);
+          for (AutoCloseable resource : resources) {
+            closeQuietly(resource);
+          }
+        });
+  }
+
+  // Runs on a reader connection in WAL mode, otherwise on the writer connection between its
+  // transactions.
+  private <R> R read(@NotNull SQLiteWriter.Task<R> task) throws SQLException {
+    if (readers == null) {
+      return writer.callOutsideTransaction(task);
+    }
+
+    final CachedConnection conn = readers.acquire();
+    try {
+      return task.run(conn);
+    } finally {
+      readers.release(conn);
+    }
+  }
+
+  // Errors are still only logged, but also counted for the group they hit.
+  private void failed(@NotNull String group, @NotNull Exception e) {
+    e.printStackTrace();
+    options.getMetrics().recordError(group, e);
+  }
+
+  private void failed(@NotNull Collection<String> groups, @NotNull Exception e) {
+    e.printStackTrace();
+    for (String group : groups) {
+      options.getMetrics().recordError(group, e);
+    }
+  }
+
+  private static void closeQuietly(@NotNull AutoCloseable resource) {
+    try {
+      resource.close();
+    } catch (Exception e) {
       e.printStackTrace();
     }
   }
 
-  private Map<String, String> runSelectQuery(
-    @NotNull Connection connection, @NotNull String table, @NotNull ModelId[] ids) {
-    final List<String> list = new ArrayList<>();
-    for (ModelId id : ids) {
-      list.add(id.key() + "=?");
+  private void bindPage(
+    @NotNull PreparedStatement statement,
+    @NotNull Map<String, StorageType> types,
+    @NotNull PageRequest request,
+    boolean resumeTiebreaker,
+    @NotNull ModelId[] ids)
+    throws SQLException {
+    int index = bindIds(statement, 1, types, ids);
+
+    if (request.getAfter() != null) {
+      final StorageType sortType = types.get(request.getSortKey());
+      ColumnValues.bind(statement, index++, sortType, request.getAfter(), gson);
+
+      if (resumeTiebreaker) {
+        ColumnValues.bind(statement, index++, sortType, request.getAfter(), gson);
+        ColumnValues.bind(
+          statement,
+          index++,
+          types.get(request.getTiebreaker()),
+          Objects.requireNonNull(request.getAfterTiebreaker()),
+          gson);
+      }
     }
 
-    final String sql =
-      String.format("select * from %s where %s;", table, String.join(" and ", list));
+    // One extra row tells whether another page follows.
+    statement.setInt(index, request.getLimit() + 1);
+  }
 
-    try (PreparedStatement statement = connection.prepareStatement(sql)) {
-      for (int i = 1; i < ids.length + 1; i++) {
-        statement.setString(i, ids[i - 1].value());
+  @NotNull
+  private <T extends Model> Page<T> readPage(
+    @NotNull Class<T> type,
+    @NotNull Map<String, StorageType> types,
+    @NotNull PageRequest request,
+    @Nullable String tiebreaker,
+    @NotNull ResultSet rs)
+    throws SQLException {
+    final List<T> items = new ArrayList<>();
+    final ResultSetMetaData meta = rs.getMetaData();
+    Map<String, ProcessedModelField> last = null;
+
+    while (rs.next()) {
+      if (items.size() == request.getLimit()) {
+        Objects.requireNonNull(last);
+
+        return new Page<>(
+          items,
+          Keyset.token(
+            request.getSortKey(),
+            last.get(request.getSortKey()).value(),
+            tiebreaker,
+            tiebreaker == null ? null : last.get(tiebreaker)));
       }
 
-      try (ResultSet rs = statement.executeQuery()) {
-        if (rs.next()) {
-          final Map<String, String> map = new HashMap<>();
+      final Map<String, ProcessedModelField> row = readRow(rs, meta, types);
+      last = row;
+      items.add(deserializeModel(type, toProcessedModel(row)));
+    }
 
-          final ResultSetMetaData meta = rs.getMetaData();
-          for (int i = 1; i <= meta.getColumnCount(); i++) {
-            map.put(meta.getColumnName(i), rs.getString(i));
-          }
+    return new Page<>(items, null);
+  }
 
-          return map;
-        } else {
-          return null;
-        }
-      }
-    } catch (SQLException e) {
-      e.printStackTrace();
+  @NotNull
+  private Map<String, ProcessedModelField> readRow(
+    @NotNull ResultSet rs, @NotNull ResultSetMetaData meta, @NotNull Map<String, StorageType> types)
+    throws SQLException {
+    final Map<String, ProcessedModelField> map = new HashMap<>();
+    for (int i = 1; i <= meta.getColumnCount(); i++) {
+      final String column = meta.getColumnName(i);
+      map.put(column, ColumnValues.readField(rs, i, column, types.get(column), gson));
     }
 
-    return null;
+    return map;
   }
 
-  private List<Map<String, String>> runSelectAllQuery(
-    @NotNull Connection connection, @NotNull String table, @NotNull ModelId[] ids) {
-    String sql;
-    if(ids.length != 0) {
-      final List<String> list = new ArrayList<>();
-      for (ModelId id : ids) {
-        list.add(id.key() + "=?");
+  private int bindIds(
+    @NotNull PreparedStatement statement,
+    int index,
+    @NotNull Map<String, StorageType> types,
+    @NotNull ModelId[] ids)
+    throws SQLException {
+    for (ModelId id : ids) {
+      ColumnValues.bind(statement, index++, types.get(id.key()), id.value(), gson);
+    }
+
+    return index;
+  }
+
+  // Metadata pragmas answer from the connection's cached schema without checking whether
+  // another connection changed it since, such as the writer adding an index after a reader
+  // first saw the table; reading sqlite_master reloads it.
+  private static void reloadSchema(@NotNull CachedConnection connection) throws SQLException {
+    try (Statement statement = connection.getConnection().createStatement()) {
+      statement.executeQuery("select count(*) from sqlite_master;").close();
+    }
+  }
+
+  // Storage types of the table's typed columns, read from the database once per table.
+  @NotNull
+  private Map<String, StorageType> columnTypes(
+    @NotNull CachedConnection connection, @NotNull String table) throws SQLException {
+    final Map<String, StorageType> known = schema.getColumnTypes(table);
+    if (known != null) {
+      return known;
+    }
+
+    reloadSchema(connection);
+    final Map<String, StorageType> types = new HashMap<>();
+    boolean found = false;
+    try (ResultSet rs =
+           connection.getConnection().getMetaData().getColumns(null, null, table, null)) {
+      while (rs.next()) {
+        final StorageType type = ColumnTypes.fromMetadata(rs.getString("TYPE_NAME"));
+        found = true;
+
+        if (type != null) {
+          types.put(rs.getString("COLUMN_NAME"), type);
+        }
       }
+    }
 
-      sql =
-        String.format("select * from %s where %s;", table, String.join(" and ", list));
-    } else {
-      sql =
-        String.format("select * from %s;", table);
+    if (found) {
+      schema.setColumnTypes(table, types);
     }
 
-    try (PreparedStatement statement = connection.prepareStatement(sql)) {
-      for (int i = 0; i < ids.length; i++) {
-        ModelId id = ids[i];
-        statement.setString(i + 1, id.value());
+    return types;
+  }
+
+  @NotNull
+  private ProcessedModel toProcessedModel(@NotNull Map<String, ProcessedModelField> data) {
+    for (ProcessedModelField field : data.values()) {
+      if (field instanceof BinaryProcessedModelField) {
+        return new BinaryProcessedModel(data, gson);
       }
-      try (ResultSet rs = statement.executeQuery()) {
-        final List<Map<String, String>> data = new ArrayList<>();
-        while (rs.next()) {
-          final Map<String, String> map = new HashMap<>();
+    }
 
-          final ResultSetMetaData meta = rs.getMetaData();
-          for (int i = 1; i <= meta.getColumnCount(); i++) {
-            map.put(meta.getColumnName(i), rs.getString(i));
-          }
+    return new JSONProcessedModel(data, gson);
+  }
+
+  private void runInsertBatch(
+    @NotNull CachedConnection connection, @NotNull String table, @NotNull List<Model> models)
+    throws SQLException {
+    final RowWriter row = rows.get();
+    // Statements are taken from the cache once per batch: prepare() resets parameters, which
+    // must not happen to a statement with rows still pending.
+    final Map<String, PreparedStatement> statements = new HashMap<>();
+    final Map<String, int[]> pending = new HashMap<>();
+    final int batchSize = options.getBatchSize();
+    long bytes = 0;
+    String sql = null;
 
-          data.add(map);
+    try {
+      for (Model model : models) {
+        row.reset();
+        writeModel(model, row);
+        ensureTable(connection, table, row);
+
+        sql = row.insertSql(templates, table);
+        PreparedStatement statement = statements.get(sql);
+        if (statement == null) {
+          statement = connection.prepare(sql);
+          statements.put(sql, statement);
+          pending.put(sql, new int[1]);
         }
 
-        return data;
+        bytes += row.bind(statement, columnTypes(connection, table), gson);
+        statement.addBatch();
+
+        final int[] count = pending.get(sql);
+        if (++count[0] == batchSize) {
+          statement.executeBatch();
+          count[0] = 0;
+        }
       }
+
+      for (Map.Entry<String, PreparedStatement> entry : statements.entrySet()) {
+        sql = entry.getKey();
+        if (pending.get(sql)[0] != 0) {
+          entry.getValue().executeBatch();
+        }
+      }
+
+      options.getMetrics().recordSerializedBytes(table, bytes);
     } catch (SQLException e) {
-      e.printStackTrace();
-    }
+      if (sql != null) {
+        connection.evict(sql);
+      }
 
-    return null;
+      throw e;
+    } finally {
+      row.reset();
+    }
   }
 
-  private void runInsertSql(
-    @NotNull Connection connection, @NotNull String table, @NotNull ProcessedModel model) {
-    final List<String> keys = new ArrayList<>();
-
-    model
-      .values()
-      .forEach(
-        (k, v) -> keys.add(k));
-
-    final String sql =
-      String.format(
-        "replace into %s (%s) values (%s);",
-        table,
-        String.join(",", keys),
-        String.join(",", Collections.nCopies(keys.size(), "?")));
-
-    try (PreparedStatement statement = connection.prepareStatement(sql)) {
-      for (int i = 1; i < keys.size() + 1; i++) {
-        int finalI = i;
-        model
-          .getField(keys.get(i - 1))
-          .ifPresent(
-            field -> {
-              try {
-                statement.setString(finalI, field.value());
-              } catch (SQLException e) {
-                e.printStackTrace();
-              }
-            });
+  // Consecutive sets are batched per table; a delete first writes the sets queued before it.
+  private void runOperations(
+    @NotNull CachedConnection connection,
+    @NotNull List<DataStoreTransaction.Operation> operations)
+    throws SQLException {
+    final Map<String, List<Model>> inserts = new LinkedHashMap<>();
+
+    for (DataStoreTransaction.Operation operation : operations) {
+      if (!operation.isDelete()) {
+        inserts
+          .computeIfAbsent(getStoredGroup(operation.getModel().getClass()), k -> new ArrayList<>())
+          .add(operation.getModel());
+        continue;
       }
 
-      statement.execute();
-    } catch (SQLException e) {
-      e.printStackTrace();
+      for (Map.Entry<String, List<Model>> entry : inserts.entrySet()) {
+        runInsertBatch(connection, entry.getKey(), entry.getValue());
+      }
+      inserts.clear();
+
+      final String table = getStoredGroup(operation.getType());
+      if (!tableNotExists(connection, table)) {
+        runDeleteSql(connection, table, operation.getIds());
+      }
+    }
+
+    for (Map.Entry<String, List<Model>> entry : inserts.entrySet()) {
+      runInsertBatch(connection, entry.getKey(), entry.getValue());
+    }
+  }
+
+  private void ensureTable(
+    @NotNull CachedConnection connection, @NotNull String table, @NotNull RowWriter row) {
+    if (!options.isSchemaManagedExternally() && !schema.hasColumns(table, row.keys())) {
+      createTableIfNotExists(connection, table, row.toProcessedModel(gson));
     }
   }
 
-  private boolean tableNotExists(@NotNull Connection connection, @NotNull String table)
+  // DDL run outside of the write transaction commits on its own, before the insert that needs it.
+  private void ensureTableCommitted(@NotNull String table, @NotNull RowWriter row)
     throws SQLException {
-    return !connection.getMetaData().getTables(null, null, table, null).next();
+    if (options.isSchemaManagedExternally() || schema.hasColumns(table, row.keys())) {
+      return;
+    }
+
+    writer.callOutsideTransaction(
+      connection -> {
+        ensureTable(connection, table, row);
+
+        return null;
+      });
+  }
+
+  private boolean tableNotExists(@NotNull CachedConnection connection, @NotNull String table)
+    throws SQLException {
+    if (options.isSchemaManagedExternally() || schema.isKnown(table)) {
+      return false;
+    }
+
+    try (ResultSet rs = connection.getConnection().getMetaData().getTables(null, null, table, null)) {
+      if (!rs.next()) {
+        return true;
+      }
+    }
+
+    schema.markKnown(table);
+
+    return false;
   }
 
   @Override
   public void close() throws Exception {
-    conn.close();
+    maintenance.close();
+
+    try {
+      writer.close();
+    } finally {
+      if (readers != null) {
+        readers.close();
+      }
+    }
   }
 }
\ No newline at end of file
@@ -0,0 +1,88 @@
+package me.byteful.lib.datastore.sqlite;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Background housekeeping: WAL checkpoints, a bounded incremental_vacuum and an occasional
+// PRAGMA optimize. Runs on the writer thread between write batches, and only once the store
+// has been quiet for a while, so it never competes with a burst of writes.
+final class SQLiteMaintenance implements AutoCloseable {
+  private final SQLiteWriter writer;
+  private final SQLiteSettings settings;
+  @Nullable
+  private final ScheduledExecutorService scheduler;
+  // Only touched on the writer thread.
+  private long lastOptimize = System.nanoTime();
+
+  SQLiteMaintenance(@NotNull SQLiteWriter writer, @NotNull SQLiteSettings settings) {
+    this.writer = writer;
+    this.settings = settings;
+
+    final Duration interval = settings.getMaintenanceInterval();
+    if (interval == null) {
+      this.scheduler = null;
+      return;
+    }
+
+    this.scheduler =
+      Executors.newSingleThreadScheduledExecutor(
+        runnable -> {
+          final Thread thread = new Thread(runnable, "datastore-sqlite-maintenance");
+          thread.setDaemon(true);
+
+          return thread;
+        });
+
+    final long millis = interval.toMillis();
+    scheduler.scheduleWithFixedDelay(this::runIfQuiet, millis, millis, TimeUnit.MILLISECONDS);
+  }
+
+  void run() throws SQLException {
+    writer.callOutsideTransaction(
+      connection -> {
+        try (Statement statement = connection.getConnection().createStatement()) {
+          if (settings.getJournalMode() == SQLiteSettings.JournalMode.WAL) {
+            statement.execute("pragma wal_checkpoint(" + settings.getCheckpointMode().name() + ");");
+          }
+
+          if (settings.getAutoVacuum() == SQLiteSettings.AutoVacuum.INCREMENTAL) {
+            // execute() only steps the pragma once, which frees a single page.
+            statement.executeUpdate("pragma incremental_vacuum(" + settings.getVacuumPages() + ");");
+          }
+
+          if (System.nanoTime() - lastOptimize >= settings.getOptimizeInterval().toNanos()) {
+            statement.execute("pragma optimize;");
+            lastOptimize = System.nanoTime();
+          }
+        }
+
+        return null;
+      });
+  }
+
+  private void runIfQuiet() {
+    if (writer.idleNanos() < settings.getQuietPeriod().toNanos()) {
+      return;
+    }
+
+    try {
+      run();
+    } catch (SQLException | RuntimeException e) {
+      e.printStackTrace();
+    }
+  }
+
+  @Override
+  public void close() {
+    if (scheduler != null) {
+      scheduler.shutdownNow();
+    }
+  }
+}
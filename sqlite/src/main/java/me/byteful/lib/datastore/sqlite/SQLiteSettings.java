@@ -0,0 +1,332 @@
+package me.byteful.lib.datastore.sqlite;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.time.Duration;
+import java.util.Properties;
+
+// Connection level settings for SQLiteDataStore, read once when the store is opened. The
+// defaults match SQLite's own (rollback journal, synchronous=FULL), which runs reads on the
+// writer connection, and no background maintenance; production() switches to WAL with a few
+// parallel readers and periodic checkpointing, incremental vacuuming and optimizing.
+public class SQLiteSettings {
+  public static final int DEFAULT_BUSY_TIMEOUT = 1_000;
+  public static final int DEFAULT_READER_CONNECTIONS = 1;
+  public static final int DEFAULT_MAX_WRITE_BATCH = 256;
+  public static final int DEFAULT_VACUUM_PAGES = 1_024;
+  public static final Duration DEFAULT_QUIET_PERIOD = Duration.ofSeconds(5);
+  public static final Duration DEFAULT_OPTIMIZE_INTERVAL = Duration.ofHours(1);
+
+  private JournalMode journalMode = JournalMode.DELETE;
+  private Synchronous synchronous = Synchronous.FULL;
+  private TempStore tempStore = TempStore.DEFAULT;
+  @Nullable
+  private Integer cacheSize;
+  @Nullable
+  private Long mmapSize;
+  private int busyTimeout = DEFAULT_BUSY_TIMEOUT;
+  private int readerConnections = DEFAULT_READER_CONNECTIONS;
+  private int maxWriteBatch = DEFAULT_MAX_WRITE_BATCH;
+  @Nullable
+  private AutoVacuum autoVacuum;
+  @Nullable
+  private Duration maintenanceInterval;
+  private Duration quietPeriod = DEFAULT_QUIET_PERIOD;
+  private int vacuumPages = DEFAULT_VACUUM_PAGES;
+  private Duration optimizeInterval = DEFAULT_OPTIMIZE_INTERVAL;
+  private CheckpointMode checkpointMode = CheckpointMode.PASSIVE;
+
+  // WAL lets readers run alongside the writer, and synchronous=NORMAL only syncs on checkpoints,
+  // which is still durable against application crashes.
+  @NotNull
+  public static SQLiteSettings production() {
+    return new SQLiteSettings()
+      .setJournalMode(JournalMode.WAL)
+      .setSynchronous(Synchronous.NORMAL)
+      .setTempStore(TempStore.MEMORY)
+      .setCacheSize(-64 * 1024)
+      .setMmapSize(256L * 1024 * 1024)
+      .setBusyTimeout(5_000)
+      .setReaderConnections(Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors())))
+      .setAutoVacuum(AutoVacuum.INCREMENTAL)
+      .setMaintenanceInterval(Duration.ofMinutes(5));
+  }
+
+  @NotNull
+  public JournalMode getJournalMode() {
+    return journalMode;
+  }
+
+  @NotNull
+  public SQLiteSettings setJournalMode(@NotNull JournalMode journalMode) {
+    this.journalMode = journalMode;
+
+    return this;
+  }
+
+  @NotNull
+  public Synchronous getSynchronous() {
+    return synchronous;
+  }
+
+  @NotNull
+  public SQLiteSettings setSynchronous(@NotNull Synchronous synchronous) {
+    this.synchronous = synchronous;
+
+    return this;
+  }
+
+  @NotNull
+  public TempStore getTempStore() {
+    return tempStore;
+  }
+
+  @NotNull
+  public SQLiteSettings setTempStore(@NotNull TempStore tempStore) {
+    this.tempStore = tempStore;
+
+    return this;
+  }
+
+  @Nullable
+  public Integer getCacheSize() {
+    return cacheSize;
+  }
+
+  // Pages when positive, KiB when negative, as in PRAGMA cache_size. Null keeps SQLite's default.
+  @NotNull
+  public SQLiteSettings setCacheSize(@Nullable Integer cacheSize) {
+    this.cacheSize = cacheSize;
+
+    return this;
+  }
+
+  @Nullable
+  public Long getMmapSize() {
+    return mmapSize;
+  }
+
+  // Bytes of the database file to memory-map. Null keeps SQLite's default.
+  @NotNull
+  public SQLiteSettings setMmapSize(@Nullable Long mmapSize) {
+    if (mmapSize != null && mmapSize < 0) {
+      throw new IllegalArgumentException("Mmap size must not be negative, got " + mmapSize);
+    }
+
+    this.mmapSize = mmapSize;
+
+    return this;
+  }
+
+  public int getBusyTimeout() {
+    return busyTimeout;
+  }
+
+  @NotNull
+  public SQLiteSettings setBusyTimeout(int busyTimeout) {
+    if (busyTimeout < 0) {
+      throw new IllegalArgumentException("Busy timeout must not be negative, got " + busyTimeout);
+    }
+
+    this.busyTimeout = busyTimeout;
+
+    return this;
+  }
+
+  public int getReaderConnections() {
+    return readerConnections;
+  }
+
+  // Only used in WAL mode; in the other journal modes a reader would block the writer's commits.
+  @NotNull
+  public SQLiteSettings setReaderConnections(int readerConnections) {
+    this.readerConnections = requirePositive("Reader connections", readerConnections);
+
+    return this;
+  }
+
+  public int getMaxWriteBatch() {
+    return maxWriteBatch;
+  }
+
+  // Most queued writes the writer thread commits in one transaction.
+  @NotNull
+  public SQLiteSettings setMaxWriteBatch(int maxWriteBatch) {
+    this.maxWriteBatch = requirePositive("Max write batch", maxWriteBatch);
+
+    return this;
+  }
+
+  @Nullable
+  public AutoVacuum getAutoVacuum() {
+    return autoVacuum;
+  }
+
+  // Only takes effect on a database without tables yet; an existing file keeps its mode until
+  // SQLiteDataStore#vacuum rebuilds it. Null leaves the file's mode alone.
+  @NotNull
+  public SQLiteSettings setAutoVacuum(@Nullable AutoVacuum autoVacuum) {
+    this.autoVacuum = autoVacuum;
+
+    return this;
+  }
+
+  @Nullable
+  public Duration getMaintenanceInterval() {
+    return maintenanceInterval;
+  }
+
+  // How often background maintenance is attempted. Null disables it.
+  @NotNull
+  public SQLiteSettings setMaintenanceInterval(@Nullable Duration maintenanceInterval) {
+    if (maintenanceInterval != null
+      && (maintenanceInterval.isNegative() || maintenanceInterval.isZero())) {
+      throw new IllegalArgumentException(
+        "Maintenance interval must be positive, got " + maintenanceInterval);
+    }
+
+    this.maintenanceInterval = maintenanceInterval;
+
+    return this;
+  }
+
+  @NotNull
+  public Duration getQuietPeriod() {
+    return quietPeriod;
+  }
+
+  // Maintenance is skipped unless nothing has been written for at least this long.
+  @NotNull
+  public SQLiteSettings setQuietPeriod(@NotNull Duration quietPeriod) {
+    if (quietPeriod.isNegative()) {
+      throw new IllegalArgumentException("Quiet period must not be negative, got " + quietPeriod);
+    }
+
+    this.quietPeriod = quietPeriod;
+
+    return this;
+  }
+
+  public int getVacuumPages() {
+    return vacuumPages;
+  }
+
+  // Most free pages one maintenance run hands back to the file system with incremental_vacuum.
+  @NotNull
+  public SQLiteSettings setVacuumPages(int vacuumPages) {
+    this.vacuumPages = requirePositive("Vacuum pages", vacuumPages);
+
+    return this;
+  }
+
+  @NotNull
+  public Duration getOptimizeInterval() {
+    return optimizeInterval;
+  }
+
+  // Minimum time between two PRAGMA optimize runs, which re-analyzes tables that need it.
+  @NotNull
+  public SQLiteSettings setOptimizeInterval(@NotNull Duration optimizeInterval) {
+    if (optimizeInterval.isNegative()) {
+      throw new IllegalArgumentException(
+        "Optimize interval must not be negative, got " + optimizeInterval);
+    }
+
+    this.optimizeInterval = optimizeInterval;
+
+    return this;
+  }
+
+  @NotNull
+  public CheckpointMode getCheckpointMode() {
+    return checkpointMode;
+  }
+
+  // Only used in WAL mode. PASSIVE never waits for readers; the others can.
+  @NotNull
+  public SQLiteSettings setCheckpointMode(@NotNull CheckpointMode checkpointMode) {
+    this.checkpointMode = checkpointMode;
+
+    return this;
+  }
+
+  @NotNull
+  Properties writerProperties() {
+    final Properties properties = sharedProperties();
+    properties.setProperty("foreign_keys", "on");
+    properties.setProperty("journal_mode", journalMode.name());
+    properties.setProperty("synchronous", synchronous.name());
+    // Take the write lock up front, so a transaction never has to upgrade a read lock.
+    properties.setProperty("transaction_mode", "IMMEDIATE");
+
+    return properties;
+  }
+
+  @NotNull
+  Properties readerProperties() {
+    final Properties properties = sharedProperties();
+    // SQLITE_OPEN_READONLY
+    properties.setProperty("open_mode", "1");
+
+    return properties;
+  }
+
+  @NotNull
+  private Properties sharedProperties() {
+    final Properties properties = new Properties();
+    properties.setProperty("busy_timeout", String.valueOf(busyTimeout));
+    properties.setProperty("temp_store", tempStore.name());
+
+    if (cacheSize != null) {
+      properties.setProperty("cache_size", String.valueOf(cacheSize));
+    }
+
+    if (mmapSize != null) {
+      properties.setProperty("mmap_size", String.valueOf(mmapSize));
+    }
+
+    return properties;
+  }
+
+  private static int requirePositive(@NotNull String name, int value) {
+    if (value < 1) {
+      throw new IllegalArgumentException(name + " must be at least 1, got " + value);
+    }
+
+    return value;
+  }
+
+  public enum JournalMode {
+    DELETE,
+    TRUNCATE,
+    PERSIST,
+    WAL
+  }
+
+  public enum Synchronous {
+    OFF,
+    NORMAL,
+    FULL,
+    EXTRA
+  }
+
+  public enum TempStore {
+    DEFAULT,
+    FILE,
+    MEMORY
+  }
+
+  public enum AutoVacuum {
+    NONE,
+    FULL,
+    INCREMENTAL
+  }
+
+  public enum CheckpointMode {
+    PASSIVE,
+    FULL,
+    RESTART,
+    TRUNCATE
+  }
+}
@@ -0,0 +1,22 @@
+package me.byteful.lib.datastore.sqlite;
+
+import me.byteful.lib.datastore.api.data.internal.StatementTemplates;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collections;
+
+final class SQLiteStatementTemplates extends StatementTemplates {
+  @Override
+  protected @NotNull String clearSql(@NotNull String table) {
+    return String.format("delete from %s;", table);
+  }
+
+  @Override
+  protected @NotNull String insertSql(@NotNull String table, @NotNull String[] columns) {
+    return String.format(
+      "replace into %s (%s) values (%s);",
+      table,
+      String.join(",", columns),
+      String.join(",", Collections.nCopies(columns.length, "?")));
+  }
+}
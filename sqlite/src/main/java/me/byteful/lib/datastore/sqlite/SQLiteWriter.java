@@ -0,0 +1,276 @@
+package me.byteful.lib.datastore.sqlite;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+
+// Owns the only connection that writes. Callers hand it tasks and block until the transaction
+// holding them has committed; whatever queued up in the meantime is committed along with it,
+// each task in its own savepoint so a failing one doesn't roll back the others.
+final class SQLiteWriter implements AutoCloseable {
+  private static final Write<?> STOP = new Write<>(connection -> null, false);
+
+  private final CachedConnection connection;
+  private final int maxBatch;
+  private final BlockingQueue<Write<?>> queue = new LinkedBlockingQueue<>();
+  private final Thread thread;
+  private boolean running = true;
+  // The transactional task the writer thread is running right now, if any.
+  private Write<?> current;
+  private volatile long lastActivity = System.nanoTime();
+
+  SQLiteWriter(@NotNull CachedConnection connection, int maxBatch) {
+    this.connection = connection;
+    this.maxBatch = maxBatch;
+    this.thread = new Thread(this::loop, "datastore-sqlite-writer");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  <R> R call(@NotNull Task<R> task) throws SQLException {
+    return submit(task, true);
+  }
+
+  // For statements SQLite refuses to run inside a transaction, such as VACUUM.
+  <R> R callOutsideTransaction(@NotNull Task<R> task) throws SQLException {
+    return submit(task, false);
+  }
+
+  // Runs the action once the current task's transaction has committed, or right away when no
+  // transaction is open. Actions registered by a task that fails are dropped.
+  void afterCommit(@NotNull Runnable action) {
+    final Write<?> write = Thread.currentThread() == thread ? current : null;
+    if (write == null) {
+      action.run();
+      return;
+    }
+
+    if (write.onCommit == null) {
+      write.onCommit = new ArrayList<>(2);
+    }
+
+    write.onCommit.add(action);
+  }
+
+  // How long the writer has had nothing to do; zero while anything is queued.
+  long idleNanos() {
+    return queue.isEmpty() ? System.nanoTime() - lastActivity : 0;
+  }
+
+  private <R> R submit(@NotNull Task<R> task, boolean transactional) throws SQLException {
+    // Tasks that write again from inside the writer are already in its transaction.
+    if (Thread.currentThread() == thread) {
+      return task.run(connection);
+    }
+
+    final Write<R> write = new Write<>(task, transactional);
+    synchronized (this) {
+      if (!running) {
+        throw new IllegalStateException("SQLite writer has been closed");
+      }
+
+      queue.add(write);
+    }
+
+    return write.await();
+  }
+
+  private void loop() {
+    final List<Write<?>> batch = new ArrayList<>();
+
+    while (true) {
+      final Write<?> first;
+      try {
+        first = queue.take();
+      } catch (InterruptedException e) {
+        continue;
+      }
+
+      if (first == STOP) {
+        return;
+      }
+
+      if (!first.transactional) {
+        first.run(connection);
+        lastActivity = System.nanoTime();
+        first.done.countDown();
+        continue;
+      }
+
+      batch.add(first);
+      Write<?> next;
+      while (batch.size() < maxBatch && (next = queue.peek()) != null && next.transactional) {
+        batch.add(queue.poll());
+      }
+
+      commit(batch);
+      batch.clear();
+    }
+  }
+
+  private void commit(@NotNull List<Write<?>> batch) {
+    final Connection raw = connection.getConnection();
+
+    try {
+      raw.setAutoCommit(false);
+
+      for (Write<?> write : batch) {
+        current = write;
+        try {
+          write.runInSavepoint(connection);
+        } finally {
+          current = null;
+        }
+      }
+
+      raw.commit();
+
+      for (Write<?> write : batch) {
+        write.committed();
+      }
+    } catch (SQLException e) {
+      try {
+        raw.rollback();
+      } catch (SQLException rollback) {
+        e.addSuppressed(rollback);
+      }
+
+      for (Write<?> write : batch) {
+        if (write.error == null) {
+          write.error = e;
+        }
+      }
+    } finally {
+      try {
+        raw.setAutoCommit(true);
+      } catch (SQLException e) {
+        e.printStackTrace();
+      }
+    }
+
+    lastActivity = System.nanoTime();
+    for (Write<?> write : batch) {
+      write.done.countDown();
+    }
+  }
+
+  @Override
+  public void close() throws SQLException {
+    synchronized (this) {
+      if (!running) {
+        return;
+      }
+
+      running = false;
+      queue.add(STOP);
+    }
+
+    // Everything queued before close() still gets written.
+    boolean interrupted = false;
+    while (thread.isAlive()) {
+      try {
+        thread.join();
+      } catch (InterruptedException e) {
+        interrupted = true;
+      }
+    }
+
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+
+    connection.close();
+  }
+
+  @FunctionalInterface
+  interface Task<R> {
+    R run(@NotNull CachedConnection connection) throws SQLException;
+  }
+
+  private static final class Write<R> {
+    private final Task<R> task;
+    private final boolean transactional;
+    private final CountDownLatch done = new CountDownLatch(1);
+    private R result;
+    private Throwable error;
+    private List<Runnable> onCommit;
+
+    private Write(@NotNull Task<R> task, boolean transactional) {
+      this.task = task;
+      this.transactional = transactional;
+    }
+
+    private void run(@NotNull CachedConnection connection) {
+      try {
+        result = task.run(connection);
+      } catch (Throwable t) {
+        error = t;
+      }
+    }
+
+    private void runInSavepoint(@NotNull CachedConnection connection) throws SQLException {
+      final Connection raw = connection.getConnection();
+      final Savepoint savepoint = raw.setSavepoint();
+
+      run(connection);
+
+      if (error == null) {
+        raw.releaseSavepoint(savepoint);
+      } else {
+        onCommit = null;
+        raw.rollback(savepoint);
+      }
+    }
+
+    private void committed() {
+      if (onCommit == null) {
+        return;
+      }
+
+      for (Runnable action : onCommit) {
+        try {
+          action.run();
+        } catch (RuntimeException e) {
+          e.printStackTrace();
+        }
+      }
+    }
+
+    // Not interruptible: the task may still be reading the caller's state on the writer
+    // thread, so the caller can't move on before it has run.
+    private R await() throws SQLException {
+      boolean interrupted = false;
+      while (true) {
+        try {
+          done.await();
+          break;
+        } catch (InterruptedException e) {
+          interrupted = true;
+        }
+      }
+
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+
+      if (error == null) {
+        return result;
+      } else if (error instanceof SQLException) {
+        throw (SQLException) error;
+      } else if (error instanceof RuntimeException) {
+        throw (RuntimeException) error;
+      } else if (error instanceof Error) {
+        throw (Error) error;
+      }
+
+      throw new SQLException(error);
+    }
+  }
+}